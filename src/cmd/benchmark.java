@@ -0,0 +1,46 @@
+/**
+ * @file benchmark.java
+ * @author Alex Rodriguez
+ * @brief Benchmark entrypoint class specification.
+ */
+package cmd;
+
+import java.util.List;
+
+import domain.Board;
+import test.benchmark.Benchmark;
+import test.benchmark.BoardBenchmark;
+import test.benchmark.SearchBenchmark;
+
+/**
+ * @class benchmark
+ * @brief Benchmark entrypoint. It measures the Board operations and the searches with the Boards of the fixtures.
+ * By Alex Rodriguez.
+ */
+public class benchmark {
+    /**
+     * @brief Benchmark main function.
+     * Runs the benchmarks whose name contains the given argument (all of them by default). The Board operations and the
+     * evaluations run 5 warmup and 5 measurement iterations of 1 second, and the levels 2 warmup and 5 measurement
+     * iterations of at least 2 seconds. Every iteration goes through all the Boards the same number of times.
+     * @pre <em>True</em>
+     * @post The score and error of every benchmark are printed.
+     */
+    public static void main(String[] args) {
+        String filter = (args.length > 0 ? args[0] : null);
+        List<Board> boards = Benchmark.fixtures();
+        if (boards.isEmpty()) {
+            System.out.println("There isn't any fixture where a piece can be placed.");
+            return;
+        }
+
+        Benchmark benchmark = new Benchmark(5, 5, 1000, boards.size(), filter);
+        Benchmark searchBenchmark = new Benchmark(2, 5, 2000, boards.size(), filter);
+
+        System.out.println(String.format("%d fixtures, %d processors, Java %s", boards.size(),
+                Runtime.getRuntime().availableProcessors(), System.getProperty("java.version")));
+        Benchmark.printHeader();
+        new BoardBenchmark(boards).run(benchmark);
+        new SearchBenchmark(boards).run(benchmark, searchBenchmark);
+    }
+}
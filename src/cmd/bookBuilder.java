@@ -0,0 +1,46 @@
+/**
+ * @file bookBuilder.java
+ * @author Alex Rodriguez
+ * @brief OpeningBookBuilder entrypoint class specification.
+ */
+package cmd;
+
+import java.util.Random;
+
+import domain.OpeningBookBuilder;
+import domain.PatternEvaluator;
+import repository.BookRepositoryCtrl;
+import repository.WeightsRepositoryCtrl;
+
+/**
+ * @class bookBuilder
+ * @brief OpeningBookBuilder entrypoint. It builds the opening book with self-play games and saves it in the Book repository.
+ * By Alex Rodriguez.
+ */
+public class bookBuilder {
+    /**
+     * @brief OpeningBookBuilder main function.
+     * Plays the given number of self-play games (20000 by default), recording their first 12 moves, and saves the moves
+     * played in at least the given number of games (8 by default) as the "openings" book. The games use the "patterns"
+     * weights of the Weights repository if they exist.
+     * @pre The arguments, if given, are positive numbers.
+     * @post The "openings" book of the Book repository is the built one.
+     */
+    public static void main(String[] args) {
+        int games = (args.length > 0 ? Integer.parseInt(args[0]) : 20000);
+        int minGames = (args.length > 1 ? Integer.parseInt(args[1]) : 8);
+        Random random = new Random(0x4F424F4BL);
+        OpeningBookBuilder openingBookBuilder = new OpeningBookBuilder(12, true, true, true);
+
+        byte[] weights = new WeightsRepositoryCtrl().get("patterns");
+        PatternEvaluator evaluator = (weights != null ? PatternEvaluator.fromBytes(weights) : null);
+
+        for (int game = 1; game <= games; ++game) {
+            openingBookBuilder.addGame(openingBookBuilder.selfPlay(random, evaluator, 4, 0.15));
+            if (game % 500 == 0)
+                System.out.printf("%d games, %d positions\n", game, openingBookBuilder.getPositions());
+        }
+
+        new BookRepositoryCtrl().save("openings", openingBookBuilder.build(minGames));
+    }
+}
@@ -0,0 +1,37 @@
+/**
+ * @file migrate.java
+ * @author Alex Rodriguez
+ * @brief Migrate entrypoint class specification.
+ */
+package cmd;
+
+import java.io.IOException;
+
+import repository.Repository;
+import repository.Repository.RepositoryType;
+import repository.Repository.StorageType;
+
+/**
+ * @class migrate
+ * @brief Migrate entrypoint. It copies the databases from a storage backend to the other one.
+ * By Alex Rodriguez.
+ */
+public class migrate {
+    /**
+     * @brief Migrate main function.
+     * Copies the configuration, game, player and ranking databases to the given storage backend ("pages" by default) from
+     * the other one, which isn't modified. The application must not be running.
+     * @pre The argument, if given, is "json" or "pages".
+     * @post The databases of the given storage backend contain the entries of the other one, and the number of entries of
+     * each database is printed.
+     */
+    public static void main(String[] args) throws IOException {
+        StorageType to = (args.length > 0 && args[0].equalsIgnoreCase("json") ? StorageType.JSON : StorageType.PAGES);
+        StorageType from = (to == StorageType.JSON ? StorageType.PAGES : StorageType.JSON);
+
+        RepositoryType[] databases = {RepositoryType.CONFIGURATION, RepositoryType.GAME, RepositoryType.PLAYER,
+                RepositoryType.RANKING};
+        for (RepositoryType database : databases)
+            System.out.printf("%-14s %6d entries %s -> %s\n", database, Repository.migrate(database, from, to), from, to);
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * @file perft.java
+ * @author Alex Rodriguez
+ * @brief Perft entrypoint class specification.
+ */
+package cmd;
+
+import domain.Board;
+import domain.Board.PieceType;
+import repository.FixtureRepository;
+import test.benchmark.Perft;
+
+/**
+ * @class perft
+ * @brief Perft entrypoint. It verifies the move generation with every rule set and measures its speed.
+ * By Alex Rodriguez.
+ */
+public class perft {
+    /**
+     * @brief Perft main function.
+     * Counts the leaf nodes up to the given depth (8 by default) from the Board of the given fixture file (the initial Board
+     * by default) with PLAYER1 to move, with every rule set. Each count with the bitboard moves is checked against the count
+     * with the reference moves of the frozen ReferenceBoard and, from the initial Board, against the known count.
+     * @pre The first argument, if given, is a number not negative. The second one, if given, is the path of a fixture file.
+     * @post The counts, their time and the leaf nodes per second of every rule set are printed. If any count is wrong, the
+     * program exits with status 1.
+     */
+    public static void main(String[] args) {
+        int depth = (args.length > 0 ? Integer.parseInt(args[0]) : 8);
+        Board board = (args.length > 1 ? new Board(new FixtureRepository().boardFileToJSON(args[1])) : new Board());
+        boolean initial = (args.length <= 1);
+        boolean failed = false;
+
+        System.out.printf("%-6s %12s %12s %12s %10s %12s %s\n", "Rules", "Nodes", "Reference", "Expected", "ms", "Nodes/s", "Result");
+        for (int rules = 1; rules < 8; ++rules) {
+            Perft perft = new Perft((rules & 1) != 0, (rules & 2) != 0, (rules & 4) != 0);
+
+            long start = System.nanoTime();
+            long nodes = perft.count(board, PieceType.PLAYER1, depth);
+            long elapsed = Math.max(System.nanoTime() - start, 1);
+            long reference = perft.countReference(board, PieceType.PLAYER1, depth);
+            long expected = (initial ? perft.expected(depth) : -1);
+
+            boolean ok = (nodes == reference && (expected < 0 || nodes == expected));
+            failed |= !ok;
+            System.out.printf("%s%s%s    %12d %12d %12s %10.1f %12.0f %s\n", ((rules & 1) != 0 ? "H" : "-"),
+                    ((rules & 2) != 0 ? "V" : "-"), ((rules & 4) != 0 ? "D" : "-"), nodes, reference,
+                    (expected < 0 ? "?" : Long.toString(expected)), elapsed / 1e6, nodes * 1e9 / elapsed, (ok ? "OK" : "FAIL"));
+        }
+
+        if (failed) System.exit(1);
+    }
+}
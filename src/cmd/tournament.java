@@ -0,0 +1,45 @@
+/**
+ * @file tournament.java
+ * @author Alex Rodriguez
+ * @brief Tournament entrypoint class specification.
+ */
+package cmd;
+
+import java.util.Arrays;
+
+import domain.Tournament;
+
+/**
+ * @class tournament
+ * @brief Tournament entrypoint. It plays a round-robin tournament between bot levels with every playable rule set and
+ * prints the standings.
+ * By Alex Rodriguez.
+ */
+public class tournament {
+    /**
+     * @brief Tournament main function.
+     * Plays the given number of openings (1 by default) between every pair of the given levels (all of them by default)
+     * with every rule set of Tournament.ruleSets, each opening twice with the colours swapped, on the given number of
+     * threads (one for each available processor by default). The openings are 4 random moves. Then it prints the Elo
+     * estimate, the wins, draws and losses, the score and the mean time per move of each level.
+     * @pre The first two arguments, if given, are positive numbers, and the rest are different levels between 1 and 10.
+     * @post The standings of the tournament are printed.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int openings = (args.length > 0 ? Integer.parseInt(args[0]) : 1);
+        int threads = (args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors());
+        int[] levels = (args.length > 2 ? Arrays.stream(args, 2, args.length).mapToInt(Integer::parseInt).toArray()
+                : new int[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10});
+
+        Tournament tournament = new Tournament(levels, Tournament.ruleSets(), openings, 4, threads, 0x544F5552L);
+        long start = System.nanoTime();
+        tournament.play();
+
+        System.out.printf("%-6s %7s %6s %6s %6s %7s %10s\n", "Level", "Elo", "Wins", "Draws", "Losses", "Score", "ms/move");
+        for (Tournament.Standing standing : tournament.getStandings())
+            System.out.printf("%-6d %+7.0f %6d %6d %6d %6.1f%% %10.2f\n", standing.getLevel(), standing.getElo(),
+                    standing.getWins(), standing.getDraws(), standing.getLosses(), 100 * standing.getScore(),
+                    standing.getMillisPerMove());
+        System.out.printf("%d rule sets, %.1f s\n", Tournament.ruleSets().size(), (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,46 @@
+/**
+ * @file trainer.java
+ * @author Alex Rodriguez
+ * @brief PatternTrainer entrypoint class specification.
+ */
+package cmd;
+
+import java.util.Random;
+
+import domain.PatternTrainer;
+import repository.WeightsRepositoryCtrl;
+
+/**
+ * @class trainer
+ * @brief PatternTrainer entrypoint. It trains the weights of the PatternEvaluator with self-play games and saves them
+ * in the Weights repository.
+ * By Alex Rodriguez.
+ */
+public class trainer {
+    /**
+     * @brief PatternTrainer main function.
+     * Plays the given number of self-play games (20000 by default), fits the weights to them with the given number of
+     * passes (10 by default) and saves them as the "patterns" weights.
+     * @pre The arguments, if given, are positive numbers.
+     * @post The "patterns" weights of the Weights repository are the trained ones.
+     */
+    public static void main(String[] args) {
+        int games = (args.length > 0 ? Integer.parseInt(args[0]) : 20000);
+        int epochs = (args.length > 1 ? Integer.parseInt(args[1]) : 10);
+        Random random = new Random(0x4F504154L);
+        PatternTrainer patternTrainer = new PatternTrainer(true, true, true);
+
+        for (int game = 1; game <= games; ++game) {
+            patternTrainer.addGame(patternTrainer.selfPlay(random, 8, 0.1));
+            if (game % 1000 == 0)
+                System.out.printf("%d games, %d positions\n", game, patternTrainer.getPositions());
+        }
+
+        for (int epoch = 1; epoch <= epochs; ++epoch) {
+            double learningRate = 0.01 / epoch;
+            System.out.printf("Epoch %d: mean squared error %.2f\n", epoch, patternTrainer.train(1, learningRate, random));
+        }
+
+        new WeightsRepositoryCtrl().save("patterns", patternTrainer.toEvaluator().toBytes());
+    }
+}
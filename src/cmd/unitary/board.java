@@ -0,0 +1,27 @@
+/**
+ * @file board.java
+ * @author Alex Rodriguez
+ * @brief JUnit Board tests entrypoint class specification.
+ */
+package cmd.unitary;
+
+import org.junit.runner.JUnitCore;
+
+import test.unitary.BoardJUnit;
+
+/**
+ * @class board
+ * @brief JUnit Board tests entrypoint.
+ * By Alex Rodriguez.
+ */
+public class board {
+    /**
+     * @brief JUnit Board tests main function.
+     * Calls the JUnitCore main entrypoint and runs the Board unitary tests.
+     * @pre <em>True</em>.
+     * @post The JUnit Board tests have started.
+     */
+    public static void main(String[] args) {
+        JUnitCore.main(new BoardJUnit().getClass().getName());
+    }
+}
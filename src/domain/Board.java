@@ -6,17 +6,60 @@
 package domain;
 
 import util.Pair;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Random;
 import domain.Exceptions.InvalidBoardException;
 import org.json.JSONObject;
 
-/** 
+/**
  * @class Board
  * @brief <p> This class represents an Othello Board in our project.</p>
+ * &nbsp; The cells are stored as two 64-bit masks (bitboards), one per player, where the cell (row, column) is the bit number row * 8 + column.
+ * Move generation and piece capturing are computed with shifts and masks over the whole board at once.<p></p>
  * &nbsp; Done by Manuel Navid
 */
 public class Board {
 
+    /* CONSTANTS */
+    /**
+     * @brief Mask of every cell of the Board except the ones in column 0.
+     * */
+    private static final long NOT_COLUMN_0 = 0xFEFEFEFEFEFEFEFEL;
+    /**
+     * @brief Mask of every cell of the Board except the ones in column 7.
+     * */
+    private static final long NOT_COLUMN_7 = 0x7F7F7F7F7F7F7F7FL;
+    /**
+     * @brief Directions in which pieces can be captured. Horizontal directions are 0 and 1, vertical are 2 and 3 and diagonal are 4 to 7.
+     * */
+    private static final int RIGHT = 0, LEFT = 1, DOWN = 2, UP = 3, DOWN_RIGHT = 4, UP_LEFT = 5, DOWN_LEFT = 6, UP_RIGHT = 7;
+    /**
+     * @brief Zobrist keys of the cells of the Board: one random 64-bit number for each player and cell. The first index is the PieceType ordinal.
+     * */
+    private static final long[][] ZOBRIST_KEYS = Board.zobristKeys();
+    /**
+     * @brief Zobrist keys of the cells of the Board when their piece changes from one player to the other.
+     * */
+    private static final long[] ZOBRIST_FLIP_KEYS = Board.zobristFlipKeys();
+    /**
+     * @brief Number of symmetries of the Board: the 4 rotations and the 4 reflections.
+     * */
+    public static final int SYMMETRIES = 8;
+    /**
+     * @brief Symmetries of the Board, as used by transform and transformSquare. The rotations are clockwise.
+     * */
+    public static final int IDENTITY = 0, ROTATE_180 = 1, MIRROR_HORIZONTAL = 2, MIRROR_VERTICAL = 3, MIRROR_DIAGONAL = 4,
+            MIRROR_ANTI_DIAGONAL = 5, ROTATE_90 = 6, ROTATE_270 = 7;
+    /**
+     * @brief Size in bytes of the binary representation of a Board, as written by toBytes: the two bitboards.
+     * */
+    public static final int BYTES = 2 * Long.BYTES;
+    /**
+     * @brief Keys of the rows of the Board in its JSON format.
+     * */
+    private static final String[] ROWS = {"row0", "row1", "row2", "row3", "row4", "row5", "row6", "row7"};
+
     /* ATTRIBUTES */
     /**
      * @brief The status of a cell of the Board.
@@ -27,95 +70,109 @@ public class Board {
      * */
     public enum PieceType {PLAYER1, PLAYER2};
     /**
-     * @brief A matrix of 64 cells that composes an Othello board. Its the data structure that stores the different cells of the Board. 
+     * @brief Bitboard of the cells of the Board where PLAYER1 has a piece.
      * */
-    private PieceType[][] board;
+    private long player1;
     /**
-     * @brief PLAYER1's total number of pieces on the Board.
+     * @brief Bitboard of the cells of the Board where PLAYER2 has a piece.
      * */
-    private Integer piecesPlayer1;
+    private long player2;
     /**
-     * @brief PLAYER2's total number of pieces on the Board.
+     * @brief A matrix of 64 cells built from the bitboards the first time it is asked for. It is null when it has to be built again.
      * */
-    private Integer piecesPlayer2;
-    
+    private PieceType[][] board;
+    /**
+     * @brief Zobrist hash of the Board: the XOR of the Zobrist keys of all its pieces. It is updated at every change.
+     * */
+    private long hash;
+
     //Constructors
 
     /**
     * @brief Creator method that instances a default Othello Board.
     * @pre <em>True</em>
     * @post <p> A new instance of Board is instanced with the default values inserted: 2 white pieces in the middle of the board crossed by 2 black pieces. </p>
-    &nbsp; Therefore, <em>piecesPlayer1</em> = 2 and <em>piecesPlayer2</em> = 2.
+    &nbsp; Therefore, PLAYER1 and PLAYER2 have 2 pieces each in their bitboards.
     */
 
     public Board()
     {
-        this.board = new PieceType[8][8];
-
         //Initial Pieces
-        this.board[3][3] = PieceType.PLAYER1;
-        this.board[4][4] = PieceType.PLAYER1;
-        this.board[4][3] = PieceType.PLAYER2;
-        this.board[3][4] = PieceType.PLAYER2;
-
-        this.piecesPlayer1 = 2;
-        this.piecesPlayer2 = 2;
+        this.player1 = Board.bit(3, 3) | Board.bit(4, 4);
+        this.player2 = Board.bit(4, 3) | Board.bit(3, 4);
+        this.board = null;
+        this.hash = Board.hash(this.player1, this.player2);
     }
-    
+
     /**
      * @brief Creator method that instances a Board based off a JSON object <em>jsonBoard</em>.
      * @pre <em>True</em>
-     * @post <p> A new instance of Board is instanced with the <em>board</em> attribute equal to a board given to us by the JSON object <em>jsonBoard</em>.</p>
-     * &nbsp; In addition, the attributes <em>PiecesPlayer1</em> and <em>PiecesPlayer2</em> will have different values based off of the modified <em>board</em> attribute.
+     * @post <p> A new instance of Board is instanced with the cells of the board given to us by the JSON object <em>jsonBoard</em>.</p>
+     * &nbsp; The bitboards of PLAYER1 and PLAYER2, and so their number of pieces, are set from those cells.
      * @param jsonBoard JSON object that stores a state of an Othello board (8 rows with 8 elements each with characters equal to: B,N or ?)
      */
-    public Board(JSONObject jsonBoard) 
+    public Board(JSONObject jsonBoard)
     {
-        this.board = new PieceType[8][8];
-        this.piecesPlayer1 = 0;
-        this.piecesPlayer2 = 0;
+        this.player1 = 0L;
+        this.player2 = 0L;
+        this.board = null;
 
-        String row0 = jsonBoard.getString("row0");
-        String row1 = jsonBoard.getString("row1");
-        String row2 = jsonBoard.getString("row2");
-        String row3 = jsonBoard.getString("row3");
-        String row4 = jsonBoard.getString("row4");
-        String row5 = jsonBoard.getString("row5");
-        String row6 = jsonBoard.getString("row6");
-        String row7 = jsonBoard.getString("row7");
-
-        this.transcribeToPieceType(row0, 0);
-        this.transcribeToPieceType(row1, 1);
-        this.transcribeToPieceType(row2, 2);
-        this.transcribeToPieceType(row3, 3);
-        this.transcribeToPieceType(row4, 4);
-        this.transcribeToPieceType(row5, 5);
-        this.transcribeToPieceType(row6, 6);
-        this.transcribeToPieceType(row7, 7);
+        for(int i = 0; i < 8; ++i)
+            this.transcribeToPieceType(jsonBoard.getString(ROWS[i]), i);
+        this.hash = Board.hash(this.player1, this.player2);
     }
 
     /**
      * @brief Creator method that instances a Board based off another board container (matrix of PieceTypes).
      * @pre The parameter <em>board</em> is of size 8x8.
-     * @post <p>An instance of Board is instanced with the <em>board</em> attribute equal to the <em>board</em> parameter.</p>
-     * &nbsp; In addition, the attributes <em>PiecesPlayer1</em> and <em>PiecesPlayer2</em> will have different values based off of the new <em>board</em> attribute. 
+     * @post <p>An instance of Board is instanced with the same cells as the <em>board</em> parameter.</p>
+     * &nbsp; The bitboards of PLAYER1 and PLAYER2, and so their number of pieces, are set from those cells.
      * @param board An 8x8 PieceType matrix that represents a state of an Othello board.
      */
     public Board(PieceType[][] board)
     {
-        this.board = new PieceType[8][8];
-        this.piecesPlayer1 = 0;
-        this.piecesPlayer2 = 0;
+        this.player1 = 0L;
+        this.player2 = 0L;
+        this.board = null;
 
         for(int i = 0; i < 8; ++i)
         {
             for(int j = 0; j < 8; j++)
             {
-                this.board[i][j] = board[i][j];
-                if(this.board[i][j] == PieceType.PLAYER1) this.piecesPlayer1 += 1;
-                if(this.board[i][j] == PieceType.PLAYER2) this.piecesPlayer2 += 1;
+                if(board[i][j] == PieceType.PLAYER1) this.player1 |= Board.bit(i, j);
+                if(board[i][j] == PieceType.PLAYER2) this.player2 |= Board.bit(i, j);
             }
         }
+        this.hash = Board.hash(this.player1, this.player2);
+    }
+
+    /**
+     * @brief Creator method that instances a Board as a copy of another Board.
+     * @pre The parameter <em>board</em> isn't null.
+     * @post An instance of Board is instanced with the same cells as the <em>board</em> parameter. Both Boards can be modified independently.
+     * @param board Board to be copied.
+     */
+    public Board(Board board)
+    {
+        this.player1 = board.player1;
+        this.player2 = board.player2;
+        this.board = null;
+        this.hash = board.hash;
+    }
+
+    /**
+     * @brief Private creator method that instances a Board from its bitboards.
+     * @pre <em>player1</em> and <em>player2</em> don't have any cell in common.
+     * @post An instance of Board is instanced with the pieces of PLAYER1 in the cells of <em>player1</em> and the pieces of PLAYER2 in the cells of <em>player2</em>.
+     * @param player1 Bitboard of the cells where PLAYER1 has a piece.
+     * @param player2 Bitboard of the cells where PLAYER2 has a piece.
+     */
+    private Board(long player1, long player2)
+    {
+        this.player1 = player1;
+        this.player2 = player2;
+        this.board = null;
+        this.hash = Board.hash(player1, player2);
     }
 
     //Serialize
@@ -127,51 +184,124 @@ public class Board {
      */
     public JSONObject serialize()
     {
-        ArrayList<String> boardCodified = this.transcribeToCharacters();
         JSONObject jsonBoard = new JSONObject();
-        
-        jsonBoard.put("row0", boardCodified.get(0));
-        jsonBoard.put("row1", boardCodified.get(1));
-        jsonBoard.put("row2", boardCodified.get(2));
-        jsonBoard.put("row3", boardCodified.get(3));
-        jsonBoard.put("row4", boardCodified.get(4));
-        jsonBoard.put("row5", boardCodified.get(5));
-        jsonBoard.put("row6", boardCodified.get(6));
-        jsonBoard.put("row7", boardCodified.get(7));
+        char[] row = new char[8];
+
+        for(int i = 0; i < 8; ++i)
+            jsonBoard.put(ROWS[i], new String(this.transcribeToCharacters(i, row)));
 
         return jsonBoard;
-    }    
+    }
+
+    /**
+     * @brief Method that creates a Board from its binary representation.
+     * @pre <em>True</em>
+     * @post Returns the Board stored in <em>bytes</em>, as written by toBytes.
+     * @param bytes Binary representation of a Board.
+     * @throws IllegalArgumentException If <em>bytes</em> doesn't have the format of toBytes: its size isn't BYTES or a cell has pieces of both players.
+     */
+    public static Board fromBytes(byte[] bytes)
+    {
+        if(bytes.length != Board.BYTES) throw new IllegalArgumentException("ERR_INVALID_BOARD");
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long player1 = buffer.getLong();
+        long player2 = buffer.getLong();
+        if((player1 & player2) != 0) throw new IllegalArgumentException("ERR_INVALID_BOARD");
+
+        return new Board(player1, player2);
+    }
+
+    /**
+     * @brief Method that returns the binary representation of the implicit parameter's <em>board</em>.
+     * @pre <em>True</em>
+     * @post Returns BYTES bytes: the bitboards of PLAYER1 and PLAYER2, in big-endian order. The bit of a cell is row * 8 + column.
+     */
+    public byte[] toBytes()
+    {
+        return ByteBuffer.allocate(Board.BYTES).putLong(this.player1).putLong(this.player2).array();
+    }
 
     //Consultoras
 
     /**
      * @brief Get method that returns the implicit parameter's <em>board</em> attribute.
      * @pre <em>True</em>
-     * @post The implicit parameter's <em>board</em> is returned.
+     * @post The implicit parameter's <em>board</em> is returned. It is built from the bitboards and must not be modified.
      */
     public PieceType[][] getBoard()
     {
+        if(this.board == null)
+        {
+            PieceType[][] cells = new PieceType[8][8];
+            for(int i = 0; i < 8; ++i)
+            {
+                for(int j = 0; j < 8; ++j)
+                {
+                    if((this.player1 & Board.bit(i, j)) != 0) cells[i][j] = PieceType.PLAYER1;
+                    else if((this.player2 & Board.bit(i, j)) != 0) cells[i][j] = PieceType.PLAYER2;
+                }
+            }
+            this.board = cells;
+        }
+
         return this.board;
     }
-    
+
     /**
-     * @brief Get method that returns the value of the implicit parameter's <em>PiecesPlayer1</em> attribute.
+     * @brief Get method that returns the bitboard of a player.
+     * @pre <em>myPieceType</em> isn't null.
+     * @post A 64-bit mask where the bit row * 8 + column is set if <em>myPieceType</em> has a piece on that cell is returned.
+     * @param myPieceType PieceType variable that represents the player in a cell.
+     */
+    public long getBitboard(PieceType myPieceType)
+    {
+        return (myPieceType == PieceType.PLAYER1 ? this.player1 : this.player2);
+    }
+
+    /**
+     * @brief Get method that returns the Zobrist hash of the Board.
      * @pre <em>True</em>
-     * @post The implicit parameter's <em>piecesPlayer1</em> value is returned.
+     * @post A 64-bit hash of the cells of the Board is returned. Two Boards with the same pieces have the same hash.
+     */
+    public long getHash()
+    {
+        return this.hash;
+    }
+
+    /**
+     * @brief Get method that returns the state of a cell of the Board.
+     * @pre <em>row</em> and <em>column</em> are between 0 and 7.
+     * @post The PieceType that has a piece on the cell (<em>row</em>, <em>column</em>) is returned, or null if it's an empty cell.
+     * @param row Row of the cell.
+     * @param column Column of the cell.
+     */
+    public PieceType getPiece(int row, int column)
+    {
+        long cell = Board.bit(row, column);
+        if((this.player1 & cell) != 0) return PieceType.PLAYER1;
+        if((this.player2 & cell) != 0) return PieceType.PLAYER2;
+        return null;
+    }
+
+    /**
+     * @brief Get method that returns the number of pieces of PLAYER1 in the implicit parameter.
+     * @pre <em>True</em>
+     * @post The number of cells of the implicit parameter's bitboard of PLAYER1 is returned.
      */
     public Integer getPiecesPlayer1()
     {
-        return this.piecesPlayer1;
+        return Long.bitCount(this.player1);
     }
 
     /**
-     * @brief Get method that returns the value of the implicit parameter's <em>PiecesPlayer2</em> attribute.
+     * @brief Get method that returns the number of pieces of PLAYER2 in the implicit parameter.
      * @pre <em>True</em>
-     * @post The implicit parameter's <em>piecesPlayer2</em> value is returned.
+     * @post The number of cells of the implicit parameter's bitboard of PLAYER2 is returned.
      */
     public Integer getPiecesPlayer2()
     {
-        return this.piecesPlayer2;
+        return Long.bitCount(this.player2);
     }
 
     /**
@@ -182,17 +312,17 @@ public class Board {
      */
     public void isValid(Boolean canEatHorizontally, Boolean canEatVertically, Boolean canEatDiagonally) throws InvalidBoardException
     {
-        ArrayList<Pair<Integer, Integer>> player1 = validPositions(PieceType.PLAYER1, canEatHorizontally, canEatVertically, canEatDiagonally);
-        ArrayList<Pair<Integer, Integer>> player2 = validPositions(PieceType.PLAYER2, canEatHorizontally, canEatVertically, canEatDiagonally);
+        long player1 = this.validMoves(PieceType.PLAYER1, canEatHorizontally, canEatVertically, canEatDiagonally);
+        long player2 = this.validMoves(PieceType.PLAYER2, canEatHorizontally, canEatVertically, canEatDiagonally);
         //If there is no possible movements == Board Invalid
-        if(player1.isEmpty() && player2.isEmpty()) throw new InvalidBoardException();
+        if(player1 == 0 && player2 == 0) throw new InvalidBoardException();
     }
 
 
     /**
      * @brief Method that returns an Array of the valid positions a player <em>myPieceType</em> taking into consideration the Configuration of the Game.
      * @pre All parameters aren't null.
-     * @post <p>An Array of valid positions(Pair<Integer,Integer>) is returned.</p> 
+     * @post <p>An Array of valid positions(Pair<Integer,Integer>) is returned.</p>
      * &nbsp; A valid position is one which it's cell state in the implicit parameter's <em>board</em> attribute is equal to null (meaning an empty cell)
      * and there is at least one opponent PieceType surrounding that position (go to surroundingPieces to crystalize what the surrounding areas of a position are).
      * @param myPieceType PieceType variable that represents the player in a cell.
@@ -202,45 +332,84 @@ public class Board {
      */
     public ArrayList<Pair<Integer,Integer>> validPositions(PieceType myPieceType, Boolean canEatHorizontally, Boolean canEatVertically, Boolean canEatDiagonally)
     {
-        ArrayList<Pair<Integer,Integer>> availablePos = new ArrayList<Pair<Integer,Integer>>();
-        boolean posValid = false;
+        //Lowest bits first, so the positions keep the row by row order
+        return new MoveList(this.validMoves(myPieceType, canEatHorizontally, canEatVertically, canEatDiagonally)).toPairs();
+    }
+
+    /**
+     * @brief Method that returns the valid positions of a player <em>myPieceType</em> as a bitboard taking into consideration the Configuration of the Game.
+     * @pre <em>myPieceType</em> isn't null.
+     * @post A 64-bit mask where the bit row * 8 + column is set if (row, column) is a valid position for <em>myPieceType</em> is returned.
+     * &nbsp; A valid position is an empty cell from which at least one opponent piece can be captured in one of the allowed directions.
+     * @param myPieceType PieceType variable that represents the player in a cell.
+     * @param canEatHorizontally Boolean value from Configuration that determines if we can capture pieces of the <em>myPieceType</em> opponent in a Horizontal manner.
+     * @param canEatVertically Boolean value from Configuration that determines if we can capture pieces of the <em>myPieceType</em> opponent in a Vertical manner.
+     * @param canEatDiagonally Boolean value from Configuration that determines if we can capture pieces of the <em>myPieceType</em> opponent in a Diagonal manner.
+     */
+    public long validMoves(PieceType myPieceType, boolean canEatHorizontally, boolean canEatVertically, boolean canEatDiagonally)
+    {
+        long mine = this.getBitboard(myPieceType);
+        long opponent = this.getBitboard(this.inversePlayer(myPieceType));
+        long empty = ~(mine | opponent);
+        long moves = 0L;
 
-        for(int i = 0; i < 8; ++i)
+        for(int direction = RIGHT; direction <= UP_RIGHT; ++direction)
         {
-            for(int j = 0; j < 8; ++j)
-            {
-                Pair<Integer, Integer> iterator = new Pair<Integer,Integer>(i,j);
-                posValid = false;
+            if(!Board.isAllowed(direction, canEatHorizontally, canEatVertically, canEatDiagonally)) continue;
+
+            //Opponent lines that start next to one of my pieces (at most 6 pieces long)
+            long line = Board.shift(mine, direction) & opponent;
+            line |= Board.shift(line, direction) & opponent;
+            line |= Board.shift(line, direction) & opponent;
+            line |= Board.shift(line, direction) & opponent;
+            line |= Board.shift(line, direction) & opponent;
+            line |= Board.shift(line, direction) & opponent;
+            //The empty cell that closes the line is a valid position
+            moves |= Board.shift(line, direction) & empty;
+        }
 
-                if(this.board[i][j] == null && surroundingPieces(iterator, myPieceType, canEatHorizontally, canEatVertically, canEatDiagonally))
-                {
-                    if(canEatHorizontally)
-                    {
-                        ArrayList<Pair<Integer,Integer>> horizontal = canPlaceHorizontal(iterator, myPieceType); 
-                        //IF NOT EMPTY
-                        if(!horizontal.isEmpty()) posValid = true;
-                    }
-                    if(canEatVertically)
-                    {
-                        ArrayList<Pair<Integer,Integer>> vertical = canPlaceVertical(iterator, myPieceType);
-                        //IF NOT EMPTY
-                        if(!vertical.isEmpty()) posValid = true;                        
-                    }
-                    if(canEatDiagonally)
-                    {
-                        ArrayList<Pair<Integer,Integer>> diagonal = canPlaceDiagonal(iterator, myPieceType);
-                        //IF NOT EMPTY
-                        if(!diagonal.isEmpty()) posValid = true; 
-                    }
-                    //It's a valid position to add a Piece
-                    if(posValid) availablePos.add(iterator);
-                }
+        return moves;
+    }
+
+    /**
+     * @brief Method that returns the pieces that would be captured if <em>myPieceType</em> placed a piece in <em>position</em>, taking into consideration the Configuration of the Game.
+     * @pre <em>myPieceType</em> isn't null and <em>position</em> is between values (0,0) and (7,7).
+     * @post A 64-bit mask with the opponent pieces that would be captured is returned. It is 0 if the cell isn't empty or it isn't a valid position.
+     * @param row Row of the position in the board.
+     * @param column Column of the position in the board.
+     * @param myPieceType PieceType variable that represents the player in a cell.
+     * @param canEatHorizontally Boolean value from Configuration that determines if we can capture pieces of the <em>myPieceType</em> opponent in a Horizontal manner.
+     * @param canEatVertically Boolean value from Configuration that determines if we can capture pieces of the <em>myPieceType</em> opponent in a Vertical manner.
+     * @param canEatDiagonally Boolean value from Configuration that determines if we can capture pieces of the <em>myPieceType</em> opponent in a Diagonal manner.
+     */
+    public long flips(int row, int column, PieceType myPieceType, boolean canEatHorizontally, boolean canEatVertically, boolean canEatDiagonally)
+    {
+        long position = Board.bit(row, column);
+        long mine = this.getBitboard(myPieceType);
+        long opponent = this.getBitboard(this.inversePlayer(myPieceType));
+        long flipped = 0L;
+
+        if(((mine | opponent) & position) != 0) return 0L;
+
+        for(int direction = RIGHT; direction <= UP_RIGHT; ++direction)
+        {
+            if(!Board.isAllowed(direction, canEatHorizontally, canEatVertically, canEatDiagonally)) continue;
+
+            long line = 0L;
+            long it = Board.shift(position, direction);
+            //found another piece of the opponent = CONTINUE THE HUNT
+            while((it & opponent) != 0)
+            {
+                line |= it;
+                it = Board.shift(it, direction);
             }
+            //found a piece that's mine = CAN CAPTURE
+            if((it & mine) != 0) flipped |= line;
         }
 
-        return availablePos;
+        return flipped;
     }
-    
+
 
     //Modifiers
     /**
@@ -251,15 +420,14 @@ public class Board {
      */
     public void removePiece(Pair<Integer, Integer> position)
     {
-            Integer row = position.first;
-            Integer column = position.second; 
+            long cell = Board.bit(position.first, position.second);
 
-            if(this.board[row][column] == PieceType.PLAYER1) this.piecesPlayer1 -= 1;
-            if(this.board[row][column] == PieceType.PLAYER2) this.piecesPlayer2 -= 1;
-
-            this.board[row][column] = null;  
+            this.player1 &= ~cell;
+            this.player2 &= ~cell;
+            this.board = null;
+            this.hash = Board.hash(this.player1, this.player2);
     }
-    
+
     /**
      * @brief Modifying method that adds a piece in the implicit parameter's <em>board</em><p></p>
      * &nbsp; In addition, it applies the effect of adding that piece in the board by changing the pieces of the board taking into consideration the Configuration given.
@@ -276,43 +444,71 @@ public class Board {
      */
     public void placePiece(Pair<Integer, Integer> position, PieceType myPieceType, Boolean canEatHorizontally, Boolean canEatVertically, Boolean canEatDiagonally)
     {
-        ArrayList<Pair<Integer,Integer>> horizontal = new ArrayList<Pair<Integer,Integer>>();
-        ArrayList<Pair<Integer,Integer>> vertical = new ArrayList<Pair<Integer,Integer>>();
-        ArrayList<Pair<Integer,Integer>> diagonal = new ArrayList<Pair<Integer,Integer>>();
+        this.makeMove(position.first, position.second, myPieceType, canEatHorizontally, canEatVertically, canEatDiagonally);
+    }
 
-        //if the position given to us is not null, it means it's owned by PLAYER1 or PLAYER2. Therefore, we won't add a Piece there and we will return.
-        //Although this will never happen when we use this method (because we will make sure it's a valid position), 
-        //  we added this so this method is more reusable for other future projects.
-        if(this.board[position.first][position.second] != null) return;
+    /**
+     * @brief Modifying method that plays a move in place and returns what is needed to undo it.<p></p>
+     * &nbsp; It is meant for the search algorithms, which play and undo moves over a single Board instead of copying it at every step.
+     * @pre <em>myPieceType</em> isn't null and <em>position</em> is between values (0,0) and (7,7).
+     * @post If the position is correct, the piece is added and the captured pieces are changed to <em>myPieceType</em>, and the captured pieces are returned as a 64-bit mask.
+     * If the position isn't correct, the board will not be changed and 0 is returned.
+     * @param row Row of the position in the board.
+     * @param column Column of the position in the board.
+     * @param myPieceType PieceType variable that represents the player in a cell.
+     * @param canEatHorizontally Boolean value from Configuration that determines if we can capture pieces of the <em>myPieceType</em> opponent in a Horizontal manner.
+     * @param canEatVertically Boolean value from Configuration that determines if we can capture pieces of the <em>myPieceType</em> opponent in a Vertical manner.
+     * @param canEatDiagonally Boolean value from Configuration that determines if we can capture pieces of the <em>myPieceType</em> opponent in a Diagonal manner.
+     */
+    public long makeMove(int row, int column, PieceType myPieceType, boolean canEatHorizontally, boolean canEatVertically, boolean canEatDiagonally)
+    {
+        long flipped = this.flips(row, column, myPieceType, canEatHorizontally, canEatVertically, canEatDiagonally);
 
-        if(canEatHorizontally) //Includes eating HORIZONTALLY activated
+        //If nothing is captured (the cell isn't empty or it isn't a valid position) the board is not changed
+        if(flipped == 0) return 0L;
+
+        long changed = flipped | Board.bit(row, column);
+        if(myPieceType == PieceType.PLAYER1)
         {
-            horizontal = canPlaceHorizontal(position, myPieceType);
-            for(int i = 0; i < horizontal.size(); i++) 
-                changePieces(position,horizontal.get(i),myPieceType);
+            this.player1 |= changed;
+            this.player2 &= ~flipped;
         }
-
-        if (canEatVertically) //Includes eating VERTICALLY activated
+        else
         {
-            vertical = canPlaceVertical(position, myPieceType);
-            for(int i = 0; i < vertical.size(); i++) {
-                changePieces(position,vertical.get(i),myPieceType);
-            }
+            this.player2 |= changed;
+            this.player1 &= ~flipped;
         }
+        this.board = null;
+        this.hash ^= ZOBRIST_KEYS[myPieceType.ordinal()][(row << 3) | column] ^ Board.flipHash(flipped);
+
+        return flipped;
+    }
 
-        if (canEatDiagonally) //Includes eating DIAGONALLY activated
+    /**
+     * @brief Modifying method that undoes a move played with makeMove.
+     * @pre The last move played on the implicit Board was the one at (<em>row</em>, <em>column</em>) by <em>myPieceType</em>, and <em>flipped</em> is the value it returned, which isn't 0.
+     * @post The implicit Board is left exactly as it was before that move was played.
+     * @param row Row of the position in the board.
+     * @param column Column of the position in the board.
+     * @param myPieceType PieceType variable that represents the player that played the move.
+     * @param flipped Captured pieces returned by makeMove.
+     */
+    public void unmakeMove(int row, int column, PieceType myPieceType, long flipped)
+    {
+        long changed = flipped | Board.bit(row, column);
+        if(myPieceType == PieceType.PLAYER1)
         {
-            diagonal = canPlaceDiagonal(position, myPieceType);
-            for(int i = 0; i < diagonal.size(); i++)
-                changePieces(position,diagonal.get(i),myPieceType);
+            this.player1 &= ~changed;
+            this.player2 |= flipped;
         }
-         //If we added a piece to the board, we must add this to the piecesPlayerx attribute
-         if((canEatHorizontally && !horizontal.isEmpty()) || (canEatVertically && !vertical.isEmpty()) || (canEatDiagonally && !diagonal.isEmpty())) 
-         {
-             if(myPieceType == PieceType.PLAYER1) this.piecesPlayer1++;
-             if(myPieceType == PieceType.PLAYER2) this.piecesPlayer2++;
-         }
-    } 
+        else
+        {
+            this.player2 &= ~changed;
+            this.player1 |= flipped;
+        }
+        this.board = null;
+        this.hash ^= ZOBRIST_KEYS[myPieceType.ordinal()][(row << 3) | column] ^ Board.flipHash(flipped);
+    }
 
     /**
      * @brief Modifying method that adds a piece in the in the implicit parameter's <em>board</em>, which corresponds to an Initial Board of a Configuration.
@@ -323,473 +519,384 @@ public class Board {
      */
     public void placePieceConfig(Pair<Integer, Integer> position, PieceType myPieceType)
     {
-        Integer row = position.first;
-        Integer column = position.second;
+        long cell = Board.bit(position.first, position.second);
 
-        if(this.board[row][column] == PieceType.PLAYER1 && myPieceType == PieceType.PLAYER2)
+        if(myPieceType == PieceType.PLAYER1)
         {
-            this.piecesPlayer2 += 1;
-            this.piecesPlayer1 -= 1;
-        } 
-
-        if(this.board[row][column] == PieceType.PLAYER2 && myPieceType == PieceType.PLAYER1)
+            this.player1 |= cell;
+            this.player2 &= ~cell;
+        }
+        if(myPieceType == PieceType.PLAYER2)
         {
-            this.piecesPlayer1 += 1;
-            this.piecesPlayer2 -= 1;
-        } 
-
-        if(this.board[row][column] == null && myPieceType == PieceType.PLAYER1) this.piecesPlayer1 += 1;
-        if(this.board[row][column] == null && myPieceType == PieceType.PLAYER2) this.piecesPlayer2 += 1;
-
-        this.board[row][column] = myPieceType;
+            this.player2 |= cell;
+            this.player1 &= ~cell;
+        }
+        this.board = null;
+        this.hash = Board.hash(this.player1, this.player2);
     }
 
-    //Private
+    //Symmetries
 
     /**
-     * @brief Private method that returns true if there is an opponent's PieceType surrounding a position in the board taking into account the capturing methods of the Game (Horizontal,Vertical or Diagonal).<p></p>
-     * &nbsp; This method is particularly useful to check if a position is valid, which means it's eligible to be chosen as a viable option to place a piece in.
-     * @pre Parameters aren't null and <em>position</em> is between values (0,0) and (7,7).
-     * @post <p>Returns <em>true</em> if there is an opponent's PieceType surrounding the <em>position</em> parameter in the board taking into account the capturing methods of the Game.</p>
-     * &nbsp; To crystalize what a piece surrounding a position is, its all the possible positions one can reach adding or substracting 1 to the y or x value
-     * (taking into consideration the board's limits obviously).
-     * @param myPieceType PieceType variable that represents the player in a cell.
-     * @param position Pair<Integer,Integer> that represents a position in a board.
-     * @param canEatHorizontally Boolean value from Configuration that determines if we can capture pieces of the <em>myPieceType</em> opponent in a Horizontal manner.
-     * @param canEatVertically Boolean value from Configuration that determines if we can capture pieces of the <em>myPieceType</em> opponent in a Vertical manner.
-     * @param canEatDiagonally Boolean value from Configuration that determines if we can capture pieces of the <em>myPieceType</em> opponent in a Diagonal manner.
+     * @brief Method that returns the number of symmetries of the Board that keep the given rules.
+     * @pre <em>True</em>
+     * @post <p>The symmetries of the Board are numbered from 0 to SYMMETRIES - 1: identity, rotation of 180 degrees, horizontal
+     * reflection (the columns are reversed), vertical reflection (the rows are reversed), reflection over the main diagonal,
+     * reflection over the anti-diagonal, and rotations of 90 and 270 degrees clockwise.</p>
+     * &nbsp; The first 4 keep every rule. The last 4 change the horizontal captures into vertical ones and the other way
+     * round, so they only keep the rules if both are allowed or both aren't. The number of the first symmetries that keep the
+     * rules is returned: 8 if <em>canEatHorizontally</em> equals <em>canEatVertically</em>, or 4 otherwise.
+     * @param canEatHorizontally Boolean that indicates if the pieces can be eaten horizontally.
+     * @param canEatVertically Boolean that indicates if the pieces can be eaten vertically.
+     * @param canEatDiagonally Boolean that indicates if the pieces can be eaten diagonally.
      */
-    private Boolean surroundingPieces(Pair<Integer,Integer> position, PieceType myPieceType, Boolean canEatHorizontally, Boolean canEatVertically, Boolean canEatDiagonally) 
-    {
-        PieceType opponentPiece = inversePlayer(myPieceType);
-        
-        if(canEatDiagonally)
-        {   
-            //TOP LEFT
-            if(position.first > 0 && position.second > 0 && this.board[position.first-1][position.second-1] == opponentPiece) return true;
-            //TOP RIGHT
-            if(position.first > 0 && position.second < 7 && this.board[position.first-1][position.second+1] == opponentPiece) return true;
-            //BOTTOM RIGHT
-            if(position.first < 7 && position.second < 7 && this.board[position.first+1][position.second+1] == opponentPiece) return true;
-            //BOTTOM LEFT
-            if(position.first < 7 && position.second > 0 && this.board[position.first+1][position.second-1] == opponentPiece) return true;
-        }
-
-        if(canEatVertically)
-        {   
-            //BOTTOM 
-            if(position.first < 7 && this.board[position.first+1][position.second] == opponentPiece) return true;
-            //TOP 
-            if(position.first > 0 && this.board[position.first-1][position.second] == opponentPiece) return true;
-        }
+    public static int symmetries(boolean canEatHorizontally, boolean canEatVertically, boolean canEatDiagonally)
+    {
+        return (canEatHorizontally == canEatVertically ? SYMMETRIES : SYMMETRIES / 2);
+    }
 
-        if(canEatHorizontally)
+    /**
+     * @brief Method that transforms a bitboard with a symmetry of the Board.
+     * @pre <em>symmetry</em> is between 0 and SYMMETRIES - 1.
+     * @post Returns the bitboard whose cells are the ones where the cells of <em>bitboard</em> go with <em>symmetry</em>.
+     * It is computed with byte swaps and bit reversals and swaps over the whole bitboard, without looping over its cells.
+     * @param bitboard Bitboard to be transformed.
+     * @param symmetry Symmetry to be applied.
+     */
+    public static long transform(long bitboard, int symmetry)
+    {
+        switch(symmetry)
         {
-            //RIGHT 
-            if(position.second < 7 && this.board[position.first][position.second+1] == opponentPiece) return true;
-            //LEFT
-            if(position.second > 0 && this.board[position.first][position.second-1] == opponentPiece) return true;
+            case ROTATE_180: return Long.reverse(bitboard);
+            case MIRROR_HORIZONTAL: return Board.mirrorHorizontal(bitboard);
+            case MIRROR_VERTICAL: return Long.reverseBytes(bitboard);
+            case MIRROR_DIAGONAL: return Board.mirrorDiagonal(bitboard);
+            case MIRROR_ANTI_DIAGONAL: return Long.reverse(Board.mirrorDiagonal(bitboard));
+            case ROTATE_90: return Board.mirrorHorizontal(Board.mirrorDiagonal(bitboard));
+            case ROTATE_270: return Long.reverseBytes(Board.mirrorDiagonal(bitboard));
+            default: return bitboard;
         }
-        //If none are true
-        return false;
     }
 
     /**
-     * @brief Private method that returns an array of strings to transcribe the implicit parameter's <em>board</em> into a storing format.
-     * @pre <em>True</em>
-     * @post <p>Returns an array of Strings size 8 that transcribes the implicit parameter's <em>board</em> into the storing format decided in class.</p>
-     * &nbsp; The storing format is: ? -> empty cell, B -> PLAYER1's piece, N -> PLAYER2's piece.
+     * @brief Method that transforms a cell with a symmetry of the Board.
+     * @pre <em>square</em> is between 0 and 63 and <em>symmetry</em> between 0 and SYMMETRIES - 1.
+     * @post Returns the square (row * 8 + column) of the cell where the cell <em>square</em> goes with <em>symmetry</em>.
+     * @param square Square index (row * 8 + column) of the cell.
+     * @param symmetry Symmetry to be applied.
      */
-    private ArrayList<String> transcribeToCharacters()
+    public static int transformSquare(int square, int symmetry)
     {
-        ArrayList<String> boardCodified = new ArrayList<String>(8);
-        String operational = "";
+        int row = square >>> 3, column = square & 7;
 
-            for(int i = 0; i < 8; ++i)
-            {
-                operational = "";
-                for(int j = 0; j < 8; ++j)
-                {
-                    if(this.board[i][j] == PieceType.PLAYER1) operational = operational + "B";
-                    if(this.board[i][j] == PieceType.PLAYER2) operational = operational + "N";
-                    if(this.board[i][j] == null) operational = operational + "?";
-                }
-                boardCodified.add(operational);
-            }
-
-        return boardCodified;
+        switch(symmetry)
+        {
+            case ROTATE_180: return 63 - square;
+            case MIRROR_HORIZONTAL: return (row << 3) | (7 - column);
+            case MIRROR_VERTICAL: return ((7 - row) << 3) | column;
+            case MIRROR_DIAGONAL: return (column << 3) | row;
+            case MIRROR_ANTI_DIAGONAL: return ((7 - column) << 3) | (7 - row);
+            case ROTATE_90: return (column << 3) | (7 - row);
+            case ROTATE_270: return ((7 - column) << 3) | row;
+            default: return square;
+        }
     }
 
     /**
-     * @brief Private method that adds a row of a board in the storing format into the <em>board</em> attribute of the implicit parameter.<p></p>
-     * &nbsp; This method is useful to load a Board from a file.
-     * @pre Parameters aren't null and numRow has a value between 0 and 7.
-     * @post The implicit parameter's <em>board</em> attribute is modified with a new row number <em>numRow</em> with the values specified.
-     * in the <em>row</em> parameter.
-     * @param row String of a row of a board in storing format.
-     * @param numRow Number of the row in the board its transcribing.
+     * @brief Method that returns the inverse of a symmetry of the Board.
+     * @pre <em>symmetry</em> is between 0 and SYMMETRIES - 1.
+     * @post Returns the symmetry that undoes <em>symmetry</em>. The rotations of 90 and 270 degrees are the inverse of each other, and the rest are their own inverse.
+     * @param symmetry Symmetry to be undone.
      */
-    private void transcribeToPieceType(String row, Integer numRow)
+    public static int inverseSymmetry(int symmetry)
     {
-        for(int i = 0; i < 8; ++i)
-        {  
-            if(row.charAt(i) == '?') this.board[numRow][i] = null;
-            if(row.charAt(i) == 'B')
-            {
-                this.board[numRow][i] = PieceType.PLAYER1;
-                this.piecesPlayer1++;
-            }
-            if(row.charAt(i) == 'N')
-            {
-                this.board[numRow][i] = PieceType.PLAYER2;
-                this.piecesPlayer2++;
-            }
-        }
+        if(symmetry == ROTATE_90) return ROTATE_270;
+        if(symmetry == ROTATE_270) return ROTATE_90;
+        return symmetry;
     }
 
     /**
-     * @brief Private method that inverts the Player's pieceType.<p></p>
-     * &nbsp; This method is particularly useful to get the opponent's PieceType in another method.
-     * @pre myPieceType isn't null.
-     * @post Returns a PieceType that is the opponent of <em>myPieceType</em>
-     * @param myPieceType PieceType variable that represents the player in a cell.
+     * @brief Method that returns a copy of the Board transformed with a symmetry.
+     * @pre <em>symmetry</em> is between 0 and SYMMETRIES - 1.
+     * @post Returns a new Board whose pieces are the pieces of the implicit parameter moved to the cells where <em>symmetry</em> takes them.
+     * @param symmetry Symmetry to be applied.
      */
-    private PieceType inversePlayer(PieceType myPieceType)
+    public Board transform(int symmetry)
     {
-        if(myPieceType == PieceType.PLAYER1) return PieceType.PLAYER2;
-        else return PieceType.PLAYER1;
+        Board board = new Board(this);
+        board.player1 = Board.transform(this.player1, symmetry);
+        board.player2 = Board.transform(this.player2, symmetry);
+        board.hash = Board.hash(board.player1, board.player2);
+        return board;
     }
 
-     /**
-     * @brief Private method that returns an array of positions of the board in which you can conquer the pieces between them (horizontal search). 
-     * @pre Parameters aren't null and <em>position</em> is between values (0,0) and (7,7).
-     * @post Returns an array of positions in which you can use with the method changePieces to conquer the pieces between them and the <em>position<e/m> parameter
-     * (which corresponds to the position we want to add a piece to).
-     * @param position Pair<Integer,Integer> that represents a position in a board.
-     * @param myPieceType PieceType variable that represents the player in a cell.
+    /**
+     * @brief Method that returns the symmetry that takes the Board to its canonical form.
+     * @pre <em>True</em>
+     * @post <p>Returns the first of the symmetries that keep the rules whose transformed Board has the smallest bitboards: the smallest bitboard of PLAYER1,
+     * and the smallest bitboard of PLAYER2 among those (as unsigned numbers).</p>
+     * &nbsp; The canonical form is the Board transformed with that symmetry. Every Board that is a symmetry of another one has the same canonical form.
+     * The bitboards are compared instead of the hashes because they are computed without looping over the cells.
+     * @param canEatHorizontally Boolean that indicates if the pieces can be eaten horizontally.
+     * @param canEatVertically Boolean that indicates if the pieces can be eaten vertically.
+     * @param canEatDiagonally Boolean that indicates if the pieces can be eaten diagonally.
      */
-    private ArrayList< Pair<Integer,Integer> > canPlaceHorizontal(Pair<Integer, Integer> position, PieceType myPieceType)
+    public int canonicalSymmetry(boolean canEatHorizontally, boolean canEatVertically, boolean canEatDiagonally)
     {
-        ArrayList< Pair<Integer,Integer> > result = new ArrayList<Pair<Integer, Integer>>();
+        int symmetries = Board.symmetries(canEatHorizontally, canEatVertically, canEatDiagonally);
+        int best = IDENTITY;
+        long bestPlayer1 = this.player1, bestPlayer2 = this.player2;
 
-        Integer row = position.first;
-        Integer column = position.second;
-        PieceType opponentPiece = inversePlayer(myPieceType);
-
-        if(column > 0) //To not go out of the boards boundaries 
+        for(int symmetry = 1; symmetry < symmetries; ++symmetry)
         {
-            //to check if we can eat LEFT SIDE
-            if(this.board[row][column-1] == opponentPiece) 
-            {
-                Integer it1 = column-1;
-                Boolean found1 = false;
+            long player1 = Board.transform(this.player1, symmetry);
+            int comparison = Long.compareUnsigned(player1, bestPlayer1);
+            if(comparison > 0) continue;
 
-                while(it1 >= 0 && this.board[row][it1] != null && found1 == false)
-                //go through the line of the board to see if we can place the piece we want in "position". If so, we add the position of the piece that closes in the result array.
-                {
-                    if(this.board[row][it1] == myPieceType) //found a piece that's mine = CAN PLACE
-                    {
-                        result.add(new Pair<Integer,Integer>(row,it1));
-                        found1 = true;
-                    }
-                    else //found another piece of the opponent = CONTINUE THE HUNT
-                        it1 -= 1;
-                }
-            }
-        }
-        
-        if(column < 7) //To not go out of the boards boundaries
-        {
-            //to check if we can eat RIGHT SIDE
-            if(this.board[row][column+1] == opponentPiece)
+            long player2 = Board.transform(this.player2, symmetry);
+            if(comparison < 0 || Long.compareUnsigned(player2, bestPlayer2) < 0)
             {
-                Integer it2 = column+1;
-                Boolean found2 = false;
-
-                while(it2 <= 7 && this.board[row][it2] != null && found2 == false)
-                //go through the line of the board to see if we can place the piece we want in "position". If so, we add the position of the piece that closes in the result array.
-                {
-                    if(this.board[row][it2] == myPieceType) //found a piece that's mine = CAN PLACE
-                    {
-                        result.add(new Pair<Integer,Integer>(row,it2));
-                        found2 = true;
-                    }
-                    else //found another piece of the opponent = CONTINUE THE HUNT
-                    {
-                        it2 += 1;                    
-                    }
-                }
+                best = symmetry;
+                bestPlayer1 = player1;
+                bestPlayer2 = player2;
             }
         }
-
-        return result;
+        return best;
     }
 
-     /**
-     * @brief Private method that returns an array of positions of the board in which you can conquer the pieces between them (vertical search).
-     * @pre Parameters aren't null and <em>position</em> is between values (0,0) and (7,7).
-     * @post Returns an array of positions in which you can use with the method changePieces to conquer the pieces between them and the <em>position<e/m> parameter
-     * (which corresponds to the position we want to add a piece to).
-     * @param position Pair<Integer,Integer> that represents a position in a board.
-     * @param myPieceType PieceType variable that represents the player in a cell.
+    /**
+     * @brief Method that returns the Zobrist hash of the canonical form of the Board.
+     * @pre <em>True</em>
+     * @post Returns the Zobrist hash of the Board transformed with canonicalSymmetry. Two Boards have the same canonical hash if one is a symmetry of the other that keeps the rules.
+     * @param canEatHorizontally Boolean that indicates if the pieces can be eaten horizontally.
+     * @param canEatVertically Boolean that indicates if the pieces can be eaten vertically.
+     * @param canEatDiagonally Boolean that indicates if the pieces can be eaten diagonally.
      */
-    private ArrayList< Pair<Integer,Integer> > canPlaceVertical(Pair<Integer, Integer> position, PieceType myPieceType)
+    public long getCanonicalHash(boolean canEatHorizontally, boolean canEatVertically, boolean canEatDiagonally)
     {
-        ArrayList< Pair<Integer,Integer> > result = new ArrayList<Pair<Integer, Integer>>();
+        int symmetry = this.canonicalSymmetry(canEatHorizontally, canEatVertically, canEatDiagonally);
+        return Board.hash(Board.transform(this.player1, symmetry), Board.transform(this.player2, symmetry));
+    }
 
-        Integer row = position.first;
-        Integer column = position.second;
-        PieceType opponentPiece = inversePlayer(myPieceType);
+    /**
+     * @brief Method that returns the square of a cell in the canonical form of the Board.
+     * @pre <em>square</em> is between 0 and 63.
+     * @post <p>Returns the square where the cell <em>square</em> goes in the canonical form of the Board.</p>
+     * &nbsp; If several symmetries take the Board to its canonical form, the smallest of their squares is returned, so the cells that are equivalent in a symmetric Board have the same canonical square.
+     * The canonical square is taken back to the Board with transformSquare and the inverse of canonicalSymmetry.
+     * @param square Square index (row * 8 + column) of the cell.
+     * @param canEatHorizontally Boolean that indicates if the pieces can be eaten horizontally.
+     * @param canEatVertically Boolean that indicates if the pieces can be eaten vertically.
+     * @param canEatDiagonally Boolean that indicates if the pieces can be eaten diagonally.
+     */
+    public int toCanonicalSquare(int square, boolean canEatHorizontally, boolean canEatVertically, boolean canEatDiagonally)
+    {
+        int symmetries = Board.symmetries(canEatHorizontally, canEatVertically, canEatDiagonally);
+        int symmetry = this.canonicalSymmetry(canEatHorizontally, canEatVertically, canEatDiagonally);
+        long canonicalPlayer1 = Board.transform(this.player1, symmetry), canonicalPlayer2 = Board.transform(this.player2, symmetry);
+        int canonicalSquare = Board.transformSquare(square, symmetry);
 
-        if(row > 0) //To not go out of the boards boundaries
+        for(int other = symmetry + 1; other < symmetries; ++other)
         {
-            if(this.board[row-1][column] == opponentPiece) //to check if left side can be eaten
-            {
-                Integer it1 = row-1;
-                Boolean found1 = false;
-
-                while(it1 >= 0 && this.board[it1][column] != null && found1 == false) 
-                //go through the line of the board to see if we can place the piece we want in "position". If so, we add the position of the piece that closes in the result array.
-                {
-                    if(this.board[it1][column] == myPieceType) //found a piece that's mine = CAN PLACE
-                    {
-                        result.add(new Pair<Integer,Integer>(it1,column));
-                        found1 = true;
-                    }
-                    else //found another piece of the opponent = CONTINUE THE HUNT
-                        it1 -= 1;
-                }
-            }
+            if(Board.transform(this.player1, other) == canonicalPlayer1 && Board.transform(this.player2, other) == canonicalPlayer2)
+                canonicalSquare = Math.min(canonicalSquare, Board.transformSquare(square, other));
         }
+        return canonicalSquare;
+    }
 
-        if(row < 7)
-        {
-            if(this.board[row+1][column] == opponentPiece) //to check if right side can be eaten
-            {
-                Integer it2 = row+1;
-                Boolean found2 = false;
-
-                while(it2 <= 7 && this.board[it2][column] != null && found2 == false) 
-                //go through the line of the board to see if we can place the piece we want in "position". If so, we add the position of the piece that closes in the result array.
-                {
-                    if(this.board[it2][column] == myPieceType) //found a piece that's mine = CAN PLACE
-                    {
-                        result.add(new Pair<Integer,Integer>(it2,column));
-                        found2 = true;
-                    }
-                    else //found another piece of the opponent = CONTINUE THE HUNT
-                    {
-                        it2 += 1;
-                    }
-                }
-            }
-        }
+    //Private
 
-        return result;
+    /**
+     * @brief Private method that reverses the columns of a bitboard.
+     * @pre <em>True</em>
+     * @post Returns the bitboard with the cell (row, column) moved to (row, 7 - column), by swapping bits, pairs and halves of every byte.
+     * @param bitboard Bitboard to be reflected.
+     */
+    private static long mirrorHorizontal(long bitboard)
+    {
+        bitboard = ((bitboard >>> 1) & 0x5555555555555555L) | ((bitboard & 0x5555555555555555L) << 1);
+        bitboard = ((bitboard >>> 2) & 0x3333333333333333L) | ((bitboard & 0x3333333333333333L) << 2);
+        return ((bitboard >>> 4) & 0x0F0F0F0F0F0F0F0FL) | ((bitboard & 0x0F0F0F0F0F0F0F0FL) << 4);
     }
 
-     /**
-     * @brief Private method that returns an array of positions of the board in which you can conquer the pieces between them (diagonal search).
-     * @pre Parameters aren't null and <em>position</em> is between values (0,0) and (7,7).
-     * @post Returns an array of positions in which you can use with the method changePieces to conquer the pieces between them and the <em>position<e/m> parameter
-     * (which corresponds to the position we want to add a piece to).
-     * @param position Pair<Integer,Integer> that represents a position in a board.
-     * @param myPieceType PieceType variable that represents the player in a cell.
+    /**
+     * @brief Private method that reflects a bitboard over its main diagonal.
+     * @pre <em>True</em>
+     * @post Returns the bitboard with the cell (row, column) moved to (column, row), by swapping the blocks of 4x4, 2x2 and 1x1 cells across the diagonal.
+     * @param bitboard Bitboard to be reflected.
      */
-    private ArrayList< Pair<Integer,Integer> > canPlaceDiagonal(Pair<Integer, Integer> position, PieceType myPieceType)
+    private static long mirrorDiagonal(long bitboard)
     {
-        ArrayList< Pair<Integer,Integer> > result = new ArrayList<Pair<Integer, Integer>>();
-
-        Integer row = position.first;
-        Integer column = position.second;
-        PieceType opponentPiece = inversePlayer(myPieceType);
-
-        //DIAGONAL UP LEFT
-        if(row > 0 && column > 0) //To not go out of the boards boundaries
-        {
-            if(this.board[row-1][column-1] == opponentPiece) //to check if we can eat some opponent pieces in the upper left diagonal
-            {
-                Integer itRow = row-1;
-                Integer itCol = column-1;
-                Boolean found = false;
+        long swap = 0x0F0F0F0F00000000L & (bitboard ^ (bitboard << 28));
+        bitboard ^= swap ^ (swap >>> 28);
+        swap = 0x3333000033330000L & (bitboard ^ (bitboard << 14));
+        bitboard ^= swap ^ (swap >>> 14);
+        swap = 0x5500550055005500L & (bitboard ^ (bitboard << 7));
+        return bitboard ^ swap ^ (swap >>> 7);
+    }
 
-                while(itRow >= 0 && itCol >= 0 && this.board[itRow][itCol] != null && found == false)
-                //go through the line of the board to see if we can place the piece we want in "position". If so, we add the position of the piece that closes in the result array.
-                {
-                    if(this.board[itRow][itCol] == myPieceType) //found a piece that's mine in the diagonal line = CAN PLACE
-                    {
-                        result.add(new Pair<Integer,Integer>(itRow,itCol));
-                        found = true;
-                    }
-                    else //found another piece of the opponent in the diagonal line = CONTINUE THE HUNT
-                    {
-                        itRow -= 1;
-                        itCol -= 1;
-                    }
-                }
+    /**
+     * @brief Private method that returns the bitboard with only the cell (row, column) set.
+     * @pre <em>row</em> and <em>column</em> are between 0 and 7.
+     * @post A 64-bit mask with only the bit row * 8 + column set is returned.
+     * @param row Row of the cell.
+     * @param column Column of the cell.
+     */
+    private static long bit(int row, int column)
+    {
+        return 1L << ((row << 3) | column);
+    }
 
-            }
-        }
+    /**
+     * @brief Private method that returns the Zobrist hash of a Board from its bitboards.
+     * @pre <em>True</em>
+     * @post Returns the XOR of the Zobrist keys of all the pieces in <em>player1</em> and <em>player2</em>.
+     * @param player1 Bitboard of PLAYER1's pieces.
+     * @param player2 Bitboard of PLAYER2's pieces.
+     */
+    private static long hash(long player1, long player2)
+    {
+        long hash = 0L;
+        for(; player1 != 0; player1 &= player1 - 1) hash ^= ZOBRIST_KEYS[0][Long.numberOfTrailingZeros(player1)];
+        for(; player2 != 0; player2 &= player2 - 1) hash ^= ZOBRIST_KEYS[1][Long.numberOfTrailingZeros(player2)];
+        return hash;
+    }
 
-        //DIAGONAL UP RIGHT 
-        if(row > 0 && column < 7)//To not go out of the boards boundaries
-        {
-            if(this.board[row-1][column+1] == opponentPiece) //to check if we can eat some opponents pieces in the upper right diagonal
-            {
-                Integer itRow = row-1;
-                Integer itCol = column+1;
-                Boolean found = false;
+    /**
+     * @brief Private method that returns how the Zobrist hash changes when some pieces change from one player to the other.
+     * @pre <em>True</em>
+     * @post Returns the XOR of the flip keys of all the cells in <em>flipped</em>.
+     * @param flipped Bitboard of the pieces that change.
+     */
+    private static long flipHash(long flipped)
+    {
+        long hash = 0L;
+        for(; flipped != 0; flipped &= flipped - 1) hash ^= ZOBRIST_FLIP_KEYS[Long.numberOfTrailingZeros(flipped)];
+        return hash;
+    }
 
-                while(itRow >= 0 && itCol <= 7 && this.board[itRow][itCol] != null && found == false) 
-                //go through the line of the board to see if we can place the piece we want in "position". If so, we add the position of the piece that closes in the result array.
-                {
-                    if(this.board[itRow][itCol] == myPieceType)
-                    {
-                        result.add(new Pair<Integer,Integer>(itRow,itCol));
-                        found = true;
-                    }
-                    else //found another piece of the opponent in the diagonal line = CONTINUE THE HUNT
-                    {
-                        itRow -= 1;
-                        itCol += 1;
-                    }
-                }
+    /**
+     * @brief Private method that generates the Zobrist keys of the cells.
+     * @pre <em>True</em>
+     * @post Returns one random 64-bit number for each player and cell. The seed is fixed so the hashes are the same in every execution.
+     */
+    private static long[][] zobristKeys()
+    {
+        Random random = new Random(0x4F7468656C6C6FL);
+        long[][] keys = new long[2][64];
+        for(int i = 0; i < 2; ++i)
+            for(int j = 0; j < 64; ++j)
+                keys[i][j] = random.nextLong();
+        return keys;
+    }
 
-            }
-        }
+    /**
+     * @brief Private method that generates the Zobrist keys of the cells when their piece changes from one player to the other.
+     * @pre ZOBRIST_KEYS is already generated.
+     * @post Returns, for each cell, the XOR of the keys of both players in that cell.
+     */
+    private static long[] zobristFlipKeys()
+    {
+        long[] keys = new long[64];
+        for(int j = 0; j < 64; ++j)
+            keys[j] = ZOBRIST_KEYS[0][j] ^ ZOBRIST_KEYS[1][j];
+        return keys;
+    }
 
-        //DIAGONAL DOWN LEFT
-        if(row < 7 && column > 0) //To not go out of the boards boundaries
+    /**
+     * @brief Private method that moves every piece of a bitboard one cell in the given direction.
+     * @pre <em>direction</em> is between 0 and 7.
+     * @post Returns the bitboard with all its pieces moved one cell in <em>direction</em>. The pieces that would go out of the board's boundaries are dropped.
+     * @param bitboard Bitboard to be moved.
+     * @param direction Direction in which the pieces are moved.
+     */
+    private static long shift(long bitboard, int direction)
+    {
+        switch(direction)
         {
-            if(this.board[row+1][column-1] == opponentPiece) //to check if we can eat some opponents pieces in the bottom left diagonal
-            {
-                Integer itRow = row+1;
-                Integer itCol = column-1;
-                Boolean found = false;
-
-                while(itRow <= 7 && itCol >= 0 && this.board[itRow][itCol] != null && found == false)
-                //go through the line of the board to see if we can place the piece we want in "position". If so, we add the position of the piece that closes in the result array.
-                {
-                    if(this.board[itRow][itCol] == myPieceType)
-                    {
-                        result.add(new Pair<Integer,Integer>(itRow,itCol));
-                        found = true;
-                    }
-                    else //found another piece of the opponent in the diagonal line = CONTINUE THE HUNT
-                    {
-                        itRow += 1;
-                        itCol -= 1;
-                    }
-                }
-
-            }
+            case RIGHT: return (bitboard << 1) & NOT_COLUMN_0;
+            case LEFT: return (bitboard >>> 1) & NOT_COLUMN_7;
+            case DOWN: return bitboard << 8;
+            case UP: return bitboard >>> 8;
+            case DOWN_RIGHT: return (bitboard << 9) & NOT_COLUMN_0;
+            case UP_LEFT: return (bitboard >>> 9) & NOT_COLUMN_7;
+            case DOWN_LEFT: return (bitboard << 7) & NOT_COLUMN_7;
+            default: return (bitboard >>> 7) & NOT_COLUMN_0; //UP_RIGHT
         }
-        
-        //DIAGONAL DOWN RIGHT
-        if(row < 7 && column < 7) //To not go out of the boards boundaries
-        {   
-            if(this.board[row+1][column+1] == opponentPiece) //to check if we can eat some opponent pieces in the bottom right diagonal
-            {
-                Integer itRow = row+1;
-                Integer itCol = column+1;
-                Boolean found = false;
-
-                while(itRow <= 7 && itCol <= 7 && this.board[itRow][itCol] != null && found == false)
-                //go through the line of the board to see if we can place the piece we want in "position". If so, we add the position of the piece that closes in the result array.
-                {
-                    if(this.board[itRow][itCol] == myPieceType)
-                    {
-                        result.add(new Pair<Integer,Integer>(itRow,itCol));
-                        found = true;
-                    }
-                    else //found another piece of the opponent in the diagonal line = CONTINUE THE HUNT
-                    {
-                        itRow += 1;
-                        itCol += 1;
-                    }
-                }
-
-            }
-        }
-
-        return result;
+    }
 
+    /**
+     * @brief Private method that returns whether pieces can be captured in a direction with the Configuration given.
+     * @pre <em>direction</em> is between 0 and 7.
+     * @post Returns <em>true</em> if the capturing method that <em>direction</em> belongs to (Horizontal, Vertical or Diagonal) is allowed.
+     * @param direction Direction to be checked.
+     * @param canEatHorizontally Boolean value from Configuration that determines if we can capture pieces in a Horizontal manner.
+     * @param canEatVertically Boolean value from Configuration that determines if we can capture pieces in a Vertical manner.
+     * @param canEatDiagonally Boolean value from Configuration that determines if we can capture pieces in a Diagonal manner.
+     */
+    private static boolean isAllowed(int direction, boolean canEatHorizontally, boolean canEatVertically, boolean canEatDiagonally)
+    {
+        if(direction <= LEFT) return canEatHorizontally;
+        if(direction <= UP) return canEatVertically;
+        return canEatDiagonally;
     }
-    
-     /**
-     * @brief Private method that changes the pieces between two positions of the board.
-     * @pre Parameters aren't null.
-     * @post The pieces between the two positions in the board are changed to the <em>myPieceType</em> state.
-     * @param addPiece Pair<Intenger,Integer> that represents a position in the board.
-     * @param lastPiece Pair<Intenger,Integer> that represents a position in the board. 
-     * @param myPieceType PieceType variable that represents the player in a cell.
+
+    /**
+     * @brief Private method that transcribes a row of the implicit parameter's <em>board</em> into a storing format.
+     * @pre numRow has a value between 0 and 7 and <em>row</em> has 8 characters.
+     * @post <p>The characters of <em>row</em> are overwritten with the row number <em>numRow</em> of the implicit parameter's <em>board</em> in the storing format decided in class, and <em>row</em> is returned.</p>
+     * &nbsp; The storing format is: ? -> empty cell, B -> PLAYER1's piece, N -> PLAYER2's piece.
+     * @param numRow Number of the row in the board its transcribing.
+     * @param row Characters where the row is transcribed.
      */
-    private void changePieces(Pair<Integer, Integer> addPiece, Pair<Integer, Integer> lastPiece, PieceType myPieceType)
+    private char[] transcribeToCharacters(int numRow, char[] row)
     {
-        Pair<Integer,Integer> position = new Pair<Integer,Integer>(addPiece.first,addPiece.second);
-        Integer diffRow = lastPiece.first - addPiece.first;
-        Integer diffCol = lastPiece.second - addPiece.second;
-        Integer dirRow = 0, dirCol = 0;
-        PieceType opponent = inversePlayer(myPieceType);
+        int player1 = (int) (this.player1 >>> (numRow << 3)) & 0xFF;
+        int player2 = (int) (this.player2 >>> (numRow << 3)) & 0xFF;
 
-        if(diffRow == 0) //HORIZONTAL
+        for(int j = 0; j < 8; ++j)
         {
-            if(diffCol > 0) //RIGHT
-                dirCol = 1;
-            else //LEFT
-                dirCol = -1;
+            if((player1 & (1 << j)) != 0) row[j] = 'B';
+            else if((player2 & (1 << j)) != 0) row[j] = 'N';
+            else row[j] = '?';
         }
 
-        if(diffCol == 0) //VERTICAL
-        {
-            if(diffRow > 0) //UP
-                dirRow = 1;
-            else //DOWN
-                dirRow = -1;
-        }
+        return row;
+    }
 
-        if(diffCol != 0 && diffRow != 0) //DIAGONAL
+    /**
+     * @brief Private method that adds a row of a board in the storing format into the <em>board</em> attribute of the implicit parameter.<p></p>
+     * &nbsp; This method is useful to load a Board from a file.
+     * @pre Parameters aren't null and numRow has a value between 0 and 7.
+     * @post The implicit parameter's <em>board</em> attribute is modified with a new row number <em>numRow</em> with the values specified.
+     * in the <em>row</em> parameter.
+     * @param row String of a row of a board in storing format.
+     * @param numRow Number of the row in the board its transcribing.
+     */
+    private void transcribeToPieceType(String row, int numRow)
+    {
+        long player1 = 0L, player2 = 0L;
+        for(int i = 0; i < 8; ++i)
         {
-            if(diffRow > 0 && diffCol > 0) //DIAGONAL BOTTOM RIGHT
-            {
-                dirRow = 1;
-                dirCol = 1;
-            }
-            if(diffRow > 0 && diffCol < 0) //DIAGONAL BOTTOM LEFT
-            {
-                dirRow = 1;
-                dirCol = -1;
-            }
-            if(diffRow < 0 && diffCol > 0) //DIAGONAL TOP RIGHT
-            {
-                dirRow = -1;
-                dirCol = 1;
-            }
-            if(diffRow < 0 && diffCol < 0) //DIAGONAL TOP LEFT
-            {
-                dirRow = -1;
-                dirCol = -1;
-            }
+            char cell = row.charAt(i);
+            if(cell == 'B') player1 |= 1L << i;
+            else if(cell == 'N') player2 |= 1L << i;
         }
 
-
-        while((position.first != lastPiece.first) || (position.second != lastPiece.second)) {
-            if(this.board[position.first][position.second] == opponent && opponent == PieceType.PLAYER1)
-            {
-                this.piecesPlayer1--;
-                this.piecesPlayer2++;
-            } 
-            if(this.board[position.first][position.second] == opponent && opponent == PieceType.PLAYER2)
-            {
-                this.piecesPlayer1++;
-                this.piecesPlayer2--;
-            } 
-
-            this.board[position.first][position.second] = myPieceType;
-            position.first = position.first + dirRow;
-            position.second = position.second + dirCol;
-        }
+        this.player1 |= player1 << (numRow << 3);
+        this.player2 |= player2 << (numRow << 3);
     }
 
-
-}
\ No newline at end of file
+    /**
+     * @brief Private method that inverts the Player's pieceType.<p></p>
+     * &nbsp; This method is particularly useful to get the opponent's PieceType in another method.
+     * @pre myPieceType isn't null.
+     * @post Returns a PieceType that is the opponent of <em>myPieceType</em>
+     * @param myPieceType PieceType variable that represents the player in a cell.
+     */
+    private PieceType inversePlayer(PieceType myPieceType)
+    {
+        if(myPieceType == PieceType.PLAYER1) return PieceType.PLAYER2;
+        else return PieceType.PLAYER1;
+    }
+}
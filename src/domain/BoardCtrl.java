@@ -101,12 +101,20 @@ public class BoardCtrl {
      */
     public ArrayList<Pair<Integer, Integer>> validPositions(Board board, Configuration configuration,
             PieceType myPieceType) {
-        ArrayList<Pair<Integer, Integer>> validPos = new ArrayList<Pair<Integer, Integer>>();
-
-        validPos = board.validPositions(myPieceType, configuration.getCanEatHorizontally(),
-                configuration.getCanEatVertically(), configuration.getCanEatDiagonally());
+        return this.validMoveList(board, configuration, myPieceType).toPairs();
+    }
 
-        return validPos;
+    /**
+     * @brief Method that returns a MoveList of the valid positions in <em>board</em> of the player <em>myPieceType</em> taking into consideration the Configuration of the Game.
+     * @pre All parameters aren't null.
+     * @post A MoveList with the valid positions is returned. It can check if a position is valid without going through all of them.
+     * @param board Instance of a Board class.
+     * @param myPieceType PieceType variable that represents the player in a cell.
+     * @param configuration Instance of a Configuration class used to determine which piece capturing methods we apply in this method.
+     */
+    public MoveList validMoveList(Board board, Configuration configuration, PieceType myPieceType) {
+        return new MoveList(board.validMoves(myPieceType, configuration.getCanEatHorizontally(),
+                configuration.getCanEatVertically(), configuration.getCanEatDiagonally()));
     }
 
     /**
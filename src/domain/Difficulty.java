@@ -5,6 +5,14 @@
  */
 package domain;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
 import domain.Board.PieceType;
 import util.Pair;
 
@@ -16,6 +24,10 @@ import util.Pair;
 public abstract class Difficulty {
     /* ATTRIBUTES */
 
+    /**
+    * @brief Evaluation of a won game without the difference of pieces. It is greater than any heuristic evaluation.
+    */
+    protected static final int WIN_VALUE = 1 << 20;
     /**
     * @brief Max depth for the heuristics of the chosen algorithm. It is calculated from the implicit difficulty.
     */
@@ -40,6 +52,42 @@ public abstract class Difficulty {
     * @brief Player that wants to be maximized.
     */
     protected PieceType pieceType;
+    /**
+    * @brief Lists of valid positions reused by the search, one for each remaining depth so that nested calls don't overwrite each other.
+    */
+    private MoveList[] moveLists;
+    /**
+    * @brief Time limit in milliseconds for each place call, or 0 if there isn't any.
+    */
+    protected long timeLimit;
+    /**
+    * @brief Number of empty cells from which the EndgameSolver is used instead of the chosen algorithm, or 0 if it is never used.
+    */
+    protected int endgameEmpties;
+    /**
+    * @brief Number of positions searched by the last place call.
+    */
+    protected long nodes;
+    /**
+    * @brief Heuristic evaluation of the Board states used by the Minimax algorithms.
+    */
+    protected Evaluator evaluator;
+    /**
+    * @brief Whether the time limit of the current place call has been reached.
+    */
+    protected boolean timeUp;
+    /**
+    * @brief Moment, as given by System.nanoTime, when the time limit of the current place call is reached.
+    */
+    private long deadline;
+    /**
+    * @brief Number of calls to checkTime since the last time the clock was read.
+    */
+    private int timeChecks;
+    /**
+    * @brief Pool shared by all the Difficulty instances to run parallel searches. It is created on its first use.
+    */
+    private static ForkJoinPool pool = null;
 
     /* CONSTRUCTORS */
 
@@ -62,6 +110,12 @@ public abstract class Difficulty {
         this.canEatDiagonally = canEatDiagonally;
         this.pieceType = pieceType;
         this.maxDepth = difficulty * 2;
+        this.moveLists = new MoveList[0];
+        this.timeLimit = 0;
+        this.timeUp = false;
+        this.endgameEmpties = 0;
+        this.nodes = 0;
+        this.evaluator = WeightTableEvaluator.classic(canEatHorizontally, canEatVertically, canEatDiagonally);
     }
 
     /* METHODS */
@@ -136,6 +190,184 @@ public abstract class Difficulty {
         this.maxDepth = maxDepth;
     }
 
+    /**
+     * @brief Get the timeLimit of the implicit chosen Difficulty.
+     * @pre <em>True</em>
+     * @post The timeLimit attribute of the implicit chosen Difficulty is returned.
+     * @return Time limit in milliseconds for each place call, or 0 if there isn't any.
+     */
+    public long getTimeLimit() {
+        return this.timeLimit;
+    }
+
+    /**
+     * @brief Set the timeLimit of the implicit chosen Difficulty.
+     * @pre The given timeLimit is not negative.
+     * @post The timeLimit attribute of the implicit chosen Difficulty is setted. The next place calls stop searching when
+     * it is reached and return the best position found by the last completed iteration. If it is 0 the search is only limited by maxDepth.
+     * @param timeLimit Time limit in milliseconds for each place call, or 0 if there isn't any.
+     */
+    public void setTimeLimit(long timeLimit) {
+        this.timeLimit = timeLimit;
+    }
+
+    /**
+     * @brief Get the Evaluator of the implicit chosen Difficulty.
+     * @pre <em>True</em>
+     * @post The Evaluator used to evaluate the Board states is returned.
+     * @return The Evaluator of the implicit chosen Difficulty.
+     */
+    public Evaluator getEvaluator() {
+        return this.evaluator;
+    }
+
+    /**
+     * @brief Set the Evaluator of the implicit chosen Difficulty.
+     * @pre The given evaluator is not null.
+     * @post The next place calls evaluate the Board states with the given Evaluator. By default it is the classic
+     * WeightTableEvaluator for the implicit rules.
+     * @param evaluator Evaluator to be used.
+     */
+    public void setEvaluator(Evaluator evaluator) {
+        this.evaluator = evaluator;
+    }
+
+    /**
+     * @brief Get the number of positions searched by the last place call of the implicit chosen Difficulty.
+     * @pre <em>True</em>
+     * @post It is returned the number of positions searched by the last place call, or the number of simulations for the
+     * Monte Carlo Tree Search algorithm. It is 0 if the last position was found with the EndgameSolver.
+     * @return Number of positions searched by the last place call.
+     */
+    public long getNodes() {
+        return this.nodes;
+    }
+
+    /**
+     * @brief Set the endgameEmpties of the implicit chosen Difficulty.
+     * @pre The given endgameEmpties is not negative.
+     * @post The endgameEmpties attribute of the implicit chosen Difficulty is setted. The algorithms that support it play perfectly,
+     * with the EndgameSolver, when the Board has at most endgameEmpties empty cells. If it is 0 the EndgameSolver isn't used.
+     * @param endgameEmpties Number of empty cells from which the EndgameSolver is used.
+     */
+    public void setEndgameEmpties(int endgameEmpties) {
+        this.endgameEmpties = endgameEmpties;
+    }
+
+    /**
+     * @brief Check whether the given Board has to be solved with the EndgameSolver.
+     * @pre <em>True</em>
+     * @post It is returned true if the given Board has at most endgameEmpties empty cells, or false if not.
+     * @param board Current playing Board.
+     * @return Whether the given Board has to be solved with the EndgameSolver.
+     */
+    protected boolean isEndgame(Board board) {
+        return 64 - board.getPiecesPlayer1() - board.getPiecesPlayer2() <= this.endgameEmpties;
+    }
+
+    /**
+     * @brief Start counting the time of a place call.
+     * @pre <em>True</em>
+     * @post The time limit of the implicit Difficulty starts counting from now and timeUp is false.
+     */
+    protected void startClock() {
+        this.deadline = System.nanoTime() + this.timeLimit * 1000000L;
+        this.timeUp = false;
+        this.timeChecks = 0;
+    }
+
+    /**
+     * @brief Start counting the time of a place call with the same deadline as another Difficulty, so both stop at the same moment.
+     * @pre startClock has been called in the current place call of the given Difficulty.
+     * @post The implicit Difficulty has the time limit and deadline of the given one and timeUp is false.
+     * @param difficulty Difficulty whose clock is copied.
+     */
+    protected void syncClock(Difficulty difficulty) {
+        this.timeLimit = difficulty.timeLimit;
+        this.deadline = difficulty.deadline;
+        this.timeUp = false;
+        this.timeChecks = 0;
+    }
+
+    /**
+     * @brief Check whether the time limit of the current place call has been reached.
+     * @pre startClock has been called in the current place call.
+     * @post It is returned true, and timeUp is setted, if there is a time limit and it has been reached, or false if not.
+     * @return Whether the time limit has been reached.
+     */
+    protected boolean isTimeUp() {
+        if (!this.timeUp && this.timeLimit > 0 && System.nanoTime() - this.deadline >= 0)
+            this.timeUp = true;
+        return this.timeUp;
+    }
+
+    /**
+     * @brief Cheaper version of isTimeUp to be called at every node of a search, which only reads the clock once every 1024 calls.
+     * @pre startClock has been called in the current place call.
+     * @post It is returned true, and timeUp is setted, if there is a time limit and it has been reached the last time the clock was read, or false if not.
+     * @return Whether the time limit has been reached.
+     */
+    protected boolean checkTime() {
+        if ((++this.timeChecks & 1023) == 0)
+            return this.isTimeUp();
+        return this.timeUp;
+    }
+
+    /**
+     * @brief Get the pool shared by all the Difficulty instances.
+     * @pre <em>True</em>
+     * @post The pool is returned, and created with one thread for each available processor if it didn't exist.
+     * @return The shared pool.
+     */
+    protected static synchronized ForkJoinPool getPool() {
+        if (Difficulty.pool == null)
+            Difficulty.pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        return Difficulty.pool;
+    }
+
+    /**
+     * @brief Run the given tasks in the shared pool and wait for them.
+     * @pre <em>True</em>
+     * @post All the tasks have finished and their results are returned in the same order.
+     * If a task throws an exception, it is thrown again.
+     * @param tasks Tasks to be run.
+     * @return Results of the tasks.
+     */
+    protected static <T> List<T> runAll(List<Callable<T>> tasks) {
+        List<T> results = new ArrayList<T>(tasks.size());
+
+        for (Future<T> future : Difficulty.getPool().invokeAll(tasks)) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * @brief Get the evaluation of a finished game for the implicit player.
+     * @pre Neither player can place a piece in the given Board.
+     * @post It is returned WIN_VALUE plus the difference of pieces if the implicit player won, minus WIN_VALUE plus the
+     * difference of pieces if it lost, and 0 if it is a draw. So any win is better than any position that isn't finished,
+     * and bigger wins are better than smaller ones.
+     * @param board Board of the finished game.
+     * @return The evaluation of the finished game for the implicit player.
+     */
+    protected int finalEvaluation(Board board) {
+        int difference = board.getPiecesPlayer1() - board.getPiecesPlayer2();
+        if (this.pieceType == PieceType.PLAYER2) difference = -difference;
+
+        if (difference > 0) return WIN_VALUE + difference;
+        else if (difference < 0) return -WIN_VALUE + difference;
+        else return 0;
+    }
+
     /**
      * @brief Get the inverse of the given player.
      * @pre <em>True</em>
@@ -147,6 +379,26 @@ public abstract class Difficulty {
         return (pieceType == PieceType.PLAYER2 ? PieceType.PLAYER1 : PieceType.PLAYER2);
     }
 
+    /**
+     * @brief Get the valid positions of the given player in the given Board using the implicit rules.
+     * @pre The given depth is not negative.
+     * @post The MoveList reserved for the given depth is filled with the valid positions and returned.
+     * It will be overwritten by the next call with the same depth.
+     * @param board Board to get the valid positions from.
+     * @param pieceType Player to get the valid positions of.
+     * @param depth Remaining depth in the tree of possibilities.
+     * @return The valid positions of the given player.
+     */
+    protected MoveList validMoveList(Board board, PieceType pieceType, int depth) {
+        if (depth >= this.moveLists.length)
+            this.moveLists = Arrays.copyOf(this.moveLists, depth + 1);
+        if (this.moveLists[depth] == null)
+            this.moveLists[depth] = new MoveList();
+
+        return this.moveLists[depth].set(board.validMoves(pieceType, this.canEatHorizontally, this.canEatVertically,
+                this.canEatDiagonally));
+    }
+
     /**
      * @brief Get the next best possible position for the implicit player.
      * @pre <em>True</em>
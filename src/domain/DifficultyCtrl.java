@@ -5,7 +5,11 @@
  */
 package domain;
 
+import java.nio.ByteBuffer;
+
 import domain.Board.PieceType;
+import repository.BookRepositoryCtrl;
+import repository.WeightsRepositoryCtrl;
 import util.Pair;
 
 /**
@@ -22,6 +26,64 @@ import util.Pair;
 public class DifficultyCtrl {
     /* ATTRIBUTES */
 
+    /**
+    * @brief Transposition table shared by the MediumDifficulty searches of the current game. It is created on its first use.
+    */
+    private TranspositionTable transpositionTable;
+    /**
+    * @brief HardDifficulty searches of the current game, one for each player, kept to reuse their search trees in the next moves.
+    * The index is the PieceType ordinal.
+    */
+    private HardDifficulty[] hardDifficulties;
+    /**
+    * @brief How the HardDifficulty searches distribute their simulations among threads.
+    */
+    private HardDifficulty.Parallelism parallelism;
+    /**
+    * @brief Number of threads of the HardDifficulty searches.
+    */
+    private int threads;
+    /**
+    * @brief Number of threads of the MediumDifficulty searches.
+    */
+    private int searchThreads;
+    /**
+    * @brief Number of empty cells from which the levels that use MediumDifficulty or HardDifficulty play perfectly.
+    */
+    private int endgameEmpties;
+    /**
+    * @brief Default number of empty cells from which the levels that use MediumDifficulty or HardDifficulty play perfectly.
+    */
+    private static final int DEFAULT_ENDGAME_EMPTIES = 12;
+    /**
+    * @brief Time limit in milliseconds of each move for every level, or 0 if there isn't any. The index is the level, 0 isn't used.
+    */
+    private long[] timeLimits;
+    /**
+    * @brief Default time limit in milliseconds of each move for every level.
+    */
+    private static final long[] DEFAULT_TIME_LIMITS = {0, 1000, 1500, 2000, 2500, 500, 500, 1000, 1500, 2000, 3000};
+    /**
+    * @brief Number of positions searched to find the last best position.
+    */
+    private long lastNodes;
+    /**
+    * @brief Evaluator of the levels that use MediumDifficulty when every direction is allowed, or null to use the classic one.
+    */
+    private PatternEvaluator patternEvaluator;
+    /**
+    * @brief Whether the weights of the patternEvaluator have already been read from the Weights repository.
+    */
+    private boolean patternEvaluatorLoaded;
+    /**
+    * @brief OpeningBook checked before searching, or null if there isn't any.
+    */
+    private OpeningBook openingBook;
+    /**
+    * @brief Whether the openingBook has already been read from the Book repository.
+    */
+    private boolean openingBookLoaded;
+
     /* CONSTRUCTORS */
 
     /**
@@ -30,10 +92,253 @@ public class DifficultyCtrl {
      * @post An instance of DifficultyCtrl is instanced.
      */
     public DifficultyCtrl() {
+        this.transpositionTable = null;
+        this.hardDifficulties = new HardDifficulty[PieceType.values().length];
+        this.parallelism = HardDifficulty.Parallelism.TREE;
+        this.threads = Runtime.getRuntime().availableProcessors();
+        this.searchThreads = Runtime.getRuntime().availableProcessors();
+        this.endgameEmpties = DEFAULT_ENDGAME_EMPTIES;
+        this.timeLimits = DEFAULT_TIME_LIMITS.clone();
+        this.lastNodes = 0;
+        this.patternEvaluator = null;
+        this.patternEvaluatorLoaded = false;
+        this.openingBook = null;
+        this.openingBookLoaded = false;
     }
 
     /* METHODS */
 
+    /**
+     * @brief Forgets the positions searched in the current game.
+     * @pre <em>True</em>
+     * @post The transposition table shared by the MediumDifficulty searches is empty and the search trees of the
+     * HardDifficulty searches are discarded.
+     */
+    public void clearSearches() {
+        if (this.transpositionTable != null)
+            this.transpositionTable.clear();
+        for (int i = 0; i < this.hardDifficulties.length; ++i)
+            this.hardDifficulties[i] = null;
+    }
+
+    /**
+     * @brief Returns the number of positions searched to find the last best position.
+     * @pre <em>True</em>
+     * @post The number of positions searched by the last getBestPosition call is returned, or the number of simulations if
+     * its level uses the Monte Carlo Tree Search algorithm.
+     * @return The number of positions searched to find the last best position.
+     */
+    public long getLastNodes() {
+        return this.lastNodes;
+    }
+
+    /**
+     * @brief Returns the time limit of each move for the given level.
+     * @pre The given difficulty is between 1 and 10.
+     * @post The time limit in milliseconds of each move for the given level is returned, or 0 if there isn't any.
+     * @param difficulty Integer that represents the level.
+     * @return The time limit in milliseconds of each move for the given level.
+     */
+    public long getTimeLimit(Integer difficulty) {
+        return this.timeLimits[difficulty];
+    }
+
+    /**
+     * @brief Sets the time limit of each move for the given level.
+     * @pre The given difficulty is between 1 and 10. The given timeLimit is not negative.
+     * @post The next moves of the given level stop searching when the time limit is reached and return the best position of the
+     * last completed search. If the time limit is 0, they are only limited by the depth or the number of simulations of the level.
+     * @param difficulty Integer that represents the level.
+     * @param timeLimit Time limit in milliseconds of each move, or 0 if there isn't any.
+     */
+    public void setTimeLimit(Integer difficulty, long timeLimit) {
+        this.timeLimits[difficulty] = timeLimit;
+    }
+
+    /**
+     * @brief Sets how the HardDifficulty searches distribute their simulations among threads.
+     * @pre The given threads is a positive number.
+     * @post The next moves of the levels that use HardDifficulty run their simulations with the given parallelism and number of threads.
+     * By default the simulations share the search tree (TREE) and use one thread for each available processor.
+     * @param parallelism How the simulations are distributed among threads.
+     * @param threads Number of threads that run the simulations.
+     */
+    public void setParallelism(HardDifficulty.Parallelism parallelism, int threads) {
+        this.parallelism = parallelism;
+        this.threads = threads;
+    }
+
+    /**
+     * @brief Sets the number of threads of the MediumDifficulty searches.
+     * @pre The given threads is a positive number.
+     * @post The next moves of the levels that use MediumDifficulty search the positions of the root with the given number of threads.
+     * By default they use one thread for each available processor. The positions chosen with a fixed depth don't change.
+     * @param threads Number of threads of the searches.
+     */
+    public void setSearchThreads(int threads) {
+        this.searchThreads = threads;
+    }
+
+    /**
+     * @brief Sets the number of empty cells from which the levels that use MediumDifficulty or HardDifficulty play perfectly.
+     * @pre The given endgameEmpties is not negative.
+     * @post The next moves of the levels 1 to 4 and 7 to 10 are found with the EndgameSolver when the Board has at most
+     * endgameEmpties empty cells. If it is 0 the EndgameSolver isn't used. By default it is 12.
+     * @param endgameEmpties Number of empty cells from which the EndgameSolver is used.
+     */
+    public void setEndgameEmpties(int endgameEmpties) {
+        this.endgameEmpties = endgameEmpties;
+    }
+
+    /**
+     * @brief Set the PatternEvaluator of the levels that use MediumDifficulty.
+     * @pre <em>True</em>
+     * @post The next moves of the levels 7 to 10 in games where every direction is allowed are evaluated with the given
+     * PatternEvaluator, or with the classic WeightTableEvaluator if it is null. By default the "patterns" weights of the
+     * Weights repository are used if they exist.
+     * @param patternEvaluator PatternEvaluator to be used or null.
+     */
+    public void setPatternEvaluator(PatternEvaluator patternEvaluator) {
+        this.patternEvaluator = patternEvaluator;
+        this.patternEvaluatorLoaded = true;
+    }
+
+    /**
+     * @brief Private method that returns the PatternEvaluator of the levels that use MediumDifficulty.
+     * @pre <em>True</em>
+     * @post The PatternEvaluator is returned, or null if there isn't any. The first time it is read from the "patterns"
+     * weights of the Weights repository, unless one has been set. If they don't exist or are invalid there isn't any.
+     * @return The PatternEvaluator or null.
+     */
+    private PatternEvaluator getPatternEvaluator() {
+        if (!this.patternEvaluatorLoaded) {
+            this.patternEvaluator = DifficultyCtrl.loadPatternEvaluator();
+            this.patternEvaluatorLoaded = true;
+        }
+
+        return this.patternEvaluator;
+    }
+
+    /**
+     * @brief Set the OpeningBook checked before searching.
+     * @pre <em>True</em>
+     * @post The next moves of the levels 1 to 4 and 7 to 10 are taken from the given OpeningBook when it has the position,
+     * or always searched if it is null. By default the "openings" book of the Book repository is used if it exists.
+     * @param openingBook OpeningBook to be used or null.
+     */
+    public void setOpeningBook(OpeningBook openingBook) {
+        this.openingBook = openingBook;
+        this.openingBookLoaded = true;
+    }
+
+    /**
+     * @brief Private method that returns the OpeningBook checked before searching.
+     * @pre <em>True</em>
+     * @post The OpeningBook is returned, or null if there isn't any. The first time it is mapped from the "openings" book
+     * of the Book repository, unless one has been set. If it doesn't exist or is invalid there isn't any.
+     * @return The OpeningBook or null.
+     */
+    private OpeningBook getOpeningBook() {
+        if (!this.openingBookLoaded) {
+            this.openingBook = DifficultyCtrl.loadOpeningBook();
+            this.openingBookLoaded = true;
+        }
+
+        return this.openingBook;
+    }
+
+    /**
+     * @brief Method that reads the default PatternEvaluator.
+     * @pre <em>True</em>
+     * @post The PatternEvaluator of the "patterns" weights of the Weights repository is returned, or null if they don't
+     * exist or are invalid.
+     * @return The default PatternEvaluator or null.
+     */
+    static PatternEvaluator loadPatternEvaluator() {
+        byte[] weights = new WeightsRepositoryCtrl().get("patterns");
+        try {
+            if (weights != null) return PatternEvaluator.fromBytes(weights);
+        } catch (IllegalArgumentException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * @brief Method that reads the default OpeningBook.
+     * @pre <em>True</em>
+     * @post The OpeningBook mapped from the "openings" book of the Book repository is returned, or null if it doesn't
+     * exist or is invalid.
+     * @return The default OpeningBook or null.
+     */
+    static OpeningBook loadOpeningBook() {
+        ByteBuffer book = new BookRepositoryCtrl().get("openings");
+        try {
+            if (book != null) return new OpeningBook(book);
+        } catch (IllegalArgumentException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * @brief Private method that creates a MediumDifficulty which uses the shared transposition table.
+     * @pre The given difficulty is a positive number. The given rules are not all false.
+     * @post A MediumDifficulty with the given parameters and the shared transposition table is returned. If every direction
+     * is allowed and there is a PatternEvaluator, it is used to evaluate the Board states, because its weights were trained
+     * with those rules.
+     * @param difficulty Difficulty for the Minimax algorithm with alpha-beta pruning.
+     * @param cH Whether the pieces can be eaten horizontally.
+     * @param cV Whether the pieces can be eaten vertically.
+     * @param cD Whether the pieces can be eaten diagonally.
+     * @param myPieceType Player that wants to be maximized.
+     */
+    private MediumDifficulty mediumDifficulty(int difficulty, boolean cH, boolean cV, boolean cD, PieceType myPieceType) {
+        MediumDifficulty mediumDifficulty = new MediumDifficulty(difficulty, cH, cV, cD, myPieceType);
+        mediumDifficulty.setTranspositionTable(this.getTranspositionTable());
+        mediumDifficulty.setThreads(this.searchThreads);
+        mediumDifficulty.setEndgameEmpties(this.endgameEmpties);
+        if (cH && cV && cD && this.getPatternEvaluator() != null)
+            mediumDifficulty.setEvaluator(this.getPatternEvaluator());
+        return mediumDifficulty;
+    }
+
+    /**
+     * @brief Private method that returns the HardDifficulty of the given player, which keeps its search tree between moves.
+     * @pre The given difficulty is a positive number. The given rules are not all false.
+     * @post The HardDifficulty of the given player is returned. It is created if there wasn't any or if the last one
+     * had another difficulty or other rules.
+     * @param difficulty Difficulty for the Monte Carlo Tree Search algorithm.
+     * @param cH Whether the pieces can be eaten horizontally.
+     * @param cV Whether the pieces can be eaten vertically.
+     * @param cD Whether the pieces can be eaten diagonally.
+     * @param myPieceType Player that wants to be maximized.
+     */
+    private HardDifficulty hardDifficulty(int difficulty, boolean cH, boolean cV, boolean cD, PieceType myPieceType) {
+        HardDifficulty hardDifficulty = this.hardDifficulties[myPieceType.ordinal()];
+
+        if (hardDifficulty == null || hardDifficulty.getDifficulty() != difficulty || hardDifficulty.getCanEatHorizontally() != cH
+                || hardDifficulty.getCanEatVertically() != cV || hardDifficulty.getCanEatDiagonally() != cD) {
+            hardDifficulty = new HardDifficulty(difficulty, cH, cV, cD, myPieceType);
+            this.hardDifficulties[myPieceType.ordinal()] = hardDifficulty;
+        }
+        hardDifficulty.setParallelism(this.parallelism, this.threads);
+        hardDifficulty.setEndgameEmpties(this.endgameEmpties);
+
+        return hardDifficulty;
+    }
+
+    /**
+     * @brief Private method that returns the transposition table shared by the MediumDifficulty searches.
+     * @pre <em>True</em>
+     * @post The transposition table is returned, and created if it didn't exist.
+     */
+    private TranspositionTable getTranspositionTable() {
+        if (this.transpositionTable == null)
+            this.transpositionTable = new TranspositionTable();
+        return this.transpositionTable;
+    }
+
     /**
      * @brief Returns the next best possible position, or null if none, to place a piece on the current game for the current bot.
      *        It forwards the placePiece request to the correct algorithm depending on the current bot’s difficulty.
@@ -54,7 +359,8 @@ public class DifficultyCtrl {
      * @brief Returns the next best possible position, or null if none, to place a piece on the current game for the given player.
      * It forwards the placePiece request to the correct algorithm depending on the difficulty. This method can be used to implement the assisted mode.
      * @pre All parameters aren't null.
-     * @post The best position is returned.
+     * @post The best position is returned. The levels 1 to 4 and 7 to 10 return the move of the OpeningBook without
+     * searching if it has the position. The levels 5 and 6 always search, so they keep playing weakly in the opening.
      * @param difficulty Integer that represents the level of the assisted mode.
      * @param configuration An instance of the Configuration Class
      * @param board An instance of the Board Class
@@ -68,43 +374,55 @@ public class DifficultyCtrl {
         boolean cV = configuration.getCanEatVertically();
         boolean cD = configuration.getCanEatDiagonally();
         PieceType[][] b = board.getBoard();
+        Difficulty algorithm = null;
+
+        if (difficulty != 5 && difficulty != 6 && this.getOpeningBook() != null) {
+            bestPosition = this.getOpeningBook().getMove(board, myPieceType, cH, cV, cD);
+            if (bestPosition != null) {
+                this.lastNodes = 0;
+                return bestPosition;
+            }
+        }
 
         switch (difficulty) {
             case 1:
-                bestPosition = new HardDifficulty(7, cH, cV, cD, myPieceType).place(b);
+                algorithm = this.hardDifficulty(7, cH, cV, cD, myPieceType);
                 break;
             case 2:
-                bestPosition = new HardDifficulty(8, cH, cV, cD, myPieceType).place(b);
+                algorithm = this.hardDifficulty(8, cH, cV, cD, myPieceType);
                 break;
             case 3:
-                bestPosition = new HardDifficulty(9, cH, cV, cD, myPieceType).place(b);
+                algorithm = this.hardDifficulty(9, cH, cV, cD, myPieceType);
                 break;
             case 4:
-                bestPosition = new HardDifficulty(10, cH, cV, cD, myPieceType).place(b);
+                algorithm = this.hardDifficulty(10, cH, cV, cD, myPieceType);
                 break;
             case 5:
-                EasyDifficulty ed5 = new EasyDifficulty(1, cH, cV, cD, myPieceType); ed5.setMaxDepth(1);
-                bestPosition = ed5.place(b);
+                algorithm = new EasyDifficulty(1, cH, cV, cD, myPieceType); algorithm.setMaxDepth(1);
                 break;
             case 6:
-                bestPosition = new EasyDifficulty(1, cH, cV, cD, myPieceType).place(b);
+                algorithm = new EasyDifficulty(1, cH, cV, cD, myPieceType);
                 break;
             case 7:
-                MediumDifficulty md7 = new MediumDifficulty(1, cH, cV, cD, myPieceType); md7.setMaxDepth(3);
-                bestPosition = md7.place(b);
+                algorithm = this.mediumDifficulty(1, cH, cV, cD, myPieceType); algorithm.setMaxDepth(3);
                 break;
             case 8:
-                bestPosition = new MediumDifficulty(2, cH, cV, cD, myPieceType).place(b);
+                algorithm = this.mediumDifficulty(2, cH, cV, cD, myPieceType);
                 break;
             case 9:
-                MediumDifficulty md9 = new MediumDifficulty(2, cH, cV, cD, myPieceType); md9.setMaxDepth(5);
-                bestPosition = md9.place(b);
+                algorithm = this.mediumDifficulty(2, cH, cV, cD, myPieceType); algorithm.setMaxDepth(5);
                 break;
             case 10:
-                bestPosition = new MediumDifficulty(3, cH, cV, cD, myPieceType).place(b);
+                algorithm = this.mediumDifficulty(3, cH, cV, cD, myPieceType);
                 break;
         }
 
+        if (algorithm != null) {
+            algorithm.setTimeLimit(this.timeLimits[difficulty]);
+            bestPosition = algorithm.place(b);
+            this.lastNodes = algorithm.getNodes();
+        }
+
         return bestPosition;
     }
 }
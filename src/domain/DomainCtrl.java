@@ -133,6 +133,7 @@ public class DomainCtrl {
         this.currentBoard = null;
         this.currentConfiguration = null;
         this.currentGame = null;
+        this.difficultyCtrl.clearSearches();
     }
 
     /* PLAYER */
@@ -700,6 +701,7 @@ public class DomainCtrl {
             this.currentConfiguration = configuration;
             this.currentPlayer1 = player1;
             this.currentPlayer2 = player2;
+            this.difficultyCtrl.clearSearches();
             result.first = game.serialize();
         } catch (Exception e) {
             return new Pair<JSONObject, String>(null, e.getMessage());
@@ -907,17 +909,17 @@ public class DomainCtrl {
      */
     public Pair<Pair<JSONObject, String>, String> placePiece(Pair<Integer, Integer> position, UUID playerID,
             String pieceType) {
-        ArrayList<Pair<Integer, Integer>> validPos1 = new ArrayList<Pair<Integer, Integer>>();
-        ArrayList<Pair<Integer, Integer>> validPos2 = new ArrayList<Pair<Integer, Integer>>();
+        MoveList validPos1 = null;
+        MoveList validPos2 = null;
 
         PieceType myPieceType = this.stringToPieceType(pieceType);
 
         try {
             this.gameCtrl.checkPlaceRights(this.currentGame, playerID, myPieceType);
 
-            validPos1 = this.boardCtrl.validPositions(this.currentBoard, this.currentConfiguration, myPieceType);
+            validPos1 = this.boardCtrl.validMoveList(this.currentBoard, this.currentConfiguration, myPieceType);
             if (validPos1.isEmpty()) {
-                validPos2 = this.boardCtrl.validPositions(this.currentBoard, this.currentConfiguration,
+                validPos2 = this.boardCtrl.validMoveList(this.currentBoard, this.currentConfiguration,
                         this.inversePieceType(myPieceType));
                 if (validPos2.isEmpty())
                     return this.finishGame();
@@ -937,12 +939,12 @@ public class DomainCtrl {
             this.currentBoard = this.boardCtrl.placePiece(this.currentBoard, this.currentConfiguration, myPieceType,
                     position);
 
-            validPos2 = this.boardCtrl.validPositions(this.currentBoard, this.currentConfiguration,
+            validPos2 = this.boardCtrl.validMoveList(this.currentBoard, this.currentConfiguration,
                     this.inversePieceType(myPieceType));
             if (!validPos2.isEmpty())
                 return this.nextTurn();
 
-            validPos1 = this.boardCtrl.validPositions(this.currentBoard, this.currentConfiguration, myPieceType);
+            validPos1 = this.boardCtrl.validMoveList(this.currentBoard, this.currentConfiguration, myPieceType);
             if (validPos1.isEmpty())
                 return this.finishGame();
 
@@ -5,14 +5,14 @@
  */
 package domain;
 
-import java.util.ArrayList;
-
 import domain.Board.PieceType;
 import util.Pair;
 
 /**
  * @class EasyDifficulty
  * @brief Implements the Minimax algorithm to get the next best possible position for a given player.
+ * The Board states are evaluated with the implicit Evaluator, whose score is updated with each move instead of being
+ * computed again at every leaf.
  * By Manuel Navid
  */
 public class EasyDifficulty extends Difficulty {
@@ -39,148 +39,128 @@ public class EasyDifficulty extends Difficulty {
     /* METHODS */
 
     /**
-     * @brief Get the heuristic evaluation for the given Board state.
+     * @brief Recursive implementation of the Minimax algorithm.
      * @pre <em>True</em>
-     * @post It is returned the heuristic evaluation for the given Board state.
-     * The evaluation is the subtraction of the maximized player's control of the board minus the control of the board for the opponent.
-     * A player's control of the board is obtained with the number of pieces in his control and adding or subtracting to that based on important positions in the board.
-     * Those important positions are corners, positions adjacent to corners, borders of the board which aren't adjacent to corners and positions adjacent to the centre square of the board.
-     * @param currentBoard Current playing Board to get the heuristic evaluation from.
-     * @return The heuristic evaluation for the given Board state.
+     * @post It is returned the heuristic evaluation for the current possible position on the tree of possibilities.
+     * If the maximum depth is reached it stops. A player that can't place any piece passes, and if neither player can place
+     * a piece the game has ended and its exact result is returned (see finalEvaluation).
+     * The implicit player is maximized and the opponent is minimized.
+     * @param currentBoard current Board in the tree of possibilities.
+     * @param currentPieceType current turn in the tree of possibilities.
+     * @param depth current depth in the tree of possibilities.
+     * @param score Score of the current Board for the implicit Evaluator, updated with each move.
+     * @return The heuristic evaluation for the current possible position on the tree of possibilities.
      */
-    private int evaluation(Board currentBoard) {
-        int player1 = currentBoard.getPiecesPlayer1();
-        int player2 = currentBoard.getPiecesPlayer2();
+    private int minimax(Board currentBoard, PieceType currentPieceType, int depth, int score) {
+        MoveList validPositions = this.validMoveList(currentBoard, currentPieceType, depth);
+        ++this.nodes;
 
-        PieceType[][] board = currentBoard.getBoard();
+        if (validPositions.isEmpty()) {
+            PieceType opponent = EasyDifficulty.inversePieceType(currentPieceType);
 
-        // Check corners of the Board
-        if (board[0][0] == PieceType.PLAYER1) player1 += 50;
-        else if (board[0][0] == PieceType.PLAYER2) player2 += 50;
+            // The game ends when neither player can place a piece
+            if (currentBoard.validMoves(opponent, this.canEatHorizontally, this.canEatVertically, this.canEatDiagonally) == 0)
+                return this.finalEvaluation(currentBoard);
 
-        if (board[0][7] == PieceType.PLAYER1) player1 += 50;
-        else if (board[0][7] == PieceType.PLAYER2) player2 += 50;
-
-        if (board[7][0] == PieceType.PLAYER1) player1 += 50;
-        else if (board[7][0] == PieceType.PLAYER2) player2 += 50;
+            // Otherwise the player passes, which doesn't count as a level of the tree of possibilities
+            if (depth > 0)
+                return this.minimax(currentBoard, opponent, depth, score);
+        }
 
-        if (board[7][7] == PieceType.PLAYER1) player1 += 50;
-        else if (board[7][7] == PieceType.PLAYER2) player2 += 50;
+        if (depth == 0)
+            return this.evaluator.evaluate(currentBoard, this.pieceType, score);
 
-        // Check borders not next to corner
-        for (int k = 2; k < 6; ++k) {
-            if (board[k][0] == PieceType.PLAYER1) player1 += 17;
-            else if (board[k][0] == PieceType.PLAYER2) player2 += 17;
+        // The value returned once the time is up is discarded by place
+        if (this.checkTime())
+            return 0;
 
-            if (board[k][7] == PieceType.PLAYER1) player1 += 17;
-            else if (board[k][7] == PieceType.PLAYER2) player2 += 17;
+        // Maximizer
+        if (currentPieceType == this.pieceType) {
+            int max = Integer.MIN_VALUE, currentMax = 0;
 
-            if (board[0][k] == PieceType.PLAYER1) player1 += 17;
-            else if (board[0][k] == PieceType.PLAYER2) player2 += 17;
+            for (int i = 0; i < validPositions.size(); ++i) {
+                int row = validPositions.getRow(i), column = validPositions.getColumn(i);
 
-            if (board[7][k] == PieceType.PLAYER1) player1 += 17;
-            else if (board[7][k] == PieceType.PLAYER2) player2 += 17;
-        }
+                // Play the move on the same Board and undo it after exploring it
+                long flipped = currentBoard.makeMove(row, column, currentPieceType,
+                        this.canEatHorizontally, this.canEatVertically, this.canEatDiagonally);
 
-        // Check next to center of the Board
-        for (int i = 2; i < 6; ++i) {
-            if (board[i][2] == PieceType.PLAYER1) player1 += 10;
-            else if (board[i][2] == PieceType.PLAYER2) player2 += 10;
+                currentMax = this.minimax(currentBoard, EasyDifficulty.inversePieceType(currentPieceType), depth - 1,
+                        score + this.evaluator.scoreDelta(validPositions.getSquare(i), flipped, currentPieceType));
+                currentBoard.unmakeMove(row, column, currentPieceType, flipped);
 
-            if (board[i][5] == PieceType.PLAYER1) player1 += 10;
-            else if (board[i][5] == PieceType.PLAYER2) player2 += 10;
+                if (this.timeUp)
+                    return 0;
 
-            if (board[2][i] == PieceType.PLAYER1) player1 += 10;
-            else if (board[2][i] == PieceType.PLAYER2) player2 += 10;
+                if (currentMax > max)
+                    max = currentMax;
+            }
 
-            if (board[5][i] == PieceType.PLAYER1) player1 += 10;
-            else if (board[5][i] == PieceType.PLAYER2) player2 += 10;
+            return max;
         }
 
-        // Check next to corners
-        for (int j = 0; j < 2; ++j) {
-            if (board[1][j] == PieceType.PLAYER1) player1 -= 25;
-            else if (board[1][j] == PieceType.PLAYER2) player2 -= 25;
-
-            if (board[1][7 - j] == PieceType.PLAYER1) player1 -= 25;
-            else if (board[1][7 - j] == PieceType.PLAYER2) player2 -= 25;
-
-            if (board[6][j] == PieceType.PLAYER1) player1 -= 25;
-            else if (board[6][j] == PieceType.PLAYER2) player2 -= 25;
+        // Minimizer
+        else {
+            int min = Integer.MAX_VALUE, currentMin = 0;
 
-            if (board[6][7 - j] == PieceType.PLAYER1) player1 -= 25;
-            else if (board[6][7 - j] == PieceType.PLAYER2) player2 -= 25;
-        }
+            for (int i = 0; i < validPositions.size(); ++i) {
+                int row = validPositions.getRow(i), column = validPositions.getColumn(i);
 
-        if (board[0][1] == PieceType.PLAYER1) player1 -= 25;
-        else if (board[0][1] == PieceType.PLAYER2) player2 -= 25;
+                // Play the move on the same Board and undo it after exploring it
+                long flipped = currentBoard.makeMove(row, column, currentPieceType,
+                        this.canEatHorizontally, this.canEatVertically, this.canEatDiagonally);
 
-        if (board[7][1] == PieceType.PLAYER1) player1 -= 25;
-        else if (board[7][1] == PieceType.PLAYER2) player2 -= 25;
+                currentMin = this.minimax(currentBoard, EasyDifficulty.inversePieceType(currentPieceType), depth - 1,
+                        score + this.evaluator.scoreDelta(validPositions.getSquare(i), flipped, currentPieceType));
+                currentBoard.unmakeMove(row, column, currentPieceType, flipped);
 
-        if (board[0][6] == PieceType.PLAYER1) player1 -= 25;
-        else if (board[0][6] == PieceType.PLAYER2) player2 -= 25;
+                if (this.timeUp)
+                    return 0;
 
-        if (board[7][6] == PieceType.PLAYER1) player1 -= 25;
-        else if (board[7][6] == PieceType.PLAYER2) player2 -= 25;
+                if (currentMin < min)
+                    min = currentMin;
+            }
 
-        if (this.pieceType == PieceType.PLAYER1) return player1 - player2;
-        else return player2 - player1;
+            return min;
+        }
     }
 
     /**
-     * @brief Recursive implementation of the Minimax algorithm.
-     * @pre <em>True</em>
-     * @post It is returned the heuristic evaluation for the current possible position on the tree of possibilities.
-     * If there aren't any possible valid positions left or the maximum depth is reached it stops.
-     * The implicit player is maximized and the opponent is minimized.
-     * @param currentBoard current Board in the tree of possibilities.
-     * @param currentPieceType current turn in the tree of possibilities.
-     * @param depth current depth in the tree of possibilities.
-     * @return The heuristic evaluation for the current possible position on the tree of possibilities.
+     * @brief Get the best position for the implicit player searching the tree of possibilities up to the given depth.
+     * @pre The given validPositions are the valid positions of the implicit player in the given Board.
+     * @post It is returned the best position for the implicit player using the Minimax algorithm with the given depth,
+     * or null if there isn't any. If the time limit is reached the search stops and the best position found until then is returned.
+     * @param initialBoard Current playing Board.
+     * @param validPositions Valid positions of the implicit player in the given Board.
+     * @param depth Depth of the search.
+     * @return The best position for the implicit player or null if there isn't any.
      */
-    private int minimax(Board currentBoard, PieceType currentPieceType, int depth) {
-        ArrayList<Pair<Integer, Integer>> validPositions = currentBoard.validPositions(currentPieceType,
-                this.canEatHorizontally, this.canEatVertically, this.canEatDiagonally);
-
-        if (validPositions.isEmpty() || depth == 0)
-            return this.evaluation(currentBoard);
-
-        // Maximizer
-        if (currentPieceType == this.pieceType) {
-            int max = Integer.MIN_VALUE, currentMax = 0;
+    private Pair<Integer, Integer> search(Board initialBoard, MoveList validPositions, int depth) {
+        Pair<Integer, Integer> bestPosition = null;
 
-            for (Pair<Integer, Integer> position : validPositions) {
-                // Make a duplicate in order not to work with the same Board pointer!
-                Board board = new Board(currentBoard.getBoard());
-                board.placePiece(position, currentPieceType, this.canEatHorizontally, this.canEatVertically,
-                        this.canEatDiagonally);
+        int max = Integer.MIN_VALUE, currentMax = 0, score = this.evaluator.score(initialBoard);
 
-                currentMax = this.minimax(board, EasyDifficulty.inversePieceType(currentPieceType), depth - 1);
-                if (currentMax > max)
-                    max = currentMax;
-            }
+        for (int i = 0; i < validPositions.size(); ++i) {
+            int row = validPositions.getRow(i), column = validPositions.getColumn(i);
 
-            return max;
-        }
+            // Play the move on the same Board and undo it after exploring it
+            long flipped = initialBoard.makeMove(row, column, this.pieceType,
+                    this.canEatHorizontally, this.canEatVertically, this.canEatDiagonally);
 
-        // Minimizer
-        else {
-            Integer min = Integer.MAX_VALUE, currentMin = 0;
+            currentMax = this.minimax(initialBoard, EasyDifficulty.inversePieceType(this.pieceType), depth - 1,
+                    score + this.evaluator.scoreDelta(validPositions.getSquare(i), flipped, this.pieceType));
+            initialBoard.unmakeMove(row, column, this.pieceType, flipped);
 
-            for (Pair<Integer, Integer> position : validPositions) {
-                // Make a duplicate in order not to work with the same Board pointer!
-                Board board = new Board(currentBoard.getBoard());
-                board.placePiece(position, currentPieceType, this.canEatHorizontally, this.canEatVertically,
-                        this.canEatDiagonally);
+            if (this.timeUp && bestPosition != null)
+                break;
 
-                currentMin = this.minimax(board, EasyDifficulty.inversePieceType(currentPieceType), depth - 1);
-                if (currentMin < min)
-                    min = currentMin;
+            if (currentMax > max) {
+                max = currentMax;
+                bestPosition = new Pair<Integer, Integer>(row, column);
             }
-
-            return min;
         }
+
+        return bestPosition;
     }
 
     /**
@@ -188,6 +168,8 @@ public class EasyDifficulty extends Difficulty {
      * @pre <em>True</em>
      * @post It is returned the next best possible position for the implicit player, using the Minimax algorithm with
      * the implicit maximum depth, or null if there isn't any.
+     * If there is a time limit, the search is repeated with depths from 1 to the implicit maximum depth (iterative deepening)
+     * until the time limit is reached, and the position found by the last completed search is returned.
      * @param playingBoard Current playing Board.
      * @return The next best possible position for the implicit player or null if there isn't any.
      */
@@ -197,22 +179,22 @@ public class EasyDifficulty extends Difficulty {
 
         Board initialBoard = new Board(playingBoard);
 
-        ArrayList<Pair<Integer, Integer>> validPositions = initialBoard.validPositions(this.pieceType,
-                this.canEatHorizontally, this.canEatVertically, this.canEatDiagonally);
+        MoveList validPositions = this.validMoveList(initialBoard, this.pieceType, this.maxDepth);
 
-        int max = Integer.MIN_VALUE, currentMax = 0;
+        this.startClock();
+        this.nodes = 0;
 
-        for (Pair<Integer, Integer> position : validPositions) {
-            // Make a duplicate in order not to work with the same Board pointer!
-            Board board = new Board(initialBoard.getBoard());
-            board.placePiece(position, this.pieceType, this.canEatHorizontally, this.canEatVertically,
-                    this.canEatDiagonally);
+        // Without a time limit the maximum depth is searched directly
+        for (int depth = (this.timeLimit > 0 ? 1 : this.maxDepth); depth <= this.maxDepth; ++depth) {
+            Pair<Integer, Integer> position = this.search(initialBoard, validPositions, depth);
 
-            currentMax = this.minimax(board, EasyDifficulty.inversePieceType(this.pieceType), this.maxDepth - 1);
-            if (currentMax > max) {
-                max = currentMax;
-                bestPosition = position;
-            }
+            // An unfinished search is only used if no search was completed
+            if (this.timeUp && bestPosition != null)
+                break;
+
+            bestPosition = position;
+            if (this.timeUp)
+                break;
         }
 
         return bestPosition;
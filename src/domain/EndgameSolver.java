@@ -0,0 +1,247 @@
+/**
+ * @file EndgameSolver.java
+ * @author Alex Rodriguez
+ * @brief EndgameSolver class specification.
+ */
+package domain;
+
+import domain.Board.PieceType;
+import util.Pair;
+
+/**
+ * @class EndgameSolver
+ * @brief Implements an exact solver for the end of a game. It searches every position until the end of the game with the
+ * Negamax algorithm with alpha-beta pruning and returns the exact final difference of pieces.
+ * Moves are tried fastest-first (the ones that leave the opponent fewer valid positions first) while there are many empty
+ * cells, and by parity (first the ones in quadrants with an odd number of empty cells) near the end.
+ * A player that can't place any piece passes, and the game ends when both players pass.
+ * By Alex Rodriguez
+ */
+public class EndgameSolver {
+    /* ATTRIBUTES */
+
+    /**
+    * @brief Number of empty cells from which moves are ordered fastest-first. With fewer empty cells only parity is used.
+    */
+    private static final int FASTEST_FIRST_EMPTIES = 7;
+    /**
+    * @brief Quadrants of the board as 64-bit masks, used for the parity ordering.
+    */
+    private static final long[] QUADRANTS = {0x000000000F0F0F0FL, 0x00000000F0F0F0F0L, 0x0F0F0F0F00000000L, 0xF0F0F0F000000000L};
+    /**
+    * @brief Whether the pieces can be eaten horizontally.
+    */
+    private boolean canEatHorizontally;
+    /**
+    * @brief Whether the pieces can be eaten vertically.
+    */
+    private boolean canEatVertically;
+    /**
+    * @brief Whether the pieces can be eaten diagonally.
+    */
+    private boolean canEatDiagonally;
+    /**
+    * @brief Moves of each level of the search, ordered, as square indexes. The index is the number of empty cells.
+    */
+    private int[][] moves;
+    /**
+    * @brief Ordering score of the moves of each level of the search. The index is the number of empty cells.
+    */
+    private int[][] scores;
+    /**
+    * @brief Number of positions searched since the solver was created.
+    */
+    private long nodes;
+
+    /* CONSTRUCTORS */
+
+    /**
+     * @brief Create an EndgameSolver instance.
+     * @pre The given rules are not all false.
+     * @post An EndgameSolver instance for the given rules is created.
+     * @param canEatHorizontally Whether the pieces can be eaten horizontally.
+     * @param canEatVertically Whether the pieces can be eaten vertically.
+     * @param canEatDiagonally Whether the pieces can be eaten diagonally.
+     */
+    public EndgameSolver(boolean canEatHorizontally, boolean canEatVertically, boolean canEatDiagonally) {
+        this.canEatHorizontally = canEatHorizontally;
+        this.canEatVertically = canEatVertically;
+        this.canEatDiagonally = canEatDiagonally;
+        this.moves = new int[65][64];
+        this.scores = new int[65][64];
+        this.nodes = 0;
+    }
+
+    /* METHODS */
+
+    /**
+     * @brief Get the number of positions searched since the implicit EndgameSolver was created.
+     * @pre <em>True</em>
+     * @post The number of positions searched is returned.
+     * @return Number of positions searched.
+     */
+    public long getNodes() {
+        return this.nodes;
+    }
+
+    /**
+     * @brief Get the final difference of pieces with perfect play from both players.
+     * @pre <em>True</em>
+     * @post It is returned the number of pieces of the given player minus the number of pieces of its opponent at the end
+     * of the game if both play perfectly. The given Board is left as it was.
+     * @param board Current Board.
+     * @param pieceType Player to move.
+     * @return The exact final difference of pieces for the given player.
+     */
+    public int solve(Board board, PieceType pieceType) {
+        return this.negamax(board, pieceType, -65, 65, false);
+    }
+
+    /**
+     * @brief Get the best position with perfect play from both players.
+     * @pre <em>True</em>
+     * @post It is returned the position that gets the best final difference of pieces for the given player, the first one in
+     * the order of the search if there are several, or null if the player can't place any piece. The given Board is left as it was.
+     * @param board Current Board.
+     * @param pieceType Player to move.
+     * @return The best position or null if there isn't any.
+     */
+    public Pair<Integer, Integer> bestPosition(Board board, PieceType pieceType) {
+        int empties = EndgameSolver.empties(board);
+        int size = this.orderMoves(board, pieceType, empties);
+        int[] moves = this.moves[empties];
+        int bestSquare = -1, best = -65;
+
+        for (int i = 0; i < size; ++i) {
+            int row = moves[i] >>> 3, column = moves[i] & 7;
+
+            long flipped = board.makeMove(row, column, pieceType, this.canEatHorizontally, this.canEatVertically, this.canEatDiagonally);
+            int value = -this.negamax(board, Difficulty.inversePieceType(pieceType), -65, -best, false);
+            board.unmakeMove(row, column, pieceType, flipped);
+
+            if (value > best) {
+                best = value;
+                bestSquare = moves[i];
+            }
+        }
+
+        if (bestSquare < 0) return null;
+        return new Pair<Integer, Integer>(bestSquare >>> 3, bestSquare & 7);
+    }
+
+    /**
+     * @brief Recursive implementation of the Negamax algorithm with alpha-beta pruning until the end of the game.
+     * @pre <em>True</em>
+     * @post It is returned the final difference of pieces for the given player if it is between alpha and beta, an upper bound
+     * of it if it isn't greater than alpha or a lower bound of it if it isn't less than beta. The given Board is left as it was.
+     * @param board Current Board.
+     * @param pieceType Player to move.
+     * @param alpha Lower bound of the window.
+     * @param beta Upper bound of the window.
+     * @param passed Whether the opponent passed in the previous move.
+     * @return The final difference of pieces for the given player, or a bound of it.
+     */
+    private int negamax(Board board, PieceType pieceType, int alpha, int beta, boolean passed) {
+        ++this.nodes;
+
+        long valid = board.validMoves(pieceType, this.canEatHorizontally, this.canEatVertically, this.canEatDiagonally);
+        if (valid == 0) {
+            // The game ends when both players pass
+            if (passed) return EndgameSolver.difference(board, pieceType);
+            return -this.negamax(board, Difficulty.inversePieceType(pieceType), -beta, -alpha, true);
+        }
+
+        int empties = EndgameSolver.empties(board);
+        int size = this.orderMoves(board, pieceType, empties);
+        int[] moves = this.moves[empties];
+        int best = -65;
+
+        for (int i = 0; i < size; ++i) {
+            int row = moves[i] >>> 3, column = moves[i] & 7;
+
+            long flipped = board.makeMove(row, column, pieceType, this.canEatHorizontally, this.canEatVertically, this.canEatDiagonally);
+            int value = -this.negamax(board, Difficulty.inversePieceType(pieceType), -beta, -Integer.max(alpha, best), false);
+            board.unmakeMove(row, column, pieceType, flipped);
+
+            if (value > best) {
+                best = value;
+                // Prune
+                if (best >= beta) break;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * @brief Private method that fills the list of moves of a level of the search in the order they have to be tried.
+     * @pre The given empties is the number of empty cells of the given Board.
+     * @post The moves of the given player are stored in moves[empties], ordered fastest-first if there are at least
+     * FASTEST_FIRST_EMPTIES empty cells, with the moves in odd quadrants first on ties, and by parity otherwise.
+     * The number of moves is returned.
+     * @param board Current Board.
+     * @param pieceType Player to move.
+     * @param empties Number of empty cells of the Board.
+     * @return Number of moves.
+     */
+    private int orderMoves(Board board, PieceType pieceType, int empties) {
+        long valid = board.validMoves(pieceType, this.canEatHorizontally, this.canEatVertically, this.canEatDiagonally);
+        long empty = ~(board.getBitboard(PieceType.PLAYER1) | board.getBitboard(PieceType.PLAYER2));
+        int[] moves = this.moves[empties];
+        int[] scores = this.scores[empties];
+        int size = 0;
+
+        // Cells of the quadrants with an odd number of empty cells
+        long odd = 0L;
+        for (long quadrant : QUADRANTS)
+            if ((Long.bitCount(empty & quadrant) & 1) != 0) odd |= quadrant;
+
+        for (; valid != 0; valid &= valid - 1) {
+            int square = Long.numberOfTrailingZeros(valid);
+            int score = ((odd >>> square) & 1) != 0 ? 0 : 1;
+
+            if (empties >= FASTEST_FIRST_EMPTIES) {
+                int row = square >>> 3, column = square & 7;
+                long flipped = board.makeMove(row, column, pieceType, this.canEatHorizontally, this.canEatVertically, this.canEatDiagonally);
+                score += Long.bitCount(board.validMoves(Difficulty.inversePieceType(pieceType), this.canEatHorizontally,
+                        this.canEatVertically, this.canEatDiagonally)) * 2;
+                board.unmakeMove(row, column, pieceType, flipped);
+            }
+
+            // Insertion sort by score, keeping the scan order on ties
+            int i = size++;
+            for (; i > 0 && scores[i - 1] > score; --i) {
+                moves[i] = moves[i - 1];
+                scores[i] = scores[i - 1];
+            }
+            moves[i] = square;
+            scores[i] = score;
+        }
+
+        return size;
+    }
+
+    /**
+     * @brief Private method that returns the number of empty cells of a Board.
+     * @pre <em>True</em>
+     * @post The number of empty cells of the given Board is returned.
+     * @param board Board.
+     * @return Number of empty cells.
+     */
+    private static int empties(Board board) {
+        return 64 - board.getPiecesPlayer1() - board.getPiecesPlayer2();
+    }
+
+    /**
+     * @brief Private method that returns the difference of pieces of a Board for a player.
+     * @pre <em>True</em>
+     * @post The number of pieces of the given player minus the number of pieces of its opponent is returned.
+     * @param board Board.
+     * @param pieceType Player.
+     * @return Difference of pieces for the given player.
+     */
+    private static int difference(Board board, PieceType pieceType) {
+        int difference = board.getPiecesPlayer1() - board.getPiecesPlayer2();
+        return (pieceType == PieceType.PLAYER1 ? difference : -difference);
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ * @file Evaluator.java
+ * @author Alex Rodriguez
+ * @brief Evaluator interface specification.
+ */
+package domain;
+
+import domain.Board.PieceType;
+
+/**
+ * @interface Evaluator
+ * @brief Heuristic evaluation of a Board state used by the search algorithms.
+ * The evaluation is split in two parts. The score only depends on which player owns each cell, so it can be updated
+ * incrementally with scoreDelta while the search makes and unmakes moves. The rest of the evaluation (for example the
+ * mobility or the frontier of each player) is computed by evaluate from the Board and the score.
+ * An Evaluator can be used by several threads at the same time.
+ * By Alex Rodriguez
+ */
+public interface Evaluator {
+    /**
+     * @brief Get the score of a Board state from scratch.
+     * @pre <em>True</em>
+     * @post It is returned the score of the given Board state from the point of view of PLAYER1.
+     * @param board Board to get the score from.
+     * @return The score of the Board state for PLAYER1.
+     */
+    public int score(Board board);
+
+    /**
+     * @brief Get how much a move changes the score.
+     * @pre The given flipped are the pieces captured by placing a piece of the given player in the given square.
+     * @post It is returned the score after the move minus the score before it, from the point of view of PLAYER1.
+     * Undoing the move changes the score by the opposite amount.
+     * @param square Square index (row * 8 + column) where the piece is placed.
+     * @param flipped Pieces captured by the move as a 64-bit mask, as returned by Board.makeMove.
+     * @param pieceType Player that places the piece.
+     * @return The change of the score for PLAYER1.
+     */
+    public int scoreDelta(int square, long flipped, PieceType pieceType);
+
+    /**
+     * @brief Get the heuristic evaluation of a Board state.
+     * @pre The given score is the score of the given Board state.
+     * @post It is returned the heuristic evaluation of the given Board state from the point of view of the given player.
+     * @param board Board to get the heuristic evaluation from.
+     * @param pieceType Player whose point of view is used.
+     * @param score Score of the Board state, as returned by score or updated with scoreDelta.
+     * @return The heuristic evaluation of the Board state for the given player.
+     */
+    public int evaluate(Board board, PieceType pieceType, int score);
+
+    /**
+     * @brief Get the heuristic evaluation of a Board state from scratch.
+     * @pre <em>True</em>
+     * @post It is returned the heuristic evaluation of the given Board state from the point of view of the given player.
+     * @param board Board to get the heuristic evaluation from.
+     * @param pieceType Player whose point of view is used.
+     * @return The heuristic evaluation of the Board state for the given player.
+     */
+    public default int evaluate(Board board, PieceType pieceType) {
+        return this.evaluate(board, pieceType, this.score(board));
+    }
+}
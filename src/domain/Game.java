@@ -5,7 +5,12 @@
  */
 package domain;
 
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.UUID;
 
 import org.json.JSONObject;
@@ -33,6 +38,22 @@ public class Game {
         NOT_STARTED, IN_PROGRESS, FINISHED
     };
 
+    /* CONSTANTS */
+
+    /**
+    * @brief Version of the binary representation of a Game, as written by toBytes.
+    */
+    private static final byte VERSION = 1;
+    /**
+    * @brief Size in bytes of the fixed part of the binary representation of a Game: the version, the turn, the state, the
+    * flags, the 4 player IDs and the creation timestamp.
+    */
+    private static final int FIXED_BYTES = 4 + 4 * 2 * Long.BYTES + Long.BYTES + Integer.BYTES;
+    /**
+    * @brief Flag of the binary representation of a Game that is set if it has a winner.
+    */
+    private static final byte HAS_WINNER = 1;
+
     /* ATTRIBUTES */
 
     /**
@@ -121,8 +142,101 @@ public class Game {
         this.createdAt = LocalDateTime.parse(game.getString("created_at"));
     }
 
+    /**
+     * @brief Create a Game instance with all its attributes.
+     * @pre <em>True</em>
+     * @post A Game instance is created with the given attributes.
+     * @param name Name of the Game.
+     * @param player1ID First player ID of the Game.
+     * @param player2ID Second player ID of the Game.
+     * @param configurationName Name of the Configuration used to create the Game.
+     * @param turn Current turn of the Game.
+     * @param state Current state of the Game.
+     * @param winnerID Winner of the Game or null if there isn't any.
+     * @param creatorID Player ID of the Game's creator.
+     * @param createdAt Game creation timestamp.
+     */
+    private Game(String name, UUID player1ID, UUID player2ID, String configurationName, PieceType turn, GameState state,
+            UUID winnerID, UUID creatorID, LocalDateTime createdAt) {
+        this.name = name;
+        this.player1ID = player1ID;
+        this.player2ID = player2ID;
+        this.configurationName = configurationName;
+        this.turn = turn;
+        this.state = state;
+        this.winnerID = winnerID;
+        this.creatorID = creatorID;
+        this.createdAt = createdAt;
+    }
+
     /* METHODS */
 
+    /**
+     * @brief Create a Game from its binary representation.
+     * @pre <em>True</em>
+     * @post It is returned a Game with the attributes stored in the given bytes, as written by toBytes.
+     * @param bytes Binary representation of a Game.
+     * @return The Game with the given attributes.
+     * @throws IllegalArgumentException If the bytes don't have the format of toBytes.
+     */
+    public static Game fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+        try {
+            if (buffer.get() != VERSION)
+                throw new IllegalArgumentException("ERR_INVALID_GAME");
+
+            PieceType[] turns = PieceType.values();
+            GameState[] states = GameState.values();
+            int turn = buffer.get(), state = buffer.get(), flags = buffer.get();
+            if (turn < 0 || turn >= turns.length || state < 0 || state >= states.length || (flags & ~HAS_WINNER) != 0)
+                throw new IllegalArgumentException("ERR_INVALID_GAME");
+
+            UUID player1ID = Game.getUUID(buffer);
+            UUID player2ID = Game.getUUID(buffer);
+            UUID winnerID = Game.getUUID(buffer);
+            UUID creatorID = Game.getUUID(buffer);
+            LocalDateTime createdAt = LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+            String name = Game.getString(buffer);
+            String configurationName = Game.getString(buffer);
+
+            if (buffer.hasRemaining())
+                throw new IllegalArgumentException("ERR_INVALID_GAME");
+
+            return new Game(name, player1ID, player2ID, configurationName, turns[turn], states[state],
+                    ((flags & HAS_WINNER) != 0 ? winnerID : null), creatorID, createdAt);
+        } catch (BufferUnderflowException | DateTimeException e) {
+            throw new IllegalArgumentException("ERR_INVALID_GAME");
+        }
+    }
+
+    /**
+     * @brief Get the binary representation of the implicit Game.
+     * @pre <em>True</em>
+     * @post It is returned, in big-endian order, a fixed part of FIXED_BYTES bytes: the format version, the turn and the
+     * state ordinals and the flags as bytes, the player1ID, player2ID, winnerID (zero if there isn't any winner) and
+     * creatorID as pairs of longs, and the createdAt timestamp as the seconds since the epoch and the nanoseconds. It is
+     * followed by the name and the configurationName in UTF-8, each one preceded by its size as an int.
+     * @return Binary representation of the implicit Game.
+     */
+    public byte[] toBytes() {
+        byte[] name = this.name.getBytes(StandardCharsets.UTF_8);
+        byte[] configurationName = this.configurationName.getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer buffer = ByteBuffer.allocate(FIXED_BYTES + 2 * Integer.BYTES + name.length + configurationName.length);
+        buffer.put(VERSION).put((byte) this.turn.ordinal()).put((byte) this.state.ordinal())
+                .put(this.winnerID != null ? HAS_WINNER : 0);
+        Game.putUUID(buffer, this.player1ID);
+        Game.putUUID(buffer, this.player2ID);
+        Game.putUUID(buffer, this.winnerID != null ? this.winnerID : new UUID(0L, 0L));
+        Game.putUUID(buffer, this.creatorID);
+        buffer.putLong(this.createdAt.toEpochSecond(ZoneOffset.UTC)).putInt(this.createdAt.getNano());
+        buffer.putInt(name.length).put(name);
+        buffer.putInt(configurationName.length).put(configurationName);
+
+        return buffer.array();
+    }
+
     /**
      * @brief Create a JSONObject representation of a Game from the implicit Game.
      * @pre <em>True</em>
@@ -394,4 +508,45 @@ public class Game {
 
         this.turn = (this.turn == PieceType.PLAYER1 ? PieceType.PLAYER2 : PieceType.PLAYER1);
     }
+
+    /**
+     * @brief Write a UUID into a binary representation.
+     * @pre The buffer has 16 bytes remaining.
+     * @post The most and least significant bits of the UUID are written into the buffer.
+     * @param buffer Buffer where the UUID is written.
+     * @param id UUID to be written.
+     */
+    private static void putUUID(ByteBuffer buffer, UUID id) {
+        buffer.putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits());
+    }
+
+    /**
+     * @brief Read a UUID from a binary representation.
+     * @pre <em>True</em>
+     * @post The UUID written by putUUID at the position of the buffer is returned.
+     * @param buffer Buffer where the UUID is read from.
+     * @return UUID read.
+     * @throws BufferUnderflowException If the buffer doesn't have 16 bytes remaining.
+     */
+    private static UUID getUUID(ByteBuffer buffer) {
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    /**
+     * @brief Read a String from a binary representation.
+     * @pre <em>True</em>
+     * @post The String in UTF-8 preceded by its size at the position of the buffer is returned.
+     * @param buffer Buffer where the String is read from.
+     * @return String read.
+     * @throws BufferUnderflowException If the buffer doesn't have the String.
+     */
+    private static String getString(ByteBuffer buffer) {
+        int size = buffer.getInt();
+        if (size < 0 || size > buffer.remaining())
+            throw new BufferUnderflowException();
+
+        String string = new String(buffer.array(), buffer.position(), size, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + size);
+        return string;
+    }
 }
@@ -6,9 +6,12 @@
 package domain;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 import domain.Board.PieceType;
 import util.Pair;
@@ -16,19 +19,74 @@ import util.Pair;
 /**
  * @class HardDifficulty
  * @brief Implements the Monte Carlo Tree Search algorithm to get the next best possible position for a given player.
+ * The simulations can be run by several threads of a shared ForkJoinPool, either on independent trees whose statistics are
+ * merged at the end (root parallelism) or on the same tree (tree parallelism).
  * By Roger Mollon
  */
 public class HardDifficulty extends Difficulty {
-    /* ATTRIBUTES */
-
     /**
-     * @brief Random number used in the UCT (Upper Confidence bounds applied to Trees) formula to break ties when choosing a path
+     * @enum Parallelism
+     * @brief How the simulations are distributed among threads: all of them in the calling thread (NONE), on an independent
+     * tree for each thread (ROOT) or on a tree shared by all the threads (TREE).
      */
-    private static Random random = new Random();
+    public enum Parallelism {
+        NONE, ROOT, TREE
+    }
+
+    /* ATTRIBUTES */
+
     /**
      * @brief Small number used to prevent divisions by zero
      */
     private static double epsilon = 1e-6;
+    /**
+     * @brief Square index used for the move of a player that can't place any piece and passes the turn.
+     */
+    private static final int PASS = 64;
+    /**
+     * @brief Corners of the board as a 64-bit mask, the positions the playouts take first when heavyPlayouts is setted.
+     */
+    private static final long CORNERS = 0x8100000000000081L;
+    /**
+     * @brief Default maximum number of TreeNodes of the search tree.
+     */
+    private static final int DEFAULT_MAX_NODES = 500000;
+    /**
+     * @brief Atomic access to the number of visits of the TreeNodes, so several threads can update them.
+     */
+    private static final AtomicIntegerFieldUpdater<TreeNode> VISITS = AtomicIntegerFieldUpdater.newUpdater(TreeNode.class, "nVisits");
+    /**
+     * @brief Atomic access to the value of the TreeNodes, so several threads can update them.
+     */
+    private static final AtomicLongFieldUpdater<TreeNode> VALUES = AtomicLongFieldUpdater.newUpdater(TreeNode.class, "totValue");
+    /**
+     * @brief Whether the playouts take a corner when they can instead of always playing random moves.
+     */
+    private boolean heavyPlayouts;
+    /**
+     * @brief How the simulations are distributed among threads.
+     */
+    private Parallelism parallelism;
+    /**
+     * @brief Number of threads that run the simulations when parallelism isn't NONE.
+     */
+    private int threads;
+    /**
+     * @brief Maximum number of TreeNodes of the search tree. When it is reached the leaves aren't expanded any more.
+     */
+    private int maxNodes;
+    /**
+     * @brief Number of TreeNodes of the current search trees.
+     */
+    private AtomicInteger treeNodes;
+    /**
+     * @brief Root of the search tree of the last place call, kept to reuse its statistics in the next one.
+     */
+    private TreeNode root;
+    /**
+     * @brief Board state of the root of the search tree of the last place call.
+     */
+    private Board rootBoard;
 
     /* CONSTRUCTORS */
 
@@ -37,6 +95,7 @@ public class HardDifficulty extends Difficulty {
      * @pre The given difficulty is a positive number. The given rules are not all false.
      * @post A HardDifficulty instance is created and its implicits difficulty, canEatHorizontally, canEatVertically,
      * canEatDiagonally and pieceType attributes are setted. The implicit maxDepth attribute is setted to 1000 times the entered difficulty.
+     * The simulations are run in the calling thread.
      * @param difficulty Difficulty for the Monte Carlo Tree Search algorithm.
      * @param canEatHorizontally Whether the pieces of the current Game can be eaten horizontally.
      * @param canEatVertically Whether the pieces of the current Game can be eaten vertically.
@@ -47,34 +106,193 @@ public class HardDifficulty extends Difficulty {
             Boolean canEatDiagonally, PieceType pieceType) {
         super(difficulty, canEatHorizontally, canEatVertically, canEatDiagonally, pieceType);
         this.maxDepth = difficulty * 1000;
+        this.heavyPlayouts = true;
+        this.parallelism = Parallelism.NONE;
+        this.threads = 1;
+        this.maxNodes = DEFAULT_MAX_NODES;
+        this.treeNodes = new AtomicInteger(0);
+        this.root = null;
+        this.rootBoard = null;
     }
 
     /* METHODS */
 
+    /**
+     * @brief Set whether the playouts take a corner when they can.
+     * @pre <em>True</em>
+     * @post If heavyPlayouts is true the playouts take a corner when they can and play random moves otherwise.
+     * If it is false they always play random moves.
+     * @param heavyPlayouts Whether the playouts take a corner when they can.
+     */
+    public void setHeavyPlayouts(boolean heavyPlayouts) {
+        this.heavyPlayouts = heavyPlayouts;
+    }
+
+    /**
+     * @brief Set the maximum number of TreeNodes of the search tree.
+     * @pre The given maxNodes is a positive number.
+     * @post The search tree stops growing when it has maxNodes TreeNodes. The simulations go on from its leaves.
+     * @param maxNodes Maximum number of TreeNodes of the search tree.
+     */
+    public void setMaxNodes(int maxNodes) {
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * @brief Set how the simulations are distributed among threads.
+     * @pre The given threads is a positive number.
+     * @post The next place calls run the simulations with the given parallelism and number of threads. With ROOT parallelism
+     * the search trees aren't reused between place calls. With one thread the simulations are always run in the calling thread.
+     * @param parallelism How the simulations are distributed among threads.
+     * @param threads Number of threads that run the simulations.
+     */
+    public void setParallelism(Parallelism parallelism, int threads) {
+        this.parallelism = parallelism;
+        this.threads = threads;
+    }
+
+    /**
+     * @brief Private method that finds, in the search tree of the last place call, the TreeNode of the given board state.
+     * It looks at the root, its children (the position played) and its grandchildren (the position played and the opponent's answer).
+     * @pre <em>True</em>
+     * @post It is returned the TreeNode whose board state is the given one with the implicit player to move, or null if there isn't any.
+     * The implicit treeNodes attribute is setted to the number of TreeNodes under the returned TreeNode.
+     * @param board Current playing Board.
+     * @return The TreeNode of the given board state or null if there isn't any.
+     */
+    private TreeNode reuseTree(Board board) {
+        if (this.root == null) return null;
+
+        TreeNode found = null;
+        if (this.root.pieceType == this.pieceType && HardDifficulty.sameBoard(this.rootBoard, board)) found = this.root;
+
+        for (int i = 0; found == null && i < this.root.children.size(); ++i) {
+            TreeNode child = this.root.children.get(i);
+            child.makeMove(this.rootBoard);
+
+            if (child.pieceType == this.pieceType && HardDifficulty.sameBoard(this.rootBoard, board)) found = child;
+
+            for (int j = 0; found == null && j < child.children.size(); ++j) {
+                TreeNode grandchild = child.children.get(j);
+                grandchild.makeMove(this.rootBoard);
+                if (grandchild.pieceType == this.pieceType && HardDifficulty.sameBoard(this.rootBoard, board)) found = grandchild;
+                grandchild.unmakeMove(this.rootBoard);
+            }
+
+            child.unmakeMove(this.rootBoard);
+        }
+
+        if (found != null) this.treeNodes.set(found.size());
+        return found;
+    }
+
+    /**
+     * @brief Private method that checks whether two Boards have the same pieces.
+     * @pre <em>True</em>
+     * @post It is returned true if both Boards have the same pieces in the same cells or false if not.
+     * @param board1 First Board.
+     * @param board2 Second Board.
+     * @return Whether both Boards have the same pieces.
+     */
+    private static boolean sameBoard(Board board1, Board board2) {
+        return board1.getBitboard(PieceType.PLAYER1) == board2.getBitboard(PieceType.PLAYER1)
+            && board1.getBitboard(PieceType.PLAYER2) == board2.getBitboard(PieceType.PLAYER2);
+    }
+
+    /**
+     * @brief Private method that runs simulations on a tree until there are no simulations left or the time limit is reached.
+     * @pre The board of the given worker is the board state of the given root.
+     * @post The simulations are done and the number of remaining simulations is decreased by the number of simulations done.
+     * @param root Root of the tree.
+     * @param worker Worker with the board and scratch lists used by the simulations.
+     * @param remaining Number of simulations left, shared by all the threads.
+     */
+    private void simulate(TreeNode root, Worker worker, AtomicInteger remaining) {
+        while (!this.isTimeUp() && remaining.getAndDecrement() > 0) root.play(worker);
+    }
+
+    /**
+     * @brief Private method that returns the number of simulations done by the last place call.
+     * @pre The given remaining is the counter of simulations left of the last place call.
+     * @post The number of simulations done is returned.
+     * @param remaining Number of simulations left, which becomes negative once they are all taken.
+     * @return Number of simulations done.
+     */
+    private long done(AtomicInteger remaining) {
+        return this.maxDepth - Integer.max(remaining.get(), 0);
+    }
+
+    /**
+     * @brief Private method that converts the move of a TreeNode to a position.
+     * @pre <em>True</em>
+     * @post It is returned the position of the given square index, or null if it is a pass or there isn't any move.
+     * @param square Square index of the move.
+     * @return The position of the move or null.
+     */
+    private static Pair<Integer, Integer> toPosition(int square) {
+        if (square < 0 || square == HardDifficulty.PASS) return null;
+        return new Pair<Integer, Integer>(square >>> 3, square & 7);
+    }
 
     /**
      * @brief Get the next best possible position for the implicit player.
      * @pre <em>True</em>
      * @post It is returned the next best possible position for the implicit player, using the Monte Carlo Tree Search algorithm with
      * the implicit maximum depth, or null if there isn't any.
+     * If there is a time limit, the simulations also stop when it is reached, and the position is chosen with the statistics of the
+     * simulations completed until then. At least one simulation is always done.
+     * If the given board state was reached from the last place call by its position and the opponent's answer, the statistics of
+     * that part of the last search tree are reused.
+     * Near the end of the game (see setEndgameEmpties) the position is found with the EndgameSolver instead.
      * @param playingBoard Current playing Board.
      * @return The next best possible position for the implicit player or null if there isn't any.
      */
     @Override
     public Pair<Integer, Integer> place(PieceType[][] playingBoard) {
-        Pair<Integer, Integer> bestPosition = null;
-
         Board initialBoard = new Board(playingBoard);
 
-        TreeNode rootGame = new TreeNode(
-            this.pieceType, this.pieceType, initialBoard, this.canEatHorizontally, this.canEatVertically, this.canEatDiagonally, null);
+        this.nodes = 0;
+        if (this.isEndgame(initialBoard))
+            return new EndgameSolver(this.canEatHorizontally, this.canEatVertically, this.canEatDiagonally)
+                .bestPosition(initialBoard, this.pieceType);
+
+        this.startClock();
 
-        for (int i = 0; i < this.maxDepth; ++i) rootGame.play();
+        if (this.parallelism == Parallelism.ROOT && this.threads > 1)
+            return this.placeRootParallel(initialBoard);
 
-        ArrayList<TreeNode> playedGames = rootGame.getChildren();
+        TreeNode rootGame = this.reuseTree(initialBoard);
+        if (rootGame == null) {
+            this.treeNodes.set(0);
+            rootGame = new TreeNode(
+                this.pieceType, this.canEatHorizontally, this.canEatVertically, this.canEatDiagonally, -1, 0L);
+        }
+        this.root = rootGame;
+        this.rootBoard = initialBoard;
+
+        // The first simulation expands the root, so the threads don't start on a leaf
+        Worker worker = new Worker(initialBoard);
+        rootGame.play(worker);
+        AtomicInteger remaining = new AtomicInteger(this.maxDepth - 1);
+
+        if (this.parallelism == Parallelism.TREE && this.threads > 1) {
+            final TreeNode sharedRoot = rootGame;
+            List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+            for (int i = 0; i < this.threads; ++i) {
+                tasks.add(() -> {
+                    this.simulate(sharedRoot, new Worker(initialBoard), remaining);
+                    return null;
+                });
+            }
+            HardDifficulty.runAll(tasks);
+        }
+        else this.simulate(rootGame, worker, remaining);
+        this.nodes = this.done(remaining);
+
+        Pair<Integer, Integer> bestPosition = null;
 
         double maxWinRatio = Double.NEGATIVE_INFINITY;
-        for (TreeNode game: playedGames) {
+        for (TreeNode game: rootGame.getChildren()) {
             if (game.getWinRatio() > maxWinRatio) {
                 maxWinRatio = game.getWinRatio();
                 bestPosition = game.getSelectedPosition();
@@ -84,37 +302,134 @@ public class HardDifficulty extends Difficulty {
         return bestPosition;
     }
 
+    /**
+     * @brief Private method that gets the next best possible position for the implicit player with root parallelism.
+     * Each thread runs simulations on its own tree and the statistics of the children of the roots are added up.
+     * @pre startClock has been called in the current place call.
+     * @post It is returned the next best possible position for the implicit player or null if there isn't any.
+     * The search trees aren't kept for the next place call.
+     * @param initialBoard Current playing Board.
+     * @return The next best possible position for the implicit player or null if there isn't any.
+     */
+    private Pair<Integer, Integer> placeRootParallel(Board initialBoard) {
+        this.root = null;
+        this.rootBoard = null;
+        this.treeNodes.set(0);
+
+        AtomicInteger remaining = new AtomicInteger(this.maxDepth);
+        List<Callable<TreeNode>> tasks = new ArrayList<Callable<TreeNode>>();
+        for (int i = 0; i < this.threads; ++i) {
+            tasks.add(() -> {
+                TreeNode rootGame = new TreeNode(
+                    this.pieceType, this.canEatHorizontally, this.canEatVertically, this.canEatDiagonally, -1, 0L);
+                Worker worker = new Worker(initialBoard);
+                // Every tree does at least one simulation, so its root is expanded
+                rootGame.play(worker);
+                remaining.decrementAndGet();
+                this.simulate(rootGame, worker, remaining);
+                return rootGame;
+            });
+        }
+
+        // Add up the statistics of each move, the index is its square index
+        long[] visits = new long[HardDifficulty.PASS + 1];
+        long[] values = new long[HardDifficulty.PASS + 1];
+        boolean[] found = new boolean[HardDifficulty.PASS + 1];
+        List<TreeNode> rootGames = HardDifficulty.runAll(tasks);
+        this.nodes = this.done(remaining);
+        for (TreeNode rootGame : rootGames) {
+            for (TreeNode game : rootGame.getChildren()) {
+                visits[game.selectedSquare] += game.nVisits;
+                values[game.selectedSquare] += game.totValue;
+                found[game.selectedSquare] = true;
+            }
+        }
+
+        int bestSquare = -1;
+        double maxWinRatio = Double.NEGATIVE_INFINITY;
+        for (int square = 0; square <= HardDifficulty.PASS; ++square) {
+            double winRatio = values[square] / 2.0 / (visits[square] + HardDifficulty.epsilon);
+            if (found[square] && winRatio > maxWinRatio) {
+                maxWinRatio = winRatio;
+                bestSquare = square;
+            }
+        }
+
+        return HardDifficulty.toPosition(bestSquare);
+    }
+
+    /**
+     * @class Worker
+     * @brief Board and scratch lists used by the simulations of one thread.
+     */
+    private class Worker {
+        /* ATTRIBUTES */
+
+        /**
+         * @brief Board where the simulations are played. It is the board state of the root between simulations.
+         */
+        private Board board;
+        /**
+         * @brief List of valid positions reused every time a TreeNode is expanded.
+         */
+        private MoveList validPositions;
+        /**
+         * @brief Moves played by the current playout, as square indexes, used to undo it.
+         */
+        private int[] playoutSquares;
+        /**
+         * @brief Pieces captured by each move of the current playout, used to undo it.
+         */
+        private long[] playoutFlipped;
+
+        /* CONSTRUCTORS */
+
+        /**
+         * @brief Create a Worker instance.
+         * @pre <em>True</em>
+         * @post A Worker instance with a copy of the given board is created.
+         * @param board Board state of the root.
+         */
+        public Worker(Board board) {
+            this.board = new Board(board);
+            this.validPositions = new MoveList();
+            this.playoutSquares = new int[64];
+            this.playoutFlipped = new long[64];
+        }
+    }
+
     private class TreeNode {
         /* ATTRIBUTES */
 
         /**
-        * @brief Possible future moves and board states that can be obtained given the currrent board state
+        * @brief Possible future moves and board states that can be obtained given the currrent board state.
+        * It is replaced by a complete list when the TreeNode is expanded, so other threads never see it half filled
         */
-        private ArrayList<TreeNode> children;
+        private volatile List<TreeNode> children;
         /**
-        * @brief Number of times a TreeNode has been traversed
+        * @brief Number of times a TreeNode has been traversed, including the simulations still running through it
         */
-        private double nVisits;
+        private volatile int nVisits;
         /**
-        * @brief Number of wins obtained in this TreeNode
+        * @brief Number of wins obtained in this TreeNode, counted in half wins so that a draw is 1 and a win is 2
         */
-        private double totValue;
+        private volatile long totValue;
         /**
-        * @brief Move that produces the current board state. It can be null since you can have the first board state, which isn't produced by a move
+        * @brief Whether the board state is the end of the game, because neither player can place a piece
         */
-        private Pair<Integer, Integer> selectedPosition;
+        private volatile boolean terminal;
         /**
-        * @brief PieceType used to identify whose turn to make a move is between Player1 (White) and Player2 (Black) 
+        * @brief Move that produces the current board state as a square index (row * 8 + column). It is -1 for the first board state, which isn't produced by a move, and PASS if the previous player passed
         */
-        private PieceType pieceType;
+        private int selectedSquare;
         /**
-         * @brief PieceType used to identify whose turn it is in the initial board state
-         */
-        private PieceType rootType;
+        * @brief Pieces captured by the move that produces the current board state, used to undo that move. It is 0 for the first board state
+        */
+        private long flipped;
         /**
-        * @brief Current board state in an instance of a game
+        * @brief PieceType used to identify whose turn to make a move is between Player1 (White) and Player2 (Black)
         */
-        private Board currentBoard;
+        private PieceType pieceType;
         /**
         * @brief Whether the pieces of the current Game can be eaten horizontally.
         */
@@ -133,34 +448,34 @@ public class HardDifficulty extends Difficulty {
         /**
         * @brief Create a TreeNode instance.
         * @pre The given rules are not all false.
-        * @post A TreeNode instance is created and its implicits rootType, pieceType, currentBoard, canEatHorizontally, canEatVertically, canEatDiagonally and selectedPosition attributes are setted.
-        * @param rootType PieceType of the root TreeNode of a tree.
+        * @post A TreeNode instance is created and its implicits pieceType, canEatHorizontally, canEatVertically, canEatDiagonally, selectedSquare and flipped attributes are setted.
         * @param pieceType PieceType used to know whose turn it is to make a move.
-        * @param currentBoard Current state of the board.
         * @param canEatHorizontally Whether the pieces of the current Game can be eaten horizontally.
         * @param canEatVertically Whether the pieces of the current Game can be eaten vertically.
         * @param canEatDiagonally Whether the pieces of the current Game can be eaten diagonally.
-        * @param selectedPosition Position in the board that resulted in the current board state (it can be null).
+        * @param selectedSquare Square index of the position in the board that resulted in the current board state (-1 for the first board state and PASS if the previous player passed).
+        * @param flipped Pieces captured by the move in selectedSquare (0 if there isn't any move).
         */
-        public TreeNode(PieceType rootType, PieceType pieceType, Board currentBoard, boolean canEatHorizontally,
-            boolean canEatVertically, boolean canEatDiagonally, Pair<Integer, Integer> selectedPosition) {
-            this.rootType = rootType;
+        public TreeNode(PieceType pieceType, boolean canEatHorizontally,
+            boolean canEatVertically, boolean canEatDiagonally, int selectedSquare, long flipped) {
             this.pieceType = pieceType;
-            this.currentBoard = currentBoard;
             this.canEatHorizontally = canEatHorizontally;
             this.canEatVertically = canEatVertically;
             this.canEatDiagonally = canEatDiagonally;
             this.children = new ArrayList<TreeNode> ();
             this.nVisits = 0;
             this.totValue = 0;
-            this.selectedPosition = selectedPosition;
+            this.terminal = false;
+            this.selectedSquare = selectedSquare;
+            this.flipped = flipped;
+            HardDifficulty.this.treeNodes.incrementAndGet();
         }
 
         /* METHODS */
 
         /**
          * @brief Returns whether the implicit TreeNode has possible future moves or not.
-         * @pre <em>True</em> 
+         * @pre <em>True</em>
          * @post A boolean which has value true if the implicit TreeNode has future moves or false otherwise is returned.
          * @return Boolean which tells whether the children attribute of the implicit TreeNode is empty or not.
          */
@@ -169,36 +484,48 @@ public class HardDifficulty extends Difficulty {
         }
 
         /**
-         * @brief Returns the selectedPosition attribute of the implicit TreeNode.
-         * Since the initial board state doesn't have a selectedPosition, this method can return null.
-         * @pre <em>True</em> 
-         * @post The implicit TreeNode's selectedPosition, which can be either a position of the board or null, is returned.
+         * @brief Returns the number of TreeNodes of the tree whose root is the implicit TreeNode.
+         * @pre <em>True</em>
+         * @post The number of TreeNodes of the tree whose root is the implicit TreeNode, including it, is returned.
+         * @return Number of TreeNodes of the tree.
+         */
+        public int size() {
+            int size = 1;
+            for (TreeNode child : this.children) size += child.size();
+            return size;
+        }
+
+        /**
+         * @brief Returns the selectedSquare attribute of the implicit TreeNode as a position.
+         * Since the initial board state doesn't have a selectedSquare and a pass isn't a position, this method can return null.
+         * @pre <em>True</em>
+         * @post The implicit TreeNode's selectedSquare, which can be either a position of the board or null, is returned.
          * @return Pair of Integers which represents a position inside of a board.
          */
         public Pair<Integer, Integer> getSelectedPosition() {
-            return this.selectedPosition;
+            return HardDifficulty.toPosition(this.selectedSquare);
         }
 
         /**
-         * @brief Returns the win ratio of a TreeNode, which is the result of the division of attribute totValue, 
-         which represents the number of wins in the implicit TreeNode and the attribute nVisits, 
-         which represents the number of times the implicit TreeNode has been visited. Since nVisits is initialized with value 0 
+         * @brief Returns the win ratio of a TreeNode, which is the result of the division of attribute totValue,
+         which represents the number of wins in the implicit TreeNode for the player that moved to it and the attribute nVisits,
+         which represents the number of times the implicit TreeNode has been visited. Since nVisits is initialized with value 0
          we use the attribute epsilon to prevent division by 0.
-         * @pre <em>True</em> 
+         * @pre <em>True</em>
          * @post The implicit TreeNode's win ratio is returned.
          * @return Double equal to the division between totValue and nVisits of the implicit TreeNode.
          */
         public double getWinRatio() {
-            return (this.totValue/(this.nVisits + HardDifficulty.epsilon));
+            return (this.totValue / 2.0 / (this.nVisits + HardDifficulty.epsilon));
         }
 
         /**
          * @brief Returns the implicit TreeNode's private attribute children, which represents future board states obtained from the current state.
-         * @pre <em>True</em> 
+         * @pre <em>True</em>
          * @post The implicit TreeNode's children attribute is returned.
-         * @return ArrayList which acts as a representation of the possible future states of a board.
+         * @return List which acts as a representation of the possible future states of a board.
          */
-        public ArrayList<TreeNode> getChildren() {
+        public List<TreeNode> getChildren() {
             return this.children;
         }
 
@@ -206,56 +533,91 @@ public class HardDifficulty extends Difficulty {
          * @brief Simulation of a game used as the basis of the Monte Carlo Tree Search algorithm.
          * Given the root TreeNode of the stats tree, which represents the initial board state, it traverses
          the tree using the UCT formula to select, in every TreeNode, which of its future states is best.
-         Once it reaches an unexplored TreeNode, it generates its children TreeNodes and picks the best out of them 
-         using the UCT formula once more. After this, based on the number of pieces of each player, it returns whether there has been a win or not,
-         and every single TreeNode that was traversed to get to that state is updated based on the outcome.
-         * @pre <em>True</em> 
+         Once it reaches an unexplored TreeNode, it generates its children TreeNodes and picks the best out of them
+         using the UCT formula once more. After this, the game is played until the end with random moves (a playout),
+         and every single TreeNode that was traversed to get to that state is updated based on the outcome for the player that moved to it.
+         The moves are played on the worker's board while traversing and undone once the simulation is finished.
+         Every traversed TreeNode counts the visit as soon as it is traversed, as a loss until the outcome is known (virtual loss),
+         so other threads traversing the same tree at the same time prefer other paths.
+         * @pre The board of the given worker is the board state of the implicit TreeNode.
          * @post The simulation of the game is done and the tree is updated based on the outcome of that simulation.
+         The board of the given worker is left as it was.
+         * @param worker Worker whose board is used as the only board of the simulation.
          */
-        public void play() {
-            List<TreeNode> visited = new LinkedList<TreeNode>();
+        public void play(Worker worker) {
+            List<TreeNode> visited = new ArrayList<TreeNode>();
             TreeNode current = this;
+            current.addVisit();
             visited.add(this);
 
             while (!current.isLeaf()) {
                 current = current.select();
+                current.makeMove(worker.board);
+                current.addVisit();
                 visited.add(current);
             }
 
-            current.expand();
+            // The end of the game is never expanded, its playout just counts its pieces
+            if (!current.terminal) current.expand(worker);
 
-            if(current.isLeaf()) {
-                double value = current.rollOut();
-                for(TreeNode node : visited) node.updateStats(value);
+            if(!current.isLeaf()) {
+                current = current.select();
+                current.makeMove(worker.board);
+                current.addVisit();
+                visited.add(current);
             }
 
-            else {
-                TreeNode bestChild = current.select();
-                visited.add(bestChild);
-                double value = bestChild.rollOut();
-                for (TreeNode node : visited) node.updateStats(value);
-            }
+            int value = current.rollOut(worker);
+            for (TreeNode node : visited) node.addValue(value);
+
+            // Undo the moves in reverse order, the root TreeNode has no move
+            for (int i = visited.size() - 1; i > 0; --i) visited.get(i).unmakeMove(worker.board);
+        }
+
+        /**
+         * @brief Plays on the given board the move that produces the implicit TreeNode's board state.
+         * @pre The given board is the board state of the parent of the implicit TreeNode.
+         * @post The given board is the board state of the implicit TreeNode.
+         * @param board Board where the move is played.
+         */
+        private void makeMove(Board board) {
+            if (this.selectedSquare == HardDifficulty.PASS) return;
+            board.makeMove(this.selectedSquare >>> 3, this.selectedSquare & 7,
+                HardDifficulty.inversePieceType(this.pieceType), this.canEatHorizontally, this.canEatVertically, this.canEatDiagonally);
+        }
+
+        /**
+         * @brief Undoes on the given board the move that produces the implicit TreeNode's board state.
+         * @pre The given board is the board state of the implicit TreeNode.
+         * @post The given board is the board state of the parent of the implicit TreeNode.
+         * @param board Board where the move is undone.
+         */
+        private void unmakeMove(Board board) {
+            if (this.selectedSquare == HardDifficulty.PASS) return;
+            board.unmakeMove(this.selectedSquare >>> 3, this.selectedSquare & 7,
+                HardDifficulty.inversePieceType(this.pieceType), this.flipped);
         }
 
         /**
          * @brief Method that gets the best move to play out of the implicit TreeNode's children attribute.
          * This is done using the UCT formula to compare each TreeNode and get the best one of them.
          * UCT takes into consideration the percentage of wins of the TreeNode and if it has been explored very few times.
-         * In the case of a tie between two different candidates, the random attribute is used to break the tie.
+         * In the case of a tie between two different candidates, a small random number is used to break the tie.
          * Since a TreeNode could have no possible future states, this method can return null.
-         * @pre <em>True</em> 
+         * @pre <em>True</em>
          * @post The best Node of the next board states of the implicit TreeNode or null is returned.
-         * @return TreeNode with the best TreeNode value based on the UCT formula out of all 
+         * @return TreeNode with the best TreeNode value based on the UCT formula out of all
          * the TreeNodes in attribute children of the implicit TreeNode.
          */
         private TreeNode select() {
             TreeNode selected = null;
             double bestValue = Double.NEGATIVE_INFINITY;
+            ThreadLocalRandom random = ThreadLocalRandom.current();
 
             for (TreeNode child : this.children) {
-                double uctValue = child.totValue / (child.nVisits + HardDifficulty.epsilon) +
+                double uctValue = child.getWinRatio() +
                             Math.sqrt(Math.log(this.nVisits+1) / (child.nVisits + HardDifficulty.epsilon)) +
-                            HardDifficulty.random.nextDouble() * HardDifficulty.epsilon;
+                            random.nextDouble() * HardDifficulty.epsilon;
 
                 if (uctValue > bestValue) {
                     bestValue = uctValue;
@@ -267,61 +629,125 @@ public class HardDifficulty extends Difficulty {
         }
 
         /**
-         * @brief Generates the next board states of a game given the implicit TreeNode's currentBoard
-         * and saves them in the implicit TreeNode's children attribute. Since a board state of a TreeNode 
-         * could have no possible future moves, then it could occur that children is left unchanged after the method. 
-         * @pre <em>True</em> 
+         * @brief Generates the next board states of a game given the implicit TreeNode's board state
+         * and saves them in the implicit TreeNode's children attribute. If the player to move can't place any piece but the
+         * opponent can, the only next board state is the pass. If neither player can, the board state is the end of the game:
+         * the implicit TreeNode is marked as terminal and children is left unchanged.
+         * Children aren't generated either when the search tree has reached its maximum number of TreeNodes,
+         * or when another thread has already generated them.
+         * @pre The board of the given worker is the board state of the implicit TreeNode.
          * @post If a board state has next states that can be obtained, TreeNodes that represent them will be generated
          * and saved in the implicit TreeNode's children attribute. If that isn't the case, then children remains the same
          * as before calling this function.
+         * @param worker Worker with the board state of the implicit TreeNode.
          */
-        private void expand() {
-            ArrayList<Pair<Integer,Integer>> validPositions = this.currentBoard.validPositions(
-                this.pieceType, this.canEatHorizontally, this.canEatVertically, this.canEatDiagonally);
+        private synchronized void expand(Worker worker) {
+            if (!this.isLeaf() || HardDifficulty.this.treeNodes.get() >= HardDifficulty.this.maxNodes) return;
+
+            Board board = worker.board;
+            MoveList validPositions = worker.validPositions.set(board.validMoves(
+                this.pieceType, this.canEatHorizontally, this.canEatVertically, this.canEatDiagonally));
+            List<TreeNode> children = new ArrayList<TreeNode>(Math.max(validPositions.size(), 1));
 
             for (int i = 0; i < validPositions.size(); ++i) {
-                Board board = new Board(this.currentBoard.getBoard());
-                board.placePiece(validPositions.get(i), this.pieceType, this.canEatHorizontally,
+                long flipped = board.flips(validPositions.getRow(i), validPositions.getColumn(i), this.pieceType, this.canEatHorizontally,
                     this.canEatVertically, this.canEatDiagonally);
 
-                this.children.add(i, new TreeNode(this.rootType, HardDifficulty.inversePieceType(this.pieceType), board, this.canEatHorizontally,
-                    this.canEatVertically, this.canEatDiagonally, validPositions.get(i)));
+                children.add(new TreeNode(HardDifficulty.inversePieceType(this.pieceType), this.canEatHorizontally,
+                    this.canEatVertically, this.canEatDiagonally, validPositions.getSquare(i), flipped));
+            }
+
+            if (validPositions.isEmpty()) {
+                if (board.validMoves(HardDifficulty.inversePieceType(this.pieceType), this.canEatHorizontally,
+                        this.canEatVertically, this.canEatDiagonally) != 0)
+                    children.add(new TreeNode(HardDifficulty.inversePieceType(this.pieceType), this.canEatHorizontally,
+                        this.canEatVertically, this.canEatDiagonally, HardDifficulty.PASS, 0L));
+                else this.terminal = true;
             }
+
+            if (!children.isEmpty()) this.children = children;
         }
 
         /**
-         * @brief Returns whether the implicit TreeNode's currentBoard would result in a win or a loss for the indicated player.
-         * The indicated player is known using the rootType attribute. 
-         * @pre <em>True</em> 
-         * @post If rootType is equal to PLAYER1 and the number of pieces of PLAYER1 is greater than the number of pieces of PLAYER2
-         * this method returns 1, if not it returns 0. If instead rootType is equal to PLAYER2 and the number of pieces of PLAYER2
-         * is greater than the number of pieces of PLAYER1 it returns 1, and if not it returns 0.
-         * @return Double which is equal to 1 if the rootType's number of pieces is greater than the opposing PieceType's number of pieces, and 0 otherwise.
+         * @brief Plays the game from the implicit TreeNode's board state until the end (a playout) and returns its result.
+         * Each player plays a random valid position, or a corner if it can and heavyPlayouts is setted, and passes when it can't
+         * place any piece. The playout ends when neither player can place a piece.
+         * @pre The board of the given worker is the board state of the implicit TreeNode.
+         * @post It is returned 2 if PLAYER1 has more pieces than PLAYER2 at the end of the playout, 1 if both have the same
+         * number of pieces and 0 otherwise. The board of the given worker is left as it was.
+         * @param worker Worker with the board state of the implicit TreeNode.
+         * @return Integer which represents the result of the playout for PLAYER1 in half wins.
          */
-        private double rollOut() {
-            int piecesPlayer1 = this.currentBoard.getPiecesPlayer1();
-            int piecesPlayer2 = this.currentBoard.getPiecesPlayer2();
-            if(this.rootType == PieceType.PLAYER1) {
-                if(piecesPlayer1 > piecesPlayer2) return 1;
-                else return 0;
+        private int rollOut(Worker worker) {
+            Board board = worker.board;
+            int[] squares = worker.playoutSquares;
+            long[] flipped = worker.playoutFlipped;
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            PieceType current = this.pieceType;
+            int moves = 0;
+            boolean passed = false;
+
+            while (true) {
+                long valid = board.validMoves(current, this.canEatHorizontally, this.canEatVertically, this.canEatDiagonally);
+
+                if (valid == 0) {
+                    // The game ends when both players pass
+                    if (passed) break;
+                    passed = true;
+                }
+                else {
+                    passed = false;
+
+                    if (HardDifficulty.this.heavyPlayouts && (valid & HardDifficulty.CORNERS) != 0)
+                        valid &= HardDifficulty.CORNERS;
+
+                    // Take the n-th valid position, with n random
+                    for (int n = random.nextInt(Long.bitCount(valid)); n > 0; --n) valid &= valid - 1;
+
+                    int square = Long.numberOfTrailingZeros(valid);
+                    squares[moves] = square;
+                    flipped[moves] = board.makeMove(square >>> 3, square & 7, current, this.canEatHorizontally,
+                        this.canEatVertically, this.canEatDiagonally);
+                    ++moves;
+                }
+
+                current = HardDifficulty.inversePieceType(current);
             }
-            else {
-                if(piecesPlayer2 > piecesPlayer1) return 1;
-                else return 0;
+
+            int piecesPlayer1 = board.getPiecesPlayer1();
+            int piecesPlayer2 = board.getPiecesPlayer2();
+
+            // Undo the playout in reverse order, each move was played by the opponent of the next one
+            for (int i = moves - 1; i >= 0; --i) {
+                PieceType mover = board.getPiece(squares[i] >>> 3, squares[i] & 7);
+                board.unmakeMove(squares[i] >>> 3, squares[i] & 7, mover, flipped[i]);
             }
+
+            if (piecesPlayer1 > piecesPlayer2) return 2;
+            else if (piecesPlayer1 < piecesPlayer2) return 0;
+            else return 1;
+        }
+
+        /**
+         * @brief Counts a new visit of the implicit TreeNode when a simulation traverses it.
+         * @pre <em>True</em>
+         * @post The number of visits of the implicit TreeNode is increased by 1. Until the simulation adds its value, the visit counts as a loss.
+         */
+        private void addVisit() {
+            VISITS.incrementAndGet(this);
         }
 
         /**
-         * @brief Updates information on the stats tree when a simulation is finished. 
-         * @pre <em>True</em> 
-         * @post For every single one of the TreeNodes traversed to get to the ending of a simulation, its number of visits is increased by 1 
-         * and its number of wins changes based on the parameter value.
-         * @param value Double which equals either 1 or 0 and represents whether the final board state of a simulation ended in a victory or
-         * in a loss.
+         * @brief Updates information on the stats tree when a simulation is finished.
+         * @pre The simulation has counted its visit of the implicit TreeNode.
+         * @post For every single one of the TreeNodes traversed to get to the ending of a simulation,
+         * its number of wins changes based on the parameter value, seen from the player that moved to the implicit TreeNode.
+         * @param value Integer which equals 2, 1 or 0 and represents whether the final board state of a simulation ended in a victory, a draw or
+         * in a loss for PLAYER1.
          */
-        private void updateStats(double value) {
-            ++this.nVisits;
-            this.totValue += value;
+        private void addValue(int value) {
+            // The player that moved to the implicit TreeNode is the opponent of the player to move
+            VALUES.addAndGet(this, this.pieceType == PieceType.PLAYER2 ? value : 2 - value);
         }
     }
 }
@@ -6,18 +6,76 @@
 package domain;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import domain.Board.PieceType;
+import domain.TranspositionTable.BoundType;
 import util.Pair;
 
 /**
  * @class MediumDifficulty
  * @brief Implements the Minimax algorithm with alpha-beta pruning to get the next best possible position for a given player.
+ * The Board states are evaluated with the implicit Evaluator, whose score is updated with each move instead of being
+ * computed again at every leaf.
+ * Inside the tree of possibilities the moves are tried in order: first the best position stored in the transposition table,
+ * then the killer moves of the same depth (moves that caused a prune in a sibling), and then the rest by their history
+ * (how many prunes they caused weighted by depth) and by a static priority of the squares.
  * By Alex Rodriguez
  */
 public class MediumDifficulty extends Difficulty {
     /* ATTRIBUTES */
 
+    /**
+    * @brief Static priority of each square for the move ordering: corners first, then borders, and the squares diagonally
+    * adjacent to the corners (X-squares) last.
+    */
+    private static final int[] SQUARE_PRIORITY = {
+        20, -6,  4,  2,  2,  4, -6, 20,
+        -6, -9, -1, -1, -1, -1, -9, -6,
+         4, -1,  1,  0,  0,  1, -1,  4,
+         2, -1,  0,  0,  0,  0, -1,  2,
+         2, -1,  0,  0,  0,  0, -1,  2,
+         4, -1,  1,  0,  0,  1, -1,  4,
+        -6, -9, -1, -1, -1, -1, -9, -6,
+        20, -6,  4,  2,  2,  4, -6, 20
+    };
+    /**
+    * @brief Ordering scores of the best position of the transposition table and the two killer moves.
+    */
+    private static final int TT_MOVE_SCORE = 1 << 30, KILLER_SCORE = 1 << 29, SECOND_KILLER_SCORE = 1 << 28;
+    /**
+    * @brief Maximum value of the history before all of it is halved.
+    */
+    private static final int MAX_HISTORY = 1 << 20;
+    /**
+    * @brief Transposition table where the evaluations of the searched positions are stored. It can be shared by several
+    * place calls so a bot reuses the positions it searched in its previous moves.
+    */
+    private TranspositionTable transpositionTable;
+    /**
+    * @brief Number of threads that search the positions of the root at the same time.
+    */
+    private int threads;
+    /**
+    * @brief Whether the moves are ordered before being searched.
+    */
+    private boolean moveOrdering;
+    /**
+    * @brief Two killer moves of each depth as square indexes, the most recent first.
+    */
+    private int[][] killers;
+    /**
+    * @brief History of each player and square: the sum of depth^2 of the prunes caused by placing a piece there.
+    */
+    private int[][] history;
+    /**
+    * @brief Ordering scores of the moves being sorted.
+    */
+    private int[] moveScores;
+
     /* CONSTRUCTORS */
 
     /**
@@ -34,168 +92,409 @@ public class MediumDifficulty extends Difficulty {
     public MediumDifficulty(Integer difficulty, Boolean canEatHorizontally, Boolean canEatVertically,
             Boolean canEatDiagonally, PieceType pieceType) {
         super(difficulty, canEatHorizontally, canEatVertically, canEatDiagonally, pieceType);
+        this.transpositionTable = null;
+        this.threads = 1;
+        this.moveOrdering = true;
+        this.killers = null;
+        this.history = new int[2][64];
+        this.moveScores = new int[64];
     }
 
     /* METHODS */
 
     /**
-     * @brief Get the heuristic evaluation for the given Board state.
+     * @brief Set the transposition table of the implicit MediumDifficulty.
      * @pre <em>True</em>
-     * @post It is returned the heuristic evaluation for the given Board state.
-     * The evaluation is the subtraction of the maximized player's control of the board minus the control of the board for the opponent.
-     * A player's control of the board is obtained with the number of pieces in his control and adding or subtracting to that based on important positions in the board.
-     * Those important positions are corners, positions adjacent to corners, borders of the board which aren't adjacent to corners and positions adjacent to the centre square of the board.
-     * @param currentBoard Current playing Board to get the heuristic evaluation from.
-     * @return The heuristic evaluation for the given Board state.
+     * @post The given transposition table is used by the next place calls. If it is null, the next place call creates a default
+     * one, which is kept and reused by the following place calls.
+     * @param transpositionTable Transposition table to be used.
      */
-    private int evaluation(Board currentBoard) {
-        int player1 = currentBoard.getPiecesPlayer1();
-        int player2 = currentBoard.getPiecesPlayer2();
-
-        PieceType[][] board = currentBoard.getBoard();
-
-        // Check corners of the Board
-        if (board[0][0] == PieceType.PLAYER1) player1 += 50;
-        else if (board[0][0] == PieceType.PLAYER2) player2 += 50;
-
-        if (board[0][7] == PieceType.PLAYER1) player1 += 50;
-        else if (board[0][7] == PieceType.PLAYER2) player2 += 50;
-
-        if (board[7][0] == PieceType.PLAYER1) player1 += 50;
-        else if (board[7][0] == PieceType.PLAYER2) player2 += 50;
-
-        if (board[7][7] == PieceType.PLAYER1) player1 += 50;
-        else if (board[7][7] == PieceType.PLAYER2) player2 += 50;
-
-        // Check borders not next to corner
-        for (int k = 2; k < 6; ++k) {
-            if (board[k][0] == PieceType.PLAYER1) player1 += 17;
-            else if (board[k][0] == PieceType.PLAYER2) player2 += 17;
-
-            if (board[k][7] == PieceType.PLAYER1) player1 += 17;
-            else if (board[k][7] == PieceType.PLAYER2) player2 += 17;
-
-            if (board[0][k] == PieceType.PLAYER1) player1 += 17;
-            else if (board[0][k] == PieceType.PLAYER2) player2 += 17;
-
-            if (board[7][k] == PieceType.PLAYER1) player1 += 17;
-            else if (board[7][k] == PieceType.PLAYER2) player2 += 17;
-        }
-
-        // Check next to center of the Board
-        for (int i = 2; i < 6; ++i) {
-            if (board[i][2] == PieceType.PLAYER1) player1 += 10;
-            else if (board[i][2] == PieceType.PLAYER2) player2 += 10;
-
-            if (board[i][5] == PieceType.PLAYER1) player1 += 10;
-            else if (board[i][5] == PieceType.PLAYER2) player2 += 10;
-
-            if (board[2][i] == PieceType.PLAYER1) player1 += 10;
-            else if (board[2][i] == PieceType.PLAYER2) player2 += 10;
-
-            if (board[5][i] == PieceType.PLAYER1) player1 += 10;
-            else if (board[5][i] == PieceType.PLAYER2) player2 += 10;
-        }
-
-        // Check next to corners
-        for (int j = 0; j < 2; ++j) {
-            if (board[1][j] == PieceType.PLAYER1) player1 -= 25;
-            else if (board[1][j] == PieceType.PLAYER2) player2 -= 25;
-
-            if (board[1][7 - j] == PieceType.PLAYER1) player1 -= 25;
-            else if (board[1][7 - j] == PieceType.PLAYER2) player2 -= 25;
-
-            if (board[6][j] == PieceType.PLAYER1) player1 -= 25;
-            else if (board[6][j] == PieceType.PLAYER2) player2 -= 25;
-
-            if (board[6][7 - j] == PieceType.PLAYER1) player1 -= 25;
-            else if (board[6][7 - j] == PieceType.PLAYER2) player2 -= 25;
-        }
-
-        if (board[0][1] == PieceType.PLAYER1) player1 -= 25;
-        else if (board[0][1] == PieceType.PLAYER2) player2 -= 25;
-
-        if (board[7][1] == PieceType.PLAYER1) player1 -= 25;
-        else if (board[7][1] == PieceType.PLAYER2) player2 -= 25;
-
-        if (board[0][6] == PieceType.PLAYER1) player1 -= 25;
-        else if (board[0][6] == PieceType.PLAYER2) player2 -= 25;
+    public void setTranspositionTable(TranspositionTable transpositionTable) {
+        this.transpositionTable = transpositionTable;
+    }
 
-        if (board[7][6] == PieceType.PLAYER1) player1 -= 25;
-        else if (board[7][6] == PieceType.PLAYER2) player2 -= 25;
+    /**
+     * @brief Set the number of threads that search the positions of the root at the same time.
+     * @pre The given threads is a positive number.
+     * @post The next place calls search the positions of the root with the given number of threads of the shared pool.
+     * With a fixed depth the position returned is the same as with one thread.
+     * @param threads Number of threads.
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
 
-        if (this.pieceType == PieceType.PLAYER1) return player1 - player2;
-        else return player2 - player1;
+    /**
+     * @brief Set whether the moves are ordered before being searched.
+     * @pre <em>True</em>
+     * @post The next place calls order the moves inside the tree of possibilities if the given moveOrdering is true, and
+     * search them in row-major order otherwise.
+     * @param moveOrdering Whether the moves are ordered.
+     */
+    public void setMoveOrdering(boolean moveOrdering) {
+        this.moveOrdering = moveOrdering;
     }
 
     /**
      * @brief Recursive implementation of the Minimax algorithm with alpha-beta pruning.
      * @pre <em>True</em>
      * @post It is returned the heuristic evaluation for the current possible position on the tree of possibilities.
-     * If there aren't any possible valid positions left or the maximum depth is reached it stops.
-     * The implicit player is maximized and the opponent is minimized.
+     * If the maximum depth is reached it stops. A player that can't place any piece passes, and if neither player can place
+     * a piece the game has ended and its exact result is returned (see finalEvaluation).
+     * The implicit player is maximized and the opponent is minimized. The evaluations found with at least the same depth are
+     * taken from the transposition table, and the evaluation found is stored in it.
      * @param currentBoard current Board in the tree of possibilities.
      * @param currentPieceType current turn in the tree of possibilities.
      * @param depth current depth in the tree of possibilities.
      * @param alpha current alpha in the tree of possibilities.
      * @param beta current beta in the tree of possibilities.
+     * @param score Score of the current Board for the implicit Evaluator, updated with each move.
      * @return The heuristic evaluation for the current possible position on the tree of possibilities.
      */
-    private int minimax(Board currentBoard, PieceType currentPieceType, int depth, int alpha, int beta) {
-        ArrayList<Pair<Integer, Integer>> validPositions = currentBoard.validPositions(currentPieceType,
+    private int minimax(Board currentBoard, PieceType currentPieceType, int depth, int alpha, int beta, int score) {
+        MoveList validPositions = this.validMoveList(currentBoard, currentPieceType, depth);
+        ++this.nodes;
+
+        if (validPositions.isEmpty()) {
+            PieceType opponent = MediumDifficulty.inversePieceType(currentPieceType);
+
+            // The game ends when neither player can place a piece
+            if (currentBoard.validMoves(opponent, this.canEatHorizontally, this.canEatVertically, this.canEatDiagonally) == 0)
+                return this.finalEvaluation(currentBoard);
+
+            // Otherwise the player passes, which doesn't count as a level of the tree of possibilities
+            if (depth > 0)
+                return this.minimax(currentBoard, opponent, depth, alpha, beta, score);
+        }
+
+        if (depth == 0)
+            return this.evaluator.evaluate(currentBoard, this.pieceType, score);
+
+        // The value returned once the time is up is discarded by place
+        if (this.checkTime())
+            return 0;
+
+        // Look up the position in the transposition table
+        long key = TranspositionTable.key(currentBoard.getHash(), currentPieceType, this.pieceType,
                 this.canEatHorizontally, this.canEatVertically, this.canEatDiagonally);
+        long entry = this.transpositionTable.probe(key);
+
+        if (entry != TranspositionTable.NO_ENTRY && TranspositionTable.getDepth(entry) >= depth) {
+            int value = TranspositionTable.getValue(entry);
+            BoundType boundType = TranspositionTable.getBoundType(entry);
 
-        if (validPositions.isEmpty() || depth == 0)
-            return this.evaluation(currentBoard);
+            if (boundType == BoundType.EXACT) return value;
+            else if (boundType == BoundType.LOWER_BOUND) alpha = Integer.max(alpha, value);
+            else beta = Integer.min(beta, value);
+
+            if (beta <= alpha)
+                return value;
+        }
+
+        int initialAlpha = alpha, initialBeta = beta, bestSquare = TranspositionTable.NO_SQUARE;
+
+        // The best position is kept even if the entry was searched with less depth
+        if (this.moveOrdering)
+            this.orderMoves(validPositions, currentPieceType, depth, entry == TranspositionTable.NO_ENTRY ?
+                    TranspositionTable.NO_SQUARE : TranspositionTable.getBestSquare(entry));
 
         // Maximizer
         if (currentPieceType == this.pieceType) {
             int max = Integer.MIN_VALUE, currentMax = 0;
 
-            for (Pair<Integer, Integer> position : validPositions) {
-                // Make a duplicate in order not to work with the same Board pointer!
-                Board board = new Board(currentBoard.getBoard());
-                board.placePiece(position, currentPieceType, this.canEatHorizontally, this.canEatVertically,
-                        this.canEatDiagonally);
+            for (int i = 0; i < validPositions.size(); ++i) {
+                int row = validPositions.getRow(i), column = validPositions.getColumn(i);
 
-                currentMax = this.minimax(board, MediumDifficulty.inversePieceType(currentPieceType), depth - 1, alpha, beta);
-                max = Integer.max(max, currentMax);
+                // Play the move on the same Board and undo it after exploring it
+                long flipped = currentBoard.makeMove(row, column, currentPieceType,
+                        this.canEatHorizontally, this.canEatVertically, this.canEatDiagonally);
+
+                currentMax = this.minimax(currentBoard, MediumDifficulty.inversePieceType(currentPieceType), depth - 1, alpha, beta,
+                        score + this.evaluator.scoreDelta(validPositions.getSquare(i), flipped, currentPieceType));
+                currentBoard.unmakeMove(row, column, currentPieceType, flipped);
+
+                if (this.timeUp)
+                    return 0;
+
+                if (currentMax > max) {
+                    max = currentMax;
+                    bestSquare = validPositions.getSquare(i);
+                }
                 alpha = Integer.max(alpha, currentMax);
                 // Prune
-                if (beta <= alpha)
+                if (beta <= alpha) {
+                    this.cutoff(currentPieceType, depth, validPositions.getSquare(i));
                     break;
+                }
             }
 
+            this.store(key, max, depth, initialAlpha, initialBeta, bestSquare);
             return max;
         }
 
         // Minimizer
         else {
-            Integer min = Integer.MAX_VALUE, currentMin = 0;
+            int min = Integer.MAX_VALUE, currentMin = 0;
+
+            for (int i = 0; i < validPositions.size(); ++i) {
+                int row = validPositions.getRow(i), column = validPositions.getColumn(i);
 
-            for (Pair<Integer, Integer> position : validPositions) {
-                // Make a duplicate in order not to work with the same Board pointer!
-                Board board = new Board(currentBoard.getBoard());
-                board.placePiece(position, currentPieceType, this.canEatHorizontally, this.canEatVertically,
-                        this.canEatDiagonally);
+                // Play the move on the same Board and undo it after exploring it
+                long flipped = currentBoard.makeMove(row, column, currentPieceType,
+                        this.canEatHorizontally, this.canEatVertically, this.canEatDiagonally);
 
-                currentMin = this.minimax(board, MediumDifficulty.inversePieceType(currentPieceType), depth - 1, alpha, beta);
-                min = Integer.min(min, currentMin);
+                currentMin = this.minimax(currentBoard, MediumDifficulty.inversePieceType(currentPieceType), depth - 1, alpha, beta,
+                        score + this.evaluator.scoreDelta(validPositions.getSquare(i), flipped, currentPieceType));
+                currentBoard.unmakeMove(row, column, currentPieceType, flipped);
+
+                if (this.timeUp)
+                    return 0;
+
+                if (currentMin < min) {
+                    min = currentMin;
+                    bestSquare = validPositions.getSquare(i);
+                }
                 beta = Integer.min(beta, currentMin);
                 // Prune
-                if (beta <= alpha)
+                if (beta <= alpha) {
+                    this.cutoff(currentPieceType, depth, validPositions.getSquare(i));
                     break;
+                }
             }
 
+            this.store(key, min, depth, initialAlpha, initialBeta, bestSquare);
             return min;
         }
     }
 
+    /**
+     * @brief Private method that orders the valid positions of a position of the tree of possibilities.
+     * @pre The given validPositions are the valid positions of the given player. The implicit killers have more than depth rows.
+     * @post The given validPositions are sorted: the given ttSquare first, then the killer moves of the given depth and then
+     * the rest by history plus static priority. Positions with the same score keep their row-major order.
+     * @param validPositions Valid positions of the given player.
+     * @param currentPieceType Player to move.
+     * @param depth current depth in the tree of possibilities.
+     * @param ttSquare Best position stored in the transposition table as a square index, or NO_SQUARE.
+     */
+    private void orderMoves(MoveList validPositions, PieceType currentPieceType, int depth, int ttSquare) {
+        int[] history = this.history[currentPieceType.ordinal()];
+        int[] killers = this.killers[depth];
+
+        for (int i = 0; i < validPositions.size(); ++i) {
+            int square = validPositions.getSquare(i);
+
+            if (square == ttSquare) this.moveScores[i] = TT_MOVE_SCORE;
+            else if (square == killers[0]) this.moveScores[i] = KILLER_SCORE;
+            else if (square == killers[1]) this.moveScores[i] = SECOND_KILLER_SCORE;
+            else this.moveScores[i] = history[square] + SQUARE_PRIORITY[square];
+        }
+
+        validPositions.sort(this.moveScores);
+    }
+
+    /**
+     * @brief Private method that records a move that caused a prune.
+     * @pre The implicit killers have more than depth rows.
+     * @post The given square becomes the first killer move of the given depth and its history is increased by depth^2.
+     * If the history gets too big, all of it is halved.
+     * @param currentPieceType Player that placed the piece.
+     * @param depth current depth in the tree of possibilities.
+     * @param square Position that caused the prune as a square index.
+     */
+    private void cutoff(PieceType currentPieceType, int depth, int square) {
+        if (!this.moveOrdering)
+            return;
+
+        int[] killers = this.killers[depth];
+        if (killers[0] != square) {
+            killers[1] = killers[0];
+            killers[0] = square;
+        }
+
+        int[] history = this.history[currentPieceType.ordinal()];
+        history[square] += depth * depth;
+        if (history[square] > MAX_HISTORY) this.ageHistory();
+    }
+
+    /**
+     * @brief Private method that halves the history of every player and square.
+     * @pre <em>True</em>
+     * @post Every value of the implicit history is halved, so recent prunes weigh more than old ones.
+     */
+    private void ageHistory() {
+        for (int[] history : this.history)
+            for (int square = 0; square < history.length; ++square)
+                history[square] >>= 1;
+    }
+
+    /**
+     * @brief Private method that prepares the move ordering for a new place call.
+     * @pre <em>True</em>
+     * @post The implicit killers are cleared, with one row for each depth up to the implicit maximum depth, and the
+     * implicit history is halved.
+     */
+    private void prepareMoveOrdering() {
+        this.killers = new int[this.maxDepth + 1][2];
+        for (int[] killers : this.killers) {
+            killers[0] = TranspositionTable.NO_SQUARE;
+            killers[1] = TranspositionTable.NO_SQUARE;
+        }
+        this.ageHistory();
+    }
+
+    /**
+     * @brief Store the evaluation of a searched position in the transposition table.
+     * @pre <em>True</em>
+     * @post The evaluation is stored as exact if it is inside the window it was searched with, as an upper bound if it
+     * isn't greater than alpha and as a lower bound if it isn't less than beta.
+     * @param key Key of the position.
+     * @param value Evaluation found for the position.
+     * @param depth Depth the position was searched with.
+     * @param alpha Alpha the position was searched with.
+     * @param beta Beta the position was searched with.
+     * @param bestSquare Best position found as a square index.
+     */
+    private void store(long key, int value, int depth, int alpha, int beta, int bestSquare) {
+        BoundType boundType = BoundType.EXACT;
+        if (value <= alpha) boundType = BoundType.UPPER_BOUND;
+        else if (value >= beta) boundType = BoundType.LOWER_BOUND;
+
+        this.transpositionTable.store(key, value, depth, boundType, bestSquare);
+    }
+
+    /**
+     * @brief Get the best position for the implicit player searching the tree of possibilities up to the given depth.
+     * @pre The given validPositions are the valid positions of the implicit player in the given Board.
+     * @post It is returned the best position for the implicit player using the Minimax algorithm with alpha-beta pruning with the given depth,
+     * or null if there isn't any. If the time limit is reached the search stops and the best position found until then is returned.
+     * @param initialBoard Current playing Board.
+     * @param validPositions Valid positions of the implicit player in the given Board.
+     * @param depth Depth of the search.
+     * @return The best position for the implicit player or null if there isn't any.
+     */
+    private Pair<Integer, Integer> search(Board initialBoard, MoveList validPositions, int depth) {
+        if (this.threads > 1 && validPositions.size() > 1)
+            return this.parallelSearch(initialBoard, validPositions, depth);
+
+        Pair<Integer, Integer> bestPosition = null;
+
+        int max = Integer.MIN_VALUE, currentMax = 0, score = this.evaluator.score(initialBoard);
+
+        for (int i = 0; i < validPositions.size(); ++i) {
+            int row = validPositions.getRow(i), column = validPositions.getColumn(i);
+
+            // Play the move on the same Board and undo it after exploring it
+            long flipped = initialBoard.makeMove(row, column, this.pieceType,
+                    this.canEatHorizontally, this.canEatVertically, this.canEatDiagonally);
+
+            currentMax = this.minimax(initialBoard, MediumDifficulty.inversePieceType(this.pieceType), depth - 1,
+                    Integer.MIN_VALUE, Integer.MAX_VALUE,
+                    score + this.evaluator.scoreDelta(validPositions.getSquare(i), flipped, this.pieceType));
+            initialBoard.unmakeMove(row, column, this.pieceType, flipped);
+
+            if (this.timeUp && bestPosition != null)
+                break;
+
+            if (currentMax > max) {
+                max = currentMax;
+                bestPosition = new Pair<Integer, Integer>(row, column);
+            }
+        }
+
+        return bestPosition;
+    }
+
+    /**
+     * @brief Get the best position for the implicit player searching the positions of the root with several threads.
+     * Each position of the root is searched with the whole window, as search does, so its evaluation doesn't depend on the
+     * order the positions are searched in. The threads share the transposition table.
+     * @pre The given validPositions are the valid positions of the implicit player in the given Board.
+     * @post It is returned the first position, in the order of validPositions, with the best evaluation, which is the same
+     * position search returns with one thread. If the time limit is reached only the positions already searched are compared.
+     * @param initialBoard Current playing Board.
+     * @param validPositions Valid positions of the implicit player in the given Board.
+     * @param depth Depth of the search.
+     * @return The best position for the implicit player.
+     */
+    private Pair<Integer, Integer> parallelSearch(Board initialBoard, MoveList validPositions, int depth) {
+        int size = validPositions.size();
+        int[] values = new int[size];
+        boolean[] searched = new boolean[size];
+        AtomicInteger next = new AtomicInteger(0);
+        AtomicLong nodes = new AtomicLong(0);
+        int score = this.evaluator.score(initialBoard);
+
+        List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>();
+        for (int t = 0; t < Integer.min(this.threads, size); ++t) {
+            tasks.add(() -> {
+                // Each thread has its own Board and lists of valid positions
+                MediumDifficulty worker = this.worker();
+                Board board = new Board(initialBoard);
+
+                for (int i = next.getAndIncrement(); i < size && !worker.timeUp; i = next.getAndIncrement()) {
+                    int row = validPositions.getRow(i), column = validPositions.getColumn(i);
+
+                    long flipped = board.makeMove(row, column, this.pieceType,
+                            this.canEatHorizontally, this.canEatVertically, this.canEatDiagonally);
+                    int value = worker.minimax(board, MediumDifficulty.inversePieceType(this.pieceType), depth - 1,
+                            Integer.MIN_VALUE, Integer.MAX_VALUE,
+                            score + this.evaluator.scoreDelta(validPositions.getSquare(i), flipped, this.pieceType));
+                    board.unmakeMove(row, column, this.pieceType, flipped);
+
+                    if (!worker.timeUp) {
+                        values[i] = value;
+                        searched[i] = true;
+                    }
+                }
+
+                nodes.addAndGet(worker.nodes);
+                return worker.timeUp;
+            });
+        }
+
+        for (boolean timeUp : MediumDifficulty.runAll(tasks))
+            if (timeUp) this.timeUp = true;
+        this.nodes += nodes.get();
+
+        // Same choice as search: the first position with the best evaluation
+        int best = -1;
+        for (int i = 0; i < size; ++i)
+            if (searched[i] && (best < 0 || values[i] > values[best]))
+                best = i;
+
+        if (best < 0) best = 0;
+        return new Pair<Integer, Integer>(validPositions.getRow(best), validPositions.getColumn(best));
+    }
+
+    /**
+     * @brief Private method that creates a MediumDifficulty to search part of the tree of possibilities in another thread.
+     * @pre startClock has been called in the current place call.
+     * @post It is returned a MediumDifficulty with the same rules, player, maximum depth, transposition table, move ordering,
+     * Evaluator and deadline as the implicit one. Its killer moves and history start empty.
+     * @return The new MediumDifficulty.
+     */
+    private MediumDifficulty worker() {
+        MediumDifficulty worker = new MediumDifficulty(this.difficulty, this.canEatHorizontally, this.canEatVertically,
+                this.canEatDiagonally, this.pieceType);
+        worker.setMaxDepth(this.maxDepth);
+        worker.setTranspositionTable(this.transpositionTable);
+        worker.setMoveOrdering(this.moveOrdering);
+        worker.setEvaluator(this.evaluator);
+        worker.prepareMoveOrdering();
+        worker.syncClock(this);
+        return worker;
+    }
+
     /**
      * @brief Get the next best possible position for the implicit player.
      * @pre <em>True</em>
-     * @post It is returned the next best possible position for the implicit player, using the Minimax algorithm with alpha-beta
-     * pruning with the implicit maximum depth, or null if there isn't any.
+     * @post It is returned the next best possible position for the implicit player, using the Minimax algorithm with alpha-beta pruning with
+     * the implicit maximum depth, or null if there isn't any. The implicit transposition table keeps the searched positions.
+     * If there is a time limit, the search is repeated with depths from 1 to the implicit maximum depth (iterative deepening)
+     * until the time limit is reached, and the position found by the last completed search is returned.
+     * The number of positions searched can be got with getNodes.
+     * Near the end of the game (see setEndgameEmpties) the position is found with the EndgameSolver instead.
      * @param playingBoard Current playing Board.
      * @return The next best possible position for the implicit player or null if there isn't any.
      */
@@ -205,23 +504,31 @@ public class MediumDifficulty extends Difficulty {
 
         Board initialBoard = new Board(playingBoard);
 
-        ArrayList<Pair<Integer, Integer>> validPositions = initialBoard.validPositions(this.pieceType,
-                this.canEatHorizontally, this.canEatVertically, this.canEatDiagonally);
+        this.nodes = 0;
+        if (this.isEndgame(initialBoard))
+            return new EndgameSolver(this.canEatHorizontally, this.canEatVertically, this.canEatDiagonally)
+                    .bestPosition(initialBoard, this.pieceType);
 
-        int max = Integer.MIN_VALUE, currentMax = 0;
+        if (this.transpositionTable == null)
+            this.transpositionTable = new TranspositionTable();
+        this.transpositionTable.newSearch();
+        this.prepareMoveOrdering();
 
-        for (Pair<Integer, Integer> position : validPositions) {
-            // Make a duplicate in order not to work with the same Board pointer!
-            Board board = new Board(initialBoard.getBoard());
-            board.placePiece(position, this.pieceType, this.canEatHorizontally, this.canEatVertically,
-                    this.canEatDiagonally);
+        MoveList validPositions = this.validMoveList(initialBoard, this.pieceType, this.maxDepth);
 
-            currentMax = this.minimax(board, MediumDifficulty.inversePieceType(this.pieceType), this.maxDepth - 1,
-                    Integer.MIN_VALUE, Integer.MAX_VALUE);
-            if (currentMax > max) {
-                max = currentMax;
-                bestPosition = position;
-            }
+        this.startClock();
+
+        // Without a time limit the maximum depth is searched directly
+        for (int depth = (this.timeLimit > 0 ? 1 : this.maxDepth); depth <= this.maxDepth; ++depth) {
+            Pair<Integer, Integer> position = this.search(initialBoard, validPositions, depth);
+
+            // An unfinished search is only used if no search was completed
+            if (this.timeUp && bestPosition != null)
+                break;
+
+            bestPosition = position;
+            if (this.timeUp)
+                break;
         }
 
         return bestPosition;
@@ -0,0 +1,217 @@
+/**
+ * @file MoveList.java
+ * @author Manuel Navid
+ * @brief MoveList class specification.
+ */
+package domain;
+
+import java.util.ArrayList;
+
+import util.Pair;
+
+/**
+ * @class MoveList
+ * @brief Implements a list of positions of a Board stored as square indexes (row * 8 + column) and as a 64-bit mask.
+ * It can be filled again with other positions, so the search algorithms can reuse the same instance at every step.
+ * By Manuel Navid
+ */
+public class MoveList {
+    /* ATTRIBUTES */
+
+    /**
+    * @brief Positions of the list as a 64-bit mask, where the bit row * 8 + column is set if (row, column) is in the list.
+    */
+    private long mask;
+    /**
+    * @brief Positions of the list as square indexes, in row by row order.
+    */
+    private int[] squares;
+    /**
+    * @brief Number of positions in the list.
+    */
+    private int size;
+
+    /* CONSTRUCTORS */
+
+    /**
+     * @brief Create an empty MoveList instance.
+     * @pre <em>True</em>
+     * @post An empty MoveList instance is created.
+     */
+    public MoveList() {
+        this.squares = new int[64];
+        this.mask = 0L;
+        this.size = 0;
+    }
+
+    /**
+     * @brief Create a MoveList instance from a 64-bit mask of positions.
+     * @pre <em>True</em>
+     * @post A MoveList instance containing the positions set in the given mask is created.
+     * @param mask Positions as a 64-bit mask.
+     */
+    public MoveList(long mask) {
+        this();
+        this.set(mask);
+    }
+
+    /* METHODS */
+
+    /**
+     * @brief Fill the implicit MoveList with the positions of a 64-bit mask.
+     * @pre <em>True</em>
+     * @post The implicit MoveList only contains the positions set in the given mask, in row by row order.
+     * @param mask Positions as a 64-bit mask.
+     * @return The implicit MoveList.
+     */
+    public MoveList set(long mask) {
+        this.mask = mask;
+        this.size = 0;
+
+        while (mask != 0) {
+            this.squares[this.size++] = Long.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+        }
+
+        return this;
+    }
+
+    /**
+     * @brief Get the positions of the implicit MoveList as a 64-bit mask.
+     * @pre <em>True</em>
+     * @post The positions of the implicit MoveList are returned as a 64-bit mask.
+     * @return Positions of the implicit MoveList as a 64-bit mask.
+     */
+    public long getMask() {
+        return this.mask;
+    }
+
+    /**
+     * @brief Get the number of positions of the implicit MoveList.
+     * @pre <em>True</em>
+     * @post The number of positions of the implicit MoveList is returned.
+     * @return Number of positions of the implicit MoveList.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @brief Check whether the implicit MoveList has no positions.
+     * @pre <em>True</em>
+     * @post It is returned true if the implicit MoveList has no positions or false if not.
+     * @return Whether the implicit MoveList is empty.
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * @brief Get a position of the implicit MoveList as a square index.
+     * @pre <em>index</em> is between 0 and size() - 1.
+     * @post The square index (row * 8 + column) of the position in <em>index</em> is returned.
+     * @param index Index of the position in the implicit MoveList.
+     * @return Square index of the position.
+     */
+    public int getSquare(int index) {
+        return this.squares[index];
+    }
+
+    /**
+     * @brief Get the row of a position of the implicit MoveList.
+     * @pre <em>index</em> is between 0 and size() - 1.
+     * @post The row of the position in <em>index</em> is returned.
+     * @param index Index of the position in the implicit MoveList.
+     * @return Row of the position.
+     */
+    public int getRow(int index) {
+        return this.squares[index] >>> 3;
+    }
+
+    /**
+     * @brief Get the column of a position of the implicit MoveList.
+     * @pre <em>index</em> is between 0 and size() - 1.
+     * @post The column of the position in <em>index</em> is returned.
+     * @param index Index of the position in the implicit MoveList.
+     * @return Column of the position.
+     */
+    public int getColumn(int index) {
+        return this.squares[index] & 7;
+    }
+
+    /**
+     * @brief Sort the positions of the implicit MoveList by a score.
+     * @pre The given scores has at least size() elements. scores[i] is the score of the position in index i.
+     * @post The positions of the implicit MoveList, and their scores in the given array, are sorted from the highest score
+     * to the lowest one. Positions with the same score keep their order.
+     * @param scores Score of each position of the implicit MoveList.
+     */
+    public void sort(int[] scores) {
+        for (int i = 1; i < this.size; ++i) {
+            int square = this.squares[i], score = scores[i], j = i;
+
+            for (; j > 0 && scores[j - 1] < score; --j) {
+                this.squares[j] = this.squares[j - 1];
+                scores[j] = scores[j - 1];
+            }
+
+            this.squares[j] = square;
+            scores[j] = score;
+        }
+    }
+
+    /**
+     * @brief Check whether a position is in the implicit MoveList.
+     * @pre <em>True</em>
+     * @post It is returned true if the given position is in the implicit MoveList or false if not (or if it is null or out of the board).
+     * @param position Position to be searched.
+     * @return Whether the position is in the implicit MoveList.
+     */
+    public boolean contains(Pair<Integer, Integer> position) {
+        if (position == null || position.first == null || position.second == null)
+            return false;
+
+        return this.contains(position.first, position.second);
+    }
+
+    /**
+     * @brief Check whether a position is in the implicit MoveList.
+     * @pre <em>True</em>
+     * @post It is returned true if the position (row, column) is in the implicit MoveList or false if not (or if it is out of the board).
+     * @param row Row of the position.
+     * @param column Column of the position.
+     * @return Whether the position is in the implicit MoveList.
+     */
+    public boolean contains(int row, int column) {
+        if (row < 0 || row > 7 || column < 0 || column > 7)
+            return false;
+
+        return (this.mask & (1L << ((row << 3) | column))) != 0;
+    }
+
+    /**
+     * @brief Get a position of the implicit MoveList as a Pair.
+     * @pre <em>index</em> is between 0 and size() - 1.
+     * @post The position in <em>index</em> is returned as a Pair of row and column.
+     * @param index Index of the position in the implicit MoveList.
+     * @return Position as a Pair of row and column.
+     */
+    public Pair<Integer, Integer> getPosition(int index) {
+        return new Pair<Integer, Integer>(this.getRow(index), this.getColumn(index));
+    }
+
+    /**
+     * @brief Get the positions of the implicit MoveList as an ArrayList of Pairs, for the code that works with Pairs.
+     * @pre <em>True</em>
+     * @post An ArrayList with the positions of the implicit MoveList as Pairs of row and column, in the current order of the list (row by row unless sorted), is returned.
+     * @return ArrayList of the positions of the implicit MoveList.
+     */
+    public ArrayList<Pair<Integer, Integer>> toPairs() {
+        ArrayList<Pair<Integer, Integer>> positions = new ArrayList<Pair<Integer, Integer>>(this.size);
+
+        for (int i = 0; i < this.size; ++i)
+            positions.add(this.getPosition(i));
+
+        return positions;
+    }
+}
@@ -0,0 +1,171 @@
+/**
+ * @file OpeningBook.java
+ * @author Alex Rodriguez
+ * @brief OpeningBook class specification.
+ */
+package domain;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import domain.Board.PieceType;
+import util.Pair;
+
+/**
+ * @class OpeningBook
+ * @brief Implements a read-only table with the best move of the most played opening positions, so they don't have to be searched.
+ * The positions are identified by their canonical key: the canonical hash of the Board, which is the same for all its
+ * rotations and reflections that keep the rules, combined with the player to move. So the orientations of a position share
+ * one entry, whose move is stored in the canonical form of the Board and is transformed back when it is looked up.
+ * The binary format is a 12 bytes header (magic number, version, rules and number of entries) followed by the entries sorted
+ * by key. Each entry has 12 bytes: the key, the square of the move and the number of games where it was played. The entries
+ * are looked up with a binary search directly in the buffer, which can be a memory-mapped file.
+ * By Alex Rodriguez
+ */
+public class OpeningBook {
+    /* ATTRIBUTES */
+
+    /**
+    * @brief Magic number at the start of the binary format ("OBOK").
+    */
+    private static final int MAGIC = 0x4F424F4B;
+    /**
+    * @brief Version of the binary format.
+    */
+    private static final short VERSION = 1;
+    /**
+    * @brief Number of bytes of the header and of each entry of the binary format.
+    */
+    static final int HEADER_BYTES = 12, ENTRY_BYTES = 12;
+    /**
+    * @brief Key combined with the canonical hash when PLAYER2 is to move.
+    */
+    private static final long PLAYER2_KEY = 0x9E3779B97F4A7C15L;
+    /**
+    * @brief Buffer with the binary format of the book.
+    */
+    private ByteBuffer buffer;
+    /**
+    * @brief Rules of the games of the book, as returned by rules.
+    */
+    private int rules;
+    /**
+    * @brief Number of entries of the book.
+    */
+    private int entries;
+
+    /* CONSTRUCTORS */
+
+    /**
+     * @brief Create an OpeningBook instance.
+     * @pre <em>True</em>
+     * @post An OpeningBook that reads its entries from the given buffer is created. The buffer isn't copied, so it must not
+     * be modified while the OpeningBook is used.
+     * @param buffer Buffer with the binary format of the book, as returned by OpeningBookBuilder.build.
+     * @throws IllegalArgumentException If the buffer doesn't contain a valid book.
+     */
+    public OpeningBook(ByteBuffer buffer) {
+        this.buffer = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+
+        if (this.buffer.capacity() < HEADER_BYTES || this.buffer.getInt(0) != MAGIC || this.buffer.getShort(4) != VERSION)
+            throw new IllegalArgumentException("ERR_INVALID_BOOK");
+
+        this.rules = this.buffer.getShort(6);
+        this.entries = this.buffer.getInt(8);
+        if (this.entries < 0 || this.buffer.capacity() != HEADER_BYTES + (long) this.entries * ENTRY_BYTES)
+            throw new IllegalArgumentException("ERR_INVALID_BOOK");
+    }
+
+    /* METHODS */
+
+    /**
+     * @brief Get the number of positions of the book.
+     * @pre <em>True</em>
+     * @post The number of entries of the book is returned.
+     * @return Number of positions of the book.
+     */
+    public int size() {
+        return this.entries;
+    }
+
+    /**
+     * @brief Get the move of the book for a Board state.
+     * @pre <em>True</em>
+     * @post If the book was built with the given rules and has the position of the given Board with the given player to move,
+     * its move is returned transformed to the orientation of the given Board. Otherwise, or if the move isn't valid, null is returned.
+     * @param board Board of the position.
+     * @param pieceType Player to move.
+     * @param canEatHorizontally Whether the pieces can be eaten horizontally.
+     * @param canEatVertically Whether the pieces can be eaten vertically.
+     * @param canEatDiagonally Whether the pieces can be eaten diagonally.
+     * @return The position (row, column) of the move of the book or null.
+     */
+    public Pair<Integer, Integer> getMove(Board board, PieceType pieceType, boolean canEatHorizontally,
+            boolean canEatVertically, boolean canEatDiagonally) {
+        if (this.entries == 0 || this.rules != OpeningBook.rules(canEatHorizontally, canEatVertically, canEatDiagonally))
+            return null;
+
+        int symmetry = board.canonicalSymmetry(canEatHorizontally, canEatVertically, canEatDiagonally);
+        long key = OpeningBook.key(board, pieceType, canEatHorizontally, canEatVertically, canEatDiagonally);
+
+        int low = 0, high = this.entries - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleKey = this.buffer.getLong(HEADER_BYTES + middle * ENTRY_BYTES);
+
+            if (middleKey < key) low = middle + 1;
+            else if (middleKey > key) high = middle - 1;
+            else {
+                int square = Board.transformSquare(this.buffer.getShort(HEADER_BYTES + middle * ENTRY_BYTES + 8),
+                        Board.inverseSymmetry(symmetry));
+                long valid = board.validMoves(pieceType, canEatHorizontally, canEatVertically, canEatDiagonally);
+                return ((valid & (1L << square)) != 0 ? new Pair<Integer, Integer>(square >>> 3, square & 7) : null);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @brief Method that returns the rules of a book as a number.
+     * @pre <em>True</em>
+     * @post A number with a bit set for each allowed direction (1 horizontal, 2 vertical, 4 diagonal) is returned.
+     * @param canEatHorizontally Whether the pieces can be eaten horizontally.
+     * @param canEatVertically Whether the pieces can be eaten vertically.
+     * @param canEatDiagonally Whether the pieces can be eaten diagonally.
+     * @return Rules as a number.
+     */
+    static int rules(boolean canEatHorizontally, boolean canEatVertically, boolean canEatDiagonally) {
+        return (canEatHorizontally ? 1 : 0) | (canEatVertically ? 2 : 0) | (canEatDiagonally ? 4 : 0);
+    }
+
+    /**
+     * @brief Method that writes the header of the binary format.
+     * @pre The given buffer has at least HEADER_BYTES remaining bytes.
+     * @post The header with the given rules and number of entries is written at the position of the buffer.
+     * @param buffer Buffer where the header is written.
+     * @param rules Rules of the games of the book, as returned by rules.
+     * @param entries Number of entries of the book.
+     */
+    static void writeHeader(ByteBuffer buffer, int rules, int entries) {
+        buffer.putInt(MAGIC).putShort(VERSION).putShort((short) rules).putInt(entries);
+    }
+
+    /**
+     * @brief Method that returns the canonical key of a position.
+     * @pre <em>True</em>
+     * @post The canonical hash of the given Board with the given rules is returned, combined with a fixed key if PLAYER2
+     * is to move. Two positions have the same key if one is a rotation or a reflection of the other that keeps the rules.
+     * @param board Board of the position.
+     * @param pieceType Player to move.
+     * @param canEatHorizontally Whether the pieces can be eaten horizontally.
+     * @param canEatVertically Whether the pieces can be eaten vertically.
+     * @param canEatDiagonally Whether the pieces can be eaten diagonally.
+     * @return Canonical key of the position.
+     */
+    static long key(Board board, PieceType pieceType, boolean canEatHorizontally, boolean canEatVertically,
+            boolean canEatDiagonally) {
+        long hash = board.getCanonicalHash(canEatHorizontally, canEatVertically, canEatDiagonally);
+        return (pieceType == PieceType.PLAYER2 ? hash ^ PLAYER2_KEY : hash);
+    }
+}
@@ -0,0 +1,263 @@
+/**
+ * @file OpeningBookBuilder.java
+ * @author Alex Rodriguez
+ * @brief OpeningBookBuilder class specification.
+ */
+package domain;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import domain.Board.PieceType;
+import util.Pair;
+
+/**
+ * @class OpeningBookBuilder
+ * @brief Implements the creation of an OpeningBook from game records.
+ * For every position of the first moves of the recorded games, it counts how many times each move was played and adds the
+ * final difference of pieces of those games for the player that moved. The move of each position in the book is the one
+ * with the best mean result among the moves played enough times. The positions and the moves are stored in the canonical
+ * form of their Board, so the games of every orientation of an opening count together.
+ * The game records can be added one by one or played by the builder itself (self-play).
+ * By Alex Rodriguez
+ */
+public class OpeningBookBuilder {
+    /* ATTRIBUTES */
+
+    /**
+    * @brief Number of moves of each game that are recorded.
+    */
+    private int plies;
+    /**
+    * @brief Whether the pieces can be eaten horizontally.
+    */
+    private boolean canEatHorizontally;
+    /**
+    * @brief Whether the pieces can be eaten vertically.
+    */
+    private boolean canEatVertically;
+    /**
+    * @brief Whether the pieces can be eaten diagonally.
+    */
+    private boolean canEatDiagonally;
+    /**
+    * @brief Statistics of the moves of each recorded position, indexed by canonical key and canonical square.
+    * Each statistic is the number of games where the move was played and the sum of their results for the player that moved.
+    */
+    private HashMap<Long, HashMap<Integer, long[]>> positions;
+    /**
+    * @brief Number of recorded games.
+    */
+    private int games;
+    /**
+    * @brief Transposition table shared by the searches of all the self-play games, or null if no game has been played.
+    */
+    private TranspositionTable transpositionTable;
+
+    /* CONSTRUCTORS */
+
+    /**
+     * @brief Create an OpeningBookBuilder instance.
+     * @pre The given plies is a positive number. The given rules are not all false.
+     * @post An OpeningBookBuilder without any recorded game is created.
+     * @param plies Number of moves of each game that are recorded.
+     * @param canEatHorizontally Whether the pieces of the recorded games can be eaten horizontally.
+     * @param canEatVertically Whether the pieces of the recorded games can be eaten vertically.
+     * @param canEatDiagonally Whether the pieces of the recorded games can be eaten diagonally.
+     */
+    public OpeningBookBuilder(int plies, boolean canEatHorizontally, boolean canEatVertically, boolean canEatDiagonally) {
+        this.plies = plies;
+        this.canEatHorizontally = canEatHorizontally;
+        this.canEatVertically = canEatVertically;
+        this.canEatDiagonally = canEatDiagonally;
+        this.positions = new HashMap<Long, HashMap<Integer, long[]>>();
+        this.games = 0;
+        this.transpositionTable = null;
+    }
+
+    /* METHODS */
+
+    /**
+     * @brief Get the number of recorded games.
+     * @pre <em>True</em>
+     * @post The number of added games is returned.
+     * @return Number of recorded games.
+     */
+    public int getGames() {
+        return this.games;
+    }
+
+    /**
+     * @brief Get the number of recorded positions.
+     * @pre <em>True</em>
+     * @post The number of distinct canonical positions recorded from the added games is returned.
+     * @return Number of recorded positions.
+     */
+    public int getPositions() {
+        return this.positions.size();
+    }
+
+    /**
+     * @brief Record a game.
+     * @pre The given squares are valid moves from the initial Board, played in order. A player that can't place any piece
+     * passes, so each move is played by the player to move unless it can't place any piece.
+     * @post The first plies moves of the game are recorded with the final difference of pieces of the game. If the game
+     * isn't finished, the difference of pieces after its last move is used.
+     * @param squares Moves of the game as square indexes (row * 8 + column).
+     */
+    public void addGame(int[] squares) {
+        Board board = new Board();
+        PieceType pieceType = PieceType.PLAYER1;
+        int moves = Math.min(this.plies, squares.length);
+        long[] keys = new long[moves];
+        int[] canonicalSquares = new int[moves];
+        PieceType[] movers = new PieceType[moves];
+
+        for (int i = 0; i < squares.length; ++i) {
+            if (board.validMoves(pieceType, this.canEatHorizontally, this.canEatVertically, this.canEatDiagonally) == 0)
+                pieceType = Difficulty.inversePieceType(pieceType);
+
+            if (i < moves) {
+                keys[i] = OpeningBook.key(board, pieceType, this.canEatHorizontally, this.canEatVertically,
+                        this.canEatDiagonally);
+                canonicalSquares[i] = board.toCanonicalSquare(squares[i], this.canEatHorizontally, this.canEatVertically,
+                        this.canEatDiagonally);
+                movers[i] = pieceType;
+            }
+
+            board.makeMove(squares[i] >>> 3, squares[i] & 7, pieceType, this.canEatHorizontally, this.canEatVertically,
+                    this.canEatDiagonally);
+            pieceType = Difficulty.inversePieceType(pieceType);
+        }
+
+        int result = board.getPiecesPlayer1() - board.getPiecesPlayer2();
+        for (int i = 0; i < moves; ++i) {
+            long[] statistic = this.positions.computeIfAbsent(keys[i], key -> new HashMap<Integer, long[]>())
+                    .computeIfAbsent(canonicalSquares[i], square -> new long[2]);
+            ++statistic[0];
+            statistic[1] += (movers[i] == PieceType.PLAYER1 ? result : -result);
+        }
+        ++this.games;
+    }
+
+    /**
+     * @brief Play a game against itself.
+     * @pre The given depth is a positive number. The given epsilon is between 0 and 1.
+     * @post It is returned a game played from the initial Board where each of the first plies moves is random with probability
+     * epsilon and otherwise chosen by a MediumDifficulty of the given depth that uses the given Evaluator, and the rest
+     * are chosen by a MediumDifficulty of depth 2 with the EndgameSolver for the last 12 empty cells. The game isn't recorded.
+     * All the searches share the transposition table of the implicit OpeningBookBuilder, which is created by the first game.
+     * @param random Source of the random moves.
+     * @param evaluator Evaluator of the searches, or null to use the classic one.
+     * @param depth Depth of the searches of the first plies moves.
+     * @param epsilon Probability of a random move in the first plies moves.
+     * @return Moves of the game as square indexes (row * 8 + column).
+     */
+    public int[] selfPlay(Random random, Evaluator evaluator, int depth, double epsilon) {
+        if (this.transpositionTable == null)
+            this.transpositionTable = new TranspositionTable();
+        this.transpositionTable.newSearch();
+
+        MediumDifficulty[] openings = new MediumDifficulty[PieceType.values().length];
+        MediumDifficulty[] players = new MediumDifficulty[PieceType.values().length];
+        for (PieceType pieceType : PieceType.values()) {
+            openings[pieceType.ordinal()] = new MediumDifficulty(1, this.canEatHorizontally, this.canEatVertically,
+                    this.canEatDiagonally, pieceType);
+            openings[pieceType.ordinal()].setMaxDepth(depth);
+            players[pieceType.ordinal()] = new MediumDifficulty(1, this.canEatHorizontally, this.canEatVertically,
+                    this.canEatDiagonally, pieceType);
+            players[pieceType.ordinal()].setEndgameEmpties(12);
+            openings[pieceType.ordinal()].setTranspositionTable(this.transpositionTable);
+            players[pieceType.ordinal()].setTranspositionTable(this.transpositionTable);
+            if (evaluator != null) {
+                openings[pieceType.ordinal()].setEvaluator(evaluator);
+                players[pieceType.ordinal()].setEvaluator(evaluator);
+            }
+        }
+
+        Board board = new Board();
+        PieceType pieceType = PieceType.PLAYER1;
+        int[] squares = new int[60];
+        int moves = 0, passes = 0;
+
+        while (passes < 2) {
+            long valid = board.validMoves(pieceType, this.canEatHorizontally, this.canEatVertically, this.canEatDiagonally);
+
+            if (valid == 0) ++passes;
+            else {
+                passes = 0;
+                int square;
+
+                if (moves < this.plies && random.nextDouble() < epsilon) {
+                    MoveList validPositions = new MoveList(valid);
+                    square = validPositions.getSquare(random.nextInt(validPositions.size()));
+                }
+                else {
+                    MediumDifficulty player = (moves < this.plies ? openings : players)[pieceType.ordinal()];
+                    Pair<Integer, Integer> position = player.place(board.getBoard());
+                    square = position.first * 8 + position.second;
+                }
+
+                board.makeMove(square >>> 3, square & 7, pieceType, this.canEatHorizontally, this.canEatVertically,
+                        this.canEatDiagonally);
+                squares[moves++] = square;
+            }
+
+            pieceType = Difficulty.inversePieceType(pieceType);
+        }
+
+        return Arrays.copyOf(squares, moves);
+    }
+
+    /**
+     * @brief Build the binary format of the OpeningBook.
+     * @pre The given minGames is a positive number.
+     * @post It is returned the binary format of an OpeningBook with an entry for each recorded position that has a move
+     * played at least minGames times. Its move is the one with the best mean result among those, and the most played
+     * one if there is a tie.
+     * @param minGames Minimum number of games where a move has to be played to be in the book.
+     * @return Binary format of the OpeningBook, to be read with the OpeningBook constructor.
+     */
+    public byte[] build(int minGames) {
+        long[] keys = new long[this.positions.size()];
+        HashMap<Long, long[]> moves = new HashMap<Long, long[]>();
+
+        int entries = 0;
+        for (Map.Entry<Long, HashMap<Integer, long[]>> position : this.positions.entrySet()) {
+            int bestSquare = -1;
+            long[] best = null;
+
+            for (Map.Entry<Integer, long[]> move : position.getValue().entrySet()) {
+                long[] statistic = move.getValue();
+                if (statistic[0] < minGames) continue;
+
+                // Compare the mean results without dividing: a / b > c / d if a * d > c * b
+                if (best == null || statistic[1] * best[0] > best[1] * statistic[0]
+                        || (statistic[1] * best[0] == best[1] * statistic[0] && statistic[0] > best[0])) {
+                    bestSquare = move.getKey();
+                    best = statistic;
+                }
+            }
+
+            if (best != null) {
+                keys[entries++] = position.getKey();
+                moves.put(position.getKey(), new long[] {bestSquare, best[0]});
+            }
+        }
+
+        Arrays.sort(keys, 0, entries);
+
+        ByteBuffer buffer = ByteBuffer.allocate(OpeningBook.HEADER_BYTES + entries * OpeningBook.ENTRY_BYTES);
+        OpeningBook.writeHeader(buffer, OpeningBook.rules(this.canEatHorizontally, this.canEatVertically, this.canEatDiagonally),
+                entries);
+        for (int i = 0; i < entries; ++i) {
+            long[] move = moves.get(keys[i]);
+            buffer.putLong(keys[i]).putShort((short) move[0]).putShort((short) Math.min(move[1], Short.MAX_VALUE));
+        }
+
+        return buffer.array();
+    }
+}
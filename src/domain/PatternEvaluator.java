@@ -0,0 +1,327 @@
+/**
+ * @file PatternEvaluator.java
+ * @author Alex Rodriguez
+ * @brief PatternEvaluator class specification.
+ */
+package domain;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import domain.Board.PieceType;
+
+/**
+ * @class PatternEvaluator
+ * @brief Implements an Evaluator that reads groups of cells (patterns) of the Board: the edges, the second rows, the 3x3
+ * corners and the main diagonals. Each group is read as a base-3 number (0 empty, 1 PLAYER1, 2 PLAYER2) that indexes
+ * a table of weights, and the evaluation is the sum of the weights of all the groups.
+ * The four rotations of a pattern share the same table. There is a set of tables for each game phase, given by the number
+ * of pieces on the Board, because the same cells are worth different amounts in the opening and in the endgame.
+ * The weights are trained by PatternTrainer and stored in a binary file (see toBytes).
+ * The patterns aren't linear in the cells, so the score isn't updated incrementally: it is always 0 and evaluate reads
+ * the whole Board.
+ * By Alex Rodriguez
+ */
+public class PatternEvaluator implements Evaluator {
+    /* ATTRIBUTES */
+
+    /**
+    * @brief Number of game phases, each one with its own weights.
+    */
+    public static final int PHASES = 4;
+    /**
+    * @brief Number of evaluation units of a piece of difference. The weights are stored in these units.
+    */
+    public static final int SCALE = 32;
+    /**
+    * @brief Cells of each kind of pattern in the orientation of the top left corner, as square indexes (row * 8 + column).
+    */
+    private static final int[][] PATTERN_TYPES = {
+        // Edge
+        {0, 1, 2, 3, 4, 5, 6, 7},
+        // Second row
+        {8, 9, 10, 11, 12, 13, 14, 15},
+        // 3x3 corner
+        {0, 1, 2, 8, 9, 10, 16, 17, 18},
+        // Main diagonal
+        {0, 9, 18, 27, 36, 45, 54, 63}
+    };
+    /**
+    * @brief Cells of each pattern of the Board, as square indexes, obtained rotating the patterns of PATTERN_TYPES.
+    */
+    private static final int[][] PATTERNS;
+    /**
+    * @brief Kind of each pattern of the Board, as an index of PATTERN_TYPES.
+    */
+    private static final int[] PATTERN_TYPE;
+    /**
+    * @brief Identifier of the binary format of the weights ("OPAT").
+    */
+    private static final int MAGIC = 0x4F504154;
+    /**
+    * @brief Version of the binary format of the weights.
+    */
+    private static final int VERSION = 1;
+    /**
+    * @brief Weights of each phase and kind of pattern, indexed by the base-3 number of the cells.
+    */
+    private short[][][] weights;
+
+    static {
+        // The main diagonal is its own rotation by 180 degrees, so it only has two different rotations
+        int[] rotations = {4, 4, 4, 2};
+        PATTERNS = new int[Arrays.stream(rotations).sum()][];
+        PATTERN_TYPE = new int[PATTERNS.length];
+
+        for (int type = 0, p = 0; type < PATTERN_TYPES.length; ++type) {
+            int[] cells = PATTERN_TYPES[type];
+
+            for (int rotation = 0; rotation < rotations[type]; ++rotation, ++p) {
+                PATTERNS[p] = new int[cells.length];
+                for (int i = 0; i < cells.length; ++i) {
+                    int square = cells[i];
+                    for (int r = 0; r < rotation; ++r)
+                        square = PatternEvaluator.rotate(square);
+                    PATTERNS[p][i] = square;
+                }
+                PATTERN_TYPE[p] = type;
+            }
+        }
+    }
+
+    /* CONSTRUCTORS */
+
+    /**
+     * @brief Create a PatternEvaluator instance with all the weights set to 0.
+     * @pre <em>True</em>
+     * @post A PatternEvaluator instance whose evaluation is always 0 is created.
+     */
+    public PatternEvaluator() {
+        this.weights = new short[PHASES][PATTERN_TYPES.length][];
+        for (int phase = 0; phase < PHASES; ++phase)
+            for (int type = 0; type < PATTERN_TYPES.length; ++type)
+                this.weights[phase][type] = new short[PatternEvaluator.size(type)];
+    }
+
+    /* METHODS */
+
+    /**
+     * @brief Create a PatternEvaluator from its binary representation.
+     * @pre <em>True</em>
+     * @post It is returned a PatternEvaluator with the weights stored in the given bytes, as written by toBytes.
+     * @param bytes Binary representation of the weights.
+     * @return The PatternEvaluator with the given weights.
+     * @throws IllegalArgumentException If the bytes don't have the format of toBytes or have other patterns or phases.
+     */
+    public static PatternEvaluator fromBytes(byte[] bytes) {
+        PatternEvaluator evaluator = new PatternEvaluator();
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getInt() != PHASES
+                    || buffer.getInt() != PATTERN_TYPES.length)
+                throw new IllegalArgumentException("ERR_INVALID_WEIGHTS");
+
+            for (int type = 0; type < PATTERN_TYPES.length; ++type)
+                if (buffer.getInt() != PATTERN_TYPES[type].length)
+                    throw new IllegalArgumentException("ERR_INVALID_WEIGHTS");
+
+            for (short[][] phase : evaluator.weights)
+                for (short[] table : phase)
+                    for (int index = 0; index < table.length; ++index)
+                        table[index] = buffer.getShort();
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("ERR_INVALID_WEIGHTS");
+        }
+
+        if (buffer.hasRemaining())
+            throw new IllegalArgumentException("ERR_INVALID_WEIGHTS");
+
+        return evaluator;
+    }
+
+    /**
+     * @brief Get the binary representation of the weights of the implicit PatternEvaluator.
+     * @pre <em>True</em>
+     * @post It is returned, in big-endian order: the format identifier, its version, the number of phases, the number of
+     * kinds of patterns and the number of cells of each kind as ints, followed by the weights of each phase and kind of
+     * pattern as shorts.
+     * @return Binary representation of the weights.
+     */
+    public byte[] toBytes() {
+        int size = 4 * (4 + PATTERN_TYPES.length);
+        for (int type = 0; type < PATTERN_TYPES.length; ++type)
+            size += 2 * PHASES * PatternEvaluator.size(type);
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(PHASES).putInt(PATTERN_TYPES.length);
+        for (int[] cells : PATTERN_TYPES)
+            buffer.putInt(cells.length);
+
+        for (short[][] phase : this.weights)
+            for (short[] table : phase)
+                for (short weight : table)
+                    buffer.putShort(weight);
+
+        return buffer.array();
+    }
+
+    /**
+     * @brief Get the score of a Board state from scratch.
+     * @pre <em>True</em>
+     * @post 0 is returned, the whole evaluation is done by evaluate.
+     * @param board Board to get the score from.
+     * @return 0.
+     */
+    @Override
+    public int score(Board board) {
+        return 0;
+    }
+
+    /**
+     * @brief Get how much a move changes the score.
+     * @pre <em>True</em>
+     * @post 0 is returned, the whole evaluation is done by evaluate.
+     * @param square Square index (row * 8 + column) where the piece is placed.
+     * @param flipped Pieces captured by the move as a 64-bit mask.
+     * @param pieceType Player that places the piece.
+     * @return 0.
+     */
+    @Override
+    public int scoreDelta(int square, long flipped, PieceType pieceType) {
+        return 0;
+    }
+
+    /**
+     * @brief Get the heuristic evaluation of a Board state.
+     * @pre <em>True</em>
+     * @post It is returned the sum of the weights of all the patterns of the given Board in its phase, from the point of
+     * view of the given player, in units of 1/SCALE pieces.
+     * @param board Board to get the heuristic evaluation from.
+     * @param pieceType Player whose point of view is used.
+     * @param score Ignored.
+     * @return The heuristic evaluation of the Board state for the given player.
+     */
+    @Override
+    public int evaluate(Board board, PieceType pieceType, int score) {
+        int evaluation = this.evaluate(board.getBitboard(PieceType.PLAYER1), board.getBitboard(PieceType.PLAYER2));
+        return (pieceType == PieceType.PLAYER1 ? evaluation : -evaluation);
+    }
+
+    /**
+     * @brief Get the heuristic evaluation of a Board state given by its bitboards.
+     * @pre The given bitboards don't share any cell.
+     * @post It is returned the sum of the weights of all the patterns in the phase of the Board, from the point of view of PLAYER1.
+     * @param player1 Cells of PLAYER1 as a 64-bit mask.
+     * @param player2 Cells of PLAYER2 as a 64-bit mask.
+     * @return The heuristic evaluation of the Board state for PLAYER1.
+     */
+    int evaluate(long player1, long player2) {
+        short[][] weights = this.weights[PatternEvaluator.phase(player1, player2)];
+        int evaluation = 0;
+
+        for (int p = 0; p < PATTERNS.length; ++p)
+            evaluation += weights[PATTERN_TYPE[p]][PatternEvaluator.index(player1, player2, p)];
+
+        return evaluation;
+    }
+
+    /**
+     * @brief Get the number of patterns of the Board.
+     * @pre <em>True</em>
+     * @post The number of patterns read from each Board is returned.
+     * @return Number of patterns of the Board.
+     */
+    static int patterns() {
+        return PATTERNS.length;
+    }
+
+    /**
+     * @brief Get the kind of a pattern of the Board.
+     * @pre The given pattern is between 0 and patterns() - 1.
+     * @post The kind of the given pattern, as an index of the weight tables of a phase, is returned.
+     * @param pattern Pattern of the Board.
+     * @return Kind of the pattern.
+     */
+    static int type(int pattern) {
+        return PATTERN_TYPE[pattern];
+    }
+
+    /**
+     * @brief Get the number of kinds of patterns.
+     * @pre <em>True</em>
+     * @post The number of weight tables of each phase is returned.
+     * @return Number of kinds of patterns.
+     */
+    static int types() {
+        return PATTERN_TYPES.length;
+    }
+
+    /**
+     * @brief Get the number of weights of a kind of pattern.
+     * @pre The given type is between 0 and types() - 1.
+     * @post 3 to the power of the number of cells of the given kind of pattern is returned.
+     * @param type Kind of pattern.
+     * @return Number of weights of the kind of pattern.
+     */
+    static int size(int type) {
+        int size = 1;
+        for (int i = 0; i < PATTERN_TYPES[type].length; ++i) size *= 3;
+        return size;
+    }
+
+    /**
+     * @brief Get the phase of a Board state given by its bitboards.
+     * @pre The given bitboards don't share any cell.
+     * @post The phase of the Board, between 0 and PHASES - 1, given by its number of pieces is returned.
+     * @param player1 Cells of PLAYER1 as a 64-bit mask.
+     * @param player2 Cells of PLAYER2 as a 64-bit mask.
+     * @return Phase of the Board.
+     */
+    static int phase(long player1, long player2) {
+        int pieces = Long.bitCount(player1 | player2);
+        return Integer.max(0, Integer.min(PHASES - 1, (pieces - 4) * PHASES / 61));
+    }
+
+    /**
+     * @brief Get the base-3 number of the cells of a pattern of a Board state given by its bitboards.
+     * @pre The given bitboards don't share any cell. The given pattern is between 0 and patterns() - 1.
+     * @post The index of the weight of the given pattern in the table of its kind is returned.
+     * @param player1 Cells of PLAYER1 as a 64-bit mask.
+     * @param player2 Cells of PLAYER2 as a 64-bit mask.
+     * @param pattern Pattern of the Board.
+     * @return Index of the weight of the pattern.
+     */
+    static int index(long player1, long player2, int pattern) {
+        int index = 0;
+        for (int square : PATTERNS[pattern])
+            index = index * 3 + (int) (player1 >>> square & 1) + 2 * (int) (player2 >>> square & 1);
+        return index;
+    }
+
+    /**
+     * @brief Set a weight of the implicit PatternEvaluator.
+     * @pre The given phase, type and index are valid.
+     * @post The weight of the given index of the given phase and kind of pattern is the given weight.
+     * @param phase Phase of the Board.
+     * @param type Kind of pattern.
+     * @param index Index of the weight in the table of its kind.
+     * @param weight New weight, in units of 1/SCALE pieces.
+     */
+    void setWeight(int phase, int type, int index, short weight) {
+        this.weights[phase][type][index] = weight;
+    }
+
+    /**
+     * @brief Private method that rotates a square of the Board 90 degrees clockwise.
+     * @pre The given square is between 0 and 63.
+     * @post The square index of the given square after rotating the Board 90 degrees clockwise is returned.
+     * @param square Square index (row * 8 + column).
+     * @return The rotated square index.
+     */
+    private static int rotate(int square) {
+        int row = square >>> 3, column = square & 7;
+        return column * 8 + (7 - row);
+    }
+}
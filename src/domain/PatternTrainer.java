@@ -0,0 +1,282 @@
+/**
+ * @file PatternTrainer.java
+ * @author Alex Rodriguez
+ * @brief PatternTrainer class specification.
+ */
+package domain;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import domain.Board.PieceType;
+import util.Pair;
+
+/**
+ * @class PatternTrainer
+ * @brief Implements the offline training of the weights of a PatternEvaluator from game records.
+ * Every position of the recorded games is labelled with the final difference of pieces of its game, and the weights
+ * are fitted to those labels with stochastic gradient descent on the squared error. Each position is also used with
+ * the colours swapped and the label negated, so the weights don't favour any player.
+ * The game records can be added one by one or played by the trainer itself (self-play).
+ * By Alex Rodriguez
+ */
+public class PatternTrainer {
+    /* ATTRIBUTES */
+
+    /**
+    * @brief Whether the pieces can be eaten horizontally.
+    */
+    private boolean canEatHorizontally;
+    /**
+    * @brief Whether the pieces can be eaten vertically.
+    */
+    private boolean canEatVertically;
+    /**
+    * @brief Whether the pieces can be eaten diagonally.
+    */
+    private boolean canEatDiagonally;
+    /**
+    * @brief Cells of PLAYER1 of each recorded position.
+    */
+    private long[] player1;
+    /**
+    * @brief Cells of PLAYER2 of each recorded position.
+    */
+    private long[] player2;
+    /**
+    * @brief Final difference of pieces (PLAYER1 minus PLAYER2) of the game of each recorded position.
+    */
+    private byte[] results;
+    /**
+    * @brief Number of recorded positions.
+    */
+    private int size;
+    /**
+    * @brief Weights being trained, in pieces, of each phase and kind of pattern.
+    */
+    private float[][][] weights;
+    /**
+    * @brief Transposition table shared by the searches of all the self-play games, or null if no game has been played.
+    */
+    private TranspositionTable transpositionTable;
+
+    /* CONSTRUCTORS */
+
+    /**
+     * @brief Create a PatternTrainer instance.
+     * @pre The given rules are not all false.
+     * @post A PatternTrainer without any recorded position and with all the weights set to 0 is created.
+     * @param canEatHorizontally Whether the pieces of the recorded games can be eaten horizontally.
+     * @param canEatVertically Whether the pieces of the recorded games can be eaten vertically.
+     * @param canEatDiagonally Whether the pieces of the recorded games can be eaten diagonally.
+     */
+    public PatternTrainer(boolean canEatHorizontally, boolean canEatVertically, boolean canEatDiagonally) {
+        this.canEatHorizontally = canEatHorizontally;
+        this.canEatVertically = canEatVertically;
+        this.canEatDiagonally = canEatDiagonally;
+        this.player1 = new long[1024];
+        this.player2 = new long[1024];
+        this.results = new byte[1024];
+        this.size = 0;
+        this.transpositionTable = null;
+
+        this.weights = new float[PatternEvaluator.PHASES][PatternEvaluator.types()][];
+        for (int phase = 0; phase < PatternEvaluator.PHASES; ++phase)
+            for (int type = 0; type < PatternEvaluator.types(); ++type)
+                this.weights[phase][type] = new float[PatternEvaluator.size(type)];
+    }
+
+    /* METHODS */
+
+    /**
+     * @brief Get the number of recorded positions.
+     * @pre <em>True</em>
+     * @post The number of positions recorded from the added games is returned.
+     * @return Number of recorded positions.
+     */
+    public int getPositions() {
+        return this.size;
+    }
+
+    /**
+     * @brief Record a game.
+     * @pre The given squares are valid moves from the initial Board, played in order. A player that can't place any piece
+     * passes, so each move is played by the player to move unless it can't place any piece.
+     * @post Every position of the game before its end is recorded, labelled with the final difference of pieces of the game.
+     * @param squares Moves of the game as square indexes (row * 8 + column).
+     */
+    public void addGame(int[] squares) {
+        Board board = new Board();
+        PieceType pieceType = PieceType.PLAYER1;
+        int first = this.size;
+
+        for (int square : squares) {
+            if (board.validMoves(pieceType, this.canEatHorizontally, this.canEatVertically, this.canEatDiagonally) == 0)
+                pieceType = Difficulty.inversePieceType(pieceType);
+
+            this.record(board);
+            board.makeMove(square >>> 3, square & 7, pieceType, this.canEatHorizontally, this.canEatVertically,
+                    this.canEatDiagonally);
+            pieceType = Difficulty.inversePieceType(pieceType);
+        }
+
+        byte result = (byte) (board.getPiecesPlayer1() - board.getPiecesPlayer2());
+        Arrays.fill(this.results, first, this.size, result);
+    }
+
+    /**
+     * @brief Play a game against itself.
+     * @pre The given randomMoves is not negative. The given epsilon is between 0 and 1.
+     * @post It is returned a game played from the initial Board where the first randomMoves moves and each other move with
+     * probability epsilon are random, and the rest are chosen by a MediumDifficulty of depth 2 with the EndgameSolver for
+     * the last 10 empty cells. The game isn't recorded. The searches share the transposition table of the implicit
+     * PatternTrainer, which is created by the first game.
+     * @param random Source of the random moves.
+     * @param randomMoves Number of random moves at the start of the game.
+     * @param epsilon Probability of a random move after the first randomMoves moves.
+     * @return Moves of the game as square indexes (row * 8 + column).
+     */
+    public int[] selfPlay(Random random, int randomMoves, double epsilon) {
+        if (this.transpositionTable == null)
+            this.transpositionTable = new TranspositionTable();
+        this.transpositionTable.newSearch();
+
+        MediumDifficulty[] players = new MediumDifficulty[PieceType.values().length];
+        for (PieceType pieceType : PieceType.values()) {
+            players[pieceType.ordinal()] = new MediumDifficulty(1, this.canEatHorizontally, this.canEatVertically,
+                    this.canEatDiagonally, pieceType);
+            players[pieceType.ordinal()].setEndgameEmpties(10);
+            players[pieceType.ordinal()].setTranspositionTable(this.transpositionTable);
+        }
+
+        Board board = new Board();
+        PieceType pieceType = PieceType.PLAYER1;
+        int[] squares = new int[60];
+        int moves = 0, passes = 0;
+
+        while (passes < 2) {
+            long valid = board.validMoves(pieceType, this.canEatHorizontally, this.canEatVertically, this.canEatDiagonally);
+
+            if (valid == 0) ++passes;
+            else {
+                passes = 0;
+                int square;
+
+                if (moves < randomMoves || random.nextDouble() < epsilon) {
+                    MoveList validPositions = new MoveList(valid);
+                    square = validPositions.getSquare(random.nextInt(validPositions.size()));
+                }
+                else {
+                    Pair<Integer, Integer> position = players[pieceType.ordinal()].place(board.getBoard());
+                    square = position.first * 8 + position.second;
+                }
+
+                board.makeMove(square >>> 3, square & 7, pieceType, this.canEatHorizontally, this.canEatVertically,
+                        this.canEatDiagonally);
+                squares[moves++] = square;
+            }
+
+            pieceType = Difficulty.inversePieceType(pieceType);
+        }
+
+        return Arrays.copyOf(squares, moves);
+    }
+
+    /**
+     * @brief Fit the weights to the recorded positions.
+     * @pre The given epochs and learningRate are positive numbers.
+     * @post The weights are fitted with the given number of passes over the recorded positions, in random order. Each
+     * position moves the weights of its patterns towards its label, with the given learning rate split between them.
+     * The mean squared error of the last pass, in pieces squared, is returned.
+     * @param epochs Number of passes over the recorded positions.
+     * @param learningRate Fraction of the error corrected by each position.
+     * @param random Source of the order of the positions.
+     * @return Mean squared error of the last pass.
+     */
+    public double train(int epochs, double learningRate, Random random) {
+        int patterns = PatternEvaluator.patterns();
+        int[] indexes = new int[patterns];
+        int[] order = new int[2 * this.size];
+        for (int i = 0; i < order.length; ++i) order[i] = i;
+
+        double error = 0;
+        for (int epoch = 0; epoch < epochs; ++epoch) {
+            // Shuffle the positions
+            for (int i = order.length - 1; i > 0; --i) {
+                int j = random.nextInt(i + 1), swap = order[i];
+                order[i] = order[j];
+                order[j] = swap;
+            }
+
+            error = 0;
+            for (int position : order) {
+                // The odd numbers of the order are the positions with the colours swapped
+                int i = position >> 1;
+                boolean swapped = (position & 1) != 0;
+                long player1 = (swapped ? this.player2[i] : this.player1[i]);
+                long player2 = (swapped ? this.player1[i] : this.player2[i]);
+                int result = (swapped ? -this.results[i] : this.results[i]);
+
+                float[][] weights = this.weights[PatternEvaluator.phase(player1, player2)];
+                float prediction = 0;
+                for (int p = 0; p < patterns; ++p) {
+                    indexes[p] = PatternEvaluator.index(player1, player2, p);
+                    prediction += weights[PatternEvaluator.type(p)][indexes[p]];
+                }
+
+                float difference = result - prediction;
+                error += difference * difference;
+
+                float step = (float) (learningRate * difference / patterns);
+                for (int p = 0; p < patterns; ++p)
+                    weights[PatternEvaluator.type(p)][indexes[p]] += step;
+            }
+
+            error /= Math.max(order.length, 1);
+        }
+
+        return error;
+    }
+
+    /**
+     * @brief Get a PatternEvaluator with the trained weights.
+     * @pre <em>True</em>
+     * @post It is returned a PatternEvaluator whose weights are the trained ones in units of 1/SCALE pieces, rounded and
+     * limited to the range of a short.
+     * @return The PatternEvaluator with the trained weights.
+     */
+    public PatternEvaluator toEvaluator() {
+        PatternEvaluator evaluator = new PatternEvaluator();
+
+        for (int phase = 0; phase < PatternEvaluator.PHASES; ++phase) {
+            for (int type = 0; type < PatternEvaluator.types(); ++type) {
+                float[] weights = this.weights[phase][type];
+                for (int index = 0; index < weights.length; ++index) {
+                    long weight = Math.round(weights[index] * PatternEvaluator.SCALE);
+                    weight = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, weight));
+                    evaluator.setWeight(phase, type, index, (short) weight);
+                }
+            }
+        }
+
+        return evaluator;
+    }
+
+    /**
+     * @brief Private method that records a position.
+     * @pre <em>True</em>
+     * @post The cells of each player of the given Board are recorded as a new position, without label.
+     * @param board Board of the position.
+     */
+    private void record(Board board) {
+        if (this.size == this.player1.length) {
+            this.player1 = Arrays.copyOf(this.player1, this.size * 2);
+            this.player2 = Arrays.copyOf(this.player2, this.size * 2);
+            this.results = Arrays.copyOf(this.results, this.size * 2);
+        }
+
+        this.player1[this.size] = board.getBitboard(PieceType.PLAYER1);
+        this.player2[this.size] = board.getBitboard(PieceType.PLAYER2);
+        ++this.size;
+    }
+}
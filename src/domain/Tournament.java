@@ -0,0 +1,449 @@
+/**
+ * @file Tournament.java
+ * @author Alex Rodriguez
+ * @brief Tournament class specification.
+ */
+package domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import domain.Board.PieceType;
+import util.Pair;
+
+/**
+ * @class Tournament
+ * @brief Implements a round-robin tournament between bot levels, played without any view and without saving any game.
+ * Every pair of levels plays the given number of openings with every given rule set, and each opening is played twice
+ * with the colours swapped. An opening is a sequence of random moves from the initial Board, so the levels that always
+ * choose the same move don't play the same game again. Two bots of the same level can play each other, unlike in the Games
+ * created by GameCtrl.
+ * The games are played in parallel on a pool of threads, each one with its own DifficultyCtrl for each player, and the
+ * searches of each game run in the thread of the game. The levels are ranked with an Elo estimate fitted to all the
+ * results (Bradley-Terry model), and the wins, draws, losses and mean time per move of each level are recorded.
+ * By Alex Rodriguez
+ */
+public class Tournament {
+    /**
+     * @class Standing
+     * @brief Results of a level in a Tournament.
+     */
+    public static class Standing {
+        /**
+        * @brief Level of the bot.
+        */
+        private int level;
+        /**
+        * @brief Number of games won, drawn and lost.
+        */
+        private int wins, draws, losses;
+        /**
+        * @brief Number of moves played.
+        */
+        private long moves;
+        /**
+        * @brief Total time of the moves played, in nanoseconds.
+        */
+        private long time;
+        /**
+        * @brief Elo estimate of the level. The mean of the Elo estimates of all the levels of the Tournament is 0.
+        */
+        private double elo;
+
+        /**
+         * @brief Create a Standing instance.
+         * @pre <em>True</em>
+         * @post A Standing of the given level without any game is created.
+         * @param level Level of the bot.
+         */
+        private Standing(int level) {
+            this.level = level;
+        }
+
+        /**
+         * @brief Get the level of the bot.
+         * @pre <em>True</em>
+         * @post The level of the bot is returned.
+         * @return Level of the bot.
+         */
+        public int getLevel() {
+            return this.level;
+        }
+
+        /**
+         * @brief Get the number of games won.
+         * @pre <em>True</em>
+         * @post The number of games won is returned.
+         * @return Number of games won.
+         */
+        public int getWins() {
+            return this.wins;
+        }
+
+        /**
+         * @brief Get the number of games drawn.
+         * @pre <em>True</em>
+         * @post The number of games drawn is returned.
+         * @return Number of games drawn.
+         */
+        public int getDraws() {
+            return this.draws;
+        }
+
+        /**
+         * @brief Get the number of games lost.
+         * @pre <em>True</em>
+         * @post The number of games lost is returned.
+         * @return Number of games lost.
+         */
+        public int getLosses() {
+            return this.losses;
+        }
+
+        /**
+         * @brief Get the number of games played.
+         * @pre <em>True</em>
+         * @post The number of games won, drawn or lost is returned.
+         * @return Number of games played.
+         */
+        public int getGames() {
+            return this.wins + this.draws + this.losses;
+        }
+
+        /**
+         * @brief Get the score of the level.
+         * @pre <em>True</em>
+         * @post The fraction of points won, counting each draw as half a win, is returned, or 0 if no game was played.
+         * @return Score between 0 and 1.
+         */
+        public double getScore() {
+            return (this.getGames() == 0 ? 0 : (this.wins + this.draws / 2.0) / this.getGames());
+        }
+
+        /**
+         * @brief Get the mean time per move.
+         * @pre <em>True</em>
+         * @post The mean time of the moves played, in milliseconds, is returned, or 0 if no move was played.
+         * @return Mean time per move in milliseconds.
+         */
+        public double getMillisPerMove() {
+            return (this.moves == 0 ? 0 : this.time / 1e6 / this.moves);
+        }
+
+        /**
+         * @brief Get the Elo estimate of the level.
+         * @pre <em>True</em>
+         * @post The Elo estimate of the level is returned. The mean of the Elo estimates of all the levels of the Tournament is 0.
+         * @return Elo estimate.
+         */
+        public double getElo() {
+            return this.elo;
+        }
+    }
+
+    /**
+     * @class Result
+     * @brief Result of a game of the Tournament.
+     */
+    private static class Result {
+        /**
+        * @brief Index in levels of the level of each player. The index is the PieceType ordinal.
+        */
+        private int[] players = new int[2];
+        /**
+        * @brief Number of moves and total time of the moves, in nanoseconds, of each player. The index is the PieceType ordinal.
+        */
+        private long[] moves = new long[2], time = new long[2];
+        /**
+        * @brief Difference of pieces at the end of the game, PLAYER1 minus PLAYER2.
+        */
+        private int difference;
+    }
+
+    /* ATTRIBUTES */
+
+    /**
+    * @brief Number of iterations of the fit of the Elo estimates.
+    */
+    private static final int ELO_ITERATIONS = 1000;
+    /**
+    * @brief Levels that play the Tournament.
+    */
+    private int[] levels;
+    /**
+    * @brief Rule sets of the games.
+    */
+    private List<Configuration> configurations;
+    /**
+    * @brief Number of openings that every pair of levels plays with every rule set.
+    */
+    private int openings;
+    /**
+    * @brief Number of random moves of each opening.
+    */
+    private int openingMoves;
+    /**
+    * @brief Number of threads that play the games.
+    */
+    private int threads;
+    /**
+    * @brief Seed of the random openings.
+    */
+    private long seed;
+    /**
+    * @brief PatternEvaluator of the Weights repository, read once and shared by the DifficultyCtrl of every game.
+    */
+    private PatternEvaluator patternEvaluator;
+    /**
+    * @brief OpeningBook of the Book repository, read once and shared by the DifficultyCtrl of every game.
+    */
+    private OpeningBook openingBook;
+    /**
+    * @brief Standing of each level, in the same order as levels.
+    */
+    private Standing[] standings;
+    /**
+    * @brief Points won by each level against each other level, counting each draw as half a win.
+    */
+    private double[][] points;
+    /**
+    * @brief Number of games played by each level against each other level.
+    */
+    private int[][] games;
+
+    /* CONSTRUCTORS */
+
+    /**
+     * @brief Create a Tournament instance.
+     * @pre The given levels are at least 2 numbers between 1 and 10. The given configurations aren't empty. The given
+     * openings and threads are positive numbers and the given openingMoves is not negative.
+     * @post A Tournament between the given levels that hasn't been played yet is created.
+     * @param levels Levels that play the Tournament.
+     * @param configurations Rule sets of the games, for example the ones returned by ruleSets.
+     * @param openings Number of openings that every pair of levels plays with every rule set. Each one is played twice.
+     * @param openingMoves Number of random moves of each opening.
+     * @param threads Number of threads that play the games.
+     * @param seed Seed of the random openings, so the same Tournament plays the same openings.
+     */
+    public Tournament(int[] levels, List<Configuration> configurations, int openings, int openingMoves, int threads,
+            long seed) {
+        this.levels = levels.clone();
+        this.configurations = new ArrayList<Configuration>(configurations);
+        this.openings = openings;
+        this.openingMoves = openingMoves;
+        this.threads = threads;
+        this.seed = seed;
+        this.standings = new Standing[levels.length];
+        for (int i = 0; i < levels.length; ++i)
+            this.standings[i] = new Standing(levels[i]);
+        this.points = new double[levels.length][levels.length];
+        this.games = new int[levels.length][levels.length];
+    }
+
+    /* METHODS */
+
+    /**
+     * @brief Get the rule sets of the Tournament.
+     * @pre <em>True</em>
+     * @post A Configuration for each combination of allowed directions where PLAYER1 can place a piece in the initial
+     * Board is returned. The other ones, like only diagonal captures, are skipped, because all their games would be draws
+     * without any move and they would only pull the ratings toward the mean.
+     * @return Rule sets of the Tournament.
+     */
+    public static List<Configuration> ruleSets() {
+        List<Configuration> ruleSets = new ArrayList<Configuration>();
+        Board initialBoard = new Board();
+        for (int rules = 1; rules < 8; ++rules) {
+            boolean canEatHorizontally = (rules & 1) != 0, canEatVertically = (rules & 2) != 0, canEatDiagonally = (rules & 4) != 0;
+            if (initialBoard.validMoves(PieceType.PLAYER1, canEatHorizontally, canEatVertically, canEatDiagonally) == 0)
+                continue;
+
+            ruleSets.add(new Configuration("Tournament " + rules, new UUID(0, 0), canEatHorizontally, canEatVertically,
+                    canEatDiagonally));
+        }
+        return ruleSets;
+    }
+
+    /**
+     * @brief Play the Tournament.
+     * @pre The Tournament hasn't been played yet.
+     * @post Every game of the Tournament has been played and the standings are updated with their results.
+     * @throws InterruptedException If the thread is interrupted while it waits for the games.
+     */
+    public void play() throws InterruptedException {
+        List<Callable<Result>> tasks = new ArrayList<Callable<Result>>();
+        this.patternEvaluator = DifficultyCtrl.loadPatternEvaluator();
+        this.openingBook = DifficultyCtrl.loadOpeningBook();
+        Random random = new Random(this.seed);
+
+        for (Configuration configuration : this.configurations) {
+            for (int first = 0; first < this.levels.length; ++first) {
+                for (int second = first + 1; second < this.levels.length; ++second) {
+                    for (int opening = 0; opening < this.openings; ++opening) {
+                        long openingSeed = random.nextLong();
+                        int player1 = first, player2 = second;
+                        tasks.add(() -> this.playGame(player1, player2, configuration, openingSeed));
+                        tasks.add(() -> this.playGame(player2, player1, configuration, openingSeed));
+                    }
+                }
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(this.threads);
+        try {
+            for (Future<Result> future : executor.invokeAll(tasks)) {
+                try {
+                    this.record(future.get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        this.fitElo();
+    }
+
+    /**
+     * @brief Get the standings of the Tournament.
+     * @pre <em>True</em>
+     * @post The Standing of each level is returned, sorted by Elo estimate from the best to the worst.
+     * @return Standings of the Tournament.
+     */
+    public List<Standing> getStandings() {
+        List<Standing> standings = new ArrayList<Standing>(List.of(this.standings));
+        standings.sort((a, b) -> Double.compare(b.elo, a.elo));
+        return standings;
+    }
+
+    /**
+     * @brief Private method that plays a game of the Tournament.
+     * @pre The given player1 and player2 are indexes of levels.
+     * @post A game between the given levels with the given rules is played from the opening of the given seed, and its
+     * result is returned. Each player uses its own DifficultyCtrl, whose searches run in the calling thread.
+     * @param player1 Index in levels of the level of PLAYER1.
+     * @param player2 Index in levels of the level of PLAYER2.
+     * @param configuration Rules of the game.
+     * @param openingSeed Seed of the random moves of the opening.
+     * @return Result of the game.
+     */
+    private Result playGame(int player1, int player2, Configuration configuration, long openingSeed) {
+        boolean cH = configuration.getCanEatHorizontally();
+        boolean cV = configuration.getCanEatVertically();
+        boolean cD = configuration.getCanEatDiagonally();
+        Result result = new Result();
+        result.players[PieceType.PLAYER1.ordinal()] = player1;
+        result.players[PieceType.PLAYER2.ordinal()] = player2;
+
+        DifficultyCtrl[] difficultyCtrls = new DifficultyCtrl[2];
+        for (int i = 0; i < difficultyCtrls.length; ++i) {
+            difficultyCtrls[i] = new DifficultyCtrl();
+            difficultyCtrls[i].setParallelism(HardDifficulty.Parallelism.NONE, 1);
+            difficultyCtrls[i].setSearchThreads(1);
+            difficultyCtrls[i].setPatternEvaluator(this.patternEvaluator);
+            difficultyCtrls[i].setOpeningBook(this.openingBook);
+        }
+
+        Random random = new Random(openingSeed);
+        Board board = new Board();
+        PieceType pieceType = PieceType.PLAYER1;
+        int moves = 0, passes = 0;
+
+        while (passes < 2) {
+            long valid = board.validMoves(pieceType, cH, cV, cD);
+
+            if (valid == 0) ++passes;
+            else {
+                passes = 0;
+                int square;
+
+                if (moves < this.openingMoves) {
+                    MoveList validPositions = new MoveList(valid);
+                    square = validPositions.getSquare(random.nextInt(validPositions.size()));
+                }
+                else {
+                    int player = pieceType.ordinal();
+                    long start = System.nanoTime();
+                    Pair<Integer, Integer> position = difficultyCtrls[player].getBestPosition(
+                            this.levels[result.players[player]], configuration, board, pieceType);
+                    result.time[player] += System.nanoTime() - start;
+                    ++result.moves[player];
+                    square = position.first * 8 + position.second;
+                }
+
+                board.makeMove(square >>> 3, square & 7, pieceType, cH, cV, cD);
+                ++moves;
+            }
+
+            pieceType = Difficulty.inversePieceType(pieceType);
+        }
+
+        result.difference = board.getPiecesPlayer1() - board.getPiecesPlayer2();
+        return result;
+    }
+
+    /**
+     * @brief Private method that adds the result of a game to the standings.
+     * @pre <em>True</em>
+     * @post The wins, draws, losses, moves and time of both players, and the points and games between them, include the given result.
+     * @param result Result of a game of the Tournament.
+     */
+    private void record(Result result) {
+        for (PieceType pieceType : PieceType.values()) {
+            int player = result.players[pieceType.ordinal()];
+            int opponent = result.players[1 - pieceType.ordinal()];
+            int difference = (pieceType == PieceType.PLAYER1 ? result.difference : -result.difference);
+            Standing standing = this.standings[player];
+
+            if (difference > 0) ++standing.wins;
+            else if (difference == 0) ++standing.draws;
+            else ++standing.losses;
+            standing.moves += result.moves[pieceType.ordinal()];
+            standing.time += result.time[pieceType.ordinal()];
+
+            this.points[player][opponent] += (difference > 0 ? 1 : difference == 0 ? 0.5 : 0);
+            ++this.games[player][opponent];
+        }
+    }
+
+    /**
+     * @brief Private method that fits the Elo estimates to the results.
+     * @pre <em>True</em>
+     * @post The Elo estimate of each level is the maximum likelihood estimate of the Bradley-Terry model, where a level with
+     * 400 more Elo scores 10 times more points than the other one. Every pair of levels that played has an extra draw, so a
+     * level that won or lost every game still has a finite estimate. The mean of the estimates is 0.
+     */
+    private void fitElo() {
+        int n = this.levels.length;
+        double[] strength = new double[n];
+        Arrays.fill(strength, 1);
+
+        // Minorization-maximization updates of the Bradley-Terry strengths
+        for (int iteration = 0; iteration < ELO_ITERATIONS; ++iteration) {
+            double[] next = new double[n];
+            for (int i = 0; i < n; ++i) {
+                double points = 0, expected = 0;
+                for (int j = 0; j < n; ++j) {
+                    if (this.games[i][j] == 0) continue;
+                    points += this.points[i][j] + 0.5;
+                    expected += (this.games[i][j] + 1) / (strength[i] + strength[j]);
+                }
+                next[i] = (expected == 0 ? strength[i] : points / expected);
+            }
+            strength = next;
+        }
+
+        double mean = 0;
+        for (int i = 0; i < n; ++i) mean += 400 * Math.log10(strength[i]) / n;
+        for (int i = 0; i < n; ++i) this.standings[i].elo = 400 * Math.log10(strength[i]) - mean;
+    }
+}
@@ -0,0 +1,250 @@
+/**
+ * @file TranspositionTable.java
+ * @author Alex Rodriguez
+ * @brief TranspositionTable class specification.
+ */
+package domain;
+
+import java.util.Random;
+
+import domain.Board.PieceType;
+
+/**
+ * @class TranspositionTable
+ * @brief Implements a fixed-size transposition table for the Minimax algorithm with alpha-beta pruning.
+ * Each entry keeps the evaluation of a searched position, whether it is exact or a bound, the depth it was searched with
+ * and the best position found. A slot is replaced when it is empty, it holds the same position, it was stored in a previous
+ * search or the new entry was searched with at least the same depth.
+ * Entries are stored in two arrays of longs, the key being saved XORed with the data so a torn entry is never mistaken for a valid one.
+ * This lets several threads share the table without locks.
+ * By Alex Rodriguez
+ */
+public class TranspositionTable {
+    /**
+     * @enum BoundType
+     * @brief Kind of evaluation stored in an entry: the exact evaluation, a lower bound (the search failed high)
+     * or an upper bound (the search failed low).
+     */
+    public enum BoundType {
+        EXACT, LOWER_BOUND, UPPER_BOUND
+    }
+
+    /* ATTRIBUTES */
+
+    /**
+    * @brief Value returned by probe when the position is not in the table.
+    */
+    public static final long NO_ENTRY = 0L;
+    /**
+    * @brief Best position stored when no position was found.
+    */
+    public static final int NO_SQUARE = 64;
+    /**
+    * @brief Default number of entries of the table as a power of two.
+    */
+    private static final int DEFAULT_SIZE_BITS = 18;
+    /**
+    * @brief Keys of the search contexts: side to move, maximized player and rules.
+    */
+    private static final long[] CONTEXT_KEYS = TranspositionTable.contextKeys();
+    /**
+    * @brief Position of each field of an entry.
+    */
+    private static final int DEPTH_SHIFT = 32, BOUND_SHIFT = 40, SQUARE_SHIFT = 42, GENERATION_SHIFT = 49;
+    /**
+    * @brief Bit set in every stored entry, so a stored entry is never NO_ENTRY.
+    */
+    private static final long VALID = 1L << 63;
+    /**
+    * @brief Bound types by ordinal, so reading an entry doesn't copy BoundType.values().
+    */
+    private static final BoundType[] BOUND_TYPES = BoundType.values();
+
+    /**
+    * @brief Keys of the stored positions, XORed with their data.
+    */
+    private long[] keys;
+    /**
+    * @brief Data of the stored positions: value, depth, bound type, best position and generation.
+    */
+    private long[] data;
+    /**
+    * @brief Mask to get the slot of a key.
+    */
+    private int mask;
+    /**
+    * @brief Generation of the current search, used to replace the entries of previous searches.
+    */
+    private int generation;
+
+    /* CONSTRUCTORS */
+
+    /**
+     * @brief Create a TranspositionTable instance with the default size.
+     * @pre <em>True</em>
+     * @post An empty TranspositionTable instance with 2^18 entries is created.
+     */
+    public TranspositionTable() {
+        this(DEFAULT_SIZE_BITS);
+    }
+
+    /**
+     * @brief Create a TranspositionTable instance with 2^sizeBits entries.
+     * @pre The given sizeBits is between 1 and 30.
+     * @post An empty TranspositionTable instance with 2^sizeBits entries is created.
+     * @param sizeBits Number of entries of the table as a power of two.
+     */
+    public TranspositionTable(int sizeBits) {
+        this.keys = new long[1 << sizeBits];
+        this.data = new long[1 << sizeBits];
+        this.mask = (1 << sizeBits) - 1;
+        this.generation = 0;
+    }
+
+    /* METHODS */
+
+    /**
+     * @brief Get the key of a position in a search.
+     * @pre <em>True</em>
+     * @post It is returned the Zobrist hash of the Board combined with the side to move, the maximized player and the rules,
+     * so the same Board in different searches doesn't share entries.
+     * @param boardHash Zobrist hash of the Board.
+     * @param currentPieceType Player to move.
+     * @param pieceType Player that is maximized.
+     * @param canEatHorizontally Whether the pieces can be eaten horizontally.
+     * @param canEatVertically Whether the pieces can be eaten vertically.
+     * @param canEatDiagonally Whether the pieces can be eaten diagonally.
+     * @return The key of the position.
+     */
+    public static long key(long boardHash, PieceType currentPieceType, PieceType pieceType, boolean canEatHorizontally,
+            boolean canEatVertically, boolean canEatDiagonally) {
+        int context = currentPieceType.ordinal() | (pieceType.ordinal() << 1) | (canEatHorizontally ? 4 : 0)
+                | (canEatVertically ? 8 : 0) | (canEatDiagonally ? 16 : 0);
+
+        return boardHash ^ CONTEXT_KEYS[context];
+    }
+
+    /**
+     * @brief Start a new search.
+     * @pre <em>True</em>
+     * @post The entries stored until now are kept, but they can be replaced by any entry of the new search.
+     */
+    public void newSearch() {
+        this.generation = (this.generation + 1) & 0xFF;
+    }
+
+    /**
+     * @brief Remove all the entries.
+     * @pre <em>True</em>
+     * @post The implicit TranspositionTable is empty.
+     */
+    public void clear() {
+        for (int i = 0; i <= this.mask; ++i) {
+            this.keys[i] = 0L;
+            this.data[i] = 0L;
+        }
+        this.generation = 0;
+    }
+
+    /**
+     * @brief Get the entry of a position.
+     * @pre <em>True</em>
+     * @post It is returned the stored entry of the position or NO_ENTRY if it isn't stored.
+     * @param key Key of the position.
+     * @return The entry of the position, to be read with getValue, getDepth, getBoundType and getBestSquare.
+     */
+    public long probe(long key) {
+        int slot = (int) key & this.mask;
+        long entry = this.data[slot];
+
+        if (entry == NO_ENTRY || (this.keys[slot] ^ entry) != key)
+            return NO_ENTRY;
+
+        return entry;
+    }
+
+    /**
+     * @brief Store the entry of a position.
+     * @pre The given depth is between 0 and 255. The given bestSquare is between 0 and 64.
+     * @post The entry is stored if its slot is empty, holds the same position, was stored in a previous search
+     * or was searched with a depth not greater than the given one.
+     * @param key Key of the position.
+     * @param value Evaluation of the position.
+     * @param depth Depth the position was searched with.
+     * @param boundType Whether the value is exact or a bound.
+     * @param bestSquare Best position found as a square index (row * 8 + column), or NO_SQUARE.
+     */
+    public void store(long key, int value, int depth, BoundType boundType, int bestSquare) {
+        int slot = (int) key & this.mask;
+        long stored = this.data[slot];
+
+        if (stored != NO_ENTRY && (this.keys[slot] ^ stored) != key
+                && (int) (stored >>> GENERATION_SHIFT & 0xFF) == this.generation
+                && TranspositionTable.getDepth(stored) > depth)
+            return;
+
+        long entry = VALID | (value & 0xFFFFFFFFL) | ((long) depth << DEPTH_SHIFT)
+                | ((long) boundType.ordinal() << BOUND_SHIFT) | ((long) bestSquare << SQUARE_SHIFT)
+                | ((long) this.generation << GENERATION_SHIFT);
+
+        this.data[slot] = entry;
+        this.keys[slot] = key ^ entry;
+    }
+
+    /**
+     * @brief Get the evaluation of an entry.
+     * @pre The given entry isn't NO_ENTRY.
+     * @post It is returned the evaluation of the entry.
+     * @param entry Entry returned by probe.
+     * @return Evaluation of the entry.
+     */
+    public static int getValue(long entry) {
+        return (int) entry;
+    }
+
+    /**
+     * @brief Get the depth of an entry.
+     * @pre The given entry isn't NO_ENTRY.
+     * @post It is returned the depth the entry was searched with.
+     * @param entry Entry returned by probe.
+     * @return Depth of the entry.
+     */
+    public static int getDepth(long entry) {
+        return (int) (entry >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+    /**
+     * @brief Get the bound type of an entry.
+     * @pre The given entry isn't NO_ENTRY.
+     * @post It is returned whether the evaluation of the entry is exact or a bound.
+     * @param entry Entry returned by probe.
+     * @return Bound type of the entry.
+     */
+    public static BoundType getBoundType(long entry) {
+        return BOUND_TYPES[(int) (entry >>> BOUND_SHIFT) & 0x3];
+    }
+
+    /**
+     * @brief Get the best position of an entry.
+     * @pre The given entry isn't NO_ENTRY.
+     * @post It is returned the best position of the entry as a square index (row * 8 + column), or NO_SQUARE if there isn't any.
+     * @param entry Entry returned by probe.
+     * @return Best position of the entry.
+     */
+    public static int getBestSquare(long entry) {
+        return (int) (entry >>> SQUARE_SHIFT) & 0x7F;
+    }
+
+    /**
+     * @brief Private method that generates the keys of the search contexts.
+     * @pre <em>True</em>
+     * @post Returns one random 64-bit number for each combination of side to move, maximized player and rules.
+     */
+    private static long[] contextKeys() {
+        Random random = new Random(0x5472616E73L);
+        long[] keys = new long[32];
+        for (int i = 0; i < keys.length; ++i)
+            keys[i] = random.nextLong();
+        return keys;
+    }
+}
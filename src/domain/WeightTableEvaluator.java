@@ -0,0 +1,186 @@
+/**
+ * @file WeightTableEvaluator.java
+ * @author Alex Rodriguez
+ * @brief WeightTableEvaluator class specification.
+ */
+package domain;
+
+import domain.Board.PieceType;
+
+/**
+ * @class WeightTableEvaluator
+ * @brief Implements an Evaluator whose score is the sum of the weights of the cells of each player: the weights of the
+ * cells of PLAYER1 minus the weights of the cells of PLAYER2.
+ * The evaluation adds to the score the difference of valid positions of each player (mobility) and subtracts the difference
+ * of pieces next to an empty cell (frontier), each one multiplied by its own weight.
+ * The classic weights are the ones the Minimax algorithms have always used: every piece counts 1 and the corners,
+ * the borders and the cells around the centre add to it, while the cells next to the corners subtract from it.
+ * By Alex Rodriguez
+ */
+public class WeightTableEvaluator implements Evaluator {
+    /* ATTRIBUTES */
+
+    /**
+    * @brief Classic weight of each cell, indexed by square (row * 8 + column).
+    */
+    private static final int[] CLASSIC_WEIGHTS = {
+         51, -24, 18, 18, 18, 18, -24,  51,
+        -24, -24,  1,  1,  1,  1, -24, -24,
+         18,   1, 21, 11, 11, 21,   1,  18,
+         18,   1, 11,  1,  1, 11,   1,  18,
+         18,   1, 11,  1,  1, 11,   1,  18,
+         18,   1, 21, 11, 11, 21,   1,  18,
+        -24, -24,  1,  1,  1,  1, -24, -24,
+         51, -24, 18, 18, 18, 18, -24,  51
+    };
+    /**
+    * @brief Cells that aren't in the first column or in the last column.
+    */
+    private static final long NOT_FIRST_COLUMN = 0xFEFEFEFEFEFEFEFEL, NOT_LAST_COLUMN = 0x7F7F7F7F7F7F7F7FL;
+    /**
+    * @brief Weight of each cell, indexed by square (row * 8 + column).
+    */
+    private int[] weights;
+    /**
+    * @brief Weight of each valid position more than the opponent.
+    */
+    private int mobilityWeight;
+    /**
+    * @brief Weight of each piece next to an empty cell more than the opponent.
+    */
+    private int frontierWeight;
+    /**
+    * @brief Whether the pieces can be eaten horizontally.
+    */
+    private boolean canEatHorizontally;
+    /**
+    * @brief Whether the pieces can be eaten vertically.
+    */
+    private boolean canEatVertically;
+    /**
+    * @brief Whether the pieces can be eaten diagonally.
+    */
+    private boolean canEatDiagonally;
+
+    /* CONSTRUCTORS */
+
+    /**
+     * @brief Create a WeightTableEvaluator instance.
+     * @pre The given weights has 64 elements. The given rules are not all false.
+     * @post A WeightTableEvaluator instance with a copy of the given weights is created.
+     * @param weights Weight of each cell, indexed by square (row * 8 + column).
+     * @param mobilityWeight Weight of each valid position more than the opponent.
+     * @param frontierWeight Weight of each piece next to an empty cell more than the opponent, subtracted from the evaluation.
+     * @param canEatHorizontally Whether the pieces can be eaten horizontally, used to count the valid positions.
+     * @param canEatVertically Whether the pieces can be eaten vertically, used to count the valid positions.
+     * @param canEatDiagonally Whether the pieces can be eaten diagonally, used to count the valid positions.
+     */
+    public WeightTableEvaluator(int[] weights, int mobilityWeight, int frontierWeight, boolean canEatHorizontally,
+            boolean canEatVertically, boolean canEatDiagonally) {
+        this.weights = weights.clone();
+        this.mobilityWeight = mobilityWeight;
+        this.frontierWeight = frontierWeight;
+        this.canEatHorizontally = canEatHorizontally;
+        this.canEatVertically = canEatVertically;
+        this.canEatDiagonally = canEatDiagonally;
+    }
+
+    /* METHODS */
+
+    /**
+     * @brief Create a WeightTableEvaluator with the classic weights.
+     * @pre The given rules are not all false.
+     * @post It is returned a WeightTableEvaluator with the classic weights and without mobility and frontier.
+     * @param canEatHorizontally Whether the pieces can be eaten horizontally.
+     * @param canEatVertically Whether the pieces can be eaten vertically.
+     * @param canEatDiagonally Whether the pieces can be eaten diagonally.
+     * @return The classic WeightTableEvaluator.
+     */
+    public static WeightTableEvaluator classic(boolean canEatHorizontally, boolean canEatVertically, boolean canEatDiagonally) {
+        return new WeightTableEvaluator(CLASSIC_WEIGHTS, 0, 0, canEatHorizontally, canEatVertically, canEatDiagonally);
+    }
+
+    /**
+     * @brief Get the score of a Board state from scratch.
+     * @pre <em>True</em>
+     * @post It is returned the sum of the weights of the cells of PLAYER1 minus the sum of the weights of the cells of PLAYER2.
+     * @param board Board to get the score from.
+     * @return The score of the Board state for PLAYER1.
+     */
+    @Override
+    public int score(Board board) {
+        return this.weight(board.getBitboard(PieceType.PLAYER1)) - this.weight(board.getBitboard(PieceType.PLAYER2));
+    }
+
+    /**
+     * @brief Get how much a move changes the score.
+     * @pre The given flipped are the pieces captured by placing a piece of the given player in the given square.
+     * @post It is returned the weight of the given square plus twice the weight of the captured pieces, which change from
+     * the opponent to the player, with the sign of the given player.
+     * @param square Square index (row * 8 + column) where the piece is placed.
+     * @param flipped Pieces captured by the move as a 64-bit mask, as returned by Board.makeMove.
+     * @param pieceType Player that places the piece.
+     * @return The change of the score for PLAYER1.
+     */
+    @Override
+    public int scoreDelta(int square, long flipped, PieceType pieceType) {
+        int delta = this.weights[square] + 2 * this.weight(flipped);
+        return (pieceType == PieceType.PLAYER1 ? delta : -delta);
+    }
+
+    /**
+     * @brief Get the heuristic evaluation of a Board state.
+     * @pre The given score is the score of the given Board state.
+     * @post It is returned the score plus the mobility term minus the frontier term, from the point of view of the given player.
+     * The terms whose weight is 0 aren't computed.
+     * @param board Board to get the heuristic evaluation from.
+     * @param pieceType Player whose point of view is used.
+     * @param score Score of the Board state, as returned by score or updated with scoreDelta.
+     * @return The heuristic evaluation of the Board state for the given player.
+     */
+    @Override
+    public int evaluate(Board board, PieceType pieceType, int score) {
+        int evaluation = score;
+
+        if (this.mobilityWeight != 0) {
+            int mobility = Long.bitCount(board.validMoves(PieceType.PLAYER1, this.canEatHorizontally, this.canEatVertically,
+                    this.canEatDiagonally)) - Long.bitCount(board.validMoves(PieceType.PLAYER2, this.canEatHorizontally,
+                    this.canEatVertically, this.canEatDiagonally));
+            evaluation += this.mobilityWeight * mobility;
+        }
+
+        if (this.frontierWeight != 0) {
+            long player1 = board.getBitboard(PieceType.PLAYER1), player2 = board.getBitboard(PieceType.PLAYER2);
+            long nextToEmpty = WeightTableEvaluator.neighbours(~(player1 | player2));
+            evaluation -= this.frontierWeight * (Long.bitCount(player1 & nextToEmpty) - Long.bitCount(player2 & nextToEmpty));
+        }
+
+        return (pieceType == PieceType.PLAYER1 ? evaluation : -evaluation);
+    }
+
+    /**
+     * @brief Private method that returns the sum of the weights of some cells.
+     * @pre <em>True</em>
+     * @post The sum of the weights of the cells set in the given mask is returned.
+     * @param mask Cells as a 64-bit mask.
+     * @return Sum of the weights of the cells.
+     */
+    private int weight(long mask) {
+        int weight = 0;
+        for (; mask != 0; mask &= mask - 1)
+            weight += this.weights[Long.numberOfTrailingZeros(mask)];
+        return weight;
+    }
+
+    /**
+     * @brief Private method that returns the cells next to some cells.
+     * @pre <em>True</em>
+     * @post The cells adjacent in any of the eight directions to a cell set in the given mask are returned as a 64-bit mask.
+     * @param mask Cells as a 64-bit mask.
+     * @return Cells next to the given ones.
+     */
+    private static long neighbours(long mask) {
+        long horizontal = mask | ((mask << 1) & NOT_FIRST_COLUMN) | ((mask >>> 1) & NOT_LAST_COLUMN);
+        return ((mask << 1) & NOT_FIRST_COLUMN) | ((mask >>> 1) & NOT_LAST_COLUMN) | (horizontal << 8) | (horizontal >>> 8);
+    }
+}
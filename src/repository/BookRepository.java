@@ -0,0 +1,76 @@
+/**
+ * @file BookRepository.java
+ * @author Alex Rodriguez
+ * @brief BookRepository class specification.
+ */
+package repository;
+
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * @class BookRepository
+ * @brief Implements the read and write operations to work with the Book repository, where the opening books are stored
+ * as binary files. The books are read by mapping their files into memory, so only the pages that are looked up are loaded.
+ * By Alex Rodriguez.
+ * @see repository.Repository
+ */
+public class BookRepository extends Repository {
+    /* ATTRIBUTES */
+
+    /* CONSTRUCTORS */
+
+    /**
+     * @brief Create a BookRepository instance.
+     * @pre <em>True</em>
+     * @post A BookRepository instance is created.
+     */
+    public BookRepository() {
+        super(RepositoryType.BOOK);
+    }
+
+    /* METHODS */
+
+    /**
+     * @brief Map the opening book identified by name into memory.
+     * @pre <em>True</em>
+     * @post A read-only buffer mapped to the binary file of the opening book identified by name is returned, or null if
+     * it does not exist or can't be read. The mapping stays valid after the file is closed.
+     * @param name Name of the opening book to be read.
+     * @return Buffer mapped to the binary file of the opening book or null.
+     */
+    public MappedByteBuffer map(String name) {
+        Path path = Paths.get(this.path, name + ".bin");
+        if (!Files.isRegularFile(path))
+            return null;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+    /**
+     * @brief Write the opening book identified by name.
+     * @pre <em>True</em>
+     * @post The binary file of the opening book identified by name contains the given bytes. It is created if it does not exist.
+     * @param name Name of the opening book to be written.
+     * @param book Content of the binary file of the opening book.
+     */
+    public void write(String name, byte[] book) {
+        try {
+            Path path = Paths.get(this.path, name + ".bin");
+            Files.createDirectories(path.getParent());
+            Files.write(path, book);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
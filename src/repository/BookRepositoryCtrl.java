@@ -0,0 +1,59 @@
+/**
+ * @file BookRepositoryCtrl.java
+ * @author Alex Rodriguez
+ * @brief BookRepositoryCtrl class specification.
+ */
+package repository;
+
+import java.nio.ByteBuffer;
+
+/**
+ * @class BookRepositoryCtrl
+ * @brief Implements the read and write operations to work with the Book repository.
+ * By Alex Rodriguez.
+ * @see repository.BookRepository
+ */
+public class BookRepositoryCtrl {
+    /* ATTRIBUTES */
+
+    /**
+    * @brief BookRepository instance.
+    */
+    private BookRepository repository;
+
+    /* CONSTRUCTORS */
+
+    /**
+     * @brief Create a BookRepositoryCtrl instance.
+     * @pre <em>True</em>
+     * @post A BookRepositoryCtrl instance is created.
+     */
+    public BookRepositoryCtrl() {
+        this.repository = new BookRepository();
+    }
+
+    /* METHODS */
+
+    /**
+     * @brief Get the opening book identified by name.
+     * @pre <em>True</em>
+     * @post A read-only buffer with the binary representation of the opening book identified by name is returned, or null
+     * if it does not exist.
+     * @param name Name of the opening book to be getted.
+     * @return Binary representation of the opening book or null if it does not exist.
+     */
+    public ByteBuffer get(String name) {
+        return this.repository.map(name);
+    }
+
+    /**
+     * @brief Save the opening book identified by name.
+     * @pre <em>True</em>
+     * @post The opening book identified by name is saved, replacing the previous one if it already exists.
+     * @param name Name of the opening book to be saved.
+     * @param book Binary representation of the opening book.
+     */
+    public void save(String name, byte[] book) {
+        this.repository.write(name, book);
+    }
+}
@@ -0,0 +1,508 @@
+/**
+ * @file Database.java
+ * @author Alex Rodriguez
+ * @brief Database class specification.
+ */
+package repository;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.json.JSONObject;
+
+import repository.Repository.StorageType;
+
+/**
+ * @class Database
+ * @brief Implements the in-memory copy of a database, shared by all the Repository instances of its file.
+ * The entries are loaded from the storage backend the first time the database is accessed and then the reads are served
+ * from memory. The writes only modify the memory copy and are recorded as pending changes: a background writer flushes
+ * the databases every flush interval, so all the writes of an interval are written to the storage together. With a
+ * flush interval of 0 every write is flushed, and all the databases are flushed when the application exits.
+ * The stored entries are copies that are never modified, so the entries read from the database are copied too.
+ * The database can have secondary indexes from the values of some attributes of its entries to their keys, so the
+ * repositories can find entries by those attributes without going through all of them.
+ * By Alex Rodriguez.
+ */
+class Database {
+    /**
+     * @class Index
+     * @brief Secondary index of a database: the keys of the entries that have each value of some of their attributes.
+     */
+    private static class Index {
+        /**
+        * @brief Function that returns the indexed values of an entry.
+        */
+        private Function<JSONObject, Collection<String>> values;
+        /**
+        * @brief Keys of the entries of each indexed value, or null if the index hasn't been built yet.
+        */
+        private HashMap<String, LinkedHashSet<String>> keys;
+
+        /**
+         * @brief Create an Index instance.
+         * @pre <em>True</em>
+         * @post An Index of the values returned by the given function is created. It isn't built yet.
+         * @param values Function that returns the indexed values of an entry.
+         */
+        private Index(Function<JSONObject, Collection<String>> values) {
+            this.values = values;
+            this.keys = null;
+        }
+
+        /**
+         * @brief Add an entry to the index.
+         * @pre The index has been built.
+         * @post The key of the entry is indexed by each of its values.
+         * @param key Key of the entry.
+         * @param entry Entry to be added.
+         */
+        private void add(String key, JSONObject entry) {
+            for (String value : this.values.apply(entry))
+                this.keys.computeIfAbsent(value, indexed -> new LinkedHashSet<String>()).add(key);
+        }
+
+        /**
+         * @brief Remove an entry from the index.
+         * @pre The index has been built and the given entry was added with the given key.
+         * @post The key of the entry isn't indexed by any of its values anymore.
+         * @param key Key of the entry.
+         * @param entry Entry to be removed.
+         */
+        private void remove(String key, JSONObject entry) {
+            for (String value : this.values.apply(entry)) {
+                LinkedHashSet<String> indexed = this.keys.get(value);
+                if (indexed != null && indexed.remove(key) && indexed.isEmpty()) this.keys.remove(value);
+            }
+        }
+    }
+
+    /* ATTRIBUTES */
+
+    /**
+    * @brief Databases already accessed, indexed by path.
+    */
+    private static final HashMap<String, Database> databases = new HashMap<String, Database>();
+    /**
+    * @brief Milliseconds between the flushes of the background writer, or 0 to write the file on every write.
+    */
+    private static long flushInterval = 1000;
+    /**
+    * @brief Storage backend of the databases opened from now on.
+    */
+    private static StorageType storageType = Database.defaultStorageType();
+    /**
+    * @brief Background writer, created with the first database.
+    */
+    private static ScheduledExecutorService writer;
+    /**
+    * @brief Periodic flush of the background writer, or null if the flush interval is 0.
+    */
+    private static ScheduledFuture<?> flushTask;
+    /**
+    * @brief Path of the JSON file of the database.
+    */
+    private String path;
+    /**
+    * @brief Storage backend where the entries are persisted.
+    */
+    private Storage storage;
+    /**
+    * @brief Entries of the database, or null if the file hasn't been parsed yet.
+    */
+    private JSONObject entries;
+    /**
+    * @brief Changes since the last flush, to be written to the storage.
+    */
+    private ArrayList<Storage.Change> pending;
+    /**
+    * @brief Whether the storage could be loaded. A database whose storage couldn't be loaded is never written, so its
+    * entries aren't lost.
+    */
+    private boolean readable;
+    /**
+    * @brief Secondary indexes of the database, indexed by name.
+    */
+    private HashMap<String, Index> indexes;
+    /**
+    * @brief Lock that serializes the writes of the file.
+    */
+    private final Object fileLock;
+
+    /* CONSTRUCTORS */
+
+    /**
+     * @brief Create a Database instance.
+     * @pre <em>True</em>
+     * @post A Database of the given file persisted in the given storage is created. The storage isn't loaded yet.
+     * @param path Path of the JSON file of the database.
+     * @param storage Storage backend where the entries are persisted.
+     */
+    private Database(String path, Storage storage) {
+        this.path = path;
+        this.storage = storage;
+        this.entries = null;
+        this.pending = new ArrayList<Storage.Change>();
+        this.readable = true;
+        this.indexes = new HashMap<String, Index>();
+        this.fileLock = new Object();
+    }
+
+    /* METHODS */
+
+    /**
+     * @brief Method that returns the Database of a file.
+     * @pre <em>True</em>
+     * @post The Database of the given file is returned, and created with the current storage type if it is the first
+     * time it is accessed.
+     * @param path Path of the JSON file of the database.
+     * @return Database of the file.
+     */
+    static synchronized Database of(String path) {
+        Database database = Database.databases.get(path);
+        if (database == null) {
+            if (Database.writer == null) Database.startWriter();
+            database = new Database(path, Database.storage(path, Database.storageType));
+            Database.databases.put(path, database);
+        }
+        return database;
+    }
+
+    /**
+     * @brief Method that sets the flush interval of the background writer.
+     * @pre The given interval is not negative.
+     * @post All the databases are flushed and then they are flushed every given milliseconds, or on every write if it is 0.
+     * @param milliseconds Milliseconds between the flushes, or 0 to write the file on every write.
+     */
+    static synchronized void setFlushInterval(long milliseconds) {
+        Database.flushAll();
+        Database.flushInterval = milliseconds;
+        if (Database.writer != null) Database.scheduleFlush();
+    }
+
+    /**
+     * @brief Method that sets the log threshold.
+     * @pre The given threshold is not negative.
+     * @post The databases are compacted by the flush where their log reaches the given size.
+     * @param bytes Size in bytes of the log of a database from which it is compacted.
+     */
+    static void setLogThreshold(long bytes) {
+        JSONStorage.setLogThreshold(bytes);
+    }
+
+    /**
+     * @brief Method that sets the storage backend of the databases.
+     * @pre No database has been accessed yet.
+     * @post The databases are persisted with the given storage backend.
+     * @param storageType Storage backend of the databases.
+     * @throws IllegalStateException If a database has already been accessed.
+     */
+    static synchronized void setStorageType(StorageType storageType) {
+        if (!Database.databases.isEmpty()) throw new IllegalStateException("ERR_STORAGE_IN_USE");
+        Database.storageType = storageType;
+    }
+
+    /**
+     * @brief Method that copies a database from a storage backend to another one.
+     * @pre The database hasn't been accessed yet.
+     * @post The given storage backend of the given database contains exactly the entries of the other storage backend,
+     * which isn't modified. The number of copied entries is returned.
+     * @param path Path of the JSON file of the database.
+     * @param from Storage backend to be read.
+     * @param to Storage backend to be written.
+     * @return Number of copied entries.
+     * @throws IOException If the database doesn't exist in the storage backend to be read, or it can't be read or written.
+     */
+    static int migrate(String path, StorageType from, StorageType to) throws IOException {
+        Storage source = Database.storage(path, from);
+        if (!source.exists()) throw new IOException("Database " + path + " doesn't exist in the " + from + " storage");
+
+        JSONObject entries = source.load();
+        Storage storage = Database.storage(path, to);
+        storage.replace(entries);
+        if (storage instanceof PageStorage) ((PageStorage) storage).close();
+        return entries.length();
+    }
+
+    /**
+     * @brief Private method that seeds a storage backend that doesn't exist yet with the JSON file of its database.
+     * So the first run with another storage backend starts with the entries of the JSON databases, as if they had been
+     * migrated, instead of with empty databases.
+     * @pre The given storage doesn't exist.
+     * @post If the given storage isn't the JSON one and the JSON file of the database exists, the storage contains exactly
+     * its entries. Otherwise nothing is done.
+     * @param path Path of the JSON file of the database.
+     * @param storage Storage backend of the database.
+     * @throws IOException If the JSON file can't be read or the storage can't be written.
+     */
+    private static void seed(String path, Storage storage) throws IOException {
+        if (storage instanceof JSONStorage) return;
+
+        Storage json = Database.storage(path, StorageType.JSON);
+        if (json.exists()) storage.replace(json.load());
+    }
+
+    /**
+     * @brief Private method that returns the storage backend of a database.
+     * @pre <em>True</em>
+     * @post A Storage of the given type for the given database is returned: its JSON file, or a page file with the same
+     * path and the extension ".db".
+     * @param path Path of the JSON file of the database.
+     * @param storageType Type of the storage backend.
+     * @return Storage backend of the database.
+     */
+    private static Storage storage(String path, StorageType storageType) {
+        if (storageType == StorageType.PAGES) return new PageStorage(path.replaceAll("\\.json$", "") + ".db");
+        return new JSONStorage(path);
+    }
+
+    /**
+     * @brief Private method that returns the default storage backend.
+     * @pre <em>True</em>
+     * @post The storage backend named by the system property othello.storage ("json" or "pages") is returned, or JSON
+     * if it isn't set.
+     * @return Default storage backend.
+     */
+    private static StorageType defaultStorageType() {
+        String storageType = System.getProperty("othello.storage", "json");
+        return (storageType.equalsIgnoreCase("pages") ? StorageType.PAGES : StorageType.JSON);
+    }
+
+    /**
+     * @brief Method that flushes all the databases.
+     * @pre <em>True</em>
+     * @post The changes of every database since its last flush have been written.
+     */
+    static void flushAll() {
+        ArrayList<Database> all;
+        synchronized (Database.class) {
+            all = new ArrayList<Database>(Database.databases.values());
+        }
+
+        for (Database database : all)
+            database.flush();
+    }
+
+    /**
+     * @brief Private method that starts the background writer.
+     * @pre The background writer hasn't been started.
+     * @post The background writer flushes the databases every flush interval, and all of them when the application exits.
+     */
+    private static void startWriter() {
+        Database.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "database-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Database.scheduleFlush();
+        Runtime.getRuntime().addShutdownHook(new Thread(Database::flushAll, "database-shutdown"));
+    }
+
+    /**
+     * @brief Private method that schedules the periodic flush with the current flush interval.
+     * @pre The background writer has been started.
+     * @post The previous periodic flush is cancelled and a new one is scheduled if the flush interval isn't 0.
+     */
+    private static void scheduleFlush() {
+        if (Database.flushTask != null) Database.flushTask.cancel(false);
+        Database.flushTask = (Database.flushInterval > 0 ? Database.writer.scheduleWithFixedDelay(Database::flushAll,
+                Database.flushInterval, Database.flushInterval, TimeUnit.MILLISECONDS) : null);
+    }
+
+    /**
+     * @brief Obtain all entries of the database.
+     * @pre <em>True</em>
+     * @post A JSONObject with all the entries of the database is returned. It can be modified, but its entries can't.
+     * @return JSONObject with the entries of the database.
+     */
+    synchronized JSONObject list() {
+        JSONObject entries = this.load();
+        JSONObject list = new JSONObject();
+        for (String key : entries.keySet())
+            list.put(key, entries.get(key));
+        return list;
+    }
+
+    /**
+     * @brief Obtain a copy of an entry of the database by key.
+     * @pre <em>True</em>
+     * @post A copy of the key entry of the database is returned or null if it does not exist.
+     * @param key Key of the entry.
+     * @return Copy of the key entry or null if it does not exist.
+     */
+    synchronized JSONObject get(String key) {
+        JSONObject entry = this.load().optJSONObject(key);
+        return (entry == null ? null : Database.copy(entry));
+    }
+
+    /**
+     * @brief Add a secondary index to the database if it doesn't have it yet.
+     * @pre <em>True</em>
+     * @post The database has an index with the given name. If it is new, it indexes the entries by the values returned by
+     * the given function. It is built from the loaded entries the first time it is looked up, and then it is kept up to
+     * date by every write.
+     * @param name Name of the index.
+     * @param values Function that returns the indexed values of an entry. It must not modify the entry.
+     */
+    synchronized void addIndex(String name, Function<JSONObject, Collection<String>> values) {
+        this.indexes.putIfAbsent(name, new Index(values));
+    }
+
+    /**
+     * @brief Look up the keys of the entries with a value in a secondary index.
+     * @pre The database has an index with the given name.
+     * @post An ArrayList with the keys of the entries indexed by the given value is returned, in the order they were indexed.
+     * @param name Name of the index.
+     * @param value Indexed value.
+     * @return ArrayList of the keys of the entries with the value.
+     */
+    synchronized ArrayList<String> lookup(String name, String value) {
+        LinkedHashSet<String> keys = this.buildIndex(name).keys.get(value);
+        return (keys == null ? new ArrayList<String>() : new ArrayList<String>(keys));
+    }
+
+    /**
+     * @brief Count the entries with a value in a secondary index.
+     * @pre The database has an index with the given name.
+     * @post The number of entries indexed by the given value is returned.
+     * @param name Name of the index.
+     * @param value Indexed value.
+     * @return Number of entries with the value.
+     */
+    synchronized int count(String name, String value) {
+        LinkedHashSet<String> keys = this.buildIndex(name).keys.get(value);
+        return (keys == null ? 0 : keys.size());
+    }
+
+    /**
+     * @brief Private method that returns a secondary index, building it the first time.
+     * @pre The caller holds the lock of the database. The database has an index with the given name.
+     * @post The index with the given name is returned, with all the entries of the database.
+     * @param name Name of the index.
+     * @return Built index.
+     */
+    private Index buildIndex(String name) {
+        Index index = this.indexes.get(name);
+        if (index.keys != null) return index;
+
+        JSONObject entries = this.load();
+        index.keys = new HashMap<String, LinkedHashSet<String>>();
+        for (String key : entries.keySet()) {
+            JSONObject entry = entries.optJSONObject(key);
+            if (entry != null) index.add(key, entry);
+        }
+        return index;
+    }
+
+    /**
+     * @brief Create an entry of the database by key or update it if it does exist.
+     * @pre <em>True</em>
+     * @post A copy of the given value is stored as the key entry of the database, which will be written by the next flush.
+     * @param key Key of the entry.
+     * @param value Value of the entry.
+     */
+    void put(String key, JSONObject value) {
+        String json = value.toString();
+        JSONObject copy = new JSONObject(json);
+        synchronized (this) {
+            JSONObject previous = this.load().optJSONObject(key);
+            this.load().put(key, copy);
+            for (Index index : this.indexes.values()) {
+                if (index.keys == null) continue;
+                if (previous != null) index.remove(key, previous);
+                index.add(key, copy);
+            }
+            this.pending.add(new Storage.Change(key, json));
+        }
+        if (Database.flushInterval == 0) this.flush();
+    }
+
+    /**
+     * @brief Remove an entry of the database by key if it does exist.
+     * @pre <em>True</em>
+     * @post The key entry is removed from the database if it does exist, which will be written by the next flush.
+     * @param key Key of the entry.
+     */
+    void remove(String key) {
+        synchronized (this) {
+            Object previous = this.load().remove(key);
+            if (previous == null) return;
+            for (Index index : this.indexes.values())
+                if (index.keys != null && previous instanceof JSONObject) index.remove(key, (JSONObject) previous);
+            this.pending.add(new Storage.Change(key, null));
+        }
+        if (Database.flushInterval == 0) this.flush();
+    }
+
+    /**
+     * @brief Write the changes of the database since the last flush to its storage.
+     * @pre <em>True</em>
+     * @post If the database was modified and its storage could be loaded, its storage contains all the entries of the
+     * database. If the write fails, the changes are kept so the next flush writes them again.
+     */
+    void flush() {
+        synchronized (this.fileLock) {
+            ArrayList<Storage.Change> changes;
+            synchronized (this) {
+                if (this.pending.isEmpty()) return;
+                if (!this.readable) {
+                    System.err.println("Database " + this.path + " can't be read, so it isn't written");
+                    return;
+                }
+
+                changes = this.pending;
+                this.pending = new ArrayList<Storage.Change>();
+            }
+
+            try {
+                this.storage.write(changes, this::list);
+            } catch (Exception e) {
+                e.printStackTrace();
+                synchronized (this) {
+                    this.pending.addAll(0, changes);
+                }
+            }
+        }
+    }
+
+    /**
+     * @brief Private method that returns the entries of the database, loading them from its storage the first time.
+     * @pre The caller holds the lock of the database.
+     * @post The entries of the database are returned. If the storage doesn't exist yet, it is seeded from the JSON file of
+     * the database first. If the storage can't be loaded, the database is empty and it is marked as not readable, so the
+     * storage isn't replaced.
+     * @return Entries of the database.
+     */
+    private JSONObject load() {
+        if (this.entries != null) return this.entries;
+
+        try {
+            if (!this.storage.exists()) Database.seed(this.path, this.storage);
+            this.entries = this.storage.load();
+        } catch (Exception e) {
+            e.printStackTrace();
+            this.entries = new JSONObject();
+            this.readable = false;
+        }
+        return this.entries;
+    }
+
+    /**
+     * @brief Private method that returns a copy of an entry.
+     * @pre <em>True</em>
+     * @post A deep copy of the given JSONObject is returned.
+     * @param entry JSONObject to be copied.
+     * @return Copy of the entry.
+     */
+    private static JSONObject copy(JSONObject entry) {
+        return new JSONObject(entry.toString());
+    }
+}
@@ -6,6 +6,7 @@
 package repository;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import org.json.JSONObject;
 
@@ -16,6 +17,18 @@ import org.json.JSONObject;
  * @see repository.Repository
  */
 public class GameRepository extends Repository {
+    /* CONSTANTS */
+
+    /**
+    * @brief Name of the index of the Game names by Player ID (first player, second player or creator).
+    */
+    private static final String playerIndex = "player_id";
+
+    /**
+    * @brief Name of the index of the Game names by Configuration name.
+    */
+    private static final String configurationIndex = "configuration_name";
+
     /* ATTRIBUTES */
 
     /* CONSTRUCTORS */
@@ -27,6 +40,9 @@ public class GameRepository extends Repository {
      */
     public GameRepository() {
         super(RepositoryType.GAME);
+        this.addIndex(GameRepository.playerIndex, game -> Arrays.asList(game.optString("player1_id"),
+                game.optString("player2_id"), game.optString("creator_id")));
+        this.addIndex(GameRepository.configurationIndex, game -> Arrays.asList(game.optString("configuration_name")));
     }
 
     /* METHODS */
@@ -83,16 +99,7 @@ public class GameRepository extends Repository {
      * @return Whether there exists a Game with the given Configuration name in the game database.
      */
     public Boolean existsGameByConfigurationName(String configurationName) {
-        JSONObject all = this.list();
-
-        JSONObject current;
-        for (String key : all.keySet()) {
-            current = all.getJSONObject(key);
-            if (current.getString("configuration_name").equals(configurationName))
-                return true;
-        }
-
-        return false;
+        return this.count(GameRepository.configurationIndex, configurationName) > 0;
     }
 
     /**
@@ -103,17 +110,7 @@ public class GameRepository extends Repository {
      * @return Whether there exists a Game with the given Player ID in the game database.
      */
     public Boolean existsGameByPlayerID(String playerID) {
-        JSONObject all = this.list();
-
-        JSONObject current;
-        for (String key : all.keySet()) {
-            current = all.getJSONObject(key);
-            if (current.getString("player1_id").equals(playerID) || current.getString("player2_id").equals(playerID)
-                    || current.getString("creator_id").equals(playerID))
-                return true;
-        }
-
-        return false;
+        return this.count(GameRepository.playerIndex, playerID) > 0;
     }
 
     /**
@@ -124,17 +121,6 @@ public class GameRepository extends Repository {
      * @return ArrayList of the Game names by Player ID of the game database.
      */
     public ArrayList<String> listGames(String playerID) {
-        ArrayList<String> list = new ArrayList<String>();
-        JSONObject all = this.list();
-
-        JSONObject current;
-        for (String key : all.keySet()) {
-            current = all.getJSONObject(key);
-            if (current.getString("player1_id").equals(playerID) || current.getString("player2_id").equals(playerID)
-                    || current.getString("creator_id").equals(playerID))
-                list.add(key);
-        }
-
-        return list;
+        return this.lookup(GameRepository.playerIndex, playerID);
     }
 }
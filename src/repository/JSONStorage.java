@@ -0,0 +1,220 @@
+/**
+ * @file JSONStorage.java
+ * @author Alex Rodriguez
+ * @brief JSONStorage class specification.
+ */
+package repository;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+/**
+ * @class JSONStorage
+ * @brief Implements the storage of a Database as a pretty-printed JSON file with an append-only log.
+ * The JSON file is a snapshot, and the changes since the snapshot are appended to a log next to it (the same path with
+ * ".log"), one JSON record per line: the key and the new value of an upserted entry, or only the key of a removed one.
+ * So the cost of a write depends on the size of the changes instead of the size of the database. When the log reaches
+ * the log threshold, the database is compacted: the snapshot is replaced atomically with all the entries and the log is
+ * deleted. The log is replayed over the snapshot when the database is loaded.
+ * By Alex Rodriguez.
+ * @see repository.Storage
+ */
+class JSONStorage implements Storage {
+    /* ATTRIBUTES */
+
+    /**
+    * @brief Size in bytes of the log from which a database is compacted.
+    */
+    private static long logThreshold = 1 << 20;
+    /**
+    * @brief Path of the JSON file.
+    */
+    private String path;
+    /**
+    * @brief Size in bytes of the log.
+    */
+    private long logBytes;
+    /**
+    * @brief Whether the next write has to compact the database even if the log is small.
+    */
+    private boolean compact;
+
+    /* CONSTRUCTORS */
+
+    /**
+     * @brief Create a JSONStorage instance.
+     * @pre <em>True</em>
+     * @post A JSONStorage of the given JSON file is created.
+     * @param path Path of the JSON file.
+     */
+    JSONStorage(String path) {
+        this.path = path;
+        this.logBytes = 0;
+        this.compact = false;
+    }
+
+    /* METHODS */
+
+    /**
+     * @brief Method that sets the log threshold.
+     * @pre The given threshold is not negative.
+     * @post The databases are compacted by the write where their log reaches the given size.
+     * @param bytes Size in bytes of the log from which a database is compacted.
+     */
+    static synchronized void setLogThreshold(long bytes) {
+        JSONStorage.logThreshold = bytes;
+    }
+
+    /**
+     * @brief Check whether the files of the storage exist.
+     * @pre <em>True</em>
+     * @post Whether the JSON file or its log exist is returned.
+     * @return Whether the files exist.
+     */
+    public boolean exists() {
+        return Files.exists(Paths.get(this.path)) || Files.exists(Paths.get(this.path + ".log"));
+    }
+
+    /**
+     * @brief Load all the entries, parsing the JSON file and replaying its log.
+     * @pre <em>True</em>
+     * @post A JSONObject with all the stored entries is returned. If the log ends with a partial record, written by a crash
+     * in the middle of an append, the rest of the log is ignored and the next write compacts the database.
+     * @return JSONObject with the stored entries.
+     * @throws IOException If the JSON file exists but can't be parsed.
+     */
+    public JSONObject load() throws IOException {
+        JSONObject entries = new JSONObject();
+        if (Files.exists(Paths.get(this.path))) {
+            try (InputStream reader = new BufferedInputStream(new FileInputStream(this.path))) {
+                entries = new JSONObject(new JSONTokener(new InputStreamReader(reader, StandardCharsets.UTF_8)));
+            } catch (JSONException e) {
+                throw new IOException("Database " + this.path + " can't be parsed", e);
+            }
+        }
+
+        Path log = Paths.get(this.path + ".log");
+        if (!Files.exists(log)) return entries;
+        try (BufferedReader reader = Files.newBufferedReader(log, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                JSONObject record;
+                try {
+                    record = new JSONObject(line);
+                } catch (JSONException e) {
+                    // Only the last record can be partial, written by a crash in the middle of an append
+                    this.compact = true;
+                    break;
+                }
+
+                if (record.has("value")) entries.put(record.getString("key"), record.getJSONObject("value"));
+                else entries.remove(record.getString("key"));
+            }
+        }
+        this.logBytes = Files.size(log);
+        return entries;
+    }
+
+    /**
+     * @brief Write the changes of a flush.
+     * @pre The entries have been loaded.
+     * @post The changes are appended to the log and synced to the disk, or the database is compacted if the log reaches
+     * the log threshold. If an append fails, the next write compacts the database, because the log can end with a
+     * partial record.
+     * @param changes Changes since the last write.
+     * @param entries Function that returns all the current entries, used to compact the database.
+     * @throws IOException If the changes can't be written.
+     */
+    public void write(List<Change> changes, Supplier<JSONObject> entries) throws IOException {
+        StringBuilder records = new StringBuilder();
+        for (Change change : changes) {
+            records.append("{\"key\":").append(JSONObject.quote(change.key));
+            if (change.value != null) records.append(",\"value\":").append(change.value);
+            records.append("}\n");
+        }
+
+        if (this.compact || this.logBytes + records.length() >= JSONStorage.logThreshold) {
+            this.replace(entries.get());
+            return;
+        }
+
+        try (FileOutputStream stream = new FileOutputStream(this.path + ".log", true)) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+            writer.write(records.toString());
+            writer.flush();
+            stream.getFD().sync();
+            this.logBytes = stream.getChannel().size();
+        } catch (IOException e) {
+            this.compact = true;
+            throw e;
+        }
+    }
+
+    /**
+     * @brief Replace all the stored entries, compacting the database.
+     * The entries are written to a temporary file next to the JSON file, which is synced to the disk and then renamed
+     * atomically over the JSON file. So a crash or a reader in the middle of a write finds the previous complete file.
+     * Then the log is deleted.
+     * @pre <em>True</em>
+     * @post The JSON file contains exactly the given entries and there isn't any log.
+     * @param entries New entries.
+     * @throws IOException If the entries can't be written.
+     */
+    public void replace(JSONObject entries) throws IOException {
+        Path file = Paths.get(this.path);
+        Path temporary = Paths.get(this.path + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(temporary.toFile())) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+            entries.write(writer, 2, 0);
+            writer.flush();
+            stream.getFD().sync();
+        }
+
+        try {
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        JSONStorage.syncDirectory(file.toAbsolutePath().getParent());
+
+        Files.deleteIfExists(Paths.get(this.path + ".log"));
+        this.logBytes = 0;
+        this.compact = false;
+    }
+
+    /**
+     * @brief Method that syncs a directory to the disk, so the renames of its files are durable.
+     * @pre <em>True</em>
+     * @post The given directory is synced if the file system allows it. Otherwise nothing is done.
+     * @param directory Path of the directory.
+     */
+    static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (Exception e) {
+            // Directories can't be opened on every platform (e.g. Windows), where the rename is durable by itself
+        }
+    }
+}
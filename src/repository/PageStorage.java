@@ -0,0 +1,605 @@
+/**
+ * @file PageStorage.java
+ * @author Alex Rodriguez
+ * @brief PageStorage class specification.
+ */
+package repository;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+import org.json.JSONObject;
+
+/**
+ * @class PageStorage
+ * @brief Implements the storage of a Database as a binary key-value file of fixed-size pages with a hash index.
+ * The file is made of pages of PAGE_SIZE bytes, read and written through a FileChannel. The first page is the header
+ * (magic number, version, page size, number of buckets and first page of the directory). The directory is a run of pages
+ * with the first page of each bucket, and the entries of a bucket are stored in a chain of pages: each page has the next
+ * page of the chain, the number of bytes used and then the records (key length, value length, UTF-8 key and UTF-8 JSON
+ * value), which can continue in the next page. The bucket of a key is given by its hash, so writing an entry only reads
+ * and writes its bucket, which has about one page.
+ * The buckets are written copy-on-write: their new pages are synced before the directory points to them, and only then
+ * the old pages are reused. When the buckets are too full, their number is doubled and the header points to a new
+ * directory. The pages that aren't reachable from the directory are free, and they are found again when the file is loaded.
+ * By Alex Rodriguez.
+ * @see repository.Storage
+ */
+class PageStorage implements Storage {
+    /* ATTRIBUTES */
+
+    /**
+    * @brief Size in bytes of the pages.
+    */
+    static final int PAGE_SIZE = 4096;
+    /**
+    * @brief Magic number at the start of the file ("OKVS").
+    */
+    private static final int MAGIC = 0x4F4B5653;
+    /**
+    * @brief Version of the file format.
+    */
+    private static final short VERSION = 1;
+    /**
+    * @brief Size in bytes of the header of a page of a bucket (next page and used bytes).
+    */
+    private static final int PAGE_HEADER = 8;
+    /**
+    * @brief Number of buckets of a new file.
+    */
+    private static final int INITIAL_BUCKETS = 64;
+    /**
+    * @brief Maximum mean fraction of a page used by the buckets before their number is doubled.
+    */
+    private static final double MAX_LOAD = 0.75;
+    /**
+    * @brief Path of the file.
+    */
+    private String path;
+    /**
+    * @brief Channel of the file, or null if it isn't open.
+    */
+    private FileChannel channel;
+    /**
+    * @brief Number of buckets, a power of 2.
+    */
+    private int buckets;
+    /**
+    * @brief First page of the directory.
+    */
+    private int directory;
+    /**
+    * @brief First page of each bucket, or 0 if it is empty.
+    */
+    private int[] heads;
+    /**
+    * @brief Size in bytes of the records of each bucket.
+    */
+    private int[] sizes;
+    /**
+    * @brief Size in bytes of the records of all the buckets.
+    */
+    private long bytes;
+    /**
+    * @brief Number of pages of the file.
+    */
+    private int pages;
+    /**
+    * @brief Free pages of the file.
+    */
+    private TreeSet<Integer> free;
+
+    /* CONSTRUCTORS */
+
+    /**
+     * @brief Create a PageStorage instance.
+     * @pre <em>True</em>
+     * @post A PageStorage of the given file is created. The file isn't opened yet.
+     * @param path Path of the file.
+     */
+    PageStorage(String path) {
+        this.path = path;
+        this.channel = null;
+        this.free = new TreeSet<Integer>();
+    }
+
+    /* METHODS */
+
+    /**
+     * @brief Check whether the files of the storage exist.
+     * @pre <em>True</em>
+     * @post Whether the file exists is returned.
+     * @return Whether the files exist.
+     */
+    public boolean exists() {
+        return Files.exists(Paths.get(this.path));
+    }
+
+    /**
+     * @brief Load all the entries, reading every bucket.
+     * @pre <em>True</em>
+     * @post A JSONObject with all the stored entries is returned and the free pages are known.
+     * @return JSONObject with the stored entries.
+     * @throws IOException If the file exists but isn't a valid PageStorage file.
+     */
+    public JSONObject load() throws IOException {
+        JSONObject entries = new JSONObject();
+        if (!Files.exists(Paths.get(this.path))) return entries;
+
+        this.open();
+        BitSet used = new BitSet(this.pages);
+        used.set(0);
+        used.set(this.directory, this.directory + PageStorage.directoryPages(this.buckets));
+        for (int bucket = 0; bucket < this.buckets; ++bucket) {
+            for (Map.Entry<String, byte[]> record : this.readBucket(bucket, used).entrySet()) {
+                entries.put(record.getKey(), new JSONObject(new String(record.getValue(), StandardCharsets.UTF_8)));
+                this.sizes[bucket] += 8 + record.getKey().getBytes(StandardCharsets.UTF_8).length + record.getValue().length;
+            }
+            this.bytes += this.sizes[bucket];
+        }
+
+        this.free.clear();
+        for (int page = used.nextClearBit(1); page < this.pages; page = used.nextClearBit(page + 1))
+            this.free.add(page);
+        return entries;
+    }
+
+    /**
+     * @brief Write the changes of a flush, rewriting only their buckets.
+     * @pre The entries have been loaded.
+     * @post The changed buckets point to new pages with the given changes, and the number of buckets is doubled if they
+     * are too full. The size of a bucket is only updated when the directory points to its new pages, so a write that fails
+     * can be retried. If the new pages can't be written, they are free again.
+     * @param changes Changes since the last write.
+     * @param entries Not used, since the changes are written in place.
+     * @throws IOException If the changes can't be written.
+     */
+    public void write(List<Change> changes, Supplier<JSONObject> entries) throws IOException {
+        if (this.channel == null) {
+            if (Files.exists(Paths.get(this.path))) this.load();
+            else this.create(INITIAL_BUCKETS);
+        }
+
+        LinkedHashMap<Integer, ArrayList<Change>> buckets = new LinkedHashMap<Integer, ArrayList<Change>>();
+        for (Change change : changes)
+            buckets.computeIfAbsent(this.bucket(change.key), bucket -> new ArrayList<Change>()).add(change);
+
+        HashMap<Integer, Integer> heads = new HashMap<Integer, Integer>();
+        HashMap<Integer, Integer> sizes = new HashMap<Integer, Integer>();
+        BitSet released = new BitSet();
+        BitSet allocated = new BitSet();
+        try {
+            for (Map.Entry<Integer, ArrayList<Change>> bucket : buckets.entrySet()) {
+                LinkedHashMap<String, byte[]> records = this.readBucket(bucket.getKey(), released);
+                for (Change change : bucket.getValue()) {
+                    if (change.value == null) records.remove(change.key);
+                    else records.put(change.key, change.value.getBytes(StandardCharsets.UTF_8));
+                }
+                byte[] content = PageStorage.encode(records);
+                heads.put(bucket.getKey(), this.writeBucket(content, allocated));
+                sizes.put(bucket.getKey(), content.length);
+            }
+            this.channel.force(false);
+        } catch (IOException e) {
+            // The directory doesn't point to any of the new pages yet
+            for (int page = allocated.nextSetBit(0); page >= 0; page = allocated.nextSetBit(page + 1))
+                this.free.add(page);
+            throw e;
+        }
+
+        // The new pages are durable, so the directory can point to them and the old ones can be reused
+        for (Map.Entry<Integer, Integer> head : heads.entrySet()) {
+            int bucket = head.getKey(), size = sizes.get(bucket);
+            this.writeInt((long) this.directory * PAGE_SIZE + 4L * bucket, head.getValue());
+            this.heads[bucket] = head.getValue();
+            this.bytes += size - this.sizes[bucket];
+            this.sizes[bucket] = size;
+        }
+        this.channel.force(false);
+        for (int page = released.nextSetBit(0); page >= 0; page = released.nextSetBit(page + 1))
+            this.free.add(page);
+
+        if (this.bytes > (long) (MAX_LOAD * this.buckets * (PAGE_SIZE - PAGE_HEADER))) this.resize(2 * this.buckets);
+    }
+
+    /**
+     * @brief Replace all the stored entries.
+     * The entries are written to a new file next to the file, which is synced to the disk and then renamed atomically over
+     * the file, so the previous entries are kept if the write fails.
+     * @pre <em>True</em>
+     * @post The file contains exactly the given entries, with enough buckets for them.
+     * @param entries New entries.
+     * @throws IOException If the entries can't be written.
+     */
+    public void replace(JSONObject entries) throws IOException {
+        ArrayList<Change> changes = new ArrayList<Change>();
+        long bytes = 0;
+        for (String key : entries.keySet()) {
+            String value = entries.getJSONObject(key).toString();
+            changes.add(new Change(key, value));
+            bytes += 8 + key.length() + value.length();
+        }
+
+        int buckets = INITIAL_BUCKETS;
+        while (bytes > (long) (MAX_LOAD * buckets * (PAGE_SIZE - PAGE_HEADER)))
+            buckets *= 2;
+
+        Path file = Paths.get(this.path);
+        Path temporary = Paths.get(this.path + ".tmp");
+        Files.deleteIfExists(temporary);
+        PageStorage storage = new PageStorage(temporary.toString());
+        try {
+            storage.create(buckets);
+            storage.write(changes, null);
+        } finally {
+            storage.close();
+        }
+
+        this.close();
+        try {
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        JSONStorage.syncDirectory(file.toAbsolutePath().getParent());
+    }
+
+    /**
+     * @brief Close the file.
+     * @pre <em>True</em>
+     * @post The channel of the file is closed. The next write loads the file again.
+     * @throws IOException If the file can't be closed.
+     */
+    void close() throws IOException {
+        if (this.channel != null) this.channel.close();
+        this.channel = null;
+    }
+
+    /**
+     * @brief Private method that opens the file and reads its header and directory.
+     * @pre The file exists.
+     * @post The channel of the file is open and the buckets are known. A partial page at the end of the file, left by a
+     * crash in the middle of an append, is truncated: it can't be reachable, since the pages are synced before the
+     * directory points to them.
+     * @throws IOException If the file isn't a valid PageStorage file.
+     */
+    private void open() throws IOException {
+        this.close();
+        this.channel = FileChannel.open(Paths.get(this.path), StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        ByteBuffer header = (this.channel.size() >= PAGE_SIZE ? this.readPage(0) : ByteBuffer.allocate(PAGE_SIZE));
+        if (header.getInt(0) != MAGIC || header.getShort(4) != VERSION || header.getInt(8) != PAGE_SIZE) {
+            this.close();
+            throw new IOException("Database " + this.path + " isn't a valid page file");
+        }
+
+        this.pages = (int) (this.channel.size() / PAGE_SIZE);
+        if (this.channel.size() % PAGE_SIZE != 0) this.channel.truncate((long) this.pages * PAGE_SIZE);
+        this.buckets = header.getInt(12);
+        this.directory = header.getInt(16);
+        this.heads = new int[this.buckets];
+        this.sizes = new int[this.buckets];
+        this.bytes = 0;
+        for (int page = 0; page < PageStorage.directoryPages(this.buckets); ++page) {
+            ByteBuffer buffer = this.readPage(this.directory + page);
+            for (int i = 0; i < PAGE_SIZE / 4 && page * (PAGE_SIZE / 4) + i < this.buckets; ++i)
+                this.heads[page * (PAGE_SIZE / 4) + i] = buffer.getInt(4 * i);
+        }
+    }
+
+    /**
+     * @brief Private method that creates an empty file.
+     * @pre <em>True</em>
+     * @post The file contains the header and a directory of the given number of empty buckets, and its channel is open.
+     * @param buckets Number of buckets, a power of 2.
+     * @throws IOException If the file can't be written.
+     */
+    private void create(int buckets) throws IOException {
+        this.close();
+        this.channel = FileChannel.open(Paths.get(this.path), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.pages = 1;
+        this.free.clear();
+        this.buckets = buckets;
+        this.directory = this.allocateRun(PageStorage.directoryPages(buckets));
+        this.heads = new int[buckets];
+        this.sizes = new int[buckets];
+        this.bytes = 0;
+        this.writeDirectory(this.directory, this.heads);
+        this.writeHeader(this.buckets, this.directory);
+        this.channel.force(false);
+    }
+
+    /**
+     * @brief Private method that doubles the number of buckets.
+     * @pre The file is open.
+     * @post The entries are distributed in the given number of buckets, written to new pages, and the header points to
+     * the new directory. The old pages are free. If the new pages can't be written, the buckets aren't changed and the new
+     * pages are free again.
+     * @param buckets New number of buckets, a power of 2.
+     * @throws IOException If the file can't be written.
+     */
+    private void resize(int buckets) throws IOException {
+        BitSet released = new BitSet();
+        ArrayList<LinkedHashMap<String, byte[]>> records = new ArrayList<LinkedHashMap<String, byte[]>>();
+        for (int bucket = 0; bucket < buckets; ++bucket)
+            records.add(new LinkedHashMap<String, byte[]>());
+        for (int bucket = 0; bucket < this.buckets; ++bucket) {
+            for (Map.Entry<String, byte[]> record : this.readBucket(bucket, released).entrySet())
+                records.get(PageStorage.hash(record.getKey()) & (buckets - 1)).put(record.getKey(), record.getValue());
+        }
+        released.set(this.directory, this.directory + PageStorage.directoryPages(this.buckets));
+
+        int[] heads = new int[buckets];
+        int[] sizes = new int[buckets];
+        long bytes = 0;
+        int directory;
+        BitSet allocated = new BitSet();
+        try {
+            for (int bucket = 0; bucket < buckets; ++bucket) {
+                byte[] content = PageStorage.encode(records.get(bucket));
+                heads[bucket] = this.writeBucket(content, allocated);
+                sizes[bucket] = content.length;
+                bytes += content.length;
+            }
+            directory = this.allocateRun(PageStorage.directoryPages(buckets));
+            allocated.set(directory, directory + PageStorage.directoryPages(buckets));
+            this.writeDirectory(directory, heads);
+            this.channel.force(false);
+        } catch (IOException e) {
+            // The header doesn't point to any of the new pages yet
+            for (int page = allocated.nextSetBit(0); page >= 0; page = allocated.nextSetBit(page + 1))
+                this.free.add(page);
+            throw e;
+        }
+
+        this.writeHeader(buckets, directory);
+        this.buckets = buckets;
+        this.directory = directory;
+        this.heads = heads;
+        this.sizes = sizes;
+        this.bytes = bytes;
+        this.channel.force(false);
+        for (int page = released.nextSetBit(0); page >= 0; page = released.nextSetBit(page + 1))
+            this.free.add(page);
+    }
+
+    /**
+     * @brief Private method that reads the records of a bucket.
+     * @pre The file is open.
+     * @post The records of the given bucket are returned in order, and its pages are set in the given set.
+     * @param bucket Bucket to be read.
+     * @param pages Set where the pages of the bucket are set.
+     * @return Records of the bucket (UTF-8 JSON value by key).
+     * @throws IOException If the file can't be read.
+     */
+    private LinkedHashMap<String, byte[]> readBucket(int bucket, BitSet pages) throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        for (int page = this.heads[bucket]; page != 0;) {
+            ByteBuffer buffer = this.readPage(page);
+            pages.set(page);
+            int used = buffer.getInt(4);
+            if (used < 0 || used > PAGE_SIZE - PAGE_HEADER)
+                throw new IOException("Database " + this.path + " has an invalid page " + page);
+            stream.write(buffer.array(), PAGE_HEADER, used);
+            page = buffer.getInt(0);
+        }
+
+        LinkedHashMap<String, byte[]> records = new LinkedHashMap<String, byte[]>();
+        ByteBuffer buffer = ByteBuffer.wrap(stream.toByteArray());
+        while (buffer.remaining() >= 8) {
+            byte[] key = new byte[buffer.getInt()];
+            byte[] value = new byte[buffer.getInt()];
+            buffer.get(key).get(value);
+            records.put(new String(key, StandardCharsets.UTF_8), value);
+        }
+        return records;
+    }
+
+    /**
+     * @brief Private method that encodes the records of a bucket.
+     * @pre <em>True</em>
+     * @post The content of the pages of a bucket with the given records is returned: the key length, the value length, the
+     * UTF-8 key and the value of each record.
+     * @param records Records of the bucket (UTF-8 JSON value by key).
+     * @return Content of the bucket.
+     * @throws IOException If the records can't be encoded.
+     */
+    private static byte[] encode(LinkedHashMap<String, byte[]> records) throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(stream);
+        for (Map.Entry<String, byte[]> record : records.entrySet()) {
+            byte[] key = record.getKey().getBytes(StandardCharsets.UTF_8);
+            data.writeInt(key.length);
+            data.writeInt(record.getValue().length);
+            data.write(key);
+            data.write(record.getValue());
+        }
+        return stream.toByteArray();
+    }
+
+    /**
+     * @brief Private method that writes the content of a bucket to new pages.
+     * @pre The file is open.
+     * @post The given content is written to a new chain of pages, not synced, whose pages are set in the given set. The
+     * directory and the size of the bucket aren't modified.
+     * @param content Content of the bucket, as returned by encode.
+     * @param allocated Set where the allocated pages are set.
+     * @return First page of the chain, or 0 if the content is empty.
+     * @throws IOException If the file can't be written.
+     */
+    private int writeBucket(byte[] content, BitSet allocated) throws IOException {
+        if (content.length == 0) return 0;
+
+        int chunks = (content.length + PAGE_SIZE - PAGE_HEADER - 1) / (PAGE_SIZE - PAGE_HEADER);
+        int[] pages = new int[chunks];
+        for (int i = 0; i < chunks; ++i) {
+            pages[i] = this.allocate();
+            allocated.set(pages[i]);
+        }
+
+        for (int i = 0; i < chunks; ++i) {
+            int offset = i * (PAGE_SIZE - PAGE_HEADER);
+            int used = Math.min(PAGE_SIZE - PAGE_HEADER, content.length - offset);
+            ByteBuffer buffer = ByteBuffer.allocate(PAGE_SIZE);
+            buffer.putInt(i + 1 < chunks ? pages[i + 1] : 0).putInt(used).put(content, offset, used);
+            this.writePage(pages[i], buffer);
+        }
+        return pages[0];
+    }
+
+    /**
+     * @brief Private method that writes a directory.
+     * @pre The file is open and the pages of the directory are allocated.
+     * @post The pages of the directory starting at the given page contain the given first page of each bucket.
+     * @param directory First page of the directory.
+     * @param heads First page of each bucket.
+     * @throws IOException If the file can't be written.
+     */
+    private void writeDirectory(int directory, int[] heads) throws IOException {
+        for (int page = 0; page < PageStorage.directoryPages(heads.length); ++page) {
+            ByteBuffer buffer = ByteBuffer.allocate(PAGE_SIZE);
+            for (int i = 0; i < PAGE_SIZE / 4 && page * (PAGE_SIZE / 4) + i < heads.length; ++i)
+                buffer.putInt(4 * i, heads[page * (PAGE_SIZE / 4) + i]);
+            this.writePage(directory + page, buffer);
+        }
+    }
+
+    /**
+     * @brief Private method that writes the header.
+     * @pre The file is open.
+     * @post The first page contains the header with the given number of buckets and directory.
+     * @param buckets Number of buckets.
+     * @param directory First page of the directory.
+     * @throws IOException If the file can't be written.
+     */
+    private void writeHeader(int buckets, int directory) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(PAGE_SIZE);
+        buffer.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putInt(PAGE_SIZE).putInt(buckets).putInt(directory);
+        this.writePage(0, buffer);
+    }
+
+    /**
+     * @brief Private method that allocates a page.
+     * @pre The file is open.
+     * @post The lowest free page is returned, or a new page at the end of the file if there isn't any.
+     * @return Allocated page.
+     */
+    private int allocate() {
+        Integer page = this.free.pollFirst();
+        return (page != null ? page : this.pages++);
+    }
+
+    /**
+     * @brief Private method that allocates consecutive pages at the end of the file.
+     * @pre The file is open.
+     * @post The first of the given number of new pages at the end of the file is returned.
+     * @param count Number of pages.
+     * @return First allocated page.
+     */
+    private int allocateRun(int count) {
+        int first = this.pages;
+        this.pages += count;
+        return first;
+    }
+
+    /**
+     * @brief Private method that reads a page.
+     * @pre The file is open and it has the given page.
+     * @post A buffer with the content of the given page is returned.
+     * @param page Page to be read.
+     * @return Content of the page.
+     * @throws IOException If the page can't be read.
+     */
+    private ByteBuffer readPage(int page) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(PAGE_SIZE);
+        long position = (long) page * PAGE_SIZE;
+        while (buffer.hasRemaining()) {
+            if (this.channel.read(buffer, position + buffer.position()) < 0)
+                throw new IOException("Database " + this.path + " is truncated at page " + page);
+        }
+        return buffer.clear();
+    }
+
+    /**
+     * @brief Private method that writes a page.
+     * @pre The file is open.
+     * @post The given page contains the given buffer.
+     * @param page Page to be written.
+     * @param buffer Content of the page, PAGE_SIZE bytes.
+     * @throws IOException If the page can't be written.
+     */
+    private void writePage(int page, ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        long position = (long) page * PAGE_SIZE;
+        while (buffer.hasRemaining())
+            this.channel.write(buffer, position + buffer.position());
+    }
+
+    /**
+     * @brief Private method that writes an int of the file.
+     * @pre The file is open.
+     * @post The given position of the file contains the given value.
+     * @param position Position in bytes.
+     * @param value Value to be written.
+     * @throws IOException If the file can't be written.
+     */
+    private void writeInt(long position, int value) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4).putInt(value);
+        buffer.flip();
+        while (buffer.hasRemaining())
+            this.channel.write(buffer, position + buffer.position());
+    }
+
+    /**
+     * @brief Private method that returns the bucket of a key.
+     * @pre The file is open.
+     * @post The bucket where the entry of the given key is stored is returned.
+     * @param key Key of an entry.
+     * @return Bucket of the key.
+     */
+    private int bucket(String key) {
+        return PageStorage.hash(key) & (this.buckets - 1);
+    }
+
+    /**
+     * @brief Private method that returns the hash of a key.
+     * @pre <em>True</em>
+     * @post The hash of the given key, the same in every execution, is returned.
+     * @param key Key of an entry.
+     * @return Hash of the key.
+     */
+    private static int hash(String key) {
+        int hash = key.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * @brief Private method that returns the number of pages of a directory.
+     * @pre <em>True</em>
+     * @post The number of pages of the directory of the given number of buckets is returned.
+     * @param buckets Number of buckets.
+     * @return Number of pages of the directory.
+     */
+    private static int directoryPages(int buckets) {
+        return (4 * buckets + PAGE_SIZE - 1) / PAGE_SIZE;
+    }
+}
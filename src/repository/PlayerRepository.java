@@ -6,6 +6,7 @@
 package repository;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.UUID;
 
 import org.json.JSONObject;
@@ -19,6 +20,13 @@ import util.Pair;
  * @see repository.Repository
  */
 public class PlayerRepository extends Repository {
+    /* CONSTANTS */
+
+    /**
+    * @brief Name of the index of the Player IDs by name.
+    */
+    private static final String nameIndex = "name";
+
     /* ATTRIBUTES */
 
     /* CONSTRUCTORS */
@@ -30,6 +38,7 @@ public class PlayerRepository extends Repository {
      */
     public PlayerRepository() {
         super(RepositoryType.PLAYER);
+        this.addIndex(PlayerRepository.nameIndex, player -> Arrays.asList(player.optString("name")));
     }
 
     /* METHODS */
@@ -84,16 +93,8 @@ public class PlayerRepository extends Repository {
      * @return JSONObject that represents the Player by name from the player database or null if it does not exist.
      */
     public JSONObject getByName(String name) {
-        JSONObject all = this.list();
-
-        JSONObject current;
-        for (String key : all.keySet()) {
-            current = all.getJSONObject(key);
-            if (current.getString("name").equals(name))
-                return current;
-        }
-
-        return null;
+        ArrayList<String> ids = this.lookup(PlayerRepository.nameIndex, name);
+        return (ids.isEmpty() ? null : this.get(ids.get(0)));
     }
 
     /**
@@ -5,18 +5,17 @@
  */
 package repository;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileWriter;
-import java.io.InputStream;
+import java.io.IOException;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.function.Function;
 
 import org.json.JSONObject;
-import org.json.JSONTokener;
 
 /**
  * @class Repository
- * @brief Implements various CRUD operations to work with the local file system JSON databases and TXT fixtures.
+ * @brief Implements various CRUD operations to work with the local file system databases (JSON or page files), TXT fixtures, binary weights and binary opening books.
  * By Alex Rodriguez.
  */
 public class Repository {
@@ -24,7 +23,15 @@ public class Repository {
     * @brief Different types for the accessed repository.
     */
     public enum RepositoryType {
-        CONFIGURATION, GAME, PLAYER, RANKING, FIXTURE
+        CONFIGURATION, GAME, PLAYER, RANKING, FIXTURE, WEIGHTS, BOOK
+    }
+
+    /**
+    * @brief Different storage backends for the databases: pretty-printed JSON files with an append-only log, or binary
+    * files of fixed-size pages with a hash index.
+    */
+    public enum StorageType {
+        JSON, PAGES
     }
 
     /* CONSTANTS */
@@ -39,6 +46,16 @@ public class Repository {
     */
     private static final String fixturesPath = "./res/fixtures/";
 
+    /**
+    * @brief Relative root path of the local binary weights of the evaluation functions.
+    */
+    private static final String weightsPath = "./res/weights/";
+
+    /**
+    * @brief Relative root path of the local binary opening books.
+    */
+    private static final String booksPath = "./res/books/";
+
     /* ATTRIBUTES */
 
     /**
@@ -85,6 +102,12 @@ public class Repository {
             case FIXTURE:
                 this.path = Paths.get(realPath, Repository.fixturesPath).toString();
                 break;
+            case WEIGHTS:
+                this.path = Paths.get(realPath, Repository.weightsPath).toString();
+                break;
+            case BOOK:
+                this.path = Paths.get(realPath, Repository.booksPath).toString();
+                break;
             default:
                 this.path = null;
         }
@@ -92,27 +115,79 @@ public class Repository {
 
     /* METHODS */
 
+    /**
+     * @brief Set the interval between the writes of the JSON databases.
+     * The JSON repositories keep an in-memory copy of each database, and a background writer saves the modified databases
+     * to their files at most once every interval. The pending writes are also saved when the application exits.
+     * @pre The given interval is not negative.
+     * @post All the pending writes are saved, and then the modified databases are saved every given milliseconds, or on
+     * every write if it is 0. The default interval is 1000 milliseconds.
+     * @param milliseconds Milliseconds between the writes of the databases, or 0 to write them on every write.
+     */
+    public static void setFlushInterval(long milliseconds) {
+        Database.setFlushInterval(milliseconds);
+    }
+
+    /**
+     * @brief Set the size of the log of a JSON database from which it is compacted.
+     * The writes of a JSON database are appended to a log next to its file, and when the log reaches the given size the
+     * file is rewritten with all the entries and the log is deleted.
+     * @pre The given threshold is not negative.
+     * @post The JSON databases are compacted when their log reaches the given size. The default size is 1 MiB.
+     * @param bytes Size in bytes of the log from which a database is compacted.
+     */
+    public static void setLogThreshold(long bytes) {
+        Database.setLogThreshold(bytes);
+    }
+
+    /**
+     * @brief Set the storage backend of the databases.
+     * The default backend is the one named by the system property othello.storage ("json" or "pages"), or JSON if it
+     * isn't set. The page files are next to the JSON files, with the extension ".db".
+     * @pre No database has been accessed yet.
+     * @post The databases are read from and written to the given storage backend.
+     * @param storageType Storage backend of the databases.
+     * @throws IllegalStateException If a database has already been accessed.
+     */
+    public static void setStorageType(StorageType storageType) {
+        Database.setStorageType(storageType);
+    }
+
+    /**
+     * @brief Copy a database from a storage backend to another one.
+     * @pre The given type is a database type (CONFIGURATION, GAME, PLAYER or RANKING) and the database hasn't been
+     * accessed yet.
+     * @post The given storage backend of the database contains exactly the entries of the other one, which isn't modified.
+     * The number of copied entries is returned.
+     * @param repositoryType Type of the database.
+     * @param from Storage backend to be read.
+     * @param to Storage backend to be written.
+     * @return Number of copied entries.
+     * @throws IOException If the database doesn't exist in the storage backend to be read, or it can't be read or written.
+     */
+    public static int migrate(RepositoryType repositoryType, StorageType from, StorageType to) throws IOException {
+        return Database.migrate(new Repository(repositoryType).path, from, to);
+    }
+
+    /**
+     * @brief Save all the pending writes of the JSON databases.
+     * @pre <em>True</em>
+     * @post The file of every JSON database modified since its last write contains all its entries.
+     */
+    public static void flush() {
+        Database.flushAll();
+    }
+
     /**
      * @brief Obtain all entries of the database.
      * For JSON repositories.
      * @pre The accessed repository JSON or TXT files exists.
-     * @post A JSONObject representing the accessed database is returned.
+     * @post A JSONObject representing the accessed database is returned. Its entries are shared with the in-memory copy of
+     * the database, so they must not be modified.
      * @return JSONObject that represents the accessed database.
      */
     protected JSONObject list() {
-        JSONObject database = new JSONObject();
-
-        try {
-            File file = new File(this.path);
-            InputStream reader = new FileInputStream(file);
-            JSONTokener tokener = new JSONTokener(reader);
-            database = new JSONObject(tokener);
-            reader.close();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-
-        return database;
+        return Database.of(this.path).list();
     }
 
     /**
@@ -124,56 +199,69 @@ public class Repository {
      * @return JSONObject that represents the key entry of the accessed database or null if it does not exist.
      */
     protected JSONObject get(String key) {
-        JSONObject database = this.list();
-        return database.optJSONObject(key);
+        return Database.of(this.path).get(key);
     }
 
     /**
      * @brief Create an entry in the database by key or update it if it does exist.
      * For JSON repositories.
      * @pre The accessed repository JSON or TXT files exists.
-     * @post The key entry is created in the accessed database or it is updated if it already exists. A JSONObject representing the accessed database is returned.
+     * @post The key entry is created in the accessed database or it is updated if it already exists. The file is written
+     * by the background writer.
      * @param key Key of the entry in the accessed database.
      * @param value Value to be inserted in the accessed database by the key.
-     * @return JSONObject that represents the accessed database.
      */
-    protected JSONObject createOrUpdate(String key, JSONObject value) {
-        JSONObject database = this.list();
-        database.put(key, value);
-
-        try {
-            File file = new File(this.path);
-            FileWriter writer = new FileWriter(file);
-            database.write(writer, 2, 0);
-            writer.close();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-
-        return database;
+    protected void createOrUpdate(String key, JSONObject value) {
+        Database.of(this.path).put(key, value);
     }
 
     /**
      * @brief Remove an entry in the database by key if it does exist.
      * For JSON repositories.
      * @pre The accessed repository JSON or TXT files exists.
-     * @post The key entry is removed in the accessed database if it does exist. A JSONObject representing the accessed database is returned.
+     * @post The key entry is removed in the accessed database if it does exist. The file is written by the background writer.
      * @param key Key of the entry in the accessed database.
-     * @return JSONObject that represents the accessed database.
      */
-    protected JSONObject remove(String key) {
-        JSONObject database = this.list();
-        database.remove(key);
+    protected void remove(String key) {
+        Database.of(this.path).remove(key);
+    }
 
-        try {
-            File file = new File(this.path);
-            FileWriter writer = new FileWriter(file);
-            database.write(writer, 2, 0);
-            writer.close();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+    /**
+     * @brief Add a secondary index to the database if it doesn't have it yet.
+     * For JSON repositories. The index is shared by all the repositories of the database, built from its entries the
+     * first time it is looked up and kept up to date by every write.
+     * @pre The accessed repository JSON files exists.
+     * @post The accessed database has an index with the given name of the values returned by the given function.
+     * @param name Name of the index.
+     * @param values Function that returns the indexed values of an entry of the accessed database.
+     */
+    protected void addIndex(String name, Function<JSONObject, Collection<String>> values) {
+        Database.of(this.path).addIndex(name, values);
+    }
 
-        return database;
+    /**
+     * @brief Obtain the keys of the entries with a value in a secondary index.
+     * For JSON repositories.
+     * @pre The accessed repository JSON files exists and its database has an index with the given name.
+     * @post An ArrayList containing the keys of the entries of the accessed database indexed by the given value is returned.
+     * @param name Name of the index.
+     * @param value Indexed value.
+     * @return ArrayList of the keys of the entries with the value.
+     */
+    protected ArrayList<String> lookup(String name, String value) {
+        return Database.of(this.path).lookup(name, value);
+    }
+
+    /**
+     * @brief Count the entries with a value in a secondary index.
+     * For JSON repositories.
+     * @pre The accessed repository JSON files exists and its database has an index with the given name.
+     * @post The number of entries of the accessed database indexed by the given value is returned.
+     * @param name Name of the index.
+     * @param value Indexed value.
+     * @return Number of entries with the value.
+     */
+    protected int count(String name, String value) {
+        return Database.of(this.path).count(name, value);
     }
 }
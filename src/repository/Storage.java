@@ -0,0 +1,87 @@
+/**
+ * @file Storage.java
+ * @author Alex Rodriguez
+ * @brief Storage interface specification.
+ */
+package repository;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.json.JSONObject;
+
+/**
+ * @interface Storage
+ * @brief Storage backend of a Database: the files where its entries are persisted and their format.
+ * The Database keeps all its entries in memory, so a Storage only has to load all of them once and then write the changes
+ * of every flush.
+ * By Alex Rodriguez.
+ * @see repository.JSONStorage
+ * @see repository.PageStorage
+ */
+interface Storage {
+    /**
+     * @class Change
+     * @brief Change of an entry of a Database: its new value or its removal.
+     */
+    final class Change {
+        /**
+        * @brief Key of the changed entry.
+        */
+        final String key;
+        /**
+        * @brief JSON text of the new value of the entry, or null if it has been removed.
+        */
+        final String value;
+
+        /**
+         * @brief Create a Change instance.
+         * @pre <em>True</em>
+         * @post A Change of the given entry to the given value is created.
+         * @param key Key of the changed entry.
+         * @param value JSON text of the new value of the entry, or null if it has been removed.
+         */
+        Change(String key, String value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /**
+     * @brief Check whether the files of the storage exist.
+     * @pre <em>True</em>
+     * @post Whether the entries have ever been written is returned.
+     * @return Whether the files exist.
+     */
+    boolean exists();
+
+    /**
+     * @brief Load all the entries.
+     * @pre <em>True</em>
+     * @post A JSONObject with all the stored entries is returned. If the files don't exist, it is empty.
+     * @return JSONObject with the stored entries.
+     * @throws IOException If the files exist but can't be read.
+     */
+    JSONObject load() throws IOException;
+
+    /**
+     * @brief Write the changes of a flush.
+     * @pre The entries have been loaded.
+     * @post The stored entries include the given changes, applied in order.
+     * @param changes Changes since the last write.
+     * @param entries Function that returns all the current entries, for the backends that rewrite all of them. The
+     * returned entries can be newer than the changes.
+     * @throws IOException If the changes can't be written. The next write has to write them again.
+     */
+    void write(List<Change> changes, Supplier<JSONObject> entries) throws IOException;
+
+    /**
+     * @brief Replace all the stored entries.
+     * @pre <em>True</em>
+     * @post The stored entries are exactly the given ones.
+     * @param entries New entries.
+     * @throws IOException If the entries can't be written. The previous entries are kept.
+     */
+    void replace(JSONObject entries) throws IOException;
+}
@@ -0,0 +1,73 @@
+/**
+ * @file WeightsRepository.java
+ * @author Alex Rodriguez
+ * @brief WeightsRepository class specification.
+ */
+package repository;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * @class WeightsRepository
+ * @brief Implements the read and write operations to work with the Weights repository, where the weights of the
+ * evaluation functions are stored as binary files.
+ * By Alex Rodriguez.
+ * @see repository.Repository
+ */
+public class WeightsRepository extends Repository {
+    /* ATTRIBUTES */
+
+    /* CONSTRUCTORS */
+
+    /**
+     * @brief Create a WeightsRepository instance.
+     * @pre <em>True</em>
+     * @post A WeightsRepository instance is created.
+     */
+    public WeightsRepository() {
+        super(RepositoryType.WEIGHTS);
+    }
+
+    /* METHODS */
+
+    /**
+     * @brief Read the weights identified by name.
+     * @pre <em>True</em>
+     * @post The content of the binary file of the weights identified by name is returned, or null if it does not exist
+     * or can't be read.
+     * @param name Name of the weights to be read.
+     * @return Content of the binary file of the weights or null.
+     */
+    public byte[] read(String name) {
+        Path path = Paths.get(this.path, name + ".bin");
+        if (!Files.isRegularFile(path))
+            return null;
+
+        try {
+            return Files.readAllBytes(path);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+    /**
+     * @brief Write the weights identified by name.
+     * @pre <em>True</em>
+     * @post The binary file of the weights identified by name contains the given bytes. It is created if it does not exist.
+     * @param name Name of the weights to be written.
+     * @param weights Content of the binary file of the weights.
+     */
+    public void write(String name, byte[] weights) {
+        try {
+            Path path = Paths.get(this.path, name + ".bin");
+            Files.createDirectories(path.getParent());
+            Files.write(path, weights);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * @file WeightsRepositoryCtrl.java
+ * @author Alex Rodriguez
+ * @brief WeightsRepositoryCtrl class specification.
+ */
+package repository;
+
+/**
+ * @class WeightsRepositoryCtrl
+ * @brief Implements the read and write operations to work with the Weights repository.
+ * By Alex Rodriguez.
+ * @see repository.WeightsRepository
+ */
+public class WeightsRepositoryCtrl {
+    /* ATTRIBUTES */
+
+    /**
+    * @brief WeightsRepository instance.
+    */
+    private WeightsRepository repository;
+
+    /* CONSTRUCTORS */
+
+    /**
+     * @brief Create a WeightsRepositoryCtrl instance.
+     * @pre <em>True</em>
+     * @post A WeightsRepositoryCtrl instance is created.
+     */
+    public WeightsRepositoryCtrl() {
+        this.repository = new WeightsRepository();
+    }
+
+    /* METHODS */
+
+    /**
+     * @brief Get the weights identified by name.
+     * @pre <em>True</em>
+     * @post The binary representation of the weights identified by name is returned, or null if they do not exist.
+     * @param name Name of the weights to be getted.
+     * @return Binary representation of the weights or null if they do not exist.
+     */
+    public byte[] get(String name) {
+        return this.repository.read(name);
+    }
+
+    /**
+     * @brief Save the weights identified by name.
+     * @pre <em>True</em>
+     * @post The weights identified by name are saved, replacing the previous ones if they already exist.
+     * @param name Name of the weights to be saved.
+     * @param weights Binary representation of the weights.
+     */
+    public void save(String name, byte[] weights) {
+        this.repository.write(name, weights);
+    }
+}
@@ -0,0 +1,184 @@
+/**
+ * @file Benchmark.java
+ * @author Alex Rodriguez
+ * @brief Benchmark class specification.
+ */
+package test.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import domain.Board;
+import domain.Board.PieceType;
+import org.json.JSONObject;
+import repository.FixtureRepository;
+
+/**
+ * @class Benchmark
+ * @brief Implements a small harness to measure the mean time of an operation, in the style of JMH.
+ * Each benchmark runs some warmup iterations, whose results are discarded so the JIT compiler can optimize the code, and
+ * then some measurement iterations. Every iteration calls the operation in a loop for a fixed time and its score is the
+ * mean time per call. The result of the benchmark is the mean score of the measurement iterations and its error, half the
+ * width of the 99.9% confidence interval. The values returned by the operation are accumulated in a volatile field, so the
+ * JIT compiler can't remove the calls as dead code.
+ * By Alex Rodriguez.
+ */
+public class Benchmark {
+    /**
+     * @interface Operation
+     * @brief Operation to be measured.
+     */
+    public interface Operation {
+        /**
+         * @brief Run the operation once.
+         * @pre <em>True</em>
+         * @post The operation has been run and a value that depends on its result is returned.
+         * @return A value that depends on the result of the operation.
+         */
+        public long run();
+    }
+
+    /* ATTRIBUTES */
+
+    /**
+    * @brief Quantile of the Student's t-distribution for a 99.9% confidence interval, indexed by degrees of freedom (1 to 10).
+    * Bigger degrees of freedom use the last one.
+    */
+    private static final double[] T_999 = {0, 636.62, 31.60, 12.92, 8.61, 6.87, 5.96, 5.41, 5.04, 4.78, 4.59};
+    /**
+    * @brief Sum of the values returned by the operations, read by nobody.
+    */
+    private static volatile long sink;
+    /**
+    * @brief Number of warmup iterations of each benchmark.
+    */
+    private int warmupIterations;
+    /**
+    * @brief Number of measurement iterations of each benchmark.
+    */
+    private int measurementIterations;
+    /**
+    * @brief Duration of each iteration in nanoseconds.
+    */
+    private long iterationNanos;
+    /**
+    * @brief Number of inputs that the operations go through in turn.
+    */
+    private int inputs;
+    /**
+    * @brief Part of the name that the benchmarks have to contain to be run, or null to run all of them.
+    */
+    private String filter;
+
+    /* CONSTRUCTORS */
+
+    /**
+     * @brief Create a Benchmark instance.
+     * @pre The given measurementIterations, iterationMillis and inputs are positive numbers and the given warmupIterations is not negative.
+     * @post A Benchmark with the given number and duration of iterations is created.
+     * @param warmupIterations Number of warmup iterations of each benchmark.
+     * @param measurementIterations Number of measurement iterations of each benchmark.
+     * @param iterationMillis Duration of each iteration in milliseconds.
+     * @param inputs Number of inputs that the operations go through in turn. Every iteration calls the operation a multiple
+     * of this number of times, so all the inputs weigh the same in every iteration.
+     * @param filter Part of the name that the benchmarks have to contain to be run, or null to run all of them.
+     */
+    public Benchmark(int warmupIterations, int measurementIterations, long iterationMillis, int inputs, String filter) {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationNanos = iterationMillis * 1000000L;
+        this.inputs = inputs;
+        this.filter = filter;
+    }
+
+    /* METHODS */
+
+    /**
+     * @brief Print the header of the results.
+     * @pre <em>True</em>
+     * @post The names of the columns of the results are printed.
+     */
+    public static void printHeader() {
+        System.out.println(String.format("%-40s %4s %14s    %12s  %s", "Benchmark", "Cnt", "Score", "Error", "Units"));
+    }
+
+    /**
+     * @brief Measure an operation.
+     * @pre <em>True</em>
+     * @post If the name contains the filter, the operation is measured and its mean time per call and error are printed in
+     * microseconds, or in nanoseconds if the mean is less than a microsecond. Otherwise nothing is done.
+     * @param name Name of the benchmark.
+     * @param operation Operation to be measured.
+     */
+    public void run(String name, Operation operation) {
+        if (this.filter != null && !name.contains(this.filter))
+            return;
+
+        for (int i = 0; i < this.warmupIterations; ++i)
+            this.iteration(operation);
+
+        double[] scores = new double[this.measurementIterations];
+        double mean = 0;
+        for (int i = 0; i < scores.length; ++i) {
+            scores[i] = this.iteration(operation);
+            mean += scores[i] / scores.length;
+        }
+
+        double variance = 0;
+        for (double score : scores)
+            variance += (score - mean) * (score - mean) / Math.max(scores.length - 1, 1);
+        double error = (scores.length > 1
+                ? T_999[Math.min(scores.length - 1, T_999.length - 1)] * Math.sqrt(variance / scores.length) : Double.NaN);
+
+        boolean micros = mean >= 1000;
+        System.out.println(String.format("%-40s %4d %14.3f +- %12.3f  %s", name, scores.length,
+                (micros ? mean / 1000 : mean), (micros ? error / 1000 : error), (micros ? "us/op" : "ns/op")));
+    }
+
+    /**
+     * @brief Read the Boards of the fixtures.
+     * @pre <em>True</em>
+     * @post The Boards of the Fixture repository where PLAYER1 can place a piece with every direction allowed are returned,
+     * sorted by the path of their file so the inputs are always the same.
+     * @return Boards of the fixtures.
+     */
+    public static List<Board> fixtures() {
+        FixtureRepository fixtureRepository = new FixtureRepository();
+        List<String> paths = fixtureRepository.listFiles();
+        paths.sort(null);
+
+        List<Board> boards = new ArrayList<Board>();
+        for (String path : paths) {
+            JSONObject jsonBoard = fixtureRepository.boardFileToJSON(path);
+            Board board = new Board(jsonBoard);
+            if (board.validMoves(PieceType.PLAYER1, true, true, true) != 0)
+                boards.add(board);
+        }
+        return boards;
+    }
+
+    /**
+     * @brief Private method that runs an iteration.
+     * @pre <em>True</em>
+     * @post The operation has been called in a loop a multiple of inputs times, for at least the duration of an iteration,
+     * and the mean time per call in nanoseconds is returned.
+     * @param operation Operation to be measured.
+     * @return Mean time per call in nanoseconds.
+     */
+    private double iteration(Operation operation) {
+        long calls = 0, result = 0, batch = this.inputs;
+        long start = System.nanoTime(), elapsed;
+
+        // The clock is read once per batch, which doubles while it is short, so reading it doesn't count for fast operations
+        do {
+            for (long i = 0; i < batch; ++i)
+                result += operation.run();
+            calls += batch;
+            elapsed = System.nanoTime() - start;
+            if (elapsed < this.iterationNanos / 100) batch *= 2;
+        } while (elapsed < this.iterationNanos);
+
+        Benchmark.sink += result;
+        return (double) elapsed / calls;
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * @file BoardBenchmark.java
+ * @author Alex Rodriguez
+ * @brief BoardBenchmark class specification.
+ */
+package test.benchmark;
+
+import java.util.List;
+
+import domain.Board;
+import domain.Board.PieceType;
+import util.Pair;
+
+/**
+ * @class BoardBenchmark
+ * @brief Implements the benchmarks of the Board operations used on every move: finding the valid positions, placing a
+ * piece and the JSON round-trip used to save and load the Board.
+ * Every call uses the next Board of the fixtures, with every direction allowed and PLAYER1 to move.
+ * By Alex Rodriguez.
+ */
+public class BoardBenchmark {
+    /* ATTRIBUTES */
+
+    /**
+    * @brief Boards of the fixtures.
+    */
+    private Board[] boards;
+    /**
+    * @brief First valid position of PLAYER1 in each Board of the fixtures.
+    */
+    private int[] squares;
+    /**
+    * @brief Index of the Board of the next call.
+    */
+    private int next;
+
+    /* CONSTRUCTORS */
+
+    /**
+     * @brief Create a BoardBenchmark instance.
+     * @pre The given boards aren't empty and PLAYER1 can place a piece in all of them with every direction allowed.
+     * @post A BoardBenchmark of the given Boards is created.
+     * @param boards Boards of the fixtures.
+     */
+    public BoardBenchmark(List<Board> boards) {
+        this.boards = boards.toArray(new Board[0]);
+        this.squares = new int[this.boards.length];
+        for (int i = 0; i < this.boards.length; ++i)
+            this.squares[i] = Long.numberOfTrailingZeros(this.boards[i].validMoves(PieceType.PLAYER1, true, true, true));
+        this.next = 0;
+    }
+
+    /* METHODS */
+
+    /**
+     * @brief Run the benchmarks.
+     * @pre <em>True</em>
+     * @post The benchmarks of the Board operations are run with the given Benchmark.
+     * @param benchmark Benchmark that measures the operations.
+     */
+    public void run(Benchmark benchmark) {
+        benchmark.run("Board.validPositions", () -> {
+            Board board = this.nextBoard();
+            return board.validPositions(PieceType.PLAYER1, true, true, true).size();
+        });
+
+        benchmark.run("Board.validMoves", () -> {
+            Board board = this.nextBoard();
+            return board.validMoves(PieceType.PLAYER1, true, true, true);
+        });
+
+        benchmark.run("Board.placePiece", () -> {
+            int i = this.nextIndex();
+            Board board = new Board(this.boards[i]);
+            board.placePiece(new Pair<Integer, Integer>(this.squares[i] >>> 3, this.squares[i] & 7), PieceType.PLAYER1,
+                    true, true, true);
+            return board.getHash();
+        });
+
+        benchmark.run("Board.makeMove+unmakeMove", () -> {
+            int i = this.nextIndex();
+            Board board = this.boards[i];
+            int square = this.squares[i];
+            long flipped = board.makeMove(square >>> 3, square & 7, PieceType.PLAYER1, true, true, true);
+            board.unmakeMove(square >>> 3, square & 7, PieceType.PLAYER1, flipped);
+            return flipped;
+        });
+
+        benchmark.run("Board.serialize+Board(JSONObject)", () -> {
+            Board board = this.nextBoard();
+            return new Board(board.serialize()).getHash();
+        });
+    }
+
+    /**
+     * @brief Private method that returns the index of the Board of the next call.
+     * @pre <em>True</em>
+     * @post The index of the next Board of the fixtures is returned, going back to the first one after the last one.
+     * @return Index of the Board of the next call.
+     */
+    private int nextIndex() {
+        int i = this.next;
+        this.next = (i + 1 == this.boards.length ? 0 : i + 1);
+        return i;
+    }
+
+    /**
+     * @brief Private method that returns the Board of the next call.
+     * @pre <em>True</em>
+     * @post The next Board of the fixtures is returned, going back to the first one after the last one.
+     * @return Board of the next call.
+     */
+    private Board nextBoard() {
+        return this.boards[this.nextIndex()];
+    }
+}
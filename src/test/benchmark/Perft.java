@@ -0,0 +1,185 @@
+/**
+ * @file Perft.java
+ * @author Alex Rodriguez
+ * @brief Perft class specification.
+ */
+package test.benchmark;
+
+import java.util.ArrayList;
+
+import domain.Board;
+import domain.Board.PieceType;
+import util.Pair;
+
+/**
+ * @class Perft
+ * @brief Implements the perft (performance test) of the move generation: the number of leaf nodes of the game tree up to a depth.
+ * A player that can't place any piece passes, which counts as a move, and a finished game counts as one leaf node at any
+ * depth, the convention of the published counts of Othello. The counts are computed with the bitboard moves of Board
+ * (validMoves, makeMove and unmakeMove) and with the reference moves of ReferenceBoard, a frozen copy of the first move
+ * generation of the project over a matrix of PieceTypes that doesn't share any code with Board. So a new move generation
+ * can be verified against both the previous implementation and the known counts of the initial Board. Nothing is cached, so the time of a count is a measure of the speed of the move generation.
+ * By Alex Rodriguez.
+ */
+public class Perft {
+    /* ATTRIBUTES */
+
+    /**
+    * @brief Known counts of the initial Board with PLAYER1 to move, indexed by rules (1 horizontal, 2 vertical, 4 diagonal)
+    * and depth. The counts of all the directions are the published ones of Othello.
+    */
+    private static final long[][] EXPECTED = {
+        {1},
+        {1, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2},
+        {1, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2},
+        {1, 4, 8, 20, 44, 116, 296, 832, 2568, 8704, 31516},
+        {1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1},
+        {1, 2, 4, 10, 30, 98, 378, 1514, 7058, 35790, 202680},
+        {1, 2, 4, 10, 30, 98, 378, 1514, 7058, 35790, 202680},
+        {1, 4, 12, 56, 244, 1396, 8200, 55092, 390216, 3005288, 24571284}
+    };
+    /**
+    * @brief Whether the pieces can be eaten horizontally.
+    */
+    private boolean canEatHorizontally;
+    /**
+    * @brief Whether the pieces can be eaten vertically.
+    */
+    private boolean canEatVertically;
+    /**
+    * @brief Whether the pieces can be eaten diagonally.
+    */
+    private boolean canEatDiagonally;
+
+    /* CONSTRUCTORS */
+
+    /**
+     * @brief Create a Perft instance.
+     * @pre <em>True</em>
+     * @post A Perft of the games with the given rules is created.
+     * @param canEatHorizontally Whether the pieces can be eaten horizontally.
+     * @param canEatVertically Whether the pieces can be eaten vertically.
+     * @param canEatDiagonally Whether the pieces can be eaten diagonally.
+     */
+    public Perft(boolean canEatHorizontally, boolean canEatVertically, boolean canEatDiagonally) {
+        this.canEatHorizontally = canEatHorizontally;
+        this.canEatVertically = canEatVertically;
+        this.canEatDiagonally = canEatDiagonally;
+    }
+
+    /* METHODS */
+
+    /**
+     * @brief Get the known count of the initial Board.
+     * @pre The given depth is not negative.
+     * @post If it is known, the number of leaf nodes at the given depth from the initial Board with PLAYER1 to move and the
+     * rules of the Perft is returned. Otherwise, -1 is returned.
+     * @param depth Depth of the leaf nodes.
+     * @return Known count or -1.
+     */
+    public long expected(int depth) {
+        long[] expected = EXPECTED[(this.canEatHorizontally ? 1 : 0) | (this.canEatVertically ? 2 : 0) | (this.canEatDiagonally ? 4 : 0)];
+        return (depth < expected.length ? expected[depth] : -1);
+    }
+
+    /**
+     * @brief Count the leaf nodes with the bitboard moves.
+     * @pre The given depth is not negative.
+     * @post The number of leaf nodes at the given depth from the given Board with the given player to move is returned.
+     * The given Board isn't modified.
+     * @param board Board of the root node.
+     * @param pieceType Player to move.
+     * @param depth Depth of the leaf nodes.
+     * @return Number of leaf nodes.
+     */
+    public long count(Board board, PieceType pieceType, int depth) {
+        return this.count(new Board(board), pieceType, depth, false);
+    }
+
+    /**
+     * @brief Count the leaf nodes with the reference moves of ReferenceBoard.
+     * @pre The given depth is not negative.
+     * @post The number of leaf nodes at the given depth from the given Board with the given player to move is returned.
+     * The given Board isn't modified.
+     * @param board Board of the root node.
+     * @param pieceType Player to move.
+     * @param depth Depth of the leaf nodes.
+     * @return Number of leaf nodes.
+     */
+    public long countReference(Board board, PieceType pieceType, int depth) {
+        return this.countReference(new ReferenceBoard(board), pieceType, depth, false);
+    }
+
+    /**
+     * @brief Private method that counts the leaf nodes with the bitboard moves.
+     * @pre The given depth is not negative.
+     * @post The number of leaf nodes at the given depth from the given Board with the given player to move is returned.
+     * The given Board is restored after every move.
+     * @param board Board of the node.
+     * @param pieceType Player to move.
+     * @param depth Depth of the leaf nodes from the node.
+     * @param passed Whether the move to the node was a pass.
+     * @return Number of leaf nodes.
+     */
+    private long count(Board board, PieceType pieceType, int depth, boolean passed) {
+        if (depth == 0) return 1;
+
+        long moves = board.validMoves(pieceType, this.canEatHorizontally, this.canEatVertically, this.canEatDiagonally);
+        if (moves == 0) {
+            if (passed) return 1;
+            return this.count(board, Perft.opponent(pieceType), depth - 1, true);
+        }
+        if (depth == 1) return Long.bitCount(moves);
+
+        long nodes = 0;
+        for (; moves != 0; moves &= moves - 1) {
+            int square = Long.numberOfTrailingZeros(moves);
+            long flipped = board.makeMove(square >>> 3, square & 7, pieceType, this.canEatHorizontally,
+                    this.canEatVertically, this.canEatDiagonally);
+            nodes += this.count(board, Perft.opponent(pieceType), depth - 1, false);
+            board.unmakeMove(square >>> 3, square & 7, pieceType, flipped);
+        }
+        return nodes;
+    }
+
+    /**
+     * @brief Private method that counts the leaf nodes with the reference moves of ReferenceBoard.
+     * @pre The given depth is not negative.
+     * @post The number of leaf nodes at the given depth from the given ReferenceBoard with the given player to move is
+     * returned. The given ReferenceBoard isn't modified.
+     * @param board ReferenceBoard of the node.
+     * @param pieceType Player to move.
+     * @param depth Depth of the leaf nodes from the node.
+     * @param passed Whether the move to the node was a pass.
+     * @return Number of leaf nodes.
+     */
+    private long countReference(ReferenceBoard board, PieceType pieceType, int depth, boolean passed) {
+        if (depth == 0) return 1;
+
+        ArrayList<Pair<Integer, Integer>> positions = board.validPositions(pieceType, this.canEatHorizontally,
+                this.canEatVertically, this.canEatDiagonally);
+        if (positions.isEmpty()) {
+            if (passed) return 1;
+            return this.countReference(board, Perft.opponent(pieceType), depth - 1, true);
+        }
+
+        long nodes = 0;
+        for (Pair<Integer, Integer> position : positions) {
+            ReferenceBoard child = new ReferenceBoard(board);
+            child.placePiece(position, pieceType, this.canEatHorizontally, this.canEatVertically, this.canEatDiagonally);
+            nodes += this.countReference(child, Perft.opponent(pieceType), depth - 1, false);
+        }
+        return nodes;
+    }
+
+    /**
+     * @brief Private method that returns the opponent of a player.
+     * @pre <em>True</em>
+     * @post The PieceType of the opponent of the given player is returned.
+     * @param pieceType Player.
+     * @return Opponent of the player.
+     */
+    private static PieceType opponent(PieceType pieceType) {
+        return (pieceType == PieceType.PLAYER1 ? PieceType.PLAYER2 : PieceType.PLAYER1);
+    }
+}
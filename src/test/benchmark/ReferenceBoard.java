@@ -0,0 +1,586 @@
+/**
+ * @file ReferenceBoard.java
+ * @author Alex Rodriguez
+ * @brief ReferenceBoard class specification.
+ */
+package test.benchmark;
+
+import util.Pair;
+import java.util.ArrayList;
+import domain.Board;
+import domain.Board.PieceType;
+
+/**
+ * @class ReferenceBoard
+ * @brief <p> Frozen copy of the move generation of the first Board of the project, over a matrix of PieceTypes.</p>
+ * &nbsp; It doesn't share any code with Board, so Perft can verify the bitboard moves against it. It must not be optimized.
+ * By Alex Rodriguez.
+*/
+public class ReferenceBoard
+{
+    /* ATTRIBUTES */
+    /**
+     * @brief A matrix of 64 cells that composes an Othello board. Its the data structure that stores the different cells of the Board. 
+     * */
+    private PieceType[][] board;
+    /**
+     * @brief PLAYER1's total number of pieces on the Board.
+     * */
+    private Integer piecesPlayer1;
+    /**
+     * @brief PLAYER2's total number of pieces on the Board.
+     * */
+    private Integer piecesPlayer2;
+    
+    //Constructors
+
+    /**
+     * @brief Creator method that instances a ReferenceBoard with the cells of a Board.
+     * @pre The parameter <em>board</em> isn't null.
+     * @post An instance of ReferenceBoard is instanced with the same cells as the <em>board</em> parameter.
+     * @param board Board to be copied.
+     */
+    public ReferenceBoard(Board board)
+    {
+        this(board.getBoard());
+    }
+
+    /**
+     * @brief Creator method that instances a ReferenceBoard as a copy of another ReferenceBoard.
+     * @pre The parameter <em>board</em> isn't null.
+     * @post An instance of ReferenceBoard is instanced with the same cells as the <em>board</em> parameter. Both can be modified independently.
+     * @param board ReferenceBoard to be copied.
+     */
+    public ReferenceBoard(ReferenceBoard board)
+    {
+        this(board.board);
+    }
+
+    /**
+     * @brief Creator method that instances a ReferenceBoard based off another board container (matrix of PieceTypes).
+     * @pre The parameter <em>board</em> is of size 8x8.
+     * @post <p>An instance of ReferenceBoard is instanced with the <em>board</em> attribute equal to the <em>board</em> parameter.</p>
+     * &nbsp; In addition, the attributes <em>PiecesPlayer1</em> and <em>PiecesPlayer2</em> will have different values based off of the new <em>board</em> attribute. 
+     * @param board An 8x8 PieceType matrix that represents a state of an Othello board.
+     */
+    private ReferenceBoard(PieceType[][] board)
+    {
+        this.board = new PieceType[8][8];
+        this.piecesPlayer1 = 0;
+        this.piecesPlayer2 = 0;
+
+        for(int i = 0; i < 8; ++i)
+        {
+            for(int j = 0; j < 8; j++)
+            {
+                this.board[i][j] = board[i][j];
+                if(this.board[i][j] == PieceType.PLAYER1) this.piecesPlayer1 += 1;
+                if(this.board[i][j] == PieceType.PLAYER2) this.piecesPlayer2 += 1;
+            }
+        }
+    }
+
+    //Consultoras
+
+    /**
+     * @brief Method that returns an Array of the valid positions a player <em>myPieceType</em> taking into consideration the Configuration of the Game.
+     * @pre All parameters aren't null.
+     * @post <p>An Array of valid positions(Pair<Integer,Integer>) is returned.</p> 
+     * &nbsp; A valid position is one which it's cell state in the implicit parameter's <em>board</em> attribute is equal to null (meaning an empty cell)
+     * and there is at least one opponent PieceType surrounding that position (go to surroundingPieces to crystalize what the surrounding areas of a position are).
+     * @param myPieceType PieceType variable that represents the player in a cell.
+     * @param canEatHorizontally Boolean value from Configuration that determines if we can capture pieces of the <em>myPieceType</em> opponent in a Horizontal manner.
+     * @param canEatVertically Boolean value from Configuration that determines if we can capture pieces of the <em>myPieceType</em> opponent in a Vertical manner.
+     * @param canEatDiagonally Boolean value from Configuration that determines if we can capture pieces of the <em>myPieceType</em> opponent in a Diagonal manner.
+     */
+    public ArrayList<Pair<Integer,Integer>> validPositions(PieceType myPieceType, Boolean canEatHorizontally, Boolean canEatVertically, Boolean canEatDiagonally)
+    {
+        ArrayList<Pair<Integer,Integer>> availablePos = new ArrayList<Pair<Integer,Integer>>();
+        boolean posValid = false;
+
+        for(int i = 0; i < 8; ++i)
+        {
+            for(int j = 0; j < 8; ++j)
+            {
+                Pair<Integer, Integer> iterator = new Pair<Integer,Integer>(i,j);
+                posValid = false;
+
+                if(this.board[i][j] == null && surroundingPieces(iterator, myPieceType, canEatHorizontally, canEatVertically, canEatDiagonally))
+                {
+                    if(canEatHorizontally)
+                    {
+                        ArrayList<Pair<Integer,Integer>> horizontal = canPlaceHorizontal(iterator, myPieceType); 
+                        //IF NOT EMPTY
+                        if(!horizontal.isEmpty()) posValid = true;
+                    }
+                    if(canEatVertically)
+                    {
+                        ArrayList<Pair<Integer,Integer>> vertical = canPlaceVertical(iterator, myPieceType);
+                        //IF NOT EMPTY
+                        if(!vertical.isEmpty()) posValid = true;                        
+                    }
+                    if(canEatDiagonally)
+                    {
+                        ArrayList<Pair<Integer,Integer>> diagonal = canPlaceDiagonal(iterator, myPieceType);
+                        //IF NOT EMPTY
+                        if(!diagonal.isEmpty()) posValid = true; 
+                    }
+                    //It's a valid position to add a Piece
+                    if(posValid) availablePos.add(iterator);
+                }
+            }
+        }
+
+        return availablePos;
+    }
+
+    //Modifiers
+
+    /**
+     * @brief Modifying method that adds a piece in the implicit parameter's <em>board</em><p></p>
+     * &nbsp; In addition, it applies the effect of adding that piece in the board by changing the pieces of the board taking into consideration the Configuration given.
+     * @pre Parameters aren't null and <em>position</em> is between values (0,0) and (7,7).
+     * @post With the given Configuration, if the <em>position</em> parameter is correct then the implicit parameter's <em>board</em> will be modified with the addition of the piece
+     * <em>Piecetype</em> in the <em>position</em> parameter and its effect considering the Configuration given (pieces changing from the different taking piece methods).
+     * If the position isn't correct, the implicit parameter's <em>board</em> will not be changed.</p>
+     * &nbsp; A correct position is a position in the board where given the <em>PieceType</em> parameter, we will take at least one opponent piece with the Configuration given.
+     * @param myPieceType PieceType variable that represents the player in a cell.
+     * @param position Pair<Integer,Integer> that represents a position in a board.
+     * @param canEatHorizontally Boolean value from Configuration that determines if we can capture pieces of the <em>myPieceType</em> opponent in a Horizontal manner..
+     * @param canEatVertically Boolean value from Configuration that determines if we can capture pieces of the <em>myPieceType</em> opponent in a Vertical manner.
+     * @param canEatDiagonally Boolean value from Configuration that determines if we can capture pieces of the <em>myPieceType</em> opponent in a Diagonal manner.
+     */
+    public void placePiece(Pair<Integer, Integer> position, PieceType myPieceType, Boolean canEatHorizontally, Boolean canEatVertically, Boolean canEatDiagonally)
+    {
+        ArrayList<Pair<Integer,Integer>> horizontal = new ArrayList<Pair<Integer,Integer>>();
+        ArrayList<Pair<Integer,Integer>> vertical = new ArrayList<Pair<Integer,Integer>>();
+        ArrayList<Pair<Integer,Integer>> diagonal = new ArrayList<Pair<Integer,Integer>>();
+
+        //if the position given to us is not null, it means it's owned by PLAYER1 or PLAYER2. Therefore, we won't add a Piece there and we will return.
+        //Although this will never happen when we use this method (because we will make sure it's a valid position), 
+        //  we added this so this method is more reusable for other future projects.
+        if(this.board[position.first][position.second] != null) return;
+
+        if(canEatHorizontally) //Includes eating HORIZONTALLY activated
+        {
+            horizontal = canPlaceHorizontal(position, myPieceType);
+            for(int i = 0; i < horizontal.size(); i++) 
+                changePieces(position,horizontal.get(i),myPieceType);
+        }
+
+        if (canEatVertically) //Includes eating VERTICALLY activated
+        {
+            vertical = canPlaceVertical(position, myPieceType);
+            for(int i = 0; i < vertical.size(); i++) {
+                changePieces(position,vertical.get(i),myPieceType);
+            }
+        }
+
+        if (canEatDiagonally) //Includes eating DIAGONALLY activated
+        {
+            diagonal = canPlaceDiagonal(position, myPieceType);
+            for(int i = 0; i < diagonal.size(); i++)
+                changePieces(position,diagonal.get(i),myPieceType);
+        }
+         //If we added a piece to the board, we must add this to the piecesPlayerx attribute
+         if((canEatHorizontally && !horizontal.isEmpty()) || (canEatVertically && !vertical.isEmpty()) || (canEatDiagonally && !diagonal.isEmpty())) 
+         {
+             if(myPieceType == PieceType.PLAYER1) this.piecesPlayer1++;
+             if(myPieceType == PieceType.PLAYER2) this.piecesPlayer2++;
+         }
+    } 
+
+    //Private
+
+    /**
+     * @brief Private method that returns true if there is an opponent's PieceType surrounding a position in the board taking into account the capturing methods of the Game (Horizontal,Vertical or Diagonal).<p></p>
+     * &nbsp; This method is particularly useful to check if a position is valid, which means it's eligible to be chosen as a viable option to place a piece in.
+     * @pre Parameters aren't null and <em>position</em> is between values (0,0) and (7,7).
+     * @post <p>Returns <em>true</em> if there is an opponent's PieceType surrounding the <em>position</em> parameter in the board taking into account the capturing methods of the Game.</p>
+     * &nbsp; To crystalize what a piece surrounding a position is, its all the possible positions one can reach adding or substracting 1 to the y or x value
+     * (taking into consideration the board's limits obviously).
+     * @param myPieceType PieceType variable that represents the player in a cell.
+     * @param position Pair<Integer,Integer> that represents a position in a board.
+     * @param canEatHorizontally Boolean value from Configuration that determines if we can capture pieces of the <em>myPieceType</em> opponent in a Horizontal manner.
+     * @param canEatVertically Boolean value from Configuration that determines if we can capture pieces of the <em>myPieceType</em> opponent in a Vertical manner.
+     * @param canEatDiagonally Boolean value from Configuration that determines if we can capture pieces of the <em>myPieceType</em> opponent in a Diagonal manner.
+     */
+    private Boolean surroundingPieces(Pair<Integer,Integer> position, PieceType myPieceType, Boolean canEatHorizontally, Boolean canEatVertically, Boolean canEatDiagonally) 
+    {
+        PieceType opponentPiece = inversePlayer(myPieceType);
+        
+        if(canEatDiagonally)
+        {   
+            //TOP LEFT
+            if(position.first > 0 && position.second > 0 && this.board[position.first-1][position.second-1] == opponentPiece) return true;
+            //TOP RIGHT
+            if(position.first > 0 && position.second < 7 && this.board[position.first-1][position.second+1] == opponentPiece) return true;
+            //BOTTOM RIGHT
+            if(position.first < 7 && position.second < 7 && this.board[position.first+1][position.second+1] == opponentPiece) return true;
+            //BOTTOM LEFT
+            if(position.first < 7 && position.second > 0 && this.board[position.first+1][position.second-1] == opponentPiece) return true;
+        }
+
+        if(canEatVertically)
+        {   
+            //BOTTOM 
+            if(position.first < 7 && this.board[position.first+1][position.second] == opponentPiece) return true;
+            //TOP 
+            if(position.first > 0 && this.board[position.first-1][position.second] == opponentPiece) return true;
+        }
+
+        if(canEatHorizontally)
+        {
+            //RIGHT 
+            if(position.second < 7 && this.board[position.first][position.second+1] == opponentPiece) return true;
+            //LEFT
+            if(position.second > 0 && this.board[position.first][position.second-1] == opponentPiece) return true;
+        }
+        //If none are true
+        return false;
+    }
+
+    /**
+     * @brief Private method that inverts the Player's pieceType.<p></p>
+     * &nbsp; This method is particularly useful to get the opponent's PieceType in another method.
+     * @pre myPieceType isn't null.
+     * @post Returns a PieceType that is the opponent of <em>myPieceType</em>
+     * @param myPieceType PieceType variable that represents the player in a cell.
+     */
+    private PieceType inversePlayer(PieceType myPieceType)
+    {
+        if(myPieceType == PieceType.PLAYER1) return PieceType.PLAYER2;
+        else return PieceType.PLAYER1;
+    }
+
+     /**
+     * @brief Private method that returns an array of positions of the board in which you can conquer the pieces between them (horizontal search). 
+     * @pre Parameters aren't null and <em>position</em> is between values (0,0) and (7,7).
+     * @post Returns an array of positions in which you can use with the method changePieces to conquer the pieces between them and the <em>position<e/m> parameter
+     * (which corresponds to the position we want to add a piece to).
+     * @param position Pair<Integer,Integer> that represents a position in a board.
+     * @param myPieceType PieceType variable that represents the player in a cell.
+     */
+    private ArrayList< Pair<Integer,Integer> > canPlaceHorizontal(Pair<Integer, Integer> position, PieceType myPieceType)
+    {
+        ArrayList< Pair<Integer,Integer> > result = new ArrayList<Pair<Integer, Integer>>();
+
+        Integer row = position.first;
+        Integer column = position.second;
+        PieceType opponentPiece = inversePlayer(myPieceType);
+
+        if(column > 0) //To not go out of the boards boundaries 
+        {
+            //to check if we can eat LEFT SIDE
+            if(this.board[row][column-1] == opponentPiece) 
+            {
+                Integer it1 = column-1;
+                Boolean found1 = false;
+
+                while(it1 >= 0 && this.board[row][it1] != null && found1 == false)
+                //go through the line of the board to see if we can place the piece we want in "position". If so, we add the position of the piece that closes in the result array.
+                {
+                    if(this.board[row][it1] == myPieceType) //found a piece that's mine = CAN PLACE
+                    {
+                        result.add(new Pair<Integer,Integer>(row,it1));
+                        found1 = true;
+                    }
+                    else //found another piece of the opponent = CONTINUE THE HUNT
+                        it1 -= 1;
+                }
+            }
+        }
+        
+        if(column < 7) //To not go out of the boards boundaries
+        {
+            //to check if we can eat RIGHT SIDE
+            if(this.board[row][column+1] == opponentPiece)
+            {
+                Integer it2 = column+1;
+                Boolean found2 = false;
+
+                while(it2 <= 7 && this.board[row][it2] != null && found2 == false)
+                //go through the line of the board to see if we can place the piece we want in "position". If so, we add the position of the piece that closes in the result array.
+                {
+                    if(this.board[row][it2] == myPieceType) //found a piece that's mine = CAN PLACE
+                    {
+                        result.add(new Pair<Integer,Integer>(row,it2));
+                        found2 = true;
+                    }
+                    else //found another piece of the opponent = CONTINUE THE HUNT
+                    {
+                        it2 += 1;                    
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+     /**
+     * @brief Private method that returns an array of positions of the board in which you can conquer the pieces between them (vertical search).
+     * @pre Parameters aren't null and <em>position</em> is between values (0,0) and (7,7).
+     * @post Returns an array of positions in which you can use with the method changePieces to conquer the pieces between them and the <em>position<e/m> parameter
+     * (which corresponds to the position we want to add a piece to).
+     * @param position Pair<Integer,Integer> that represents a position in a board.
+     * @param myPieceType PieceType variable that represents the player in a cell.
+     */
+    private ArrayList< Pair<Integer,Integer> > canPlaceVertical(Pair<Integer, Integer> position, PieceType myPieceType)
+    {
+        ArrayList< Pair<Integer,Integer> > result = new ArrayList<Pair<Integer, Integer>>();
+
+        Integer row = position.first;
+        Integer column = position.second;
+        PieceType opponentPiece = inversePlayer(myPieceType);
+
+        if(row > 0) //To not go out of the boards boundaries
+        {
+            if(this.board[row-1][column] == opponentPiece) //to check if left side can be eaten
+            {
+                Integer it1 = row-1;
+                Boolean found1 = false;
+
+                while(it1 >= 0 && this.board[it1][column] != null && found1 == false) 
+                //go through the line of the board to see if we can place the piece we want in "position". If so, we add the position of the piece that closes in the result array.
+                {
+                    if(this.board[it1][column] == myPieceType) //found a piece that's mine = CAN PLACE
+                    {
+                        result.add(new Pair<Integer,Integer>(it1,column));
+                        found1 = true;
+                    }
+                    else //found another piece of the opponent = CONTINUE THE HUNT
+                        it1 -= 1;
+                }
+            }
+        }
+
+        if(row < 7)
+        {
+            if(this.board[row+1][column] == opponentPiece) //to check if right side can be eaten
+            {
+                Integer it2 = row+1;
+                Boolean found2 = false;
+
+                while(it2 <= 7 && this.board[it2][column] != null && found2 == false) 
+                //go through the line of the board to see if we can place the piece we want in "position". If so, we add the position of the piece that closes in the result array.
+                {
+                    if(this.board[it2][column] == myPieceType) //found a piece that's mine = CAN PLACE
+                    {
+                        result.add(new Pair<Integer,Integer>(it2,column));
+                        found2 = true;
+                    }
+                    else //found another piece of the opponent = CONTINUE THE HUNT
+                    {
+                        it2 += 1;
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+     /**
+     * @brief Private method that returns an array of positions of the board in which you can conquer the pieces between them (diagonal search).
+     * @pre Parameters aren't null and <em>position</em> is between values (0,0) and (7,7).
+     * @post Returns an array of positions in which you can use with the method changePieces to conquer the pieces between them and the <em>position<e/m> parameter
+     * (which corresponds to the position we want to add a piece to).
+     * @param position Pair<Integer,Integer> that represents a position in a board.
+     * @param myPieceType PieceType variable that represents the player in a cell.
+     */
+    private ArrayList< Pair<Integer,Integer> > canPlaceDiagonal(Pair<Integer, Integer> position, PieceType myPieceType)
+    {
+        ArrayList< Pair<Integer,Integer> > result = new ArrayList<Pair<Integer, Integer>>();
+
+        Integer row = position.first;
+        Integer column = position.second;
+        PieceType opponentPiece = inversePlayer(myPieceType);
+
+        //DIAGONAL UP LEFT
+        if(row > 0 && column > 0) //To not go out of the boards boundaries
+        {
+            if(this.board[row-1][column-1] == opponentPiece) //to check if we can eat some opponent pieces in the upper left diagonal
+            {
+                Integer itRow = row-1;
+                Integer itCol = column-1;
+                Boolean found = false;
+
+                while(itRow >= 0 && itCol >= 0 && this.board[itRow][itCol] != null && found == false)
+                //go through the line of the board to see if we can place the piece we want in "position". If so, we add the position of the piece that closes in the result array.
+                {
+                    if(this.board[itRow][itCol] == myPieceType) //found a piece that's mine in the diagonal line = CAN PLACE
+                    {
+                        result.add(new Pair<Integer,Integer>(itRow,itCol));
+                        found = true;
+                    }
+                    else //found another piece of the opponent in the diagonal line = CONTINUE THE HUNT
+                    {
+                        itRow -= 1;
+                        itCol -= 1;
+                    }
+                }
+
+            }
+        }
+
+        //DIAGONAL UP RIGHT 
+        if(row > 0 && column < 7)//To not go out of the boards boundaries
+        {
+            if(this.board[row-1][column+1] == opponentPiece) //to check if we can eat some opponents pieces in the upper right diagonal
+            {
+                Integer itRow = row-1;
+                Integer itCol = column+1;
+                Boolean found = false;
+
+                while(itRow >= 0 && itCol <= 7 && this.board[itRow][itCol] != null && found == false) 
+                //go through the line of the board to see if we can place the piece we want in "position". If so, we add the position of the piece that closes in the result array.
+                {
+                    if(this.board[itRow][itCol] == myPieceType)
+                    {
+                        result.add(new Pair<Integer,Integer>(itRow,itCol));
+                        found = true;
+                    }
+                    else //found another piece of the opponent in the diagonal line = CONTINUE THE HUNT
+                    {
+                        itRow -= 1;
+                        itCol += 1;
+                    }
+                }
+
+            }
+        }
+
+        //DIAGONAL DOWN LEFT
+        if(row < 7 && column > 0) //To not go out of the boards boundaries
+        {
+            if(this.board[row+1][column-1] == opponentPiece) //to check if we can eat some opponents pieces in the bottom left diagonal
+            {
+                Integer itRow = row+1;
+                Integer itCol = column-1;
+                Boolean found = false;
+
+                while(itRow <= 7 && itCol >= 0 && this.board[itRow][itCol] != null && found == false)
+                //go through the line of the board to see if we can place the piece we want in "position". If so, we add the position of the piece that closes in the result array.
+                {
+                    if(this.board[itRow][itCol] == myPieceType)
+                    {
+                        result.add(new Pair<Integer,Integer>(itRow,itCol));
+                        found = true;
+                    }
+                    else //found another piece of the opponent in the diagonal line = CONTINUE THE HUNT
+                    {
+                        itRow += 1;
+                        itCol -= 1;
+                    }
+                }
+
+            }
+        }
+        
+        //DIAGONAL DOWN RIGHT
+        if(row < 7 && column < 7) //To not go out of the boards boundaries
+        {   
+            if(this.board[row+1][column+1] == opponentPiece) //to check if we can eat some opponent pieces in the bottom right diagonal
+            {
+                Integer itRow = row+1;
+                Integer itCol = column+1;
+                Boolean found = false;
+
+                while(itRow <= 7 && itCol <= 7 && this.board[itRow][itCol] != null && found == false)
+                //go through the line of the board to see if we can place the piece we want in "position". If so, we add the position of the piece that closes in the result array.
+                {
+                    if(this.board[itRow][itCol] == myPieceType)
+                    {
+                        result.add(new Pair<Integer,Integer>(itRow,itCol));
+                        found = true;
+                    }
+                    else //found another piece of the opponent in the diagonal line = CONTINUE THE HUNT
+                    {
+                        itRow += 1;
+                        itCol += 1;
+                    }
+                }
+
+            }
+        }
+
+        return result;
+
+    }
+
+     /**
+     * @brief Private method that changes the pieces between two positions of the board.
+     * @pre Parameters aren't null.
+     * @post The pieces between the two positions in the board are changed to the <em>myPieceType</em> state.
+     * @param addPiece Pair<Intenger,Integer> that represents a position in the board.
+     * @param lastPiece Pair<Intenger,Integer> that represents a position in the board. 
+     * @param myPieceType PieceType variable that represents the player in a cell.
+     */
+    private void changePieces(Pair<Integer, Integer> addPiece, Pair<Integer, Integer> lastPiece, PieceType myPieceType)
+    {
+        Pair<Integer,Integer> position = new Pair<Integer,Integer>(addPiece.first,addPiece.second);
+        Integer diffRow = lastPiece.first - addPiece.first;
+        Integer diffCol = lastPiece.second - addPiece.second;
+        Integer dirRow = 0, dirCol = 0;
+        PieceType opponent = inversePlayer(myPieceType);
+
+        if(diffRow == 0) //HORIZONTAL
+        {
+            if(diffCol > 0) //RIGHT
+                dirCol = 1;
+            else //LEFT
+                dirCol = -1;
+        }
+
+        if(diffCol == 0) //VERTICAL
+        {
+            if(diffRow > 0) //UP
+                dirRow = 1;
+            else //DOWN
+                dirRow = -1;
+        }
+
+        if(diffCol != 0 && diffRow != 0) //DIAGONAL
+        {
+            if(diffRow > 0 && diffCol > 0) //DIAGONAL BOTTOM RIGHT
+            {
+                dirRow = 1;
+                dirCol = 1;
+            }
+            if(diffRow > 0 && diffCol < 0) //DIAGONAL BOTTOM LEFT
+            {
+                dirRow = 1;
+                dirCol = -1;
+            }
+            if(diffRow < 0 && diffCol > 0) //DIAGONAL TOP RIGHT
+            {
+                dirRow = -1;
+                dirCol = 1;
+            }
+            if(diffRow < 0 && diffCol < 0) //DIAGONAL TOP LEFT
+            {
+                dirRow = -1;
+                dirCol = -1;
+            }
+        }
+
+
+        while((position.first != lastPiece.first) || (position.second != lastPiece.second)) {
+            if(this.board[position.first][position.second] == opponent && opponent == PieceType.PLAYER1)
+            {
+                this.piecesPlayer1--;
+                this.piecesPlayer2++;
+            } 
+            if(this.board[position.first][position.second] == opponent && opponent == PieceType.PLAYER2)
+            {
+                this.piecesPlayer1++;
+                this.piecesPlayer2--;
+            } 
+
+            this.board[position.first][position.second] = myPieceType;
+            position.first = position.first + dirRow;
+            position.second = position.second + dirCol;
+        }
+    }
+}
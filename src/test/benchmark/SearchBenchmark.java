@@ -0,0 +1,109 @@
+/**
+ * @file SearchBenchmark.java
+ * @author Alex Rodriguez
+ * @brief SearchBenchmark class specification.
+ */
+package test.benchmark;
+
+import java.util.List;
+import java.util.UUID;
+
+import domain.Board;
+import domain.Board.PieceType;
+import domain.Configuration;
+import domain.DifficultyCtrl;
+import domain.Evaluator;
+import domain.HardDifficulty;
+import domain.PatternEvaluator;
+import domain.WeightTableEvaluator;
+import repository.WeightsRepositoryCtrl;
+import util.Pair;
+
+/**
+ * @class SearchBenchmark
+ * @brief Implements the benchmarks of the search: the evaluation of a Board state with each Evaluator, and a whole
+ * getBestPosition call of every level of DifficultyCtrl.
+ * Every call uses the next Board of the fixtures, with every direction allowed and PLAYER1 to move. The levels are
+ * measured without time limit, with one thread, without opening book and with a new DifficultyCtrl in every call, so
+ * they always do the same work and don't reuse the searches of the previous calls. The PatternEvaluator is read once
+ * before, so the calls don't read its weights.
+ * By Alex Rodriguez.
+ */
+public class SearchBenchmark {
+    /* ATTRIBUTES */
+
+    /**
+    * @brief Boards of the fixtures.
+    */
+    private Board[] boards;
+    /**
+    * @brief Configuration of the games, with every direction allowed.
+    */
+    private Configuration configuration;
+    /**
+    * @brief Index of the Board of the next call.
+    */
+    private int next;
+
+    /* CONSTRUCTORS */
+
+    /**
+     * @brief Create a SearchBenchmark instance.
+     * @pre The given boards aren't empty and PLAYER1 can place a piece in all of them with every direction allowed.
+     * @post A SearchBenchmark of the given Boards is created.
+     * @param boards Boards of the fixtures.
+     */
+    public SearchBenchmark(List<Board> boards) {
+        this.boards = boards.toArray(new Board[0]);
+        this.configuration = new Configuration("Benchmark", new UUID(0, 0), true, true, true);
+        this.next = 0;
+    }
+
+    /* METHODS */
+
+    /**
+     * @brief Run the benchmarks.
+     * @pre <em>True</em>
+     * @post The benchmarks of the evaluations are run with the given Benchmark, and the ones of the levels with the given
+     * searchBenchmark, whose iterations are usually longer.
+     * @param benchmark Benchmark that measures the evaluations.
+     * @param searchBenchmark Benchmark that measures the levels.
+     */
+    public void run(Benchmark benchmark, Benchmark searchBenchmark) {
+        Evaluator classic = WeightTableEvaluator.classic(true, true, true);
+        benchmark.run("WeightTableEvaluator.evaluate", () -> classic.evaluate(this.nextBoard(), PieceType.PLAYER1));
+
+        byte[] weights = new WeightsRepositoryCtrl().get("patterns");
+        PatternEvaluator patterns = (weights != null ? PatternEvaluator.fromBytes(weights) : null);
+        if (patterns != null)
+            benchmark.run("PatternEvaluator.evaluate", () -> patterns.evaluate(this.nextBoard(), PieceType.PLAYER1));
+
+        for (int level = 1; level <= 10; ++level) {
+            int difficulty = level;
+            searchBenchmark.run(String.format("DifficultyCtrl.getBestPosition(%d)", level), () -> {
+                DifficultyCtrl difficultyCtrl = new DifficultyCtrl();
+                difficultyCtrl.setTimeLimit(difficulty, 0);
+                difficultyCtrl.setParallelism(HardDifficulty.Parallelism.NONE, 1);
+                difficultyCtrl.setSearchThreads(1);
+                difficultyCtrl.setOpeningBook(null);
+                difficultyCtrl.setPatternEvaluator(patterns);
+
+                Pair<Integer, Integer> position = difficultyCtrl.getBestPosition(difficulty, this.configuration,
+                        this.nextBoard(), PieceType.PLAYER1);
+                return position.first * 8 + position.second;
+            });
+        }
+    }
+
+    /**
+     * @brief Private method that returns the Board of the next call.
+     * @pre <em>True</em>
+     * @post The next Board of the fixtures is returned, going back to the first one after the last one.
+     * @return Board of the next call.
+     */
+    private Board nextBoard() {
+        Board board = this.boards[this.next];
+        this.next = (this.next + 1 == this.boards.length ? 0 : this.next + 1);
+        return board;
+    }
+}
@@ -0,0 +1,213 @@
+/** @file BoardJUnit.java
+ @brief Specification of class BoardJUnit
+ */
+package test.unitary;
+
+import domain.Board;
+import domain.Board.PieceType;
+import domain.MoveList;
+import org.json.JSONObject;
+import org.junit.Test;
+import util.Pair;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/** @class BoardJUnit
+ @brief Allows JUnit testing of class Board
+
+ Created by Manuel Navid
+
+ Class that represents a testing of class Board. It contains tester methods for the public Board methods used to play
+ */
+
+public class BoardJUnit {
+
+    private JSONObject jsonBoard(String... rows) {
+        JSONObject board = new JSONObject();
+        for (int i = 0; i < 8; ++i)
+            board.put("row" + i, rows[i]);
+        return board;
+    }
+
+    private long countLeaves(Board board, PieceType pieceType, int depth, boolean passed, boolean cH, boolean cV, boolean cD) {
+        if (depth == 0) return 1;
+
+        PieceType opponent = (pieceType == PieceType.PLAYER1 ? PieceType.PLAYER2 : PieceType.PLAYER1);
+        long moves = board.validMoves(pieceType, cH, cV, cD);
+        if (moves == 0) return (passed ? 1 : countLeaves(board, opponent, depth - 1, true, cH, cV, cD));
+
+        long nodes = 0;
+        for (; moves != 0; moves &= moves - 1) {
+            int square = Long.numberOfTrailingZeros(moves);
+            long flipped = board.makeMove(square >>> 3, square & 7, pieceType, cH, cV, cD);
+            nodes += countLeaves(board, opponent, depth - 1, false, cH, cV, cD);
+            board.unmakeMove(square >>> 3, square & 7, pieceType, flipped);
+        }
+        return nodes;
+    }
+
+    @Test
+    public void Board() {
+        Board b = new Board();
+        assertEquals("Board failed because", 2, (int) b.getPiecesPlayer1());
+        assertEquals("Board failed because", 2, (int) b.getPiecesPlayer2());
+        assertEquals("Board failed because", PieceType.PLAYER1, b.getBoard()[3][3]);
+        assertEquals("Board failed because", PieceType.PLAYER2, b.getBoard()[3][4]);
+        assertNull("Board failed because", b.getBoard()[0][0]);
+    }
+
+    @Test
+    public void serialize() {
+        JSONObject json = jsonBoard("B???????", "?N??????", "????????", "???BN???", "???NB???", "????????", "??????N?", "???????B");
+        Board b = new Board(json);
+        assertTrue("serialize failed because", json.similar(b.serialize()));
+        assertEquals("serialize failed because", 4, (int) b.getPiecesPlayer1());
+        assertEquals("serialize failed because", 4, (int) b.getPiecesPlayer2());
+    }
+
+    @Test
+    public void toBytes() {
+        Board b = new Board(jsonBoard("B???????", "?N??????", "????????", "???BN???", "???NB???", "????????", "??????N?", "???????B"));
+        byte[] bytes = b.toBytes();
+        assertEquals("toBytes failed because", Board.BYTES, bytes.length);
+        Board c = Board.fromBytes(bytes);
+        assertTrue("toBytes failed because", b.serialize().similar(c.serialize()));
+        assertEquals("toBytes failed because", b.getHash(), c.getHash());
+    }
+
+    @Test
+    public void fromBytes() {
+        byte[][] invalid = {new byte[Board.BYTES - 1], new byte[Board.BYTES + 1],
+                ByteBuffer.allocate(Board.BYTES).putLong(1L << 27).putLong(1L << 27 | 1L << 28).array()};
+        for (byte[] bytes : invalid) {
+            try {
+                Board.fromBytes(bytes);
+                fail("fromBytes failed because an invalid Board was accepted");
+            } catch (IllegalArgumentException e) {
+                assertEquals("fromBytes failed because", "ERR_INVALID_BOARD", e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void validPositions() {
+        Board b = new Board();
+        ArrayList<Pair<Integer, Integer>> expected = new ArrayList<Pair<Integer, Integer>>();
+        expected.add(new Pair<Integer, Integer>(2, 4));
+        expected.add(new Pair<Integer, Integer>(3, 5));
+        expected.add(new Pair<Integer, Integer>(4, 2));
+        expected.add(new Pair<Integer, Integer>(5, 3));
+        assertEquals("validPositions failed because", expected, b.validPositions(PieceType.PLAYER1, true, true, true));
+        assertEquals("validPositions failed because", new ArrayList<Pair<Integer, Integer>>(),
+                b.validPositions(PieceType.PLAYER1, false, false, true));
+    }
+
+    @Test
+    public void validPositionsRules() {
+        Board b = new Board(jsonBoard("????????", "????????", "??BNNN??", "??N?????", "??N?????", "??N?????", "????????", "????????"));
+        ArrayList<Pair<Integer, Integer>> horizontal = new ArrayList<Pair<Integer, Integer>>();
+        horizontal.add(new Pair<Integer, Integer>(2, 6));
+        ArrayList<Pair<Integer, Integer>> vertical = new ArrayList<Pair<Integer, Integer>>();
+        vertical.add(new Pair<Integer, Integer>(6, 2));
+        assertEquals("validPositions failed because", horizontal, b.validPositions(PieceType.PLAYER1, true, false, false));
+        assertEquals("validPositions failed because", vertical, b.validPositions(PieceType.PLAYER1, false, true, false));
+        assertEquals("validPositions failed because", 0L, b.validMoves(PieceType.PLAYER1, false, false, true));
+    }
+
+    @Test
+    public void moveList() {
+        Board b = new Board();
+        MoveList moves = new MoveList(b.validMoves(PieceType.PLAYER2, true, true, true));
+        assertEquals("moveList failed because", 4, moves.size());
+        assertTrue("moveList failed because", moves.contains(new Pair<Integer, Integer>(2, 3)));
+        assertFalse("moveList failed because", moves.contains(new Pair<Integer, Integer>(2, 4)));
+        assertFalse("moveList failed because", moves.contains(null));
+        assertEquals("moveList failed because", b.validPositions(PieceType.PLAYER2, true, true, true), moves.toPairs());
+    }
+
+    @Test
+    public void placePiece() {
+        Board b = new Board(jsonBoard("????????", "??????N?", "?????N??", "????N???", "???N????", "??N?????", "?N??????", "B???????"));
+        b.placePiece(new Pair<Integer, Integer>(0, 7), PieceType.PLAYER1, true, true, false);
+        assertNull("placePiece failed because", b.getBoard()[0][7]);
+        b.placePiece(new Pair<Integer, Integer>(0, 7), PieceType.PLAYER1, true, true, true);
+        assertEquals("placePiece failed because", 8, (int) b.getPiecesPlayer1());
+        assertEquals("placePiece failed because", 0, (int) b.getPiecesPlayer2());
+        assertEquals("placePiece failed because", PieceType.PLAYER1, b.getBoard()[3][4]);
+    }
+
+    @Test
+    public void hash() {
+        Board b = new Board();
+        long initial = b.getHash();
+        long flipped = b.makeMove(2, 4, PieceType.PLAYER1, true, true, true);
+        assertEquals("hash failed because", new Board(b.getBoard()).getHash(), b.getHash());
+        assertFalse("hash failed because", initial == b.getHash());
+        b.unmakeMove(2, 4, PieceType.PLAYER1, flipped);
+        assertEquals("hash failed because", initial, b.getHash());
+        assertEquals("hash failed because", initial, new Board(b).getHash());
+    }
+
+    @Test
+    public void transform() {
+        Board b = new Board();
+        b.makeMove(2, 4, PieceType.PLAYER1, true, true, true);
+        long player1 = b.getBitboard(PieceType.PLAYER1);
+        for (int symmetry = 0; symmetry < Board.SYMMETRIES; ++symmetry) {
+            long expected = 0L;
+            for (int square = 0; square < 64; ++square)
+                if ((player1 & (1L << square)) != 0) expected |= 1L << Board.transformSquare(square, symmetry);
+            assertEquals("transform failed because", expected, Board.transform(player1, symmetry));
+            assertEquals("transform failed because", b.getHash(),
+                    b.transform(symmetry).transform(Board.inverseSymmetry(symmetry)).getHash());
+        }
+        assertEquals("transform failed because", 7, Board.transformSquare(0, Board.ROTATE_90));
+        assertEquals("transform failed because", 8, Board.transformSquare(1, Board.MIRROR_DIAGONAL));
+    }
+
+    @Test
+    public void canonicalHash() {
+        Board b = new Board();
+        b.makeMove(2, 4, PieceType.PLAYER1, true, true, true);
+        long canonical = b.getCanonicalHash(true, true, true);
+        int square = b.toCanonicalSquare(2 * 8 + 3, true, true, true);
+        for (int symmetry = 0; symmetry < Board.SYMMETRIES; ++symmetry) {
+            Board transformed = b.transform(symmetry);
+            assertEquals("canonicalHash failed because", canonical, transformed.getCanonicalHash(true, true, true));
+            assertEquals("canonicalHash failed because", square,
+                    transformed.toCanonicalSquare(Board.transformSquare(2 * 8 + 3, symmetry), true, true, true));
+        }
+        int back = Board.transformSquare(square, Board.inverseSymmetry(b.canonicalSymmetry(true, true, true)));
+        assertTrue("canonicalHash failed because", (b.validMoves(PieceType.PLAYER2, true, true, true) & (1L << back)) != 0);
+        assertEquals("canonicalHash failed because", 4, Board.symmetries(true, false, true));
+        assertFalse("canonicalHash failed because",
+                b.getCanonicalHash(true, false, true) == b.transform(Board.ROTATE_90).getCanonicalHash(true, false, true));
+    }
+
+    @Test
+    public void perft() {
+        // Published leaf counts at depth 6 from the initial Board, indexed by rules (1 horizontal, 2 vertical, 4 diagonal)
+        long[] expected = {0, 2, 2, 296, 1, 378, 378, 8200};
+        for (int rules = 1; rules < 8; ++rules)
+            assertEquals("perft failed because", expected[rules],
+                    countLeaves(new Board(), PieceType.PLAYER1, 6, false, (rules & 1) != 0, (rules & 2) != 0, (rules & 4) != 0));
+    }
+
+    @Test
+    public void placePieceConfig() {
+        Board b = new Board();
+        b.placePieceConfig(new Pair<Integer, Integer>(3, 4), PieceType.PLAYER1);
+        assertEquals("placePieceConfig failed because", 3, (int) b.getPiecesPlayer1());
+        assertEquals("placePieceConfig failed because", 1, (int) b.getPiecesPlayer2());
+        b.removePiece(new Pair<Integer, Integer>(3, 4));
+        assertEquals("removePiece failed because", 2, (int) b.getPiecesPlayer1());
+        assertNull("removePiece failed because", b.getBoard()[3][4]);
+    }
+}
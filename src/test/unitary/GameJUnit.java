@@ -0,0 +1,78 @@
+/** @file GameJUnit.java
+ @brief Specification of class GameJUnit
+ */
+package test.unitary;
+
+import domain.Game;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/** @class GameJUnit
+ @brief Allows JUnit testing of class Game
+
+ Created by Alex Rodriguez
+
+ Class that represents a testing of class Game. It contains tester methods for the binary representation of a Game
+ */
+
+public class GameJUnit {
+
+    private Game game(String name, String configurationName) {
+        return new Game(name, UUID.randomUUID(), UUID.randomUUID(), configurationName, UUID.randomUUID());
+    }
+
+    private void assertInvalid(byte[] bytes) {
+        try {
+            Game.fromBytes(bytes);
+            fail("fromBytes failed because an invalid Game was accepted");
+        } catch (IllegalArgumentException e) {
+            assertEquals("fromBytes failed because", "ERR_INVALID_GAME", e.getMessage());
+        }
+    }
+
+    @Test
+    public void toBytes() throws Exception {
+        Game g = this.game("Partida", "default");
+        assertTrue("toBytes failed because", g.serialize().similar(Game.fromBytes(g.toBytes()).serialize()));
+
+        g.play();
+        g.nextTurn();
+        g.finish(g.getPlayer2ID());
+        Game h = Game.fromBytes(g.toBytes());
+        assertTrue("toBytes failed because", g.serialize().similar(h.serialize()));
+        assertEquals("toBytes failed because", g.getPlayer2ID(), h.getWinnerID());
+        assertEquals("toBytes failed because", g.getCreatedAt(), h.getCreatedAt());
+    }
+
+    @Test
+    public void toBytesNonASCII() {
+        Game g = this.game("Partida ñandú 日本", "Configuració €");
+        Game h = Game.fromBytes(g.toBytes());
+        assertEquals("toBytesNonASCII failed because", "Partida ñandú 日本", h.getName());
+        assertEquals("toBytesNonASCII failed because", "Configuració €", h.getConfigurationName());
+        assertTrue("toBytesNonASCII failed because", g.serialize().similar(h.serialize()));
+    }
+
+    @Test
+    public void fromBytes() {
+        byte[] bytes = this.game("Partida", "default").toBytes();
+
+        this.assertInvalid(Arrays.copyOf(bytes, bytes.length - 1));
+        this.assertInvalid(Arrays.copyOf(bytes, 10));
+        this.assertInvalid(Arrays.copyOf(bytes, bytes.length + 1));
+
+        byte[] version = bytes.clone();
+        version[0] = 2;
+        this.assertInvalid(version);
+
+        byte[] flags = bytes.clone();
+        flags[3] = 2;
+        this.assertInvalid(flags);
+    }
+}
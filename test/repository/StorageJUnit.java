@@ -0,0 +1,258 @@
+/** @file StorageJUnit.java
+ @brief Specification of class StorageJUnit
+ */
+package repository;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import repository.Repository.StorageType;
+import repository.Storage.Change;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/** @class StorageJUnit
+ @brief Allows JUnit testing of the storage backends of the databases
+
+ Created by Alex Rodriguez
+
+ Class that represents a testing of classes Database, JSONStorage and PageStorage. They are package-private, so it belongs
+ to the repository package, in the test source root of the tests of package-private classes. Every test works on its own
+ temporary directory, with every write flushed.
+ */
+
+public class StorageJUnit {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void setUp() {
+        Database.setFlushInterval(0);
+    }
+
+    @After
+    public void tearDown() {
+        JSONStorage.setLogThreshold(1 << 20);
+        Database.setFlushInterval(1000);
+    }
+
+    private JSONObject entry(int value) {
+        return new JSONObject().put("value", value);
+    }
+
+    private JSONObject entries(int count, int size) {
+        char[] text = new char[size];
+        Arrays.fill(text, 'x');
+        JSONObject entries = new JSONObject();
+        for (int i = 0; i < count; ++i)
+            entries.put("key" + i, new JSONObject().put("value", i).put("text", new String(text)));
+        return entries;
+    }
+
+    private List<Change> changes(JSONObject entries) {
+        List<Change> changes = new ArrayList<Change>();
+        for (String key : entries.keySet())
+            changes.add(new Change(key, entries.getJSONObject(key).toString()));
+        return changes;
+    }
+
+    private int header(Path path, int offset) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(4);
+            channel.read(buffer, offset);
+            return buffer.getInt(0);
+        }
+    }
+
+    @Test
+    public void replayLog() throws IOException {
+        Path path = this.folder.getRoot().toPath().resolve("replay.json");
+        Database database = Database.of(path.toString());
+        database.put("a", this.entry(1));
+        database.put("b", this.entry(2));
+        database.put("a", this.entry(3));
+        database.remove("b");
+
+        assertFalse("replayLog failed because", Files.exists(path));
+        assertEquals("replayLog failed because", 4, Files.readAllLines(path.resolveSibling("replay.json.log")).size());
+        JSONObject loaded = new JSONStorage(path.toString()).load();
+        assertTrue("replayLog failed because", loaded.similar(new JSONObject().put("a", this.entry(3))));
+    }
+
+    @Test
+    public void truncatedLog() throws IOException {
+        Path path = this.folder.getRoot().toPath().resolve("truncated.json");
+        JSONStorage storage = new JSONStorage(path.toString());
+        storage.load();
+        storage.write(Arrays.asList(new Change("a", this.entry(1).toString()), new Change("b", this.entry(2).toString())), null);
+        Files.write(path.resolveSibling("truncated.json.log"), "{\"key\":\"c\",\"val".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        JSONStorage reloaded = new JSONStorage(path.toString());
+        JSONObject entries = reloaded.load();
+        assertTrue("truncatedLog failed because", entries.similar(new JSONObject().put("a", this.entry(1)).put("b", this.entry(2))));
+
+        entries.put("d", this.entry(4));
+        reloaded.write(Arrays.asList(new Change("d", this.entry(4).toString())), () -> entries);
+        assertFalse("truncatedLog failed because", Files.exists(path.resolveSibling("truncated.json.log")));
+        assertTrue("truncatedLog failed because", new JSONStorage(path.toString()).load().similar(entries));
+    }
+
+    @Test
+    public void compactLog() throws IOException {
+        Path path = this.folder.getRoot().toPath().resolve("compact.json");
+        JSONStorage.setLogThreshold(200);
+        JSONStorage storage = new JSONStorage(path.toString());
+        JSONObject entries = storage.load();
+
+        for (int i = 0; i < 10; ++i) {
+            entries.put("key" + i, this.entry(i));
+            storage.write(Arrays.asList(new Change("key" + i, this.entry(i).toString())), () -> entries);
+            Path log = path.resolveSibling("compact.json.log");
+            assertTrue("compactLog failed because", !Files.exists(log) || Files.size(log) < 200);
+        }
+
+        assertTrue("compactLog failed because", Files.exists(path));
+        assertTrue("compactLog failed because", new JSONStorage(path.toString()).load().similar(entries));
+    }
+
+    @Test
+    public void failedAppend() throws IOException {
+        Path path = this.folder.getRoot().toPath().resolve("failed.json");
+        Path log = path.resolveSibling("failed.json.log");
+        JSONStorage storage = new JSONStorage(path.toString());
+        JSONObject entries = storage.load();
+
+        Files.createDirectory(log);
+        entries.put("a", this.entry(1));
+        try {
+            storage.write(Arrays.asList(new Change("a", this.entry(1).toString())), () -> entries);
+            fail("failedAppend failed because the append didn't fail");
+        } catch (IOException e) {
+        }
+        Files.delete(log);
+
+        entries.put("b", this.entry(2));
+        storage.write(Arrays.asList(new Change("b", this.entry(2).toString())), () -> entries);
+        assertFalse("failedAppend failed because", Files.exists(log));
+        assertTrue("failedAppend failed because", new JSONStorage(path.toString()).load().similar(entries));
+    }
+
+    @Test
+    public void bucketChain() throws IOException {
+        Path path = this.folder.getRoot().toPath().resolve("chain.db");
+        PageStorage storage = new PageStorage(path.toString());
+        storage.load();
+        JSONObject entries = this.entries(3, 3 * PageStorage.PAGE_SIZE);
+        storage.write(this.changes(entries), null);
+        storage.close();
+
+        assertTrue("bucketChain failed because", Files.size(path) >= 10L * PageStorage.PAGE_SIZE);
+        PageStorage reloaded = new PageStorage(path.toString());
+        assertTrue("bucketChain failed because", reloaded.load().similar(entries));
+        reloaded.close();
+    }
+
+    @Test
+    public void resize() throws IOException {
+        Path path = this.folder.getRoot().toPath().resolve("resize.db");
+        PageStorage storage = new PageStorage(path.toString());
+        storage.load();
+        storage.write(this.changes(this.entries(1, 10)), null);
+        int buckets = this.header(path, 12);
+
+        JSONObject entries = this.entries(buckets, PageStorage.PAGE_SIZE);
+        storage.write(this.changes(entries), null);
+        storage.close();
+
+        assertEquals("resize failed because", 2 * buckets, this.header(path, 12));
+        PageStorage reloaded = new PageStorage(path.toString());
+        assertTrue("resize failed because", reloaded.load().similar(entries));
+        reloaded.close();
+    }
+
+    @Test
+    public void reuseFreePages() throws IOException {
+        Path path = this.folder.getRoot().toPath().resolve("reuse.db");
+        PageStorage storage = new PageStorage(path.toString());
+        storage.load();
+        storage.write(Arrays.asList(new Change("a", this.entry(1).toString())), null);
+        storage.write(Arrays.asList(new Change("a", this.entry(2).toString())), null);
+        storage.close();
+        long size = Files.size(path);
+
+        PageStorage reloaded = new PageStorage(path.toString());
+        reloaded.load();
+        for (int i = 3; i < 10; ++i)
+            reloaded.write(Arrays.asList(new Change("a", this.entry(i).toString())), null);
+        reloaded.close();
+
+        assertEquals("reuseFreePages failed because", size, Files.size(path));
+        PageStorage last = new PageStorage(path.toString());
+        assertTrue("reuseFreePages failed because", last.load().similar(new JSONObject().put("a", this.entry(9))));
+        last.close();
+    }
+
+    @Test
+    public void partialPage() throws IOException {
+        Path path = this.folder.getRoot().toPath().resolve("partial.db");
+        JSONObject entries = this.entries(10, 100);
+        PageStorage storage = new PageStorage(path.toString());
+        storage.load();
+        storage.write(this.changes(entries), null);
+        storage.close();
+        long size = Files.size(path);
+        Files.write(path, new byte[PageStorage.PAGE_SIZE / 2], StandardOpenOption.APPEND);
+
+        PageStorage reloaded = new PageStorage(path.toString());
+        assertTrue("partialPage failed because", reloaded.load().similar(entries));
+        assertEquals("partialPage failed because", size, Files.size(path));
+
+        entries.put("key10", this.entry(10));
+        reloaded.write(Arrays.asList(new Change("key10", this.entry(10).toString())), null);
+        reloaded.close();
+        assertEquals("partialPage failed because", 0, Files.size(path) % PageStorage.PAGE_SIZE);
+        PageStorage last = new PageStorage(path.toString());
+        assertTrue("partialPage failed because", last.load().similar(entries));
+        last.close();
+    }
+
+    @Test
+    public void migrate() throws IOException {
+        Path path = this.folder.getRoot().toPath().resolve("migrate.json");
+        JSONObject entries = this.entries(100, 100);
+        new JSONStorage(path.toString()).replace(entries);
+
+        assertEquals("migrate failed because", 100, Database.migrate(path.toString(), StorageType.JSON, StorageType.PAGES));
+        Files.delete(path);
+        assertEquals("migrate failed because", 100, Database.migrate(path.toString(), StorageType.PAGES, StorageType.JSON));
+        assertTrue("migrate failed because", new JSONStorage(path.toString()).load().similar(entries));
+
+        Path missing = path.resolveSibling("missing.json");
+        try {
+            Database.migrate(missing.toString(), StorageType.PAGES, StorageType.JSON);
+            fail("migrate failed because a missing database was migrated");
+        } catch (IOException e) {
+        }
+        assertFalse("migrate failed because", Files.exists(missing));
+    }
+}